@@ -89,6 +89,8 @@ import com.google_voltpatches.common.primitives.Longs;
 
 import io.netty.handler.ssl.SslContext;
 
+import vanilla.java.affinity.impl.PosixJNAAffinity;
+
 /**
  * Host messenger contains all the code necessary to join a cluster mesh, and create mailboxes
  * that are addressable from anywhere within that mesh. Host messenger also provides
@@ -409,7 +411,8 @@ public class HostMessenger implements SocketJoiner.JoinHandler, InterfaceToMesse
             SslContext sslClientContext) {
         m_config = config;
         m_hostWatcher = hostWatcher;
-        m_network = new VoltNetworkPool(m_config.networkThreads, 0, m_config.coreBindIds, "Server");
+        m_network = new VoltNetworkPool(m_config.networkThreads, 0, m_config.coreBindIds, "Server",
+                PosixJNAAffinity.INSTANCE::setAffinity);
         m_acceptor = config.acceptor;
         //This ref is updated after the mesh decision is made.
         m_paused.set(m_config.startPause);
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.network.Connection;
+import org.voltcore.network.NIOReadStream;
 import org.voltcore.network.PicoNetwork;
 import org.voltcore.network.QueueMonitor;
 import org.voltcore.network.VoltProtocolHandler;
@@ -53,22 +54,61 @@ public class Subconnection {
 
     private static final VoltLogger hostLog = new VoltLogger("HOST");
 
+    /*
+     * Deserialize messages that fit in one network buffer straight from it instead of copying them
+     * to the heap first. Message types which keep references into their buffer are still copied.
+     */
+    static final boolean POOLED_READS = Boolean.getBoolean("INTRACLUSTER_POOLED_READS");
+
     /** Intra-cluster implementation of InputHandler */
     public class PicoInputHandler extends VoltProtocolHandler {
 
+        // Pooled buffer backing the message between retrieveNextMessage and handleMessage
+        private NIOReadStream.Slice m_currentSlice;
+
         @Override
         public int getMaxRead() {
             return Integer.MAX_VALUE;
         }
 
         @Override
-        public void handleMessage(ByteBuffer message, Connection c) throws IOException {
-            // if this link is "gone silent" for partition tests, just drop the message on the floor
-            if (m_linkCutForTest.get()) {
-                return;
+        public ByteBuffer retrieveNextMessage(final NIOReadStream inputStream) throws BadMessageLength {
+            if (!POOLED_READS) {
+                return super.retrieveNextMessage(inputStream);
+            }
+            assert(m_currentSlice == null);
+            final NIOReadStream.Slice slice = retrieveNextSlice(inputStream);
+            if (slice == null) {
+                return null;
             }
+            if (slice.bb.nioBufferCount() == 1) {
+                m_currentSlice = slice;
+                return slice.bb.nioBuffer();
+            }
+            // Spans network buffers, copy it out
+            ByteBuffer result = ByteBuffer.allocate(slice.bb.readableBytes());
+            slice.bb.readBytes(result);
+            result.flip();
+            slice.markConsumed().discard();
+            return result;
+        }
 
-            handleRead(message, c);
+        @Override
+        public void handleMessage(ByteBuffer message, Connection c) throws IOException {
+            final NIOReadStream.Slice slice = m_currentSlice;
+            m_currentSlice = null;
+            try {
+                // if this link is "gone silent" for partition tests, just drop the message on the floor
+                if (m_linkCutForTest.get()) {
+                    return;
+                }
+
+                handleRead(message, c, slice != null);
+            } finally {
+                if (slice != null) {
+                    slice.markConsumed().discard();
+                }
+            }
         }
 
         @Override
@@ -105,7 +145,7 @@ public class Subconnection {
      * data is available.
      * @throws IOException
      */
-    private void handleRead(ByteBuffer in, Connection c) throws IOException {
+    private void handleRead(ByteBuffer in, Connection c, boolean pooled) throws IOException {
         // port is locked by VoltNetwork when in valid use.
         // assert(m_port.m_lock.tryLock() == true);
         long recvDests[] = null;
@@ -154,7 +194,8 @@ public class Subconnection {
             recvDests[i] = in.getLong();
         }
 
-        final VoltMessage message =
+        final VoltMessage message = pooled ?
+            m_hostMessenger.getMessageFactory().createMessageFromPooledBuffer(in, sourceHSId) :
             m_hostMessenger.getMessageFactory().createMessageFromBuffer(in, sourceHSId);
 
         // ENG-1608.  We sniff for SiteFailureMessage here so
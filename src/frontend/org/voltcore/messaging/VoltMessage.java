@@ -34,6 +34,15 @@ public abstract class VoltMessage
     }
 
     protected abstract void initFromBuffer(ByteBuffer buf) throws IOException;
+
+    /**
+     * Whether the message may keep references into the buffer it was deserialized from. Messages
+     * that copy everything they need out of it can be deserialized straight from pooled network
+     * buffers which are recycled as soon as deserialization is done.
+     */
+    public boolean retainsDeserializationBuffer() {
+        return true;
+    }
     public abstract void flattenToBuffer(ByteBuffer buf) throws IOException;
 
     public static ByteBuffer toBuffer(VoltMessage message) throws IOException {
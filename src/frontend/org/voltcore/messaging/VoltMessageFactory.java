@@ -51,6 +51,31 @@ public class VoltMessageFactory {
         return message;
     }
 
+    /**
+     * Deserialize a message from a buffer that will be reused once this returns. Messages that
+     * don't retain their buffer are read in place, the rest are copied out of it first.
+     */
+    public VoltMessage createMessageFromPooledBuffer(ByteBuffer buffer, long sourceHSId)
+    throws IOException
+    {
+        byte type = buffer.get();
+
+        VoltMessage message = instantiate_local(type);
+        if (message == null)
+        {
+            message = instantiate(type);
+        }
+        message.m_sourceHSId = sourceHSId;
+        if (message.retainsDeserializationBuffer()) {
+            ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+            copy.put(buffer);
+            copy.flip();
+            buffer = copy;
+        }
+        message.initFromBuffer(buffer.slice().asReadOnlyBuffer());
+        return message;
+    }
+
     /**
      * Overridden by subclasses to create message types unknown by voltcore
      * @param messageType
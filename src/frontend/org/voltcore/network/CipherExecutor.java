@@ -48,6 +48,17 @@ public enum CipherExecutor {
     public final static int FRAME_SHIFT = 14; // 16384 (max TLS fragment)
     public final static int FRAME_SIZE = 1 << FRAME_SHIFT;
 
+    /**
+     * Cipher work on at most this many bytes is done on the submitting network
+     * thread, saving the hand off to the cipher service. Zero disables it
+     */
+    public final static int INLINE_CIPHER_BYTES = Integer.getInteger("TLS_INLINE_CIPHER_BYTES", 4096);
+    /**
+     * Number of queued frames a connection's cipher task may work through
+     * before it yields its thread to other connections
+     */
+    public final static int CIPHER_BATCH = Integer.getInteger("TLS_CIPHER_BATCH", 16);
+
     volatile ListeningExecutorService m_es;
     AtomicBoolean m_active = new AtomicBoolean(false);
     final int m_threadCount;
@@ -84,6 +95,21 @@ public enum CipherExecutor {
         }
     }
 
+    /**
+     * Like {@link #submit(Runnable)} but cipher work on no more than
+     * {@link #INLINE_CIPHER_BYTES} is executed in situ on the invoking thread
+     *
+     * @param r a {@link Runnable} task
+     * @param bytes number of bytes the task is going to encrypt or decrypt
+     * @return a {@link ListenableFuture} for the given task
+     */
+    final public ListenableFuture<?> submit(Runnable r, int bytes) {
+        if (bytes <= INLINE_CIPHER_BYTES) {
+            return CoreUtils.LISTENINGSAMETHREADEXECUTOR.submit(r);
+        }
+        return submit(r);
+    }
+
     /**
      * Guarantee execution of the given {@link Callable&lt;T&gt;} whether or not its
      * executor service is active. When it is not the {@link Callable&lt;T&gt;} is
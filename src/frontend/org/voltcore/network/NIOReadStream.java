@@ -52,6 +52,7 @@ import java.util.BitSet;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.voltcore.utils.DBBPool.BBContainer;
 
@@ -148,13 +149,15 @@ public class NIOReadStream {
             if (bytesToCopy > bytesRemaining) {
                 bytesToCopy = bytesRemaining;
             }
-            slices.add(new ContainerSlice(firstC, bytesToCopy));
+            slices.add(new ContainerSlice((SharedContainer) firstC, bytesToCopy));
             first.position(first.position() + bytesToCopy);
 
             bytesSliced += bytesToCopy;
             m_totalAvailable -= bytesToCopy;
             if (first.remaining() == 0) {
+                // The stream is done with it, the slices keep it until they are discarded
                 m_readBBContainers.poll();
+                firstC.discard();
             }
         }
         return new Slice(slices.build());
@@ -191,7 +194,7 @@ public class NIOReadStream {
             while (bytesRead < maxBytes && lastRead > 0) {
                 ByteBuffer poolBuffer = null;
                 if (m_poolBBContainer == null) {
-                    m_poolBBContainer = pool.acquire();
+                    m_poolBBContainer = new SharedContainer(pool.acquire());
                     poolBuffer = m_poolBBContainer.b();
                     poolBuffer.clear();
                 } else {
@@ -262,20 +265,58 @@ public class NIOReadStream {
         }
     }
 
+    /**
+     * Pooled read buffer shared by the stream and any {@link Slice}s of it, which may be
+     * discarded in any order and on other threads. It goes back to the pool when the
+     * stream has consumed all of it and every slice of it has been discarded.
+     */
+    private static final class SharedContainer extends BBContainer {
+        private final BBContainer m_original;
+        // one reference held by the stream, plus one per slice
+        private final AtomicInteger m_refCount = new AtomicInteger(1);
+
+        private SharedContainer(BBContainer original) {
+            super(original.b());
+            m_original = original;
+        }
+
+        private void retain() {
+            m_refCount.incrementAndGet();
+        }
+
+        /**
+         * @return true if this released the last reference
+         */
+        private boolean release() {
+            final int refCount = m_refCount.decrementAndGet();
+            assert(refCount >= 0);
+            if (refCount == 0) {
+                super.discard();
+                m_original.discard();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void discard() {
+            release();
+        }
+    }
+
     /**
      * Component class to {@link Slice} that encompasses a
      * {@link BBContainer}
      */
     private static final class ContainerSlice {
-        private final BBContainer bbc;
+        private final SharedContainer bbc;
         private final ByteBuffer bb;
-        private final boolean discard;
         private final int size;
-        private ContainerSlice(BBContainer bbc, final int size) {
-            discard = size == bbc.b().remaining();
+        private ContainerSlice(SharedContainer bbc, final int size) {
             ByteBuffer slice = bbc.b().slice();
             slice.limit(size);
             bb = slice;
+            bbc.retain();
             this.bbc = bbc;
             this.size = size;
         }
@@ -310,6 +351,10 @@ public class NIOReadStream {
             return this;
         }
 
+        /**
+         * Release the pooled buffers that have been read past
+         * @return number of buffers returned to the pool
+         */
         public int discard() {
             int discarded = 0;
             int size = 0;
@@ -317,10 +362,11 @@ public class NIOReadStream {
                 ContainerSlice slc = m_slices.get(i);
                 size += slc.size;
                 if (m_discarded.get(i)) continue;
-                if (slc.discard && bb.readerIndex() >= size) {
-                    slc.bbc.discard();
+                if (bb.readerIndex() >= size) {
                     m_discarded.set(i);
-                    discarded += 1;
+                    if (slc.bbc.release()) {
+                        discarded += 1;
+                    }
                 }
             }
             return discarded;
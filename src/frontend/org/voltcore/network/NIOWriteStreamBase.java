@@ -50,6 +50,8 @@ public abstract class NIOWriteStreamBase {
 
     protected long m_bytesWritten = 0;
     protected long m_messagesWritten = 0;
+    // Socket write calls, messages written over write calls is the number of messages per syscall
+    protected long m_writeCalls = 0;
 
     /*
      * Used to provide incremental reads of the amount of
@@ -59,7 +61,11 @@ public abstract class NIOWriteStreamBase {
      */
     private long m_lastBytesWritten = 0;
     private long m_lastMessagesWritten = 0;
+    private long m_lastWriteCalls = 0;
 
+    /**
+     * @return bytes written, messages written and socket write calls
+     */
     long[] getBytesAndMessagesWritten(boolean interval) {
         if (interval) {
             final long bytesWrittenThisTime = m_bytesWritten - m_lastBytesWritten;
@@ -67,9 +73,12 @@ public abstract class NIOWriteStreamBase {
 
             final long messagesWrittenThisTime = m_messagesWritten - m_lastMessagesWritten;
             m_lastMessagesWritten = m_messagesWritten;
-            return new long[] { bytesWrittenThisTime, messagesWrittenThisTime };
+
+            final long writeCallsThisTime = m_writeCalls - m_lastWriteCalls;
+            m_lastWriteCalls = m_writeCalls;
+            return new long[] { bytesWrittenThisTime, messagesWrittenThisTime, writeCallsThisTime };
         } else {
-            return new long[] {m_bytesWritten, m_messagesWritten};
+            return new long[] {m_bytesWritten, m_messagesWritten, m_writeCalls};
         }
     }
 
@@ -30,6 +30,8 @@ public class NetworkDBBPool {
 
     private final Queue<BBContainer> m_buffers;
     private final int m_allocationSize;
+    // Buffers still referenced by read slices may come back after the pool is cleared
+    private volatile boolean m_cleared = false;
 
     public NetworkDBBPool(int numBuffers) {
         this(numBuffers, SIZE);
@@ -55,6 +57,7 @@ public class NetworkDBBPool {
     }
 
     void clear() {
+        m_cleared = true;
         BBContainer cont = null;
         while ((cont = m_buffers.poll()) != null) {
             cont.discard();
@@ -72,7 +75,7 @@ public class NetworkDBBPool {
         @Override
         public void discard() {
             checkDoubleFree();
-            if (!m_buffers.offer(m_original)) {
+            if (m_cleared || !m_buffers.offer(m_original)) {
                 m_original.discard();
             }
         }
@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayDeque;
 
+import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
 
 /**
@@ -32,24 +33,68 @@ import org.voltcore.utils.DeferredSerialization;
 */
 public class PicoNIOWriteStream extends NIOWriteStreamBase {
 
+    /**
+     * Maximum number of buffers handed to the socket in one gathering write
+     */
+    static final int MAX_GATHER_BUFFERS = Integer.getInteger("PICO_NETWORK_MAX_GATHER_BUFFERS", 64);
+
     /**
      * Contains messages waiting to be serialized and written to the socket
      */
     private final ArrayDeque<DeferredSerialization> m_queuedWrites = new ArrayDeque<DeferredSerialization>();
 
+    /**
+     * Buffers taken off of m_queuedBuffers and flipped for writing, in the order they are written
+     */
+    private final ArrayDeque<BBContainer> m_writeBuffers = new ArrayDeque<BBContainer>();
+    private final ByteBuffer[] m_gather = new ByteBuffer[MAX_GATHER_BUFFERS];
+
     /*
      * Return the number of messages waiting to be written to the network
      */
     @Override
     public int getOutstandingMessageCount()
     {
-        return m_queuedWrites.size() + super.getOutstandingMessageCount();
+        return m_queuedWrites.size() + m_writeBuffers.size() + super.getOutstandingMessageCount();
     }
 
     @Override
     public boolean isEmpty()
     {
-        return super.isEmpty() && m_queuedWrites.isEmpty();
+        return super.isEmpty() && m_queuedWrites.isEmpty() && m_writeBuffers.isEmpty();
+    }
+
+    /**
+     * @return number of bytes serialized but not yet written to the socket
+     */
+    int getPendingBytes() {
+        int pending = 0;
+        for (BBContainer c : m_writeBuffers) {
+            pending += c.b().remaining();
+        }
+        // Queued buffers are not flipped yet
+        for (BBContainer c : m_queuedBuffers) {
+            pending += c.b().position();
+        }
+        return pending;
+    }
+
+    /**
+     * @return whether a previous write left data behind because the socket was full
+     */
+    boolean hasPartialWrite() {
+        return !m_writeBuffers.isEmpty();
+    }
+
+    /*
+     * Many messages share a buffer and many buffers share a write, so messages are counted as
+     * they are serialized for writing rather than per buffer written
+     */
+    @Override
+    int serializeQueuedWrites(final NetworkDBBPool pool) throws IOException {
+        final int processed = super.serializeQueuedWrites(pool);
+        m_messagesWritten += processed;
+        return processed;
     }
 
     @Override
@@ -64,6 +109,10 @@ public class PicoNIOWriteStream extends NIOWriteStreamBase {
     @Override
     synchronized void shutdown() {
         super.shutdown();
+        BBContainer c = null;
+        while ((c = m_writeBuffers.poll()) != null) {
+            c.discard();
+        }
         DeferredSerialization ds = null;
         while ((ds = m_queuedWrites.poll()) != null) {
             ds.cancel();
@@ -74,7 +123,8 @@ public class PicoNIOWriteStream extends NIOWriteStreamBase {
     protected void updateQueued(int queued, boolean noBackpressureSignal) {}
 
     /**
-     * Drain pending buffers one at a time into the socket
+     * Drain pending buffers into the socket, handing as many of them as possible to each
+     * gathering write so a batch of messages costs one syscall
      * @param channel
      * @return
      * @throws IOException
@@ -84,29 +134,31 @@ public class PicoNIOWriteStream extends NIOWriteStreamBase {
         int bytesWritten = 0;
         long rc = 0;
         do {
+            // Flip serialized buffers, the last one is no longer appended to once it is off the queue
+            BBContainer queued = null;
+            while (m_writeBuffers.size() < MAX_GATHER_BUFFERS && (queued = m_queuedBuffers.poll()) != null) {
+                queued.b().flip();
+                m_writeBuffers.offer(queued);
+            }
+
             /*
              * Nothing to write
              */
-            if (m_currentWriteBuffer == null && m_queuedBuffers.isEmpty()) {
+            if (m_writeBuffers.isEmpty()) {
                 break;
             }
 
-            ByteBuffer buffer = null;
-            if (m_currentWriteBuffer == null) {
-                m_currentWriteBuffer = m_queuedBuffers.poll();
-                buffer = m_currentWriteBuffer.b();
-                buffer.flip();
-            } else {
-                buffer = m_currentWriteBuffer.b();
+            int count = 0;
+            for (BBContainer c : m_writeBuffers) {
+                m_gather[count++] = c.b();
             }
+            rc = channel.write(m_gather, 0, count);
+            m_writeCalls++;
 
-            rc = channel.write(buffer);
-
-            //Discard the buffer back to a pool if no data remains
-            if (!buffer.hasRemaining()) {
-                m_currentWriteBuffer.discard();
-                m_currentWriteBuffer = null;
-                m_messagesWritten++;
+            //Discard buffers back to the pool if no data remains
+            BBContainer written = null;
+            while ((written = m_writeBuffers.peek()) != null && !written.b().hasRemaining()) {
+                m_writeBuffers.poll().discard();
             }
             bytesWritten += rc;
 
@@ -79,6 +79,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.network.VoltNetworkPool.IOStatsIntf;
@@ -97,6 +98,16 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
     private static final VoltLogger m_logger = new VoltLogger(VoltNetwork.class.getName());
     protected static final VoltLogger networkLog = new VoltLogger("NETWORK");
 
+    /*
+     * Outbound messages are serialized back to back into pooled buffers and written with one gathering
+     * write. By default whatever is queued is written on every pass through the selector loop. A flush
+     * delay holds small batches back for up to that long, or until the flush size is reached, so more
+     * messages share a syscall at the cost of that much latency.
+     */
+    private static final long FLUSH_DELAY_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(Integer.getInteger("PICO_NETWORK_FLUSH_DELAY_US", 0));
+    private static final int FLUSH_BYTES = Integer.getInteger("PICO_NETWORK_FLUSH_BYTES", 1024 * 64);
+
     protected final Selector m_selector;
     protected final NetworkDBBPool m_pool = new NetworkDBBPool(64);
     protected final NIOReadStream m_readStream = new NIOReadStream();
@@ -109,7 +120,7 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
     protected final SelectionKey m_key;
     protected InputHandler m_ih;
 
-    private final Thread m_thread;
+    protected final Thread m_thread;
     volatile String m_remoteHostname = null;
     final InetSocketAddress m_remoteSocketAddress;
     final String m_remoteSocketAddressString;
@@ -283,11 +294,23 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
         return read;
     }
 
+    // When the oldest serialized but unwritten message was queued, 0 if there is none being held
+    private long m_holdStartNanos = 0;
+
     protected void drainWriteStream() throws IOException {
+        drainWriteStream(false);
+    }
+
+    protected void drainWriteStream(boolean force) throws IOException {
         /*
          * Drain the write stream
          */
         if (m_writeStream.serializeQueuedWrites(m_pool) != 0) m_hadWork = true;
+        if (!force && holdForBatch()) {
+            // Keep polling without blocking until the batch is flushed
+            m_hadWork = true;
+            return;
+        }
         if (m_writeStream.drainTo(m_sc) > 0) m_hadWork = true;
         if (m_writeStream.isEmpty()) {
             disableWriteSelection();
@@ -301,6 +324,26 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
         }
     }
 
+    private boolean holdForBatch() {
+        if (FLUSH_DELAY_NANOS == 0 || m_shouldStop || m_writeStream.hasPartialWrite()) {
+            return false;
+        }
+        final int pending = m_writeStream.getPendingBytes();
+        if (pending == 0) {
+            m_holdStartNanos = 0;
+            return false;
+        }
+        final long now = System.nanoTime();
+        if (m_holdStartNanos == 0) {
+            m_holdStartNanos = now;
+        }
+        if (pending >= FLUSH_BYTES || now - m_holdStartNanos >= FLUSH_DELAY_NANOS) {
+            m_holdStartNanos = 0;
+            return false;
+        }
+        return true;
+    }
+
     private boolean m_alreadyStopped = false;
     private void safeStopped() {
         if (!m_alreadyStopped) {
@@ -393,7 +436,8 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
                                     read,
                                     messagesRead,
                                     writeInfo[0],
-                                    writeInfo[1]}));
+                                    writeInfo[1],
+                                    writeInfo[2]}));
             retval.put(
                     -1L,
                     Pair.of(
@@ -402,7 +446,8 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
                                     read,
                                     messagesRead,
                                     writeInfo[0],
-                                    writeInfo[1] }));
+                                    writeInfo[1],
+                                    writeInfo[2] }));
             return retval;
     }
 
@@ -530,7 +575,7 @@ public class PicoNetwork implements Runnable, Connection, IOStatsIntf
         Callable<Void> task = new Callable<Void>() {
             public Void call() throws Exception {
                 m_writeStream.enqueue(buf);
-                drainWriteStream();
+                drainWriteStream(true);
                 return null;
             }
         };
@@ -21,6 +21,8 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -110,15 +112,22 @@ public class TLSDecryptionAdapter {
                 }
                 if (readBytes > 0) {
                     ByteBuf frameHeader = Unpooled.wrappedBuffer(new byte[TLS_HEADER_SIZE]);
+                    // all the frames of one read go to the decryption gateway together
+                    List<NIOReadStream.Slice> frames = new ArrayList<>();
+                    int frameBytes = 0;
                     while (readStream.dataAvailable() >= TLS_HEADER_SIZE) {
                         readStream.peekBytes(frameHeader.array());
                         m_needed = frameHeader.getShort(3) + TLS_HEADER_SIZE;
                         if (readStream.dataAvailable() < m_needed) {
                             break;
                         }
-                        m_dcryptgw.offer(readStream.getSlice(m_needed));
+                        frames.add(readStream.getSlice(m_needed));
+                        frameBytes += m_needed;
                         m_needed = NOT_AVAILABLE;
                     }
+                    if (!frames.isEmpty()) {
+                        m_dcryptgw.offer(frames, frameBytes);
+                    }
                 }
             }
         }
@@ -220,7 +229,9 @@ public class TLSDecryptionAdapter {
      * it takes a view of the incoming queued buffers (that may span two BBContainers)
      * and decrypts them. It uses the assembler to gather all frames that comprise
      * a frame spanning message, otherwise it will enqueue decrypted messages to
-     * the m_descrypted queue.
+     * the m_descrypted queue. A task works through up to
+     * {@link CipherExecutor#CIPHER_BATCH} queued frames before it hands its
+     * thread back.
      */
     class DecryptionGateway implements Runnable {
 
@@ -228,17 +239,19 @@ public class TLSDecryptionAdapter {
         private final ConcurrentLinkedDeque<NIOReadStream.Slice> m_q = new ConcurrentLinkedDeque<>();
         private final CompositeByteBuf m_msgbb = Unpooled.compositeBuffer();
 
-        synchronized void offer(NIOReadStream.Slice slice) {
+        synchronized void offer(List<NIOReadStream.Slice> slices, int bytes) {
             if (isDead()) {
-                slice.markConsumed().discard();
+                for (NIOReadStream.Slice slice : slices) {
+                    slice.markConsumed().discard();
+                }
                 return;
             }
             final boolean wasEmpty = m_q.isEmpty();
-            m_q.offer(slice);
+            m_q.addAll(slices);
+            m_inFlight.reducePermits(slices.size());
             if (wasEmpty) {
-                submitSelf();
+                submitSelf(bytes);
             }
-            m_inFlight.reducePermits(1);
         }
 
         synchronized void die() {
@@ -271,9 +284,25 @@ public class TLSDecryptionAdapter {
 
         @Override
         public void run() {
+            for (int i = 0; i < CipherExecutor.CIPHER_BATCH; ++i) {
+                if (!decryptNext()) {
+                    return;
+                }
+            }
+            synchronized(this) {
+                if (m_q.peek() != null) {
+                    submitSelf(Integer.MAX_VALUE);
+                }
+            }
+        }
+
+        /**
+         * @return true if there are more frames left to decrypt
+         */
+        private boolean decryptNext() {
             final NIOReadStream.Slice slice = m_q.peek();
             if (slice == null) {
-                return;
+                return false;
             }
 
             ByteBuf src = slice.bb;
@@ -283,7 +312,7 @@ public class TLSDecryptionAdapter {
                     slice.markConsumed().discard();
                     m_q.poll();
                     releaseDecryptedBuffer();
-                    return;
+                    return false;
                 }
             }
 
@@ -307,7 +336,7 @@ public class TLSDecryptionAdapter {
                 networkLog.error("isDead()=" + isDead() + ", Src buffer original length: " + srcBBLength +
                         ", Length after decrypt operation: " + slicebbarr[0].remaining());
                 m_connection.enableWriteSelection();
-                return;
+                return false;
             }
             assert !slicebbarr[0].hasRemaining() : "decrypter did not wholly consume the source buffer";
 
@@ -353,14 +382,12 @@ public class TLSDecryptionAdapter {
                 m_q.poll();
                 slice.markConsumed().discard();
                 m_inFlight.release();
-                if (m_q.peek() != null) {
-                    submitSelf();
-                }
+                return m_q.peek() != null;
             }
         }
 
-        void submitSelf() {
-            ListenableFuture<?> fut = m_ce.submit(this);
+        void submitSelf(int bytes) {
+            ListenableFuture<?> fut = m_ce.submit(this, bytes);
             fut.addListener(new ExceptionListener(fut), CoreUtils.LISTENINGSAMETHREADEXECUTOR);
         }
 
@@ -21,7 +21,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -38,6 +42,7 @@ import org.voltcore.utils.ssl.SSLBufferEncrypter;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 
 public class TLSEncryptionAdapter {
     private static final VoltLogger s_networkLog = new VoltLogger("NETWORK");
@@ -83,6 +88,8 @@ public class TLSEncryptionAdapter {
 
     public Pair<Integer, Integer> encryptBuffers(Deque<DeferredSerialization> buffersToEncrypt, int frameMax) throws IOException {
         ByteBuf accum = m_ce.allocator().buffer(frameMax).clear();
+        // frames are handed to the encryption gateway together once they are all serialized
+        final List<SerializedMessages> frames = new ArrayList<>();
 
         int processedWrites = 0;
         DeferredSerialization ds = null;
@@ -101,7 +108,7 @@ public class TLSEncryptionAdapter {
                 // partial parts of one message. a message may not contain whole
                 // messages and an incomplete partial fragment of one
                 if (accum.writerIndex() > 0) {
-                    m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
+                    frames.add(new SerializedMessages(accum, frameMsgs));
                     frameMsgs = 0;
                     bytesQueued += accum.writerIndex();
                     accum = m_ce.allocator().buffer(frameMax).clear();
@@ -111,11 +118,11 @@ public class TLSEncryptionAdapter {
                 ds.serialize(jbb);
                 NIOWriteStreamBase.checkSloppySerialization(jbb, ds);
                 bytesQueued += big.writerIndex();
-                m_ecryptgw.offer(new SerializedMessages(big, 1));
+                frames.add(new SerializedMessages(big, 1));
                 frameMsgs = 0;
                 continue;
             } else if (accum.writerIndex() + serializedSize > frameMax) {
-                m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
+                frames.add(new SerializedMessages(accum, frameMsgs));
                 frameMsgs = 0;
                 bytesQueued += accum.writerIndex();
                 accum = m_ce.allocator().buffer(frameMax).clear();
@@ -128,11 +135,14 @@ public class TLSEncryptionAdapter {
             ++frameMsgs;
         }
         if (accum.writerIndex() > 0) {
-            m_ecryptgw.offer(new SerializedMessages(accum, frameMsgs));
+            frames.add(new SerializedMessages(accum, frameMsgs));
             bytesQueued += accum.writerIndex();
         } else {
             accum.release();
         }
+        if (!frames.isEmpty()) {
+            m_ecryptgw.offer(frames, bytesQueued);
+        }
 
         return new Pair<Integer, Integer>(processedWrites, bytesQueued);
     }
@@ -165,11 +175,13 @@ public class TLSEncryptionAdapter {
         final int encryptedBytesDelta;
         final long bytesWritten;
         final int messagesWritten;
+        final int writeCalls;
 
-        public EncryptLedger(int delta, long bytesWritten, int messagesWritten) {
+        public EncryptLedger(int delta, long bytesWritten, int messagesWritten, int writeCalls) {
             this.encryptedBytesDelta = delta;
             this.bytesWritten = bytesWritten;
             this.messagesWritten = messagesWritten;
+            this.writeCalls = writeCalls;
         }
     }
 
@@ -179,6 +191,7 @@ public class TLSEncryptionAdapter {
         int delta = 0;
         int bytesWritten = 0;
         int messagesWritten = 0;
+        int writeCalls = 0;
 
         while (true) {
             if (m_inflightMessages == null) {
@@ -190,6 +203,7 @@ public class TLSEncryptionAdapter {
             }
 
             bytesWritten += m_inflightMessages.write(channel);
+            writeCalls++;
             if (m_inflightMessages.m_messages.isReadable()) {
                 break;
             }
@@ -199,7 +213,7 @@ public class TLSEncryptionAdapter {
             m_inflightMessages = null;
         }
 
-        return new EncryptLedger(delta, bytesWritten, messagesWritten);
+        return new EncryptLedger(delta, bytesWritten, messagesWritten, writeCalls);
     }
 
     // Called from synchronized block only
@@ -278,19 +292,22 @@ public class TLSEncryptionAdapter {
      * it takes an encryption request offer, divides it into chunks that
      * can be handled wholly by SSLEngine wrap, and queues all the
      * encrypted frames to the m_encrypted queue. All faults are queued
-     * to the m_exceptions queue
+     * to the m_exceptions queue. Small frames that queue up behind each
+     * other are encrypted together into one TLS record, and a task works
+     * through up to {@link CipherExecutor#CIPHER_BATCH} frames before it
+     * hands its thread back
      */
     class EncryptionGateway implements Runnable {
         private final ConcurrentLinkedDeque<SerializedMessages> m_q = new ConcurrentLinkedDeque<>();
 
-        synchronized void offer(SerializedMessages frame) {
+        synchronized void offer(List<SerializedMessages> frames, int bytes) {
             final boolean wasEmpty = m_q.isEmpty();
 
-            m_q.add(frame);
-            m_inFlight.reducePermits(1);
+            m_q.addAll(frames);
+            m_inFlight.reducePermits(frames.size());
 
             if (wasEmpty) {
-                submitSelf();
+                submitSelf(bytes);
             }
         }
 
@@ -311,28 +328,93 @@ public class TLSEncryptionAdapter {
 
         @Override
         public void run() {
-            SerializedMessages messages = m_q.peek();
-            if (messages == null) {
-                return;
+            for (int i = 0; i < CipherExecutor.CIPHER_BATCH; ++i) {
+                if (!encryptNext()) {
+                    return;
+                }
+            }
+            synchronized(this) {
+                if (m_q.peek() != null && !m_isShutdown) {
+                    submitSelf(Integer.MAX_VALUE);
+                }
+            }
+        }
+
+        /**
+         * Gather the frame at the head of the queue and the frames behind it
+         * that still fit in the same TLS record. They stay queued until they
+         * are encrypted
+         */
+        private List<SerializedMessages> nextRecord() {
+            final Iterator<SerializedMessages> itr = m_q.iterator();
+            if (!itr.hasNext()) {
+                return Collections.emptyList();
+            }
+            final SerializedMessages head = itr.next();
+            final int recordMax = Math.min(CipherExecutor.FRAME_SIZE, applicationBufferSize());
+            int bytes = head.m_messages.readableBytes();
+            if (bytes >= recordMax || !itr.hasNext()) {
+                return Collections.singletonList(head);
+            }
+            List<SerializedMessages> record = new ArrayList<>();
+            record.add(head);
+            while (itr.hasNext()) {
+                SerializedMessages next = itr.next();
+                bytes += next.m_messages.readableBytes();
+                if (bytes > recordMax) {
+                    break;
+                }
+                record.add(next);
+            }
+            return record;
+        }
+
+        /**
+         * @return true if there are more frames left to encrypt
+         */
+        private boolean encryptNext() {
+            final List<SerializedMessages> record = nextRecord();
+            if (record.isEmpty()) {
+                return false;
             }
 
             try {
-                int clearTextSize = messages.m_messages.readableBytes();
+                int clearTextSize = 0;
+                int count = 0;
+                ByteBuf clearText;
+                if (record.size() == 1) {
+                    clearText = record.get(0).m_messages;
+                } else {
+                    CompositeByteBuf composite = m_ce.allocator().compositeBuffer(record.size());
+                    for (SerializedMessages messages : record) {
+                        composite.addComponent(true, messages.m_messages.retainedDuplicate());
+                    }
+                    clearText = composite;
+                }
+                for (SerializedMessages messages : record) {
+                    clearTextSize += messages.m_messages.readableBytes();
+                    count += messages.m_count;
+                }
+
                 ByteBuf encr;
                 try {
-                    encr = m_encrypter.tlswrap(messages.m_messages, m_ce.allocator());
+                    encr = m_encrypter.tlswrap(clearText, m_ce.allocator());
                 } catch (TLSException e) {
                     m_exceptions.offer(new ExecutionException("failed to encrypt frame", e));
                     m_connection.enableWriteSelection();
-                    return;
+                    return false;
+                } finally {
+                    if (record.size() > 1) {
+                        clearText.release();
+                    }
                 }
 
                 if (m_isShutdown) {
                     encr.release();
-                    return;
+                    return false;
                 }
 
-                m_encryptedQueue.offer(new EncryptedMessages(encr, messages.m_count, clearTextSize));
+                m_encryptedQueue.offer(new EncryptedMessages(encr, count, clearTextSize));
 
                 /*
                  * All interactions with write stream must be protected with a lock to ensure that interests ops are
@@ -345,18 +427,20 @@ public class TLSEncryptionAdapter {
                     // If the connection gets closed for some reason we will get this error.
                     // OK to ignore and return immediately
                     s_networkLog.debug("CancelledKeyException while trying to enable write", e);
-                    return;
+                    return false;
                 }
             } finally {
-                messages.m_messages.release();
-                m_inFlight.release();
+                for (SerializedMessages messages : record) {
+                    messages.m_messages.release();
+                    m_inFlight.release();
+                }
             }
 
             synchronized(this) {
-                m_q.poll();
-                if (m_q.peek() != null && !m_isShutdown) {
-                    submitSelf();
+                for (int i = 0; i < record.size(); ++i) {
+                    m_q.poll();
                 }
+                return m_q.peek() != null && !m_isShutdown;
             }
         }
 
@@ -364,8 +448,8 @@ public class TLSEncryptionAdapter {
             return m_q.isEmpty();
         }
 
-        void submitSelf() {
-            ListenableFuture<?> fut = m_ce.submit(this);
+        void submitSelf(int bytes) {
+            ListenableFuture<?> fut = m_ce.submit(this, bytes);
             fut.addListener(new ExceptionListener(fut), CoreUtils.LISTENINGSAMETHREADEXECUTOR);
         }
     }
@@ -68,6 +68,7 @@ public class TLSPicoNIOWriteStream extends PicoNIOWriteStream {
                 ledger = m_tlsEncryptionAdapter.drainEncryptedMessages(channel);
                 totalWritten += ledger.bytesWritten;
                 m_messagesWritten += ledger.messagesWritten;
+                m_writeCalls += ledger.writeCalls;
             } while (ledger.bytesWritten > 0);
         } finally {
             if (totalWritten > 0) {
@@ -77,6 +78,20 @@ public class TLSPicoNIOWriteStream extends PicoNIOWriteStream {
         return totalWritten;
     }
 
+    /**
+     * Also covers frames still being encrypted or not yet wholly written, so
+     * that the network keeps write selection on until they are
+     */
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && m_tlsEncryptionAdapter.isEmpty();
+    }
+
+    @Override
+    boolean hasPartialWrite() {
+        return m_tlsEncryptionAdapter.hasOutstandingData();
+    }
+
     @Override
     synchronized void shutdown() {
         super.shutdown();
@@ -118,6 +118,19 @@ public class TLSPicoNetwork extends PicoNetwork
         }
     }
 
+    /**
+     * Encrypt and decrypt tasks that finish on a cipher service thread signal
+     * through here. The interest change alone does not reach a selector that is
+     * already blocked, so wake it up to pick up their results
+     */
+    @Override
+    public void enableWriteSelection() {
+        super.enableWriteSelection();
+        if (Thread.currentThread() != m_thread) {
+            m_selector.wakeup();
+        }
+    }
+
     protected void safeStopping() {
         // It is OK if this is called multiple times.
         // So we can skip the m_isStopping checks in parent class.
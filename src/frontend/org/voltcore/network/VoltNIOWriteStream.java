@@ -340,6 +340,7 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
                 }
 
                 rc = channel.write(buffer);
+                m_writeCalls++;
 
                 //Discard the buffer back to a pool if no data remains
                 if (buffer.hasRemaining()) {
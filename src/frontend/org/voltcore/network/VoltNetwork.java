@@ -80,6 +80,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import javax.net.ssl.SSLEngine;
 
@@ -106,6 +107,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
     private final AtomicInteger m_numPorts = new AtomicInteger();
     final NetworkDBBPool m_pool = new NetworkDBBPool();
     private final String m_coreBindId;
+    private final Consumer<String> m_coreBinder;
     final String networkThreadName;
 
     private final NinjaKeySet m_ninjaSelectedKeys;
@@ -123,10 +125,19 @@ class VoltNetwork implements Runnable, IOStatsIntf
      * and runOnce should be called periodically
      **/
     VoltNetwork(int networkId, String coreBindId, String networkName) {
+        this(networkId, coreBindId, networkName, null);
+    }
+
+    /**
+     * @param coreBinder pins the calling thread to the cpus named by {@code coreBindId},
+     *                   or null to leave the network thread unpinned
+     */
+    VoltNetwork(int networkId, String coreBindId, String networkName, Consumer<String> coreBinder) {
         m_thread = new Thread(this, "Volt " + networkName + " Network - " + networkId);
         networkThreadName = new String("Volt " + networkName + " Network - " + networkId);
         m_thread.setDaemon(true);
         m_coreBindId = coreBindId;
+        m_coreBinder = coreBinder;
         try {
             m_selector = Selector.open();
         } catch (IOException ex) {
@@ -140,6 +151,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
         m_thread = null;
         m_selector = s;
         m_coreBindId = null;
+        m_coreBinder = null;
         networkThreadName = new String("Test Selector Thread");
         m_ninjaSelectedKeys = NinjaKeySet.instrumentSelector(m_selector);
     }
@@ -302,10 +314,9 @@ class VoltNetwork implements Runnable, IOStatsIntf
     @Override
     public void run() {
         final ThreadLocalRandom r = ThreadLocalRandom.current();
-        if (m_coreBindId != null) {
-            // Remove Affinity for now to make this dependency dissapear from the client.
-            // Goal is to remove client dependency on this class in the medium term.
-            //PosixJNAAffinity.INSTANCE.setAffinity(m_coreBindId);
+        if (m_coreBindId != null && m_coreBinder != null) {
+            // The binder comes from the server so that the client library does not depend on JNA
+            m_coreBinder.accept(m_coreBindId);
         }
         try {
             while (m_shouldStop == false) {
@@ -505,6 +516,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
         long totalMessagesRead = 0;
         long totalWritten = 0;
         long totalMessagesWritten = 0;
+        long totalWriteCalls = 0;
         for (VoltPort p : m_ports) {
             final long read = p.readStream().getBytesRead(interval);
             final long writeInfo[] = p.writeStream().getBytesAndMessagesWritten(interval);
@@ -513,6 +525,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
             totalMessagesRead += messagesRead;
             totalWritten += writeInfo[0];
             totalMessagesWritten += writeInfo[1];
+            totalWriteCalls += writeInfo[2];
             retval.put(
                     p.connectionId(),
                     Pair.of(
@@ -521,7 +534,8 @@ class VoltNetwork implements Runnable, IOStatsIntf
                                     read,
                                     messagesRead,
                                     writeInfo[0],
-                                    writeInfo[1] }));
+                                    writeInfo[1],
+                                    writeInfo[2] }));
         }
         retval.put(
                 -1L,
@@ -531,7 +545,8 @@ class VoltNetwork implements Runnable, IOStatsIntf
                                 totalRead,
                                 totalMessagesRead,
                                 totalWritten,
-                                totalMessagesWritten }));
+                                totalMessagesWritten,
+                                totalWriteCalls }));
         return retval;
     }
 
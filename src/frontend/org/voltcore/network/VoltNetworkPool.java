@@ -33,6 +33,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import javax.net.ssl.SSLEngine;
 
@@ -56,6 +57,15 @@ public class VoltNetworkPool {
     }
 
     public VoltNetworkPool(int numThreads, int startThreadId, Queue<String> coreBindIds, String poolName) {
+        this(numThreads, startThreadId, coreBindIds, poolName, null);
+    }
+
+    /**
+     * @param coreBinder when not null each network thread given a core bind id pins
+     *                   itself with it, so it stays next to the site threads it feeds
+     */
+    public VoltNetworkPool(int numThreads, int startThreadId, Queue<String> coreBindIds, String poolName,
+            Consumer<String> coreBinder) {
         m_poolName = poolName;
         if (numThreads < 1) {
             throw new IllegalArgumentException("Must specify a positive number of threads");
@@ -64,14 +74,14 @@ public class VoltNetworkPool {
             m_networks = new VoltNetwork[numThreads];
             for (int ii = 0; ii < numThreads; ii++) {
                 // Adding startThreadId avoids unnecessary polling for non-Server VoltNetworkPools
-                m_networks[ii] = new VoltNetwork(ii+startThreadId, null, poolName);
+                m_networks[ii] = new VoltNetwork(ii+startThreadId, null, poolName, coreBinder);
             }
         } else {
             final int coreBindIdsSize = coreBindIds.size();
             m_networks = new VoltNetwork[coreBindIdsSize];
             for (int ii = 0; ii < coreBindIdsSize; ii++) {
                 // Adding startThreadId avoids unnecessary polling for non-Server VoltNetworkPools
-                m_networks[ii] = new VoltNetwork(ii+startThreadId, coreBindIds.poll(), poolName);
+                m_networks[ii] = new VoltNetwork(ii+startThreadId, coreBindIds.poll(), poolName, coreBinder);
             }
         }
     }
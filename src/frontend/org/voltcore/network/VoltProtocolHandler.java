@@ -28,7 +28,7 @@ public abstract class VoltProtocolHandler implements InputHandler {
     private static AtomicLong m_globalConnectionCounter = new AtomicLong(0);
 
     /** The distinct exception class allows better logging of these unexpected errors. */
-    class BadMessageLength extends IOException {
+    public class BadMessageLength extends IOException {
         private static final long serialVersionUID = 8547352379044459911L;
         public BadMessageLength(String string) {
             super(string);
@@ -71,10 +71,28 @@ public abstract class VoltProtocolHandler implements InputHandler {
         return result;
     }
 
+    /**
+     * Like {@link #retrieveNextMessage(NIOReadStream)} but without copying the message out of the
+     * read stream's pooled buffers. The caller must discard the slice once it is done with it.
+     */
+    public NIOReadStream.Slice retrieveNextSlice(final NIOReadStream inputStream) throws BadMessageLength {
+        NIOReadStream.Slice result = null;
+
+        if (m_nextLength == 0 && inputStream.dataAvailable() > (Integer.SIZE/8)) {
+            m_nextLength = inputStream.getInt();
+            checkMessageLength();
+        }
+        if (m_nextLength > 0 && inputStream.dataAvailable() >= m_nextLength) {
+            result = inputStream.getSlice(m_nextLength);
+            m_nextLength = 0;
+        }
+        return result;
+    }
+
     @Override
     public ByteBuffer retrieveNextMessage(CompositeByteBuf inputBB) throws BadMessageLength {
         ByteBuffer result = null;
-        if (m_nextLength == 0 && inputBB.readableBytes() > (Integer.SIZE/8)) {
+        if (m_nextLength == 0 && inputBB.readableBytes() >= (Integer.SIZE/8)) {
             m_nextLength = inputBB.readInt();
             checkMessageLength();
         }
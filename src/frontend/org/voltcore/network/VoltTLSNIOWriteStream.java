@@ -82,6 +82,7 @@ public class VoltTLSNIOWriteStream extends VoltNIOWriteStream {
                 delta += ledger.encryptedBytesDelta;
                 totalWritten += ledger.bytesWritten;
                 m_messagesWritten += ledger.messagesWritten;
+                m_writeCalls += ledger.writeCalls;
                 if (m_tlsEncryptAdapter.hasOutstandingData()) {
                     if (!m_hadBackPressure) {
                         backpressureStarted();
@@ -0,0 +1,44 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+/**
+ * Lookup of the server side {@link CompressionStrategy} implementations. Kept apart from
+ * {@code CompressionStrategy}, which is also built into the client, so that the client does
+ * not depend on the compression libraries.
+ */
+public final class CompressionStrategies {
+
+    private CompressionStrategies() {
+    }
+
+    /**
+     * Look up a strategy by its {@link CompressionStrategy#name()}, ignoring case
+     *
+     * @throws IllegalArgumentException if there is no strategy with that name
+     */
+    public static CompressionStrategy forName(String name) {
+        if (CompressionStrategySnappy.INSTANCE.name().equalsIgnoreCase(name)) {
+            return CompressionStrategySnappy.INSTANCE;
+        }
+        if (CompressionStrategyLZ4.INSTANCE.name().equalsIgnoreCase(name)) {
+            return CompressionStrategyLZ4.INSTANCE;
+        }
+        throw new IllegalArgumentException("Unknown compression strategy: " + name);
+    }
+}
@@ -18,14 +18,31 @@
 package org.voltcore.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 /**
- * Utility class for accessing a variety of com.sun.misc.Unsafe stuff
+ * A compression algorithm. The byte array methods produce self contained output, the buffer methods work on
+ * direct buffers and follow the conventions of {@code Snappy}: data is read from the input between position
+ * and limit, written to the output starting at its position, and the output limit is set to the end of the
+ * written data. Neither position is moved.
  */
 public abstract class CompressionStrategy {
 
     public abstract byte[] compress(byte data[]) throws IOException;
     public abstract byte[] uncompress(byte data[]) throws IOException;
 
+    /**
+     * @return name used to select this strategy in configuration and to record it next to compressed data
+     */
+    public abstract String name();
+
+    public abstract int maxCompressedLength(int uncompressedSize);
+
+    public abstract int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException;
+
+    public abstract int uncompressedLength(ByteBuffer compressed) throws IOException;
+
+    public abstract int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
+
 }
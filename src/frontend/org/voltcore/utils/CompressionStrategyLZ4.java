@@ -0,0 +1,141 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+
+/**
+ * LZ4 block compression. LZ4 compresses faster than Snappy at a similar ratio, which helps when the disk is
+ * faster than compression. LZ4 blocks don't record their uncompressed length, so it is stored as a 4 byte prefix.
+ * The bound returned by {@link #maxCompressedLength(int)} never exceeds the Snappy bound, buffers sized for
+ * Snappy output can hold LZ4 output.
+ */
+public class CompressionStrategyLZ4 extends CompressionStrategy {
+
+    public static final CompressionStrategyLZ4 INSTANCE = new CompressionStrategyLZ4();
+
+    private static final int LENGTH_PREFIX = 4;
+
+    private final LZ4Compressor m_compressor;
+    private final LZ4FastDecompressor m_decompressor;
+
+    private CompressionStrategyLZ4() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        m_compressor = factory.fastCompressor();
+        m_decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] compress(byte data[]) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(maxCompressedLength(data.length));
+        compressed.putInt(data.length);
+        int length = m_compressor.compress(data, 0, data.length, compressed.array(), LENGTH_PREFIX,
+                compressed.capacity() - LENGTH_PREFIX);
+        byte result[] = new byte[LENGTH_PREFIX + length];
+        System.arraycopy(compressed.array(), 0, result, 0, result.length);
+        return result;
+    }
+
+    @Override
+    public byte[] uncompress(byte data[]) throws IOException {
+        ByteBuffer compressed = ByteBuffer.wrap(data);
+        byte result[] = new byte[uncompressedLength(compressed)];
+        try {
+            m_decompressor.decompress(data, LENGTH_PREFIX, result, 0, result.length);
+        } catch (LZ4Exception e) {
+            throw new IOException("Corrupt LZ4 data", e);
+        }
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "lz4";
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedSize) {
+        return LENGTH_PREFIX + m_compressor.maxCompressedLength(uncompressedSize);
+    }
+
+    @Override
+    public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+        final int start = compressed.position();
+        if (compressed.remaining() < LENGTH_PREFIX) {
+            throw new IOException("Output buffer too small for LZ4 data");
+        }
+        putLength(compressed, start, uncompressed.remaining());
+        final int length;
+        try {
+            length = m_compressor.compress(uncompressed, uncompressed.position(), uncompressed.remaining(),
+                    compressed, start + LENGTH_PREFIX, compressed.remaining() - LENGTH_PREFIX);
+        } catch (LZ4Exception e) {
+            throw new IOException("Output buffer too small for LZ4 data", e);
+        }
+        compressed.limit(start + LENGTH_PREFIX + length);
+        return LENGTH_PREFIX + length;
+    }
+
+    @Override
+    public int uncompressedLength(ByteBuffer compressed) throws IOException {
+        if (compressed.remaining() < LENGTH_PREFIX) {
+            throw new IOException("Truncated LZ4 data");
+        }
+        final int length = getLength(compressed, compressed.position());
+        if (length < 0) {
+            throw new IOException("Corrupt LZ4 data, negative length " + length);
+        }
+        return length;
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+        final int length = uncompressedLength(compressed);
+        final int start = uncompressed.position();
+        if (uncompressed.capacity() - start < length) {
+            throw new IOException("Output buffer too small for " + length + " bytes of LZ4 data");
+        }
+        try {
+            m_decompressor.decompress(compressed, compressed.position() + LENGTH_PREFIX, uncompressed, start, length);
+        } catch (LZ4Exception e) {
+            throw new IOException("Corrupt LZ4 data", e);
+        }
+        uncompressed.limit(start + length);
+        return length;
+    }
+
+    // The prefix is always big endian, whatever the order of the buffer
+    private static void putLength(ByteBuffer buf, int index, int length) {
+        buf.put(index, (byte) (length >>> 24));
+        buf.put(index + 1, (byte) (length >>> 16));
+        buf.put(index + 2, (byte) (length >>> 8));
+        buf.put(index + 3, (byte) length);
+    }
+
+    private static int getLength(ByteBuffer buf, int index) {
+        return ((buf.get(index) & 0xff) << 24) | ((buf.get(index + 1) & 0xff) << 16)
+                | ((buf.get(index + 2) & 0xff) << 8) | (buf.get(index + 3) & 0xff);
+    }
+}
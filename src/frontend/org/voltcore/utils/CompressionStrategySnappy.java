@@ -18,6 +18,7 @@
 package org.voltcore.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.xerial.snappy.Snappy;
 
@@ -40,4 +41,29 @@ public class CompressionStrategySnappy extends CompressionStrategy {
     public byte[] uncompress(byte data[]) throws IOException {
         return Snappy.uncompress(data);
     }
+
+    @Override
+    public String name() {
+        return "snappy";
+    }
+
+    @Override
+    public int maxCompressedLength(int uncompressedSize) {
+        return Snappy.maxCompressedLength(uncompressedSize);
+    }
+
+    @Override
+    public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+        return Snappy.compress(uncompressed, compressed);
+    }
+
+    @Override
+    public int uncompressedLength(ByteBuffer compressed) throws IOException {
+        return Snappy.uncompressedLength(compressed);
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+        return Snappy.uncompress(compressed, uncompressed);
+    }
 }
@@ -0,0 +1,235 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.util.Arrays;
+
+/**
+ * Single threaded open addressing hash map from primitive long keys to non-null
+ * object values. Keys are never boxed and no per-entry objects are allocated, so
+ * the map is suited to hot paths that insert and remove a key per transaction.
+ * Collisions are resolved by linear probing, and removal shifts later entries back
+ * instead of leaving tombstones, so the table never needs to be rebuilt to reclaim
+ * deleted slots.
+ *
+ * Iteration order is unspecified. Callers that need ordering should sort the
+ * array returned by {@link #keys()}.
+ */
+public class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] m_keys;
+    private Object[] m_values;
+    private int m_mask;
+    private int m_size;
+    private int m_resizeThreshold;
+
+    public interface EntryVisitor<V> {
+        public void visit(long key, V value);
+    }
+
+    public interface EntryPredicate<V> {
+        public boolean test(long key, V value);
+    }
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = new Object[capacity];
+        m_mask = capacity - 1;
+        m_resizeThreshold = capacity * 3 / 4;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int idx = hash(key) & m_mask;
+        while (m_values[idx] != null) {
+            if (m_keys[idx] == key) {
+                return idx;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int idx = indexOf(key);
+        return idx < 0 ? null : (V) m_values[idx];
+    }
+
+    /**
+     * @return the previous value mapped to {@code key}, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongObjectHashMap does not accept null values");
+        }
+        int idx = hash(key) & m_mask;
+        while (m_values[idx] != null) {
+            if (m_keys[idx] == key) {
+                V old = (V) m_values[idx];
+                m_values[idx] = value;
+                return old;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+        m_keys[idx] = key;
+        m_values[idx] = value;
+        if (++m_size > m_resizeThreshold) {
+            rehash(m_keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value that was mapped to {@code key}, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int idx = indexOf(key);
+        if (idx < 0) {
+            return null;
+        }
+        V old = (V) m_values[idx];
+        deleteSlot(idx);
+        return old;
+    }
+
+    public void clear() {
+        if (m_size > 0) {
+            Arrays.fill(m_values, null);
+            m_size = 0;
+        }
+    }
+
+    /**
+     * @return a snapshot of the keys currently in the map, in unspecified order
+     */
+    public long[] keys() {
+        long[] keys = new long[m_size];
+        int pos = 0;
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                keys[pos++] = m_keys[i];
+            }
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryVisitor<? super V> visitor) {
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                visitor.visit(m_keys[i], (V) m_values[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove every entry matching {@code predicate}.
+     * @return the number of entries removed
+     */
+    public int removeIf(EntryPredicate<? super V> predicate) {
+        // Removal shifts entries around, so decide against a snapshot of the keys.
+        int removed = 0;
+        for (long key : keys()) {
+            if (predicate.test(key, get(key))) {
+                remove(key);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void deleteSlot(int hole) {
+        m_values[hole] = null;
+        m_size--;
+        // Shift back any following entries in the probe run that can fill the hole.
+        int idx = (hole + 1) & m_mask;
+        while (m_values[idx] != null) {
+            int home = hash(m_keys[idx]) & m_mask;
+            // Move the entry if its home slot is not cyclically within (hole, idx]
+            if (((idx - home) & m_mask) >= ((idx - hole) & m_mask)) {
+                m_keys[hole] = m_keys[idx];
+                m_values[hole] = m_values[idx];
+                m_values[idx] = null;
+                hole = idx;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = m_keys;
+        Object[] oldValues = m_values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int idx = hash(oldKeys[i]) & m_mask;
+                while (m_values[idx] != null) {
+                    idx = (idx + 1) & m_mask;
+                }
+                m_keys[idx] = oldKeys[i];
+                m_values[idx] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(m_keys[i]).append('=').append(m_values[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -106,7 +106,8 @@ public class SSLBufferDecrypter {
      * @see #tlsunwrap(ByteBuffer, ByteBuf, PooledByteBufAllocator)
      */
     public ByteBuf tlsunwrap(ByteBuffer srcBuffer, PooledByteBufAllocator allocator) {
-        int size = m_sslEngine.getSession().getApplicationBufferSize();
+        // clear text is never longer than its record so small records get small pooled buffers
+        int size = Math.min(m_sslEngine.getSession().getApplicationBufferSize(), srcBuffer.remaining());
         return tlsunwrap(srcBuffer, allocator.buffer(size), allocator);
     }
 
@@ -34,6 +34,12 @@ import io.netty.buffer.Unpooled;
 
 public class SSLBufferEncrypter {
 
+    /**
+     * Room left for the record header, MAC and padding when the destination of a
+     * record is sized after its clear text rather than the session packet size
+     */
+    private static final int RECORD_OVERHEAD = 512;
+
     private final SSLEngine m_sslEngine;
 
     public SSLBufferEncrypter(SSLEngine sslEngine) {
@@ -52,10 +58,14 @@ public class SSLBufferEncrypter {
 
         CompositeByteBuf fullyEncrypted = null;
         ByteBuf piece = null;
+        boolean fullPacket = false;
 
         try {
             do {
-                piece = allocator.buffer(packetBufferSize);
+                // small records get a small pooled buffer instead of a whole packet sized one
+                int pieceSize = fullPacket ? packetBufferSize
+                        : Math.min(packetBufferSize, src.readableBytes() + RECORD_OVERHEAD);
+                piece = allocator.buffer(pieceSize);
                 assert piece.nioBufferCount() == 1 : "Should only have one buffer: " + piece.nioBufferCount();
                 ByteBuffer destNioBuf = piece.nioBuffer(0, piece.writableBytes());
 
@@ -72,6 +82,13 @@ public class SSLBufferEncrypter {
                     src.readerIndex(src.readerIndex() + result.bytesConsumed());
                     break;
                 case BUFFER_OVERFLOW:
+                    if (pieceSize < packetBufferSize) {
+                        // underestimated the record overhead so try again with a full packet buffer
+                        piece.release();
+                        piece = null;
+                        fullPacket = true;
+                        continue;
+                    }
                     throw new TLSException("SSL engine unexpectedly overflowed when encrypting");
                 case BUFFER_UNDERFLOW:
                     throw new TLSException("SSL engine unexpectedly underflowed when encrypting");
@@ -97,7 +114,9 @@ public class SSLBufferEncrypter {
             if (piece != null) {
                 piece.release();
             }
-            fullyEncrypted.release();
+            if (fullyEncrypted != null) {
+                fullyEncrypted.release();
+            }
             throw t;
         }
     }
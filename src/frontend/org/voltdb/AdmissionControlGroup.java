@@ -23,6 +23,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.HdrHistogram_voltpatches.AbstractHistogram;
+import org.HdrHistogram_voltpatches.Histogram;
+import org.HdrHistogram_voltpatches.Recorder;
 import org.cliffc_voltpatches.high_scale_lib.NonBlockingHashMap;
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.dtxn.InitiatorStats.InvocationInfo;
@@ -99,7 +101,15 @@ public class AdmissionControlGroup implements org.voltcore.network.QueueMonitor
     private final ConcurrentHashMap<Long, Map<String, org.voltdb.dtxn.InitiatorStats.InvocationInfo>> m_connectionStates =
                  new ConcurrentHashMap<Long, Map<String, org.voltdb.dtxn.InitiatorStats.InvocationInfo>>(1024, .75f, 1);
 
-    private final AbstractHistogram m_latencyInfo = LatencyHistogramStats.constructHistogram(true);
+    /*
+     * Network threads record latencies into the recorder without locking. Readers swap out
+     * the values recorded since the last swap and fold them into the running totals (for
+     * LATENCY_COMPRESSED/LATENCY_HISTOGRAM) and the current window (for LATENCY).
+     */
+    private final Recorder m_latencyRecorder = LatencyHistogramStats.constructRecorder();
+    private Histogram m_latencyInterval = null;
+    private final AbstractHistogram m_latencyTotals = LatencyHistogramStats.constructHistogram(false);
+    private final AbstractHistogram m_latencyWindow = LatencyHistogramStats.constructHistogram(false);
 
     public AdmissionControlGroup(int maxBytes, int maxRequests)
     {
@@ -300,7 +310,7 @@ public class AdmissionControlGroup implements org.voltcore.network.QueueMonitor
         // ENG-7209 This is to not log the latency value for a snapshot restore, as this just creates
         // a large initial value in the graph which is not actually relevant to the user.
         if (!procedureName.equals("@SnapshotRestore")) {
-            m_latencyInfo.recordValue(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(deltaNanos), m_latencyInfo.getHighestTrackableValue())));
+            m_latencyRecorder.recordValue(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(deltaNanos), m_latencyTotals.getHighestTrackableValue())));
         }
         if (needToInsert) {
             m_connectionStates.put(connectionId, procInfoMap);
@@ -311,7 +321,26 @@ public class AdmissionControlGroup implements org.voltcore.network.QueueMonitor
         return m_connectionStates.entrySet().iterator();
     }
 
-    public AbstractHistogram getLatencyInfo() {
-        return m_latencyInfo;
+    private void drainLatencyRecorder() {
+        m_latencyInterval = m_latencyRecorder.getIntervalHistogram(m_latencyInterval);
+        m_latencyTotals.add(m_latencyInterval);
+        m_latencyWindow.add(m_latencyInterval);
+    }
+
+    /**
+     * Add the latencies recorded since this group was created to <tt>target</tt>.
+     */
+    public synchronized void addLatencyTotalsTo(AbstractHistogram target) {
+        drainLatencyRecorder();
+        target.add(m_latencyTotals);
+    }
+
+    /**
+     * Add the latencies recorded since the previous call to <tt>target</tt> and start a new window.
+     */
+    public synchronized void addLatencyWindowTo(AbstractHistogram target) {
+        drainLatencyRecorder();
+        target.add(m_latencyWindow);
+        m_latencyWindow.reset();
     }
 }
@@ -102,6 +102,7 @@ import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.messaging.LocalMailbox;
 import org.voltdb.messaging.MigratePartitionLeaderMessage;
 import org.voltdb.security.AuthenticationRequest;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.VoltTrace;
 
@@ -786,6 +787,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         public static final int MAX_READ = 8192 * 4;
 
         private Connection m_connection;
+        private volatile ClientResponseStreamer m_streamer;
         private final boolean m_isAdmin;
 
         /**
@@ -836,8 +838,9 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         @Override
         public void started(final Connection c) {
             m_connection = c;
-            m_cihm.put(c.connectionId(),
-                       new ClientInterfaceHandleManager( m_isAdmin, c, null, m_acg.get()));
+            ClientInterfaceHandleManager cihm = new ClientInterfaceHandleManager( m_isAdmin, c, null, m_acg.get());
+            m_streamer = cihm.m_streamer;
+            m_cihm.put(c.connectionId(), cihm);
             m_acg.get().addMember(this);
             if (!m_acg.get().hasBackPressure()) {
                 c.enableReadSelection();
@@ -902,6 +905,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             return new QueueMonitor() {
                 @Override
                 public boolean queue(int bytes) {
+                    final ClientResponseStreamer streamer = m_streamer;
+                    if (streamer != null) {
+                        streamer.bytesQueued(bytes);
+                    }
                     return m_acg.get().queue(bytes);
                 }
             };
@@ -932,6 +939,8 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         private final Procedure catProc;
         private ClientResponseImpl clientResponse;
         private boolean restartMispartitionedTxn;
+        // first chunk of a streamed response, written in place of the whole response
+        private DeferredSerialization firstChunk;
 
         private ClientResponseWork(InitiateResponseMessage response,
                                    ClientInterfaceHandleManager cihm,
@@ -947,6 +956,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         @Override
         public void serialize(ByteBuffer buf) throws IOException
         {
+            if (firstChunk != null) {
+                firstChunk.serialize(buf);
+                return;
+            }
             buf.putInt(buf.capacity() - 4);
             clientResponse.flattenToBuffer(buf);
         }
@@ -998,6 +1011,8 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                     clientData.m_procName,
                     delta,
                     clientResponse.getStatus());
+            FlightRecorder.recordTxn(FlightRecorder.Stage.RESPOND, response.getClientConnectionId(),
+                                     response.getClientInterfaceHandle(), clientResponse.getStatus());
 
             final VoltTrace.TraceEventBatch traceLog = VoltTrace.log(VoltTrace.Category.CI);
             if (traceLog != null) {
@@ -1011,6 +1026,12 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             clientResponse.setClusterRoundtrip((int)TimeUnit.NANOSECONDS.toMillis(delta));
             clientResponse.setHashes(null); // not part of wire protocol
 
+            if (clientData.m_streamChunkSize > 0) {
+                firstChunk = cihm.m_streamer.start(clientResponse, clientData.m_streamChunkSize);
+                if (firstChunk != null) {
+                    return firstChunk.getSerializedSize();
+                }
+            }
             return clientResponse.getSerializedSize() + 4;
         }
 
@@ -2057,12 +2078,22 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         return statsIterators;
     }
 
-    public List<AbstractHistogram> getLatencyStats() {
-        List<AbstractHistogram> latencyStats = new ArrayList<AbstractHistogram>();
+    /**
+     * Add the latencies of all transactions completed since startup to <tt>target</tt>.
+     */
+    public void addLatencyTotalsTo(AbstractHistogram target) {
+        for (AdmissionControlGroup acg : m_allACGs) {
+            acg.addLatencyTotalsTo(target);
+        }
+    }
+
+    /**
+     * Add the latencies of transactions completed since the previous call to <tt>target</tt>.
+     */
+    public void addLatencyWindowTo(AbstractHistogram target) {
         for (AdmissionControlGroup acg : m_allACGs) {
-            latencyStats.add(acg.getLatencyInfo());
+            acg.addLatencyWindowTo(target);
         }
-        return latencyStats;
     }
 
     //Generate a mispartitioned response also log the message.
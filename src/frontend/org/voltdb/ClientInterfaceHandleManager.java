@@ -61,6 +61,7 @@ public class ClientInterfaceHandleManager
     public final ClientInterfaceRepairCallback repairCallback;
     private final long m_expectedThreadId = Thread.currentThread().getId();
     final AdmissionControlGroup m_acg;
+    final ClientResponseStreamer m_streamer;
 
     private volatile boolean m_wantsTopologyUpdates = false;
 
@@ -94,8 +95,10 @@ public class ClientInterfaceHandleManager
         final long m_creationTimeNanos;
         final String m_procName;
         final long m_initiatorHSId;
+        final int m_streamChunkSize;
         Iv2InFlight(long ciHandle, long clientHandle,
-                int messageSize, long creationTimeNanos, String procName, long initiatorHSId)
+                int messageSize, long creationTimeNanos, String procName, long initiatorHSId,
+                int streamChunkSize)
         {
             m_ciHandle = ciHandle;
             m_clientHandle = clientHandle;
@@ -103,6 +106,7 @@ public class ClientInterfaceHandleManager
             m_creationTimeNanos = creationTimeNanos;
             m_procName = procName;
             m_initiatorHSId = initiatorHSId;
+            m_streamChunkSize = streamChunkSize;
         }
     }
 
@@ -121,6 +125,7 @@ public class ClientInterfaceHandleManager
         this.connection = connection;
         this.repairCallback = repairCallback;
         m_acg = acg;
+        m_streamer = new ClientResponseStreamer(connection);
     }
 
     /**
@@ -135,9 +140,10 @@ public class ClientInterfaceHandleManager
             @Override
             synchronized long getHandle(boolean isSinglePartition, int partitionId,
                     long clientHandle, int messageSize, long creationTimeNanos, String procName, long initiatorHSId,
-                    boolean isShortCircuitRead) {
+                    boolean isShortCircuitRead, int streamChunkSize) {
                 return super.getHandle(isSinglePartition, partitionId,
-                        clientHandle, messageSize, creationTimeNanos, procName, initiatorHSId, isShortCircuitRead);
+                        clientHandle, messageSize, creationTimeNanos, procName, initiatorHSId, isShortCircuitRead,
+                        streamChunkSize);
             }
             @Override
             synchronized Iv2InFlight findHandle(long ciHandle) {
@@ -186,6 +192,25 @@ public class ClientInterfaceHandleManager
             String procName,
             long initiatorHSId,
             boolean isShortCircuitRead)
+    {
+        return getHandle(isSinglePartition, partitionId, clientHandle, messageSize, creationTimeNanos,
+                procName, initiatorHSId, isShortCircuitRead, 0);
+    }
+
+    /**
+     * Same as above, for an invocation that asked for its results to be streamed in chunks
+     * of <tt>streamChunkSize</tt> bytes.
+     */
+    long getHandle(
+            boolean isSinglePartition,
+            int partitionId,
+            long clientHandle,
+            int messageSize,
+            long creationTimeNanos,
+            String procName,
+            long initiatorHSId,
+            boolean isShortCircuitRead,
+            int streamChunkSize)
     {
         assert(!shouldCheckThreadIdAssertion() || m_expectedThreadId == Thread.currentThread().getId());
         if (isShortCircuitRead) {
@@ -207,7 +232,7 @@ public class ClientInterfaceHandleManager
 
         long ciHandle = tracker.m_generator.getNextHandle();
         Iv2InFlight inFlight = new Iv2InFlight(ciHandle, clientHandle, messageSize,
-                                               creationTimeNanos, procName, initiatorHSId);
+                                               creationTimeNanos, procName, initiatorHSId, streamChunkSize);
 
         tracker.m_inFlights.put(ciHandle, inFlight);
 
@@ -292,6 +317,7 @@ public class ClientInterfaceHandleManager
                 m_acg.reduceBackpressure(inflight.m_messageSize);
             }
         }
+        m_streamer.clear();
     }
 
     private void collectAndRemovePartitionInFlightRequests(Integer partitionId, Long initiatorHSId, List<Iv2InFlight> retval) {
@@ -44,6 +44,9 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
     private byte encodedAppStatusString[];
     private VoltTable[] results = new VoltTable[0];
     private int[] m_hashes = null;
+    // set on all but the last response of a streamed result, see flattenPartialToBuffer
+    private boolean m_partial = false;
+    private short m_resultIndex = 0;
 
     private int clusterRoundTripTime = 0;
     private int clientRoundTripTime = 0;
@@ -171,6 +174,22 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         return m_hashes;
     }
 
+    /**
+     * @return true if this is one chunk of a streamed result, which is followed by more
+     * responses with the same client handle. Its only table holds some rows of result
+     * {@link #getResultIndex()}.
+     */
+    public boolean isPartial() {
+        return m_partial;
+    }
+
+    /**
+     * @return index of the procedure result the rows in a partial response belong to.
+     */
+    public int getResultIndex() {
+        return m_resultIndex;
+    }
+
     public void initFromBuffer(ByteBuffer buf) throws IOException {
         buf.get();//Skip version byte
         clientHandle = buf.getLong();
@@ -200,6 +219,8 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         } else {
             m_hashes = null;
         }
+        m_partial = (presentFields & (1 << 3)) != 0;
+        m_resultIndex = m_partial ? buf.getShort() : 0;
         int tableCount = buf.getShort();
         if (tableCount < 0) {
             throw new IOException("Table count is negative: " + tableCount);
@@ -217,6 +238,43 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         setProperly = true;
     }
 
+    /**
+     * Size of a partial response carrying the given rows of <tt>table</tt>.
+     * @see #flattenPartialToBuffer(ByteBuffer, long, int, VoltTable, int, int)
+     */
+    public static int getPartialSerializedSize(VoltTable table, int firstRow, int rowCount) {
+        return 1 // version
+            + 8 // clientHandle
+            + 1 // present fields
+            + 1 // status
+            + 1 // app status
+            + 4 // cluster roundtrip time
+            + 2 // result index
+            + 2 // number of result tables
+            + table.getSerializedSize(firstRow, rowCount);
+    }
+
+    /**
+     * Write one chunk of a streamed result: a successful response whose only table holds
+     * the given rows of result <tt>resultIndex</tt>. The rows are copied straight from
+     * <tt>table</tt> without building an intermediate table.
+     * @return buf to allow call chaining.
+     */
+    public static ByteBuffer flattenPartialToBuffer(ByteBuffer buf, long clientHandle, int resultIndex,
+            VoltTable table, int firstRow, int rowCount) {
+        assert(resultIndex <= Short.MAX_VALUE);
+        buf.put((byte)0); //version
+        buf.putLong(clientHandle);
+        buf.put((byte) (1 << 3));
+        buf.put(SUCCESS);
+        buf.put(UNINITIALIZED_APP_STATUS_CODE);
+        buf.putInt(0); // the cluster roundtrip time is reported on the last response
+        buf.putShort((short) resultIndex);
+        buf.putShort((short) 1);
+        table.flattenRowsToBuffer(buf, firstRow, rowCount);
+        return buf;
+    }
+
     public int getSerializedSize() {
         int msgsize = 1 // version
             + 8 // clientHandle
@@ -238,6 +296,9 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             msgsize += 2; // short array len
             msgsize += m_hashes.length * 4; // array of ints
         }
+        if (m_partial) {
+            msgsize += 2; // result index
+        }
         for (VoltTable vt : results) {
             msgsize += vt.getSerializedSize();
         }
@@ -262,6 +323,9 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         if (m_hashes != null) {
             presentFields |= 1 << 4;
         }
+        if (m_partial) {
+            presentFields |= 1 << 3;
+        }
         buf.put(presentFields);
         buf.put(status);
         if (statusString != null) {
@@ -281,6 +345,9 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
                 buf.putInt(hash);
             }
         }
+        if (m_partial) {
+            buf.putShort(m_resultIndex);
+        }
         buf.putShort((short) results.length);
         for (VoltTable vt : results)
         {
@@ -0,0 +1,242 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import org.voltcore.network.Connection;
+import org.voltcore.utils.DeferredSerialization;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Delivers large client responses as a sequence of partial responses, for invocations
+ * that asked for streamed results. There is one instance per client connection.
+ *
+ * The first chunk of a response takes the place of the whole response in the write
+ * stream. A later chunk is queued only if the connection's unwritten bytes, that chunk
+ * included, stay within a window of a few chunks, so a slow reader holds the stream back instead of the whole
+ * result being serialized into network buffers at once. Every table of the response is
+ * sent as one or more partial responses and the last response carries the status with
+ * no tables.
+ */
+final class ClientResponseStreamer {
+    static final int MIN_CHUNK_BYTES = 64 * 1024;
+    static final int MAX_CHUNK_BYTES = VoltTable.MAX_SERIALIZED_TABLE_LENGTH;
+    // how many chunks of a stream may be queued for write at once
+    static final int WINDOW_CHUNKS = Math.max(1, Integer.getInteger("CLIENT_STREAM_WINDOW_CHUNKS", 4));
+
+    private final Connection m_connection;
+    // responses with chunks left to queue, oldest first
+    private final ArrayDeque<Stream> m_streams = new ArrayDeque<>();
+    // bytes serialized into the write stream and not yet written to the socket
+    private long m_pendingWriteBytes;
+    // bytes of chunks queued to the write stream but not yet serialized
+    private long m_unserializedBytes;
+
+    ClientResponseStreamer(Connection connection) {
+        m_connection = connection;
+    }
+
+    static int clampChunkSize(int requested) {
+        return Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, requested));
+    }
+
+    /**
+     * Split a response into chunks if it is successful and larger than the requested chunk
+     * size. The caller must write the returned first chunk in place of the response, the
+     * remaining chunks are queued to the connection as its write stream drains.
+     *
+     * @return the first chunk, or null if the response should be sent whole.
+     */
+    synchronized DeferredSerialization start(ClientResponseImpl response, int requestedChunkSize) {
+        final int chunkSize = clampChunkSize(requestedChunkSize);
+        if (response.getStatus() != ClientResponse.SUCCESS || response.getSerializedSize() + 4 <= chunkSize) {
+            return null;
+        }
+        final Stream stream = new Stream(response, chunkSize);
+        final Chunk first = stream.nextChunk();
+        m_unserializedBytes += first.m_size;
+        m_streams.add(stream);
+        queueChunks();
+        return first;
+    }
+
+    /**
+     * Track bytes queued to (positive) or written from (negative) the connection's write
+     * stream. Writes make room in the window for more chunks.
+     */
+    synchronized void bytesQueued(int bytes) {
+        m_pendingWriteBytes += bytes;
+        if (bytes < 0) {
+            queueChunks();
+        }
+    }
+
+    /** Drop all unsent chunks when the connection goes away. */
+    synchronized void clear() {
+        m_streams.clear();
+        m_pendingWriteBytes = 0;
+        m_unserializedBytes = 0;
+    }
+
+    synchronized int getActiveStreamCount() {
+        return m_streams.size();
+    }
+
+    private synchronized void serialized(int bytes) {
+        m_unserializedBytes -= bytes;
+    }
+
+    private void queueChunks() {
+        Stream stream;
+        while ((stream = m_streams.peek()) != null &&
+                m_pendingWriteBytes + m_unserializedBytes + stream.peekChunk().m_size <=
+                (long) WINDOW_CHUNKS * stream.m_chunkSize) {
+            final Chunk chunk = stream.nextChunk();
+            if (!stream.hasNext()) {
+                m_streams.poll();
+            }
+            m_unserializedBytes += chunk.m_size;
+            m_connection.writeStream().fastEnqueue(chunk);
+        }
+    }
+
+    /**
+     * Cursor over the chunks of one response.
+     */
+    final class Stream {
+        private final ClientResponseImpl m_response;
+        private final VoltTable[] m_results;
+        private final int m_chunkSize;
+        private int m_table = 0;
+        private int m_row = 0;
+        private boolean m_done = false;
+        // next chunk, built ahead when its size is needed before it can be queued
+        private Chunk m_next;
+
+        private Stream(ClientResponseImpl response, int chunkSize) {
+            m_response = response;
+            m_results = response.getResults();
+            m_chunkSize = chunkSize;
+        }
+
+        boolean hasNext() {
+            return m_next != null || !m_done;
+        }
+
+        Chunk peekChunk() {
+            if (m_next == null) {
+                m_next = buildChunk();
+            }
+            return m_next;
+        }
+
+        Chunk nextChunk() {
+            final Chunk chunk = peekChunk();
+            m_next = null;
+            return chunk;
+        }
+
+        private Chunk buildChunk() {
+            assert(!m_done);
+            if (m_table == m_results.length) {
+                m_done = true;
+                final ClientResponseImpl last = new ClientResponseImpl(
+                        m_response.getStatus(),
+                        m_response.getAppStatus(),
+                        m_response.getAppStatusString(),
+                        new VoltTable[0],
+                        m_response.getStatusString(),
+                        m_response.getClientHandle());
+                last.setClusterRoundtrip(m_response.getClusterRoundtrip());
+                return new Chunk(last);
+            }
+            final VoltTable table = m_results[m_table];
+            final int rowCount = table.getRowCount() == 0 ? 0 :
+                table.countRowsFittingIn(m_row, m_chunkSize - (ClientResponseImpl.getPartialSerializedSize(table, 0, 0) + 4));
+            final Chunk chunk = new Chunk(m_response.getClientHandle(), m_table, table, m_row, rowCount);
+            m_row += rowCount;
+            if (m_row == table.getRowCount()) {
+                m_table++;
+                m_row = 0;
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * One partial response, or the final response of a stream.
+     */
+    final class Chunk implements DeferredSerialization {
+        private final ClientResponseImpl m_last;
+        private final long m_clientHandle;
+        private final int m_resultIndex;
+        private final VoltTable m_table;
+        private final int m_firstRow;
+        private final int m_rowCount;
+        final int m_size;
+
+        private Chunk(long clientHandle, int resultIndex, VoltTable table, int firstRow, int rowCount) {
+            m_last = null;
+            m_clientHandle = clientHandle;
+            m_resultIndex = resultIndex;
+            m_table = table;
+            m_firstRow = firstRow;
+            m_rowCount = rowCount;
+            m_size = ClientResponseImpl.getPartialSerializedSize(table, firstRow, rowCount) + 4;
+        }
+
+        private Chunk(ClientResponseImpl last) {
+            m_last = last;
+            m_clientHandle = last.getClientHandle();
+            m_resultIndex = 0;
+            m_table = null;
+            m_firstRow = 0;
+            m_rowCount = 0;
+            m_size = last.getSerializedSize() + 4;
+        }
+
+        @Override
+        public void serialize(ByteBuffer buf) {
+            buf.putInt(m_size - 4);
+            if (m_last != null) {
+                m_last.flattenToBuffer(buf);
+            }
+            else {
+                ClientResponseImpl.flattenPartialToBuffer(buf, m_clientHandle, m_resultIndex, m_table, m_firstRow, m_rowCount);
+            }
+            serialized(m_size);
+        }
+
+        @Override
+        public void cancel() {
+            serialized(m_size);
+        }
+
+        @Override
+        public int getSerializedSize() {
+            return m_size;
+        }
+
+        @Override
+        public String toString() {
+            return "ClientResponseStreamer.Chunk";
+        }
+    }
+}
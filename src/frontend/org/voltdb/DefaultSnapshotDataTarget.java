@@ -48,7 +48,7 @@ import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.RateLimitedLogger;
 import org.voltdb.messaging.FastSerializer;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
-import org.voltdb.utils.CompressionService;
+import org.voltdb.utils.CompressionPipeline;
 import org.voltdb.utils.PosixAdvise;
 
 import com.google_voltpatches.common.util.concurrent.Callables;
@@ -216,6 +216,7 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             stringer.keySymbolValuePair("tableName", tableName.toUpperCase());
             stringer.keySymbolValuePair("isReplicated", isReplicated);
             stringer.keySymbolValuePair("isCompressed", true);
+            stringer.keySymbolValuePair("compression", CompressionPipeline.SNAPSHOT.getStrategy().name());
             stringer.keySymbolValuePair("checksumType", "CRC32C");
             stringer.keySymbolValuePair("timestamp", timestamp);
             /*
@@ -454,25 +455,22 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
 
         ByteBuffer tupleData = tupleDataCont.b();
 
-        m_outstandingWriteTasks.incrementAndGet();
-
         Future<BBContainer> compressionTask = null;
         if (prependLength) {
-            BBContainer cont =
-                    DBBPool.allocateDirectAndPool(SnapshotSiteProcessor.m_snapshotBufferCompressedLen);
             //Skip 4-bytes so the partition ID is not compressed
             //That way if we detect a corruption we know what partition is bad
             tupleData.position(tupleData.position() + 4);
             /*
              * Leave 12 bytes, it's going to be a 4-byte length prefix, a 4-byte partition id,
              * and a 4-byte CRC32C of just the header bytes, in addition to the compressed payload CRC
-             * that is 16 bytes, but 4 of those are done by CompressionService
+             * that is 16 bytes, but 4 of those are done by the compression pipeline
              */
-            cont.b().position(12);
-            compressionTask = CompressionService.compressAndCRC32cBufferAsync(tupleData, cont);
+            compressionTask = CompressionPipeline.SNAPSHOT.compress(tupleData, 12, true);
         }
         final Future<BBContainer> compressionTaskFinal = compressionTask;
 
+        m_outstandingWriteTasks.incrementAndGet();
+
         ListenableFuture<?> writeTask = m_es.submit(new Callable<Object>() {
             @Override
             public Object call() throws Exception {
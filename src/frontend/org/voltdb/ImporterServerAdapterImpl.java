@@ -17,6 +17,7 @@
 
 package org.voltdb;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.voltdb.client.ProcedureCallback;
@@ -49,6 +50,13 @@ public class ImporterServerAdapterImpl implements ImporterServerAdapter {
                 .callProcedure(importer, backPressurePredicate, m_statsCollector, procCallback, proc, fieldList);
     }
 
+    @Override
+    public boolean[] callProcedures(AbstractImporter importer, Predicate<Integer> backPressurePredicate,
+            String proc, List<Object[]> rows, List<ProcedureCallback> callbacks) {
+        return getInternalConnectionHandler()
+                .callProcedures(importer, backPressurePredicate, m_statsCollector, proc, rows, callbacks);
+    }
+
     private InternalConnectionHandler getInternalConnectionHandler() {
         return VoltDB.instance().getClientInterface().getInternalConnectionHandler();
     }
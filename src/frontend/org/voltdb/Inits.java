@@ -47,6 +47,7 @@ import org.voltcore.utils.Pair;
 import org.voltcore.zk.ZKUtil.ZKCatalogStatus;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.CatalogException;
+import org.voltdb.commandlog.GroupCommitCommandLog;
 import org.voltdb.common.Constants;
 import org.voltdb.common.NodeState;
 import org.voltdb.compiler.deploymentfile.DeploymentType;
@@ -544,6 +545,10 @@ public class Inits {
                             ProClass.HANDLER_LOG, logConfig.getSynchronous(), logConfig.getFsyncinterval(),
                             logConfig.getMaxtxns(), VoltDB.instance().getCommandLogPath(),
                             VoltDB.instance().getCommandLogSnapshotPath());
+                } else if (GroupCommitCommandLog.ENABLED) {
+                    m_rvdb.m_commandLog = new GroupCommitCommandLog(logConfig.getSynchronous(),
+                            logConfig.getFsyncinterval(), logConfig.getMaxtxns(),
+                            VoltDB.instance().getCommandLogPath(), VoltDB.instance().getCommandLogSnapshotPath());
                 }
             }
         }
@@ -76,8 +76,9 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
     // Maintain internal connection ids per caller id. This is useful when collecting statistics
     // so that information can be grouped per user of this Connection.
     private final ConcurrentMap<String, Long> m_internalConnectionIds = new NonBlockingHashMap<>();
-    public final Semaphore m_permits =
-        new Semaphore(Integer.getInteger("INTERNAL_MAX_PENDING_TRANSACTION_PER_PARTITION", 500));
+    static final int MAX_PENDING_TRANSACTIONS =
+        Integer.getInteger("INTERNAL_MAX_PENDING_TRANSACTION_PER_PARTITION", 500);
+    public final Semaphore m_permits = new Semaphore(MAX_PENDING_TRANSACTIONS);
 
     private class InternalCallback implements Callback {
 
@@ -191,8 +192,6 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
             } catch (InterruptedException e) {}
         }
 
-        final InvocationDispatcher dispatcher = getClientInterface().getDispatcher();
-
         ExecutorService executor = m_partitionExecutor.get(primaryPartition);
         try {
             executor.submit(new Runnable() {
@@ -212,7 +211,7 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
 
                     m_callbacks.put(handle, cb);
 
-                    ClientResponseImpl r = dispatcher.dispatch(task, kattrs, InternalClientResponseAdapter.this, user, null, ntPriority);
+                    ClientResponseImpl r = dispatch(task, kattrs, user, ntPriority);
                     if (r != null) {
                         try {
                             cb.handleResponse(r);
@@ -237,6 +236,16 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
         return true;
     }
 
+    /**
+     * Hand a transaction to the dispatcher of the client interface.
+     *
+     * @return the response if the transaction was not started, null otherwise
+     */
+    ClientResponseImpl dispatch(StoredProcedureInvocation task, InternalAdapterTaskAttributes kattrs,
+            AuthSystem.AuthUser user, boolean ntPriority) {
+        return getClientInterface().getDispatcher().dispatch(task, kattrs, this, user, null, ntPriority);
+    }
+
     /**
      * @param connectionId    The connection ID for this adapter, needs to be unique for this
      *                        node.
@@ -17,19 +17,28 @@
 
 package org.voltdb;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
 import org.voltdb.AuthSystem.AuthUser;
+import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.BatchTimeoutOverrideType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.iv2.MpInitiator;
+import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.MiscUtils;
 
 import com.google_voltpatches.common.collect.ImmutableMap;
@@ -43,11 +52,19 @@ public class InternalConnectionHandler {
 
     public final static long SUPPRESS_INTERVAL = 60;
     private static final VoltLogger m_logger = new VoltLogger("InternalConnectionHandler");
+    // Maximum number of rows loaded by one transaction of callProcedures. Kept well below the pending
+    // transactions allowed by the adapters, as a failed batch is invoked again with one transaction per row.
+    private static final int MAX_BATCH_ROWS = Math.max(1, Math.min(Integer.getInteger("INTERNAL_MAX_BATCH_ROWS", 1000),
+            InternalClientResponseAdapter.MAX_PENDING_TRANSACTIONS / 2));
 
     // Atomically allows the catalog reference to change between access
     private final AtomicLong m_failedCount = new AtomicLong();
     private final AtomicLong m_submitSuccessCount = new AtomicLong();
     private volatile Map<Integer, InternalClientResponseAdapter> m_adapters = ImmutableMap.of();
+    // Invokes the rows of a failed batch one by one. The response of the batch is handled by the thread
+    // of the adapter which releases the pending transactions, so the rows cannot wait for back pressure there.
+    private final ExecutorService m_retryExecutor =
+            CoreUtils.getCachedSingleThreadExecutor("Internal Batch Retry", 15000);
 
     // Synchronized in case multiple partitions are added concurrently.
     public synchronized void addAdapter(int pid, InternalClientResponseAdapter adapter)
@@ -134,6 +151,38 @@ public class InternalConnectionHandler {
         return callProcedure(hostname, user, isAdmin, task, catProc, cb, ntPriority, backPressurePredicate);
     }
 
+    /**
+     * Invoke a procedure with parameters already serialized in the {@link ParameterSet}
+     * format, which are forwarded as is instead of being built from objects.
+     */
+    public boolean callProcedureWithSerializedParams(
+            AuthUser user,
+            boolean isAdmin,
+            int timeout,
+            ProcedureCallback cb,
+            boolean ntPriority,
+            Predicate<Integer> backPressurePredicate,
+            String procName,
+            ByteBuffer serializedParams) {
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(procName, getCatalogContext());
+        if (catProc == null) {
+            String fmt = "Cannot invoke procedure %s. Procedure not found.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, procName);
+            m_failedCount.incrementAndGet();
+            return false;
+        }
+
+        StoredProcedureInvocation task = new StoredProcedureInvocation();
+        task.setProcName(procName);
+        task.initParameters(serializedParams);
+
+        if (timeout != BatchTimeoutOverrideType.NO_TIMEOUT) {
+            task.setBatchTimeout(timeout);
+        }
+
+        return callProcedure(null, user, isAdmin, task, catProc, cb, ntPriority, backPressurePredicate);
+    }
+
     public boolean callProcedure(String hostname, AuthUser user, boolean isAdmin, StoredProcedureInvocation task,
             Procedure catProc, ProcedureCallback cb, boolean ntPriority, Predicate<Integer> backPressurePredicate) {
         assert task.getProcName().equals(catProc.getTypeName()) || catProc.getSystemproc();
@@ -215,12 +264,18 @@ public class InternalConnectionHandler {
             return false;
         }
 
+        final AuthUser user = getCatalogContext().authSystem.getImporterUser();
+        return createTransaction(caller, backPressurePredicate, statsCollector, procCallback, catProc, task, user,
+                partitions);
+    }
+
+    private boolean createTransaction(InternalConnectionContext caller, Predicate<Integer> backPressurePredicate,
+            InternalConnectionStatsCollector statsCollector, ProcedureCallback procCallback, Procedure catProc,
+            StoredProcedureInvocation task, AuthUser user, int[] partitions) {
         boolean mp = (partitions[0] == MpInitiator.MP_INIT_PID) || (partitions.length > 1);
         final InternalClientResponseAdapter adapter = mp ? m_adapters.get(MpInitiator.MP_INIT_PID) : m_adapters.get(partitions[0]);
         InternalAdapterTaskAttributes kattrs = new InternalAdapterTaskAttributes(caller,  adapter.connectionId());
 
-        final AuthUser user = getCatalogContext().authSystem.getImporterUser();
-
         if (!adapter.createTransaction(kattrs, catProc, procCallback, statsCollector, task, user, partitions,
                 false, backPressurePredicate)) {
             m_failedCount.incrementAndGet();
@@ -229,4 +284,250 @@ public class InternalConnectionHandler {
         m_submitSuccessCount.incrementAndGet();
         return true;
     }
+
+    /**
+     * Invoke a procedure once for every row of a batch. When the procedure is the default insert or
+     * upsert procedure of a persistent table, the rows are grouped by partition and each group is
+     * loaded by a single {@code @LoadSinglepartitionTable} transaction, or {@code @LoadMultipartitionTable}
+     * for a replicated table, instead of one transaction per row. A group that fails, on a constraint
+     * violation for instance, is invoked again row by row from a separate thread so that every row gets
+     * its own response.
+     *
+     * @param callbacks callback of each row, may be null
+     * @return for each row, true if it was queued and its callback will be invoked. As with
+     *         {@link #callProcedure}, the callback of a row that was not queued is not invoked.
+     */
+    public boolean[] callProcedures(InternalConnectionContext caller,
+                                    Predicate<Integer> backPressurePredicate,
+                                    InternalConnectionStatsCollector statsCollector,
+                                    String proc, List<Object[]> rows, List<ProcedureCallback> callbacks) {
+        final boolean[] queued = new boolean[rows.size()];
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(proc, getCatalogContext());
+        if (catProc == null) {
+            String fmt = "Cannot invoke procedure %s from streaming interface %s. Procedure not found.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, proc, caller);
+            m_failedCount.incrementAndGet();
+            return queued;
+        }
+
+        final Table table = getBatchLoadTable(catProc);
+        if (table == null) {
+            for (int i = 0; i < rows.size(); i++) {
+                queued[i] = callProcedure(caller, backPressurePredicate, statsCollector,
+                        callbacks == null ? null : callbacks.get(i), proc, rows.get(i));
+            }
+            return queued;
+        }
+
+        final List<Column> columns = CatalogUtil.getSortedCatalogItems(table.getColumns(), "index");
+        final Class<?>[] columnClasses = new Class<?>[columns.size()];
+        for (Column column : columns) {
+            columnClasses[column.getIndex()] = VoltType.get((byte) column.getType()).classFromType();
+        }
+        final Column partitionColumn = table.getIsreplicated() ? null : table.getPartitioncolumn();
+        final byte upsert = (byte) (catProc.getTypeName().toLowerCase().endsWith(".upsert") ? 1 : 0);
+
+        final Map<Integer, PartitionBatch> batches = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            final Object[] row = rows.get(i);
+            final ProcedureCallback cb = callbacks == null ? null : callbacks.get(i);
+            int partition = MpInitiator.MP_INIT_PID;
+            byte[] partitionParam = null;
+            Object[] values = null;
+            if (row.length == columnClasses.length) {
+                try {
+                    values = new Object[row.length];
+                    for (int c = 0; c < row.length; c++) {
+                        values[c] = ParameterConverter.tryToMakeCompatible(columnClasses[c], row[c]);
+                    }
+                    if (partitionColumn != null) {
+                        partitionParam = VoltType.valueToBytes(values[partitionColumn.getIndex()]);
+                        partition = partitionParam == null ? -1 :
+                            TheHashinator.getPartitionForParameter(partitionColumn.getType(), partitionParam);
+                    }
+                } catch (Exception e) {
+                    values = null;
+                }
+            }
+
+            PartitionBatch batch = null;
+            if (values != null && partition != -1) {
+                batch = batches.get(partition);
+                if (batch == null) {
+                    batch = new PartitionBatch(partition, partitionParam, CatalogUtil.getVoltTable(table));
+                    batches.put(partition, batch);
+                }
+                try {
+                    batch.m_table.addRow(values);
+                } catch (Exception e) {
+                    batch = null;
+                }
+            }
+            if (batch == null) {
+                // Let the procedure report why the row cannot be inserted
+                queued[i] = callProcedure(caller, backPressurePredicate, statsCollector, cb, proc, row);
+                continue;
+            }
+            batch.m_indices.add(i);
+            batch.m_rows.add(row);
+            batch.m_callbacks.add(cb);
+            if (batch.m_rows.size() >= MAX_BATCH_ROWS) {
+                batches.remove(partition);
+                loadBatch(caller, backPressurePredicate, statsCollector, proc, table, upsert, batch, queued);
+            }
+        }
+        for (PartitionBatch batch : batches.values()) {
+            loadBatch(caller, backPressurePredicate, statsCollector, proc, table, upsert, batch, queued);
+        }
+        return queued;
+    }
+
+    /**
+     * @return the table of a default insert or upsert procedure that can be bulk loaded, null otherwise
+     */
+    private Table getBatchLoadTable(Procedure catProc) {
+        if (!catProc.getDefaultproc() || catProc.getReadonly()) {
+            return null;
+        }
+        final String name = catProc.getTypeName().toLowerCase();
+        if (!name.endsWith(".insert") && !name.endsWith(".upsert")) {
+            return null;
+        }
+        final Table table = catProc.getPartitiontable();
+        if (table == null || CatalogUtil.isStream(getCatalogContext().database, table)
+                || (!table.getIsreplicated() && table.getPartitioncolumn() == null)) {
+            return null;
+        }
+        return table;
+    }
+
+    /**
+     * Load the rows of a batch with one transaction, or invoke the procedure for each row if the
+     * transaction cannot be queued, and record in queued which rows were queued.
+     */
+    private void loadBatch(InternalConnectionContext caller, Predicate<Integer> backPressurePredicate,
+            InternalConnectionStatsCollector statsCollector, String proc, Table table, byte upsert,
+            PartitionBatch batch, boolean[] queued) {
+        StoredProcedureInvocation task = new StoredProcedureInvocation();
+        if (batch.m_partitionParam == null) {
+            task.setProcName("@LoadMultipartitionTable");
+            task.setParams(table.getTypeName(), upsert, batch.m_table);
+        } else {
+            task.setProcName("@LoadSinglepartitionTable");
+            task.setParams(batch.m_partitionParam, table.getTypeName(), upsert, batch.m_table);
+        }
+        final Procedure loadProc = InvocationDispatcher.getProcedureFromName(task.getProcName(), getCatalogContext());
+        boolean batchQueued = false;
+        try {
+            task = MiscUtils.roundTripForCL(task);
+            // The load system procedures need the admin permission, the importer
+            // already has the permission to call the insert procedure of the table.
+            final AuthUser user = getCatalogContext().authSystem.getInternalAdminUser();
+            batchQueued = createTransaction(caller, backPressurePredicate, null,
+                    new BatchCallback(caller, backPressurePredicate, statsCollector, proc, batch), loadProc, task,
+                    user, new int[] { batch.m_partition });
+        } catch (Exception e) {
+            String fmt = "Cannot load batch of %s from streaming interface %s. failed to create task.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, e, fmt, proc, caller);
+            m_failedCount.incrementAndGet();
+        }
+        for (int i = 0; i < batch.m_rows.size(); i++) {
+            queued[batch.m_indices.get(i)] = batchQueued || callProcedure(caller, backPressurePredicate,
+                    statsCollector, batch.m_callbacks.get(i), proc, batch.m_rows.get(i));
+        }
+    }
+
+    private void callProcedureOrFail(InternalConnectionContext caller, Predicate<Integer> backPressurePredicate,
+            InternalConnectionStatsCollector statsCollector, ProcedureCallback cb, String proc, Object[] row) {
+        if (!callProcedure(caller, backPressurePredicate, statsCollector, cb, proc, row)) {
+            completeRow(caller, statsCollector, cb, proc, new ClientResponseImpl(ClientResponse.UNEXPECTED_FAILURE,
+                    new VoltTable[0], "Failed to queue the invocation of " + proc));
+        }
+    }
+
+    private static void completeRow(InternalConnectionContext caller, InternalConnectionStatsCollector statsCollector,
+            ProcedureCallback cb, String proc, ClientResponse response) {
+        if (statsCollector != null) {
+            statsCollector.reportCompletion(caller.getName(), proc, response);
+        }
+        if (cb != null) {
+            try {
+                cb.clientCallback(response);
+            } catch (Exception e) {
+                m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, e, "Failed to process response of %s", proc);
+            }
+        }
+    }
+
+    /**
+     * Rows of {@link #callProcedures} going to the same partition
+     */
+    private static class PartitionBatch {
+        final int m_partition;
+        final byte[] m_partitionParam;
+        final VoltTable m_table;
+        // Position of each row in the rows passed to callProcedures
+        final List<Integer> m_indices = new ArrayList<>();
+        final List<Object[]> m_rows = new ArrayList<>();
+        final List<ProcedureCallback> m_callbacks = new ArrayList<>();
+
+        PartitionBatch(int partition, byte[] partitionParam, VoltTable table) {
+            m_partition = partition;
+            m_partitionParam = partitionParam;
+            m_table = table;
+        }
+    }
+
+    /**
+     * Hands the response of a batch to the callback of every row, or invokes
+     * the procedure again for each row when the batch failed.
+     */
+    private class BatchCallback implements ProcedureCallback {
+        private final InternalConnectionContext m_caller;
+        private final Predicate<Integer> m_backPressurePredicate;
+        private final InternalConnectionStatsCollector m_statsCollector;
+        private final String m_proc;
+        private final PartitionBatch m_batch;
+
+        BatchCallback(InternalConnectionContext caller, Predicate<Integer> backPressurePredicate,
+                InternalConnectionStatsCollector statsCollector, String proc, PartitionBatch batch) {
+            m_caller = caller;
+            m_backPressurePredicate = backPressurePredicate;
+            m_statsCollector = statsCollector;
+            m_proc = proc;
+            m_batch = batch;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            switch (response.getStatus()) {
+            case ClientResponse.RESPONSE_UNKNOWN:
+                // The adapter submits the batch again
+                return;
+            case ClientResponse.SUCCESS:
+            case ClientResponse.SERVER_UNAVAILABLE:
+                for (ProcedureCallback cb : m_batch.m_callbacks) {
+                    completeRow(m_caller, m_statsCollector, cb, m_proc, response);
+                }
+                return;
+            default:
+                try {
+                    m_retryExecutor.execute(this::retryRows);
+                } catch (RejectedExecutionException e) {
+                    m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, e, "Failed to retry batch of %s", m_proc);
+                    for (ProcedureCallback cb : m_batch.m_callbacks) {
+                        completeRow(m_caller, m_statsCollector, cb, m_proc, response);
+                    }
+                }
+            }
+        }
+
+        private void retryRows() {
+            // The rows were reported as queued, so every callback gets a response
+            for (int i = 0; i < m_batch.m_rows.size(); i++) {
+                callProcedureOrFail(m_caller, m_backPressurePredicate, m_statsCollector,
+                        m_batch.m_callbacks.get(i), m_proc, m_batch.m_rows.get(i));
+            }
+        }
+    }
 }
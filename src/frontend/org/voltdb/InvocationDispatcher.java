@@ -73,6 +73,7 @@ import org.voltdb.messaging.MultiPartitionParticipantMessage;
 import org.voltdb.settings.NodeSettings;
 import org.voltdb.sysprocs.saverestore.SnapshotPathType;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.VoltFile;
 import org.voltdb.utils.VoltTrace;
@@ -898,7 +899,8 @@ public final class InvocationDispatcher {
                                      nowNanos,
                                      task.getProcName(),
                                      ClientInterface.NTPROC_JUNK_ID,
-                                     false);
+                                     false,
+                                     task.getStreamChunkSize());
 
         // note, once we get the handle above, any response to the client MUST be done
         // by sending an InitiateResponseMessage to the CI mailbox. Writing bytes to the wire, like we
@@ -1409,7 +1411,8 @@ public final class InvocationDispatcher {
         }
 
         long handle = cihm.getHandle(isSinglePartition, isSinglePartition ? partitions[0] : -1, invocation.getClientHandle(),
-                messageSize, nowNanos, invocation.getProcName(), initiatorHSId, isShortCircuitRead);
+                messageSize, nowNanos, invocation.getProcName(), initiatorHSId, isShortCircuitRead,
+                invocation.getStreamChunkSize());
 
         Iv2InitiateTaskMessage workRequest =
             new Iv2InitiateTaskMessage(m_siteId,
@@ -1437,6 +1440,10 @@ public final class InvocationDispatcher {
                                                       "dest", CoreUtils.hsIdToString(finalInitiatorHSId)));
         }
 
+        FlightRecorder.recordTxn(FlightRecorder.Stage.RECEIVE, connectionId, handle, invocation.getClientHandle(),
+                                 nowNanos);
+        FlightRecorder.recordTxn(FlightRecorder.Stage.ROUTE, connectionId, handle, initiatorHSId);
+
         Iv2Trace.logCreateTransaction(workRequest);
         m_mailbox.send(initiatorHSId, workRequest);
         return CreateTransactionResult.SUCCESS;
@@ -50,6 +50,8 @@ public class ParameterSet implements JSONString {
         Object value;
         byte[] encodedString;
         byte[][] encodedStringArray;
+        // set for scalars that flattenToBuffer can write back without inspecting the value's class
+        VoltType type;
     }
 
     private final Object m_params[];
@@ -64,6 +66,13 @@ public class ParameterSet implements JSONString {
      */
     private final byte[][] m_encodedStrings;
     private final byte[][][] m_encodedStringArrays;
+    /*
+     * Wire type of each scalar parameter, resolved once while sizing or
+     * deserializing the set so flattenToBuffer doesn't repeat the class checks
+     * and type lookup per parameter. Null entries (nulls, sigils, arrays) take
+     * the general path. May be null when no parameter has a resolved type.
+     */
+    private final VoltType[] m_types;
     // memoized serialized size (start assuming valid size for empty ParameterSet)
     private final int m_serializedSize;
 
@@ -90,6 +99,7 @@ public class ParameterSet implements JSONString {
     private static ParameterSet fromArray(Object[] params) {
         byte[][][] encodedStringArrays = new byte[params.length][][];
         byte[][] encodedStrings = new byte[params.length][];
+        VoltType[] types = new VoltType[params.length];
 
         int size = 2;
 
@@ -237,6 +247,7 @@ public class ParameterSet implements JSONString {
             }
 
             VoltType type = VoltType.typeFromClass(cls);
+            types[ii] = type;
             switch (type) {
                 case TINYINT:
                     size++;
@@ -278,7 +289,7 @@ public class ParameterSet implements JSONString {
             }
         }
 
-        return new ParameterSet(params, size, encodedStrings, encodedStringArrays);
+        return new ParameterSet(params, size, encodedStrings, encodedStringArrays, types);
     }
 
     public static ParameterSet fromJSONString(String json) throws JSONException, IOException {
@@ -304,6 +315,7 @@ public class ParameterSet implements JSONString {
         Object[] params = new Object[count];
         byte[][] encodedStrings = null;
         byte[][][] encodedStringArrays = null;
+        VoltType[] types = null;
 
         for (int i = 0; i < count; ++i) {
             OneParamInfo opi = readOneParameter(buffer);
@@ -320,18 +332,26 @@ public class ParameterSet implements JSONString {
                 }
                 encodedStringArrays[i] = opi.encodedStringArray;
             }
+            if (opi.type != null) {
+                if (types == null) {
+                    types = new VoltType[count];
+                }
+                types[i] = opi.type;
+            }
         }
 
         int size = buffer.position() - startPos;
 
-        return new ParameterSet(params, size, encodedStrings, encodedStringArrays);
+        return new ParameterSet(params, size, encodedStrings, encodedStringArrays, types);
     }
 
-    private ParameterSet(Object[] params, int serializedSize, byte[][] encodedStrings, byte[][][] encodedStringArrays) {
+    private ParameterSet(Object[] params, int serializedSize, byte[][] encodedStrings, byte[][][] encodedStringArrays,
+            VoltType[] types) {
         m_params = params;
         m_serializedSize = serializedSize;
         m_encodedStrings = encodedStrings;
         m_encodedStringArrays = encodedStringArrays;
+        m_types = types;
     }
 
     static Object limitType(Object o) {
@@ -572,6 +592,7 @@ public class ParameterSet implements JSONString {
         int len;
         byte[] encodedString = null;
         byte[][] encodedStringArray = null;
+        VoltType resolvedType = null;
 
         byte nextTypeByte = in.get();
         if (nextTypeByte == ARRAY) {
@@ -611,18 +632,23 @@ public class ParameterSet implements JSONString {
                     break;
                 case TINYINT:
                     value = in.get();
+                    resolvedType = nextType;
                     break;
                 case SMALLINT:
                     value = in.getShort();
+                    resolvedType = nextType;
                     break;
                 case INTEGER:
                     value = in.getInt();
+                    resolvedType = nextType;
                     break;
                 case BIGINT:
                     value = in.getLong();
+                    resolvedType = nextType;
                     break;
                 case FLOAT:
                     value = in.getDouble();
+                    resolvedType = nextType;
                     break;
                 case STRING:
                     len = in.getInt();
@@ -632,6 +658,7 @@ public class ParameterSet implements JSONString {
                         encodedString = new byte[len];
                         in.get(encodedString);
                         value = new String(encodedString, Constants.UTF8ENCODING);
+                        resolvedType = nextType;
                     }
                     break;
                 case VARBINARY:
@@ -647,6 +674,7 @@ public class ParameterSet implements JSONString {
                 case TIMESTAMP:
                     final long micros = in.getLong();
                     value = new TimestampType(micros);
+                    resolvedType = nextType;
                     break;
                 case VOLTTABLE:
                     final int tableSize = in.getInt();
@@ -689,6 +717,7 @@ public class ParameterSet implements JSONString {
         retval.value = value;
         retval.encodedString = encodedString;
         retval.encodedStringArray = encodedStringArray;
+        retval.type = resolvedType;
         return retval;
     }
 
@@ -698,6 +727,11 @@ public class ParameterSet implements JSONString {
 
         for (int i = 0; i < m_params.length; i++) {
             Object obj = m_params[i];
+            if (m_types != null && m_types[i] != null) {
+                buf.put(m_types[i].getValue());
+                flattenScalarToBuffer(i, obj, m_types[i], buf);
+                continue;
+            }
             if ((obj == null) || (obj == JSONObject.NULL)) {
                 VoltType type = VoltType.NULL;
                 buf.put(type.getValue());
@@ -867,56 +901,60 @@ public class ParameterSet implements JSONString {
 
             VoltType type = VoltType.typeFromClass(cls);
             buf.put(type.getValue());
-            switch (type) {
-                case TINYINT:
-                    buf.put((Byte)obj);
-                    break;
-                case SMALLINT:
-                    buf.putShort((Short)obj);
-                    break;
-                case INTEGER:
-                    buf.putInt((Integer) obj);
-                    break;
-                case BIGINT:
-                    buf.putLong((Long) obj);
-                    break;
-                case FLOAT:
-                    if (cls == Float.class) {
-                        buf.putDouble(((Float) obj).doubleValue());
-                    } else if (cls == Double.class) {
-                        buf.putDouble((Double) obj);
-                    } else {
-                        throw new RuntimeException("Can't cast parameter type to Double");
-                    }
-                    break;
-                case STRING:
-                    if (m_encodedStrings[i] == null) {
-                        // should not happen
-                        throw new IOException("String not encoded: " + (String) obj);
-                    }
-                    SerializationHelper.writeVarbinary(m_encodedStrings[i], buf);
-                    break;
-                case TIMESTAMP:
-                    long micros = timestampToMicroseconds(obj);
-                    buf.putLong(micros);
-                    break;
-                case DECIMAL:
-                    VoltDecimalHelper.serializeBigDecimal((BigDecimal)obj, buf);
-                    break;
-                case VOLTTABLE:
-                    ((VoltTable)obj).flattenToBuffer(buf);
-                    break;
-                case GEOGRAPHY_POINT:
-                    ((GeographyPointValue)obj).flattenToBuffer(buf);
-                    break;
-                case GEOGRAPHY:
-                    GeographyValue gv = (GeographyValue)obj;
-                    buf.putInt(gv.getLengthInBytes());
-                    gv.flattenToBuffer(buf);
-                    break;
-                default:
-                    throw new RuntimeException("FIXME: Unsupported type " + type);
-            }
+            flattenScalarToBuffer(i, obj, type, buf);
+        }
+    }
+
+    private void flattenScalarToBuffer(int i, Object obj, VoltType type, ByteBuffer buf) throws IOException {
+        switch (type) {
+            case TINYINT:
+                buf.put((Byte)obj);
+                break;
+            case SMALLINT:
+                buf.putShort((Short)obj);
+                break;
+            case INTEGER:
+                buf.putInt((Integer) obj);
+                break;
+            case BIGINT:
+                buf.putLong((Long) obj);
+                break;
+            case FLOAT:
+                if (obj instanceof Float) {
+                    buf.putDouble(((Float) obj).doubleValue());
+                } else if (obj instanceof Double) {
+                    buf.putDouble((Double) obj);
+                } else {
+                    throw new RuntimeException("Can't cast parameter type to Double");
+                }
+                break;
+            case STRING:
+                if (m_encodedStrings[i] == null) {
+                    // should not happen
+                    throw new IOException("String not encoded: " + (String) obj);
+                }
+                SerializationHelper.writeVarbinary(m_encodedStrings[i], buf);
+                break;
+            case TIMESTAMP:
+                long micros = timestampToMicroseconds(obj);
+                buf.putLong(micros);
+                break;
+            case DECIMAL:
+                VoltDecimalHelper.serializeBigDecimal((BigDecimal)obj, buf);
+                break;
+            case VOLTTABLE:
+                ((VoltTable)obj).flattenToBuffer(buf);
+                break;
+            case GEOGRAPHY_POINT:
+                ((GeographyPointValue)obj).flattenToBuffer(buf);
+                break;
+            case GEOGRAPHY:
+                GeographyValue gv = (GeographyValue)obj;
+                buf.putInt(gv.getLengthInBytes());
+                gv.flattenToBuffer(buf);
+                break;
+            default:
+                throw new RuntimeException("FIXME: Unsupported type " + type);
         }
     }
 
@@ -89,6 +89,18 @@ public class PlannerStatsCollector extends StatsSource {
     long m_cache2Hits = 0;
     long m_lastCache2Hits = 0;
 
+    /**
+     * Cache 1 evictions
+     */
+    long m_cache1Evictions = 0;
+    long m_lastCache1Evictions = 0;
+
+    /**
+     * Cache 2 evictions
+     */
+    long m_cache2Evictions = 0;
+    long m_lastCache2Evictions = 0;
+
     /**
      * Cache misses
      */
@@ -180,7 +192,7 @@ public class PlannerStatsCollector extends StatsSource {
     /**
      * Called before doing planning. Starts timer.
      */
-    public void startStatsCollection() {
+    public synchronized void startStatsCollection() {
         if (getInvocations() % m_collectionFrequency == 0) {
             m_currentStartTime = System.nanoTime();
         }
@@ -195,6 +207,21 @@ public class PlannerStatsCollector extends StatsSource {
      * @param partitionId  partition id
      */
     public void endStatsCollection(long cache1Size, long cache2Size, CacheUse cacheUse, long partitionId) {
+        endStatsCollection(cache1Size, cache2Size, m_cache1Evictions, m_cache2Evictions, cacheUse, partitionId);
+    }
+
+    /**
+     * Called after planning or failing to plan. Records timer and cache stats.
+     *
+     * @param cache1Size       number of entries in level 1 cache
+     * @param cache2Size       number of entries in level 2 cache
+     * @param cache1Evictions  number of entries evicted from level 1 cache
+     * @param cache2Evictions  number of entries evicted from level 2 cache
+     * @param cacheUse         where the planned statement came from
+     * @param partitionId      partition id
+     */
+    public synchronized void endStatsCollection(long cache1Size, long cache2Size, long cache1Evictions,
+            long cache2Evictions, CacheUse cacheUse, long partitionId) {
         if (m_currentStartTime != null) {
             long delta = System.nanoTime() - m_currentStartTime;
             if (delta < 0) {
@@ -215,6 +242,8 @@ public class PlannerStatsCollector extends StatsSource {
 
         m_cache1Level = cache1Size;
         m_cache2Level = cache2Size;
+        m_cache1Evictions = cache1Evictions;
+        m_cache2Evictions = cache2Evictions;
 
         switch(cacheUse) {
           case HIT1:
@@ -235,6 +264,20 @@ public class PlannerStatsCollector extends StatsSource {
         m_partitionId = partitionId;
     }
 
+    /**
+     * Records a level 1 cache hit that was served without planning, so without timing it.
+     */
+    public synchronized void recordCacheHit(long cache1Size, long cache2Size, long cache1Evictions,
+            long cache2Evictions, long partitionId) {
+        m_cache1Level = cache1Size;
+        m_cache2Level = cache2Size;
+        m_cache1Evictions = cache1Evictions;
+        m_cache2Evictions = cache2Evictions;
+        m_cache1Hits++;
+        m_invocations++;
+        m_partitionId = partitionId;
+    }
+
     /**
      * Update the rowValues array with the latest statistical information.
      * This method is overrides the super class version
@@ -242,7 +285,7 @@ public class PlannerStatsCollector extends StatsSource {
      * @param values Values of each column of the row of stats. Used as output.
      */
     @Override
-    protected void updateStatsRow(Object rowKey, Object rowValues[]) {
+    protected synchronized void updateStatsRow(Object rowKey, Object rowValues[]) {
         super.updateStatsRow(rowKey, rowValues);
 
         rowValues[columnNameToIndex.get("PARTITION_ID")] = m_partitionId;
@@ -254,6 +297,8 @@ public class PlannerStatsCollector extends StatsSource {
         long cache1Hits  = m_cache1Hits;
         long cache2Hits  = m_cache2Hits;
         long cacheMisses = m_cacheMisses;
+        long cache1Evictions = m_cache1Evictions;
+        long cache2Evictions = m_cache2Evictions;
         long failureCount = m_failures;
 
         if (m_interval) {
@@ -280,6 +325,12 @@ public class PlannerStatsCollector extends StatsSource {
             cacheMisses = m_cacheMisses - m_lastCacheMisses;
             m_lastCacheMisses = m_cacheMisses;
 
+            cache1Evictions = m_cache1Evictions - m_lastCache1Evictions;
+            m_lastCache1Evictions = m_cache1Evictions;
+
+            cache2Evictions = m_cache2Evictions - m_lastCache2Evictions;
+            m_lastCache2Evictions = m_cache2Evictions;
+
             failureCount = m_failures - m_lastFailures;
             m_lastFailures = m_failures;
 
@@ -302,6 +353,8 @@ public class PlannerStatsCollector extends StatsSource {
             rowValues[columnNameToIndex.get("PLAN_TIME_AVG")] = 0L;
         }
         rowValues[columnNameToIndex.get("FAILURES")] = failureCount;
+        rowValues[columnNameToIndex.get("CACHE1_EVICTIONS")] = cache1Evictions;
+        rowValues[columnNameToIndex.get("CACHE2_EVICTIONS")] = cache2Evictions;
     }
 
     /**
@@ -322,6 +375,8 @@ public class PlannerStatsCollector extends StatsSource {
         columns.add(new ColumnInfo("PLAN_TIME_MAX", VoltType.BIGINT));
         columns.add(new ColumnInfo("PLAN_TIME_AVG", VoltType.BIGINT));
         columns.add(new ColumnInfo("FAILURES",      VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE1_EVICTIONS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE2_EVICTIONS", VoltType.BIGINT));
     }
 
     @Override
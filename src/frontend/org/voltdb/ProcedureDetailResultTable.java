@@ -51,7 +51,10 @@ public class ProcedureDetailResultTable {
             new ColumnInfo("MAX_PARAMETER_SET_SIZE", VoltType.INTEGER),
             new ColumnInfo("AVG_PARAMETER_SET_SIZE", VoltType.INTEGER),
             new ColumnInfo("ABORTS", VoltType.BIGINT),
-            new ColumnInfo("FAILURES", VoltType.BIGINT));
+            new ColumnInfo("FAILURES", VoltType.BIGINT),
+            new ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P999_EXECUTION_TIME", VoltType.BIGINT));
 
     public ProcedureDetailResultTable(VoltTable table) {
         assert(table != null);
@@ -78,7 +81,10 @@ public class ProcedureDetailResultTable {
                     table.getLong("MAX_PARAMETER_SET_SIZE"),
                     table.getLong("AVG_PARAMETER_SET_SIZE"),
                     table.getLong("ABORTS"),
-                    table.getLong("FAILURES")));
+                    table.getLong("FAILURES"),
+                    table.getLong("P50_EXECUTION_TIME"),
+                    table.getLong("P99_EXECUTION_TIME"),
+                    table.getLong("P999_EXECUTION_TIME")));
         }
         Collections.sort(m_rows, new Comparator<ProcedureDetailResultRow>() {
             @Override
@@ -106,7 +112,10 @@ public class ProcedureDetailResultTable {
                                        row.m_maxParameterSetSize,
                                        row.m_avgParameterSetSize,
                                        row.m_aborts,
-                                       row.m_failures);
+                                       row.m_failures,
+                                       row.m_p50ExecutionTime,
+                                       row.m_p99ExecutionTime,
+                                       row.m_p999ExecutionTime);
         }
     }
 
@@ -121,6 +130,7 @@ public class ProcedureDetailResultTable {
         long m_minExecutionTime, m_maxExecutionTime, m_avgExecutionTime;
         long m_minResultSize, m_maxResultSize, m_avgResultSize;
         long m_minParameterSetSize, m_maxParameterSetSize, m_avgParameterSetSize;
+        long m_p50ExecutionTime, m_p99ExecutionTime, m_p999ExecutionTime;
 
         public ProcedureDetailResultRow(long timestamp, long hostId, String hostName,
                                         long siteId, long partitionId, String procedure, String statement,
@@ -128,7 +138,8 @@ public class ProcedureDetailResultTable {
                                         long minExecutionTime, long maxExecutionTime, long avgExecutionTime,
                                         long minResultSize, long maxResultSize, long avgResultSize,
                                         long minParameterSetSize, long maxParameterSetSize, long avgParameterSetSize,
-                                        long aborts, long failures) {
+                                        long aborts, long failures,
+                                        long p50ExecutionTime, long p99ExecutionTime, long p999ExecutionTime) {
             m_timestamp = timestamp;
             m_hostId = hostId;
             m_hostName = hostName;
@@ -149,6 +160,9 @@ public class ProcedureDetailResultTable {
             m_avgParameterSetSize = avgParameterSetSize;
             m_aborts = aborts;
             m_failures = failures;
+            m_p50ExecutionTime = p50ExecutionTime;
+            m_p99ExecutionTime = p99ExecutionTime;
+            m_p999ExecutionTime = p999ExecutionTime;
         }
 
         @Override
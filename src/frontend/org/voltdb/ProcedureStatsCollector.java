@@ -163,6 +163,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
 
         m_procStatsData.m_timedInvocations++;
         // sampled timings
+        m_procStatsData.recordExecutionTime(duration);
         m_procStatsData.m_totalTimedExecutionTime += duration;
         m_procStatsData.m_minExecutionTime = Math.min(duration, m_procStatsData.m_minExecutionTime);
         m_procStatsData.m_maxExecutionTime = Math.max(duration, m_procStatsData.m_maxExecutionTime);
@@ -251,6 +252,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
 
         dataToUpdate.m_timedInvocations++;
         // sampled timings
+        dataToUpdate.recordExecutionTime(duration);
         dataToUpdate.m_totalTimedExecutionTime += duration;
         dataToUpdate.m_minExecutionTime = Math.min(duration, dataToUpdate.m_minExecutionTime);
         dataToUpdate.m_maxExecutionTime = Math.max(duration, dataToUpdate.m_maxExecutionTime);
@@ -342,6 +344,12 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         rowValues[columnNameToIndex.get("MIN_PARAMETER_SET_SIZE")] = minParameterSetSize;
         rowValues[columnNameToIndex.get("MAX_PARAMETER_SET_SIZE")] = maxParameterSetSize;
         rowValues[columnNameToIndex.get("TRANSACTIONAL")] = (byte) (m_isTransactional ? 1 : 0);
+
+        // percentiles always cover the latest latency window, interval or not
+        long[] percentiles = currRow.getExecutionTimePercentiles(50.0, 99.0, 99.9);
+        rowValues[columnNameToIndex.get("P50_EXECUTION_TIME")] = percentiles[0];
+        rowValues[columnNameToIndex.get("P99_EXECUTION_TIME")] = percentiles[1];
+        rowValues[columnNameToIndex.get("P999_EXECUTION_TIME")] = percentiles[2];
     }
 
     /**
@@ -368,6 +376,9 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         columns.add(new VoltTable.ColumnInfo("ABORTS", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("FAILURES", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("TRANSACTIONAL", VoltType.TINYINT));
+        columns.add(new VoltTable.ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P999_EXECUTION_TIME", VoltType.BIGINT));
     }
 
     @Override
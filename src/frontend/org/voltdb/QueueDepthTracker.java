@@ -19,12 +19,12 @@ package org.voltdb;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.iv2.SiteTasker;
+import org.voltdb.iv2.SiteTaskerQueue;
 
 /**
  * A class to track and generate statistics regarding queue depth.
@@ -39,7 +39,7 @@ public class QueueDepthTracker extends SiteStatsSource {
     private final AtomicInteger m_depth;
     private long m_lastWaitTime;
     private final ArrayBlockingQueue<QueueStatus> m_historicalData;
-    private LinkedTransferQueue<SiteTasker> m_tasks;
+    private final SiteTaskerQueue m_tasks;
     private long m_maxWaitTimeWindowSize = 5_000_000_000L; // window size set to 5 seconds
     private long m_maxWaitLastLogTime;
     private volatile long m_recentMaxWaitTime;
@@ -61,7 +61,7 @@ public class QueueDepthTracker extends SiteStatsSource {
         }
     }
 
-    public QueueDepthTracker(long siteId, LinkedTransferQueue<SiteTasker> tasks) {
+    public QueueDepthTracker(long siteId, SiteTaskerQueue tasks) {
         super(siteId, false);
         m_historicalData = new ArrayBlockingQueue<>(10);
         m_depth = new AtomicInteger(tasks.size());
@@ -77,17 +77,33 @@ public class QueueDepthTracker extends SiteStatsSource {
         m_depth.incrementAndGet();
     }
 
-    public void pollUpdate(long offerTime) {
+    public void offerRejected() {
         m_depth.decrementAndGet();
+    }
+
+    public void pollUpdate(long offerTime) {
         long currentTime = System.nanoTime();
-        m_lastWaitTime = currentTime - offerTime;
+        long waitTime = currentTime - offerTime;
+        pollUpdate(1, waitTime, waitTime, currentTime);
+    }
+
+    /**
+     * Account for a batch of tasks taken from the queue at once.
+     * @param count number of tasks polled
+     * @param totalWaitTime sum of the wait times of those tasks
+     * @param maxWaitTime largest wait time among those tasks
+     * @param currentTime System.nanoTime() used to compute the wait times
+     */
+    public void pollUpdate(int count, long totalWaitTime, long maxWaitTime, long currentTime) {
+        m_depth.addAndGet(-count);
+        m_lastWaitTime = maxWaitTime;
         // if max wait time was last logged less than m_recentWindowSize ago
         // keep the max wait time in m_recentMaxWaitTime
         // or log and reset the recentMaxWaitTime, update last log time
         if (currentTime - m_maxWaitLastLogTime < m_recentWindowSize) {
-            if (m_recentMaxWaitTime < m_lastWaitTime) m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime += m_lastWaitTime;
-            m_recentPollCount++;
+            if (m_recentMaxWaitTime < maxWaitTime) m_recentMaxWaitTime = maxWaitTime;
+            m_recentTotalWaitTime += totalWaitTime;
+            m_recentPollCount += count;
         } else {
             // remove out of date historical data
             while (!m_historicalData.isEmpty() &&
@@ -102,9 +118,9 @@ public class QueueDepthTracker extends SiteStatsSource {
                 //This should never happen...
                 s_logger.warn("Could not insert queue stats data. Current data size: " + m_historicalData.size());
             }
-            m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime = m_lastWaitTime;
-            m_recentPollCount = 1;
+            m_recentMaxWaitTime = maxWaitTime;
+            m_recentTotalWaitTime = totalWaitTime;
+            m_recentPollCount = count;
             m_maxWaitLastLogTime = currentTime;
         }
     }
@@ -123,7 +139,7 @@ public class QueueDepthTracker extends SiteStatsSource {
         long currentTime = System.nanoTime();
         // check if current wait time exceeds the maxWaitTime
         long currentWaitTime;
-        SiteTasker nextTask = m_tasks.peek();
+        SiteTasker nextTask = m_tasks.peekFromAnyThread();
         if (nextTask == null) {
             currentWaitTime = 0;
         } else {
@@ -51,6 +51,8 @@ import org.voltcore.utils.InstanceId;
 import org.voltcore.utils.Pair;
 import org.voltdb.InvocationDispatcher.OverrideCheck;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.commandlog.GroupCommitCommandLog;
+import org.voltdb.commandlog.GroupCommitCommandLogReinitiator;
 import org.voltdb.common.Constants;
 import org.voltdb.compiler.deploymentfile.DrRoleType;
 import org.voltdb.dtxn.TransactionCreator;
@@ -488,7 +490,7 @@ SnapshotCompletionInterest, Promotable
         m_action = action;
         m_hostMessenger = hostMessenger;
         m_zk = hostMessenger.getZK();
-        m_clEnabled = VoltDB.instance().getConfig().m_isEnterprise ? clEnabled : false;
+        m_clEnabled = (VoltDB.instance().getConfig().m_isEnterprise || GroupCommitCommandLog.ENABLED) ? clEnabled : false;
         m_clPath = clPath;
         m_clSnapshotPath = clSnapshotPath;
         m_snapshotPath = snapshotPath;
@@ -504,6 +506,10 @@ SnapshotCompletionInterest, Promotable
         CommandLogReinitiator replayAgent = ProClass.newInstanceOf("org.voltdb.CommandLogReinitiatorImpl",
                 "Command log replay", ProClass.HANDLER_IGNORE, m_hostId, startAction, m_hostMessenger, m_clPath,
                 m_liveHosts);
+        if (replayAgent == null && m_clEnabled && GroupCommitCommandLog.ENABLED) {
+            replayAgent = new GroupCommitCommandLogReinitiator(m_hostId, startAction, m_hostMessenger, m_clPath,
+                    m_restoreAdapter);
+        }
         if (replayAgent != null) {
             m_replayAgent = replayAgent;
         }
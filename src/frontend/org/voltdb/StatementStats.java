@@ -19,11 +19,20 @@ package org.voltdb;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram_voltpatches.Histogram;
+import org.HdrHistogram_voltpatches.SingleWriterRecorder;
 
 /**
  * Record statistics for each statement in the stored procedure.
  */
 public final class StatementStats {
+    /**
+     * Shortest window the execution time percentiles are computed over.
+     */
+    static final int LATENCY_WINDOW_MS = Integer.getInteger("PROCEDURE_LATENCY_WINDOW_MS", (int) TimeUnit.SECONDS.toMillis(1));
+
     /**
      * The name of the statement.
      * If it's for the statistics of the whole procedure, the name will be <ALL>.
@@ -240,6 +249,24 @@ public final class StatementStats {
         return m_workerTask.m_totalParameterSetSize;
     }
 
+    /**
+     * Execution time percentiles, in nanoseconds, of the sampled invocations in the most recent
+     * latency window. The worker and coordinator task windows are merged before the percentiles
+     * are taken.
+     */
+    public long[] getExecutionTimePercentiles(double... percentiles) {
+        Histogram merged = new Histogram(2);
+        m_workerTask.addLatencyWindowTo(merged);
+        if (m_coordinatorTask != null) {
+            m_coordinatorTask.addLatencyWindowTo(merged);
+        }
+        long[] retval = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            retval[i] = TimeUnit.MICROSECONDS.toNanos(merged.getValueAtPercentile(percentiles[i]));
+        }
+        return retval;
+    }
+
     public long getLastTotalParameterSetSizeAndReset() {
         long retval = m_workerTask.m_lastTotalParameterSetSize;
         m_workerTask.m_lastTotalParameterSetSize = m_workerTask.m_totalParameterSetSize;
@@ -441,5 +468,30 @@ public final class StatementStats {
          */
         long m_totalParameterSetSize = 0;
         long m_lastTotalParameterSetSize = 0;
+
+        /**
+         * Sampled execution times in microseconds. The recording thread never blocks on the
+         * stats thread, which swaps out whole interval histograms instead of copying them.
+         */
+        private final SingleWriterRecorder m_latencyRecorder = new SingleWriterRecorder(2);
+        private Histogram m_latencyWindow = null;
+        private long m_latencyWindowStartMillis = 0;
+
+        void recordExecutionTime(long durationNanos) {
+            m_latencyRecorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+        }
+
+        /**
+         * Add the most recent window of at least LATENCY_WINDOW_MS to target, starting
+         * a new window if the current one is old enough.
+         */
+        synchronized void addLatencyWindowTo(Histogram target) {
+            final long now = System.currentTimeMillis();
+            if (m_latencyWindow == null || now - m_latencyWindowStartMillis >= LATENCY_WINDOW_MS) {
+                m_latencyWindow = m_latencyRecorder.getIntervalHistogram(m_latencyWindow);
+                m_latencyWindowStartMillis = now;
+            }
+            target.add(m_latencyWindow);
+        }
     }
 }
@@ -25,6 +25,7 @@ public enum StatsSelector {
     PROCEDURE,
     STARVATION,
     QUEUE,
+    MPREADPOOL,     // sizing and queue wait of the MP read-only site pool
     IDLETIME(STARVATION),
     INITIATOR,
     LATENCY(false),
@@ -69,6 +70,7 @@ public enum StatsSelector {
     IMPORTER,       // synonym as IMPORT for backward compatibility
     IMPORT(IMPORTER),
     EXPORT,
+    EXPORTWORKERS(false),   // queueing of export decoders on the shared worker pool
     TOPIC,
     TASK(false),
     TASK_SCHEDULER(false, TASK),
@@ -73,6 +73,9 @@ public class StoredProcedureInvocation implements JSONString {
     private int m_batchTimeout = BatchTimeoutOverrideType.NO_TIMEOUT;
     private boolean m_allPartition = false;
     private int m_partitionDestination = -1;
+    // Requested chunk size for streamed results, 0 if the client wants a single response.
+    // Only the ClientInterface that received the invocation uses it, so it is not forwarded.
+    private int m_streamChunkSize = 0;
 
     public StoredProcedureInvocation getShallowCopy()
     {
@@ -94,6 +97,7 @@ public class StoredProcedureInvocation implements JSONString {
         copy.m_batchTimeout = m_batchTimeout;
         copy.m_allPartition = m_allPartition;
         copy.m_partitionDestination = m_partitionDestination;
+        copy.m_streamChunkSize = m_streamChunkSize;
 
         return copy;
     }
@@ -203,6 +207,10 @@ public class StoredProcedureInvocation implements JSONString {
         return m_partitionDestination;
     }
 
+    public int getStreamChunkSize() {
+        return m_streamChunkSize;
+    }
+
     /** Read into an serialized parameter buffer to extract a single parameter */
     Object getParameterAtIndex(int partitionIndex) {
         try {
@@ -445,6 +453,7 @@ public class StoredProcedureInvocation implements JSONString {
         m_batchTimeout = BatchTimeoutOverrideType.NO_TIMEOUT;
         m_allPartition = false;
         m_partitionDestination = -1;
+        m_streamChunkSize = 0;
 
         switch (type) {
             case ORIGINAL:
@@ -531,6 +540,9 @@ public class StoredProcedureInvocation implements JSONString {
                 m_partitionDestination = ProcedureInvocationExtensions.readPartitionDestination(buf);
                 m_allPartition = true;
                 break;
+            case ProcedureInvocationExtensions.STREAM_RESULTS:
+                m_streamChunkSize = ProcedureInvocationExtensions.readStreamResults(buf);
+                break;
             default:
                 ProcedureInvocationExtensions.skipUnknownExtension(buf);
                 break;
@@ -541,7 +553,11 @@ public class StoredProcedureInvocation implements JSONString {
         initParameters(buf);
     }
 
-    private void initParameters(ByteBuffer buf) {
+    /**
+     * Use already serialized parameters, deserialized on first access. Parameters
+     * start at the position of the buffer.
+     */
+    void initParameters(ByteBuffer buf) {
         serializedParams = buf.slice();
         final ByteBuffer duplicate = serializedParams.duplicate();
         params = new FutureTask<ParameterSet>(new Callable<ParameterSet>() {
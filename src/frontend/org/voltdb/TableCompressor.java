@@ -18,10 +18,19 @@
 package org.voltdb;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.Future;
 
+import org.voltcore.utils.CompressionStrategySnappy;
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.utils.CompressionPipeline;
 import org.voltdb.utils.CompressionService;
 
+import com.google_voltpatches.common.base.Function;
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.MoreExecutors;
+
 /**
  * Helper class to compress a table's internal buffer.
  *
@@ -31,6 +40,24 @@ import org.voltdb.utils.CompressionService;
  */
 public class TableCompressor {
 
+    // Compressed tables are always decompressed with CompressionService.decompressBytes, so they stay Snappy
+    private static final CompressionPipeline s_pipeline =
+            new CompressionPipeline(CompressionStrategySnappy.INSTANCE, Math.max(2, CoreUtils.availableProcessors()));
+
+    private static final Function<BBContainer, byte[]> TO_BYTES = new Function<BBContainer, byte[]>() {
+        @Override
+        public byte[] apply(BBContainer compressed) {
+            try {
+                final ByteBuffer b = compressed.b();
+                final byte result[] = new byte[b.remaining()];
+                b.get(result);
+                return result;
+            } finally {
+                compressed.discard();
+            }
+        }
+    };
+
     public static byte[] getCompressedTableBytes(VoltTable t) throws IOException {
         final int startPosition = t.m_buffer.position();
         try {
@@ -54,7 +81,8 @@ public class TableCompressor {
         try {
             t.m_buffer.position(0);
             if (t.m_buffer.isDirect()) {
-                return CompressionService.compressBufferAsync(t.m_buffer.duplicate());
+                return Futures.transform(s_pipeline.compress(t.m_buffer.duplicate(), 0, false), TO_BYTES,
+                        MoreExecutors.directExecutor());
             } else {
                 assert(t.m_buffer.hasArray());
                 return CompressionService.compressBytesAsync(
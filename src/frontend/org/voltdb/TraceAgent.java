@@ -20,12 +20,15 @@ package org.voltdb;
 import org.json_voltpatches.JSONObject;
 import org.voltcore.network.Connection;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.VoltTrace;
 
 import java.io.File;
 import java.util.Collection;
 
 public class TraceAgent extends OpsAgent {
+    private static final String DEFAULT_RECORDER_SECONDS = "10";
+
     public TraceAgent()
     {
         super("TraceAgent");
@@ -164,6 +167,32 @@ public class TraceAgent extends OpsAgent {
             return null;
         }
 
+        // Write the flight recorder events of the last [seconds] seconds to file, and the
+        // absolute path of the file is returned. The flight recorder is always on.
+        // Usage: "exec @Trace recorder [seconds]"
+        if ("recorder".equalsIgnoreCase(subselector)) {
+            if (numOfParams > 2) {
+                return "Incorrect number of arguments to @Trace " +
+                        subselector + " (expected: 1 or 2,  received: " +
+                        numOfParams + ")";
+            }
+            String seconds = numOfParams == 2 ? paramsArray[1].toString() : DEFAULT_RECORDER_SECONDS;
+            try {
+                double time = Double.parseDouble(seconds);
+                if (time <= 0) {
+                    return "Second argument of @Trace recorder must be a positive numeric number";
+                }
+            } catch (NumberFormatException | NullPointerException e) {
+                return "Incorrect type of second argument of @Trace recorder " +
+                        seconds + " (It must be a double-precision number)";
+            }
+
+            obj.put("subselector", subselector);
+            obj.put("seconds", seconds);
+            obj.put("interval", false);
+            return null;
+        }
+
         return "Invalid @Trace selector " + subselector;
     }
 
@@ -186,6 +215,14 @@ public class TraceAgent extends OpsAgent {
             } else {
                 results[0].addRow("A trace file write request is already in progress or there is no category enabled");
             }
+        } else if (subselector.equalsIgnoreCase("recorder")) {
+            if (FlightRecorder.ENABLED) {
+                final long windowMillis = (long) (Double.parseDouble(obj.getString("seconds")) * 1000);
+                results[0].addRow(FlightRecorder.dump(new File(VoltDB.instance().getVoltDBRootPath(), "trace_logs").getAbsolutePath(),
+                                                      windowMillis));
+            } else {
+                results[0].addRow("The flight recorder is disabled");
+            }
         } else if (subselector.equalsIgnoreCase("enable")) {
             VoltTrace.enableCategories(VoltTrace.Category.valueOf(obj.getString("categories").toUpperCase()));
         } else if (subselector.equalsIgnoreCase("disable")) {
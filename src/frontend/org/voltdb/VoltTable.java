@@ -146,6 +146,12 @@ public final class VoltTable extends VoltTableRow implements JSONString {
     private int m_memoizedRowOffset = NO_MEMOIZED_ROW_OFFSET;
     private int m_memoizedBufferOffset;
 
+    // start of each row's data, built lazily for column views. Rows are only ever
+    // appended, so the first m_indexedRowCount entries stay valid until the row
+    // data is cleared or replaced.
+    private int[] m_rowOffsets;
+    private int m_indexedRowCount;
+
     // cache column indexes for column names used for lookup
     private HashMap<String,Integer> m_columnNameIndexMap;
 
@@ -525,6 +531,7 @@ public final class VoltTable extends VoltTableRow implements JSONString {
         m_buffer.position(m_rowStart);
         m_buffer.putInt(0);
         m_rowCount = 0;
+        m_indexedRowCount = 0;
         m_activeRowIndex = INVALID_ROW_INDEX;
         assert(verifyTableInvariants());
     }
@@ -618,6 +625,346 @@ public final class VoltTable extends VoltTableRow implements JSONString {
         }
     }
 
+    /**
+     * <p>Read-only view of a single column of a <tt>VoltTable</tt>, obtained from
+     * {@link VoltTable#columnView(int)}. Values are read by row index and do not move
+     * the table's row cursor.</p>
+     *
+     * <p>The position of the column in every row is found once, the first time a value
+     * is read. Variable-length columns that precede it are stepped over using their
+     * length prefixes and are never decoded. Integral, timestamp and float columns can
+     * be copied out as primitive arrays with {@link #asLongArray()} and
+     * {@link #asDoubleArray()} without boxing.</p>
+     *
+     * <p>A view covers the rows present when it was created. Getters update
+     * {@link VoltTable#wasNull()} the same way the row getters do.</p>
+     */
+    public final class ColumnView {
+        private final int m_column;
+        private final VoltType m_type;
+        private final int m_rows;
+        // offset of this column's value in each row, built on first access
+        private int[] m_valueOffsets;
+
+        private ColumnView(int column) {
+            m_column = column;
+            m_type = VoltTable.this.getColumnType(column);
+            m_rows = m_rowCount;
+        }
+
+        /**
+         * @return Index of the column in the table
+         */
+        public int getColumnIndex() {
+            return m_column;
+        }
+
+        /**
+         * @return {@link VoltType} of the column
+         */
+        public VoltType getColumnType() {
+            return m_type;
+        }
+
+        /**
+         * @return Number of rows covered by this view
+         */
+        public int getRowCount() {
+            return m_rows;
+        }
+
+        private int[] valueOffsets() {
+            if (m_valueOffsets != null) {
+                return m_valueOffsets;
+            }
+            final int[] rowOffsets = rowOffsetIndex();
+            final int[] offsets = new int[m_rows];
+
+            // Width of each preceding column, or -1 if it is variable length. When all
+            // of them are fixed width the value sits at the same place in every row.
+            final int[] widths = new int[m_column];
+            int fixedPrefix = 0;
+            for (int i = 0; i < m_column; i++) {
+                final VoltType type = VoltTable.this.getColumnType(i);
+                if (type.isVariableLength()) {
+                    widths[i] = -1;
+                    fixedPrefix = -1;
+                }
+                else {
+                    widths[i] = type.getLengthInBytesForFixedTypes();
+                    if (fixedPrefix >= 0) {
+                        fixedPrefix += widths[i];
+                    }
+                }
+            }
+
+            for (int row = 0; row < m_rows; row++) {
+                if (fixedPrefix >= 0) {
+                    offsets[row] = rowOffsets[row] + fixedPrefix;
+                    continue;
+                }
+                int pos = rowOffsets[row];
+                for (int i = 0; i < m_column; i++) {
+                    if (widths[i] >= 0) {
+                        pos += widths[i];
+                        continue;
+                    }
+                    final int len = m_buffer.getInt(pos);
+                    if (len == NULL_STRING_INDICATOR) {
+                        pos += STRING_LEN_SIZE;
+                    }
+                    else if (len < 0) {
+                        throw new RuntimeException("Invalid object length for column: " + i);
+                    }
+                    else {
+                        pos += len + STRING_LEN_SIZE;
+                    }
+                }
+                offsets[row] = pos;
+            }
+            m_valueOffsets = offsets;
+            return offsets;
+        }
+
+        private int offset(int row) {
+            if ((row < 0) || (row >= m_rows)) {
+                throw new IndexOutOfBoundsException("index = " + row + "; rows = " + m_rows);
+            }
+            return valueOffsets()[row];
+        }
+
+        private void validateType(VoltType... types) {
+            for (VoltType type : types) {
+                if (m_type == type) {
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("Column index " + m_column + " is type " + m_type);
+        }
+
+        private long readLong(int offset) {
+            switch (m_type) {
+            case TINYINT:
+                return m_buffer.get(offset);
+            case SMALLINT:
+                return m_buffer.getShort(offset);
+            case INTEGER:
+                return m_buffer.getInt(offset);
+            case BIGINT:
+            case TIMESTAMP:
+                return m_buffer.getLong(offset);
+            default:
+                throw new IllegalArgumentException("Column index " + m_column + " is type " + m_type);
+            }
+        }
+
+        private BigDecimal readDecimal(int offset) {
+            final ByteBuffer dup = m_buffer.duplicate();
+            dup.position(offset);
+            return VoltDecimalHelper.deserializeBigDecimal(dup);
+        }
+
+        /**
+         * Check whether the value in the given row is SQL <tt>null</tt>.
+         * @param row Index of the row
+         * @return <tt>true</tt> if the value is <tt>null</tt>
+         */
+        public boolean isNull(int row) {
+            final int offset = offset(row);
+            switch (m_type) {
+            case TINYINT:
+                return m_buffer.get(offset) == VoltType.NULL_TINYINT;
+            case SMALLINT:
+                return m_buffer.getShort(offset) == VoltType.NULL_SMALLINT;
+            case INTEGER:
+                return m_buffer.getInt(offset) == VoltType.NULL_INTEGER;
+            case BIGINT:
+            case TIMESTAMP:
+                return m_buffer.getLong(offset) == Long.MIN_VALUE;
+            case FLOAT:
+                return m_buffer.getDouble(offset) <= VoltType.NULL_FLOAT;
+            case STRING:
+            case VARBINARY:
+            case GEOGRAPHY:
+                return m_buffer.getInt(offset) == NULL_STRING_INDICATOR;
+            case DECIMAL:
+                return readDecimal(offset) == null;
+            case GEOGRAPHY_POINT:
+                return GeographyPointValue.unflattenFromBuffer(m_buffer, offset) == null;
+            default:
+                throw new RuntimeException("Unknown type");
+            }
+        }
+
+        /**
+         * Retrieve the value in the given row of an integral or timestamp column as a
+         * <tt>long</tt>. Timestamps are microseconds since the epoch.
+         * @param row Index of the row
+         * @return <tt>long</tt> value stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public long getLong(int row) {
+            final long value = readLong(offset(row));
+            switch (m_type) {
+            case TINYINT:
+                m_wasNull = (value == VoltType.NULL_TINYINT);
+                break;
+            case SMALLINT:
+                m_wasNull = (value == VoltType.NULL_SMALLINT);
+                break;
+            case INTEGER:
+                m_wasNull = (value == VoltType.NULL_INTEGER);
+                break;
+            default:
+                m_wasNull = (value == Long.MIN_VALUE);
+            }
+            return value;
+        }
+
+        /**
+         * Retrieve the value in the given row of a float column.
+         * @param row Index of the row
+         * @return <tt>double</tt> value stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public double getDouble(int row) {
+            validateType(VoltType.FLOAT);
+            final double value = m_buffer.getDouble(offset(row));
+            m_wasNull = (value <= VoltType.NULL_FLOAT); // see value.h
+            return value;
+        }
+
+        /**
+         * Retrieve the value in the given row of a string column.
+         * @param row Index of the row
+         * @return {@link String} value stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public String getString(int row) {
+            validateType(VoltType.STRING);
+            final String value = readString(offset(row), ROWDATA_ENCODING);
+            m_wasNull = (value == null);
+            return value;
+        }
+
+        /**
+         * Retrieve the value in the given row of a string or varbinary column as raw bytes.
+         * @param row Index of the row
+         * @return Bytes stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public byte[] getBytes(int row) {
+            validateType(VoltType.STRING, VoltType.VARBINARY);
+            final int offset = offset(row);
+            final int len = m_buffer.getInt(offset);
+            if (len == NULL_STRING_INDICATOR) {
+                m_wasNull = true;
+                return null;
+            }
+            m_wasNull = false;
+            final byte[] data = new byte[len];
+            final ByteBuffer dup = m_buffer.duplicate();
+            dup.position(offset + STRING_LEN_SIZE);
+            dup.get(data);
+            return data;
+        }
+
+        /**
+         * Retrieve the value in the given row of a decimal column.
+         * @param row Index of the row
+         * @return {@link BigDecimal} value stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public BigDecimal getDecimalAsBigDecimal(int row) {
+            validateType(VoltType.DECIMAL);
+            final BigDecimal bd = readDecimal(offset(row));
+            m_wasNull = (bd == null);
+            return bd;
+        }
+
+        /**
+         * Retrieve the value in the given row of a geography point column.
+         * @param row Index of the row
+         * @return {@link GeographyPointValue} stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public GeographyPointValue getGeographyPointValue(int row) {
+            validateType(VoltType.GEOGRAPHY_POINT);
+            final GeographyPointValue pt = GeographyPointValue.unflattenFromBuffer(m_buffer, offset(row));
+            m_wasNull = (pt == null);
+            return pt;
+        }
+
+        /**
+         * Retrieve the value in the given row of a geography column.
+         * @param row Index of the row
+         * @return {@link GeographyValue} stored in the given row
+         * @see VoltTable#wasNull()
+         */
+        public GeographyValue getGeographyValue(int row) {
+            validateType(VoltType.GEOGRAPHY);
+            final int offset = offset(row);
+            if (m_buffer.getInt(offset) == NULL_STRING_INDICATOR) {
+                m_wasNull = true;
+                return null;
+            }
+            m_wasNull = false;
+            return GeographyValue.unflattenFromBuffer(m_buffer, offset + STRING_LEN_SIZE);
+        }
+
+        /**
+         * Copy every value of an integral or timestamp column into a new array.
+         * <tt>null</tt> values are returned as the column type's null value
+         * widened to <tt>long</tt>; use {@link #isNull(int)} to tell them apart.
+         * @return One <tt>long</tt> per row
+         */
+        public long[] asLongArray() {
+            final int[] offsets = valueOffsets();
+            final long[] values = new long[m_rows];
+            switch (m_type) {
+            case TINYINT:
+                for (int row = 0; row < m_rows; row++) {
+                    values[row] = m_buffer.get(offsets[row]);
+                }
+                break;
+            case SMALLINT:
+                for (int row = 0; row < m_rows; row++) {
+                    values[row] = m_buffer.getShort(offsets[row]);
+                }
+                break;
+            case INTEGER:
+                for (int row = 0; row < m_rows; row++) {
+                    values[row] = m_buffer.getInt(offsets[row]);
+                }
+                break;
+            case BIGINT:
+            case TIMESTAMP:
+                for (int row = 0; row < m_rows; row++) {
+                    values[row] = m_buffer.getLong(offsets[row]);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Column index " + m_column + " is type " + m_type);
+            }
+            return values;
+        }
+
+        /**
+         * Copy every value of a float column into a new array. <tt>null</tt> values are
+         * returned as {@link VoltType#NULL_FLOAT}; use {@link #isNull(int)} to tell them apart.
+         * @return One <tt>double</tt> per row
+         */
+        public double[] asDoubleArray() {
+            validateType(VoltType.FLOAT);
+            final int[] offsets = valueOffsets();
+            final double[] values = new double[m_rows];
+            for (int row = 0; row < m_rows; row++) {
+                values[row] = m_buffer.getDouble(offsets[row]);
+            }
+            return values;
+        }
+    }
+
     // memo-ize response
     byte[] m_schemaString = null;
     @Override
@@ -780,6 +1127,52 @@ public final class VoltTable extends VoltTableRow implements JSONString {
         return retval;
     }
 
+    /**
+     * Get a read-only, column-oriented view of the column with the specified index.
+     * The view reads values by row index without moving this table's row cursor and,
+     * for integral and float columns, can return all values as a primitive array.
+     * Prefer it over {@link #advanceRow()} when reading a few columns of many rows.
+     * @param index Index of the column
+     * @return A {@link ColumnView} over the rows currently in the table.
+     * @throws IndexOutOfBoundsException if no column exists at the given index.
+     */
+    public final ColumnView columnView(int index) {
+        assert(verifyTableInvariants());
+        if ((index < 0) || (index >= m_colCount)) {
+            throw new IndexOutOfBoundsException("Column index " + index +
+                    " is beyond number of columns " + m_colCount);
+        }
+        return new ColumnView(index);
+    }
+
+    /**
+     * Index the start of each row's data, extending the index to cover rows added
+     * since it was last built.
+     */
+    private int[] rowOffsetIndex() {
+        if (m_rowOffsets == null || m_rowOffsets.length < m_rowCount) {
+            m_rowOffsets = Arrays.copyOf(m_rowOffsets == null ? new int[0] : m_rowOffsets, m_rowCount);
+        }
+        int pos;
+        if (m_indexedRowCount == 0) {
+            pos = m_rowStart + ROW_COUNT_SIZE + ROW_HEADER_SIZE;
+        }
+        else {
+            pos = m_rowOffsets[m_indexedRowCount - 1];
+            pos += m_buffer.getInt(pos - ROW_HEADER_SIZE) + ROW_HEADER_SIZE;
+        }
+        for (int row = m_indexedRowCount; row < m_rowCount; row++) {
+            m_rowOffsets[row] = pos;
+            final int rowLength = m_buffer.getInt(pos - ROW_HEADER_SIZE);
+            if (rowLength <= 0) {
+                throw new RuntimeException("Invalid row length.");
+            }
+            pos += rowLength + ROW_HEADER_SIZE;
+        }
+        m_indexedRowCount = m_rowCount;
+        return m_rowOffsets;
+    }
+
     /**
      * Internal method to add a single value to a table, shared by the multiple
      * ways to add rows.
@@ -2168,6 +2561,60 @@ public final class VoltTable extends VoltTableRow implements JSONString {
         buf.put(dup);
     }
 
+    /**
+     * Count the rows, starting at <tt>firstRow</tt>, whose serialized row data fits in
+     * <tt>maxRowBytes</tt>. At least one row is counted so a row larger than
+     * <tt>maxRowBytes</tt> is not skipped.
+     */
+    int countRowsFittingIn(int firstRow, int maxRowBytes) {
+        assert(firstRow >= 0 && firstRow < m_rowCount);
+        final int[] rowOffsets = rowOffsetIndex();
+        final int start = rowOffsets[firstRow] - ROW_HEADER_SIZE;
+        int row = firstRow + 1;
+        while (row < m_rowCount &&
+                rowOffsets[row] + m_buffer.getInt(rowOffsets[row] - ROW_HEADER_SIZE) - start <= maxRowBytes) {
+            row++;
+        }
+        return row - firstRow;
+    }
+
+    private int rowRangeBytes(int firstRow, int rowCount) {
+        if (rowCount == 0) {
+            return 0;
+        }
+        final int[] rowOffsets = rowOffsetIndex();
+        final int last = rowOffsets[firstRow + rowCount - 1];
+        return last + m_buffer.getInt(last - ROW_HEADER_SIZE) - (rowOffsets[firstRow] - ROW_HEADER_SIZE);
+    }
+
+    /**
+     * Serialized size of a table with this schema holding only the given range of rows.
+     * @see #flattenRowsToBuffer(ByteBuffer, int, int)
+     */
+    int getSerializedSize(int firstRow, int rowCount) {
+        assert(firstRow >= 0 && rowCount >= 0 && firstRow + rowCount <= m_rowCount);
+        return 4 + m_rowStart + ROW_COUNT_SIZE + rowRangeBytes(firstRow, rowCount);
+    }
+
+    /**
+     * Serialize a table with this schema holding only the given range of rows, copying
+     * the row data as is. The result deserializes like the output of {@link #flattenToBuffer(ByteBuffer)}.
+     */
+    void flattenRowsToBuffer(ByteBuffer buf, int firstRow, int rowCount) {
+        assert(firstRow >= 0 && rowCount >= 0 && firstRow + rowCount <= m_rowCount);
+        final int rowBytes = rowRangeBytes(firstRow, rowCount);
+        buf.putInt(m_rowStart + ROW_COUNT_SIZE + rowBytes);
+        final ByteBuffer dup = m_buffer.duplicate();
+        dup.limit(m_rowStart).position(0);
+        buf.put(dup);
+        buf.putInt(rowCount);
+        if (rowCount > 0) {
+            final int start = rowOffsetIndex()[firstRow] - ROW_HEADER_SIZE;
+            dup.limit(start + rowBytes).position(start);
+            buf.put(dup);
+        }
+    }
+
     public byte[] buildReusableDependenyResult() {
         ByteBuffer dup = m_buffer.duplicate();
         ByteBuffer responseBuf = ByteBuffer.allocate(dup.limit());
@@ -2186,6 +2633,7 @@ public final class VoltTable extends VoltTableRow implements JSONString {
 
         m_colCount = m_buffer.getShort(5);
         m_rowCount = m_buffer.getInt(m_rowStart);
+        m_indexedRowCount = 0;
 
         assert(verifyTableInvariants());
     }
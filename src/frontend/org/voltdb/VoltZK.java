@@ -114,6 +114,7 @@ public class VoltZK {
     public static final String user_snapshot_request = "/db/user_snapshot_request";
     public static final String user_snapshot_response = "/db/user_snapshot_response";
     public static final String commandlog_init_barrier = "/db/commmandlog_init_barrier";
+    public static final String commandlog_replay_barrier = "/db/commandlog_replay_barrier";
 
     // leader election
 
@@ -0,0 +1,139 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free table of the outstanding callbacks of a connection, keyed by client handle.
+ *
+ * Entries live in a preallocated power-of-two array. A handle hashes to a home slot
+ * and may be placed in any of the {@link #MAX_PROBES} slots that follow it; slots are
+ * claimed and released with a single CAS, so application threads queueing work, the
+ * network thread delivering responses and the expiration thread never share a lock.
+ * Removal is the only way an entry leaves the table, and only one thread's CAS can
+ * succeed, so every callback is still handed to exactly one of the racing threads.
+ *
+ * If every candidate slot is taken, which only happens when the number of outstanding
+ * calls approaches the table size, the entry goes to an overflow map instead.
+ */
+class CallbackTable<V extends CallbackTable.Entry> {
+
+    interface Entry {
+        long getHandle();
+    }
+
+    static final int DEFAULT_SIZE = Integer.getInteger("CLIENT_CALLBACK_TABLE_SIZE", 4096);
+    static final int MAX_PROBES = 16;
+
+    private final AtomicReferenceArray<V> m_slots;
+    private final int m_mask;
+    private final int m_shift;
+    private final ConcurrentHashMap<Long, V> m_overflow = new ConcurrentHashMap<>();
+
+    CallbackTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    CallbackTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(MAX_PROBES, size - 1)) << 1;
+        m_slots = new AtomicReferenceArray<>(capacity);
+        m_mask = capacity - 1;
+        m_shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /*
+     * Handles are handed out sequentially by the client and round-robined across
+     * connections, so spread them with a multiplicative hash rather than masking.
+     */
+    private int homeSlot(long handle) {
+        return (int) ((handle * 0x9E3779B97F4A7C15L) >>> m_shift);
+    }
+
+    /**
+     * Add an entry. The caller guarantees no entry with the same handle is present.
+     */
+    void put(V entry) {
+        final long handle = entry.getHandle();
+        final int home = homeSlot(handle);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            final int slot = (home + i) & m_mask;
+            if (m_slots.get(slot) == null && m_slots.compareAndSet(slot, null, entry)) {
+                return;
+            }
+        }
+        m_overflow.put(handle, entry);
+    }
+
+    /**
+     * Remove and return the entry for {@code handle}, or null if it is absent or
+     * another thread removed it first.
+     */
+    V remove(long handle) {
+        final int home = homeSlot(handle);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            final int slot = (home + i) & m_mask;
+            final V entry = m_slots.get(slot);
+            if (entry != null && entry.getHandle() == handle) {
+                return m_slots.compareAndSet(slot, entry, null) ? entry : null;
+            }
+        }
+        return m_overflow.isEmpty() ? null : m_overflow.remove(handle);
+    }
+
+    /**
+     * Return the entry for {@code handle} without removing it, or null if absent.
+     */
+    V get(long handle) {
+        final int home = homeSlot(handle);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            final V entry = m_slots.get((home + i) & m_mask);
+            if (entry != null && entry.getHandle() == handle) {
+                return entry;
+            }
+        }
+        return m_overflow.isEmpty() ? null : m_overflow.get(handle);
+    }
+
+    boolean contains(long handle) {
+        return get(handle) != null;
+    }
+
+    /**
+     * Visit the entries present at the time of the call. Entries added or removed
+     * concurrently may or may not be visited; use {@link #remove(long)} to claim one.
+     */
+    void forEach(Consumer<? super V> action) {
+        for (int i = 0; i < m_slots.length(); i++) {
+            final V entry = m_slots.get(i);
+            if (entry != null) {
+                action.accept(entry);
+            }
+        }
+        if (!m_overflow.isEmpty()) {
+            m_overflow.values().forEach(action);
+        }
+    }
+
+    int overflowSize() {
+        return m_overflow.size();
+    }
+}
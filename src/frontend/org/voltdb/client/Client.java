@@ -22,7 +22,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.voltdb.client.VoltBulkLoader.BulkLoaderFailureCallBack;
 import org.voltdb.client.VoltBulkLoader.BulkLoaderSuccessCallback;
@@ -93,6 +95,27 @@ public interface Client {
     public ClientResponse callProcedure(String procName, Object... parameters)
     throws IOException, NoConnectionsException, ProcCallException;
 
+    /**
+     * <p>Synchronously invoke a procedure and iterate its results as they arrive, instead of
+     * holding the whole response in memory at once. Large results are sent by the server as a
+     * sequence of chunks; see {@link ClientResultStream}. Blocks until the first chunk or the
+     * response is available. A {@link ProcCallException} is thrown if the invocation fails before
+     * any results are received.</p>
+     *
+     * <p>The default implementation waits for the whole response and iterates it.</p>
+     *
+     * @param procName <code>class</code> name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return {@link ClientResultStream} over the procedure call results.
+     * @throws ProcCallException on any VoltDB specific failure.
+     * @throws NoConnectionsException if this {@link Client} instance is not connected to any servers.
+     * @throws IOException if there is a Java network or connection problem.
+     */
+    public default ClientResultStream callProcedureStreaming(String procName, Object... parameters)
+    throws IOException, NoConnectionsException, ProcCallException {
+        return new ClientResultStream(callProcedure(procName, parameters));
+    }
+
     /**
      * <p>Asynchronously invoke a replicated procedure, by providing a callback that will be invoked by the single
      * thread backing the client instance when the procedure invocation receives a response.
@@ -111,6 +134,56 @@ public interface Client {
     public boolean callProcedure(ProcedureCallback callback, String procName, Object... parameters)
     throws IOException, NoConnectionsException;
 
+    /**
+     * <p>Asynchronously invoke a procedure and return a {@link CompletableFuture} that is completed with the
+     * {@link ClientResponse} when it arrives, whatever its status. If the invocation can not be queued, or this
+     * {@link Client} is not connected, the future is completed exceptionally instead of throwing.</p>
+     *
+     * <p>The future is completed by the thread backing the client instance, so non-async dependent stages run
+     * on that thread and are subject to the same caveats as slow or blocking callbacks.</p>
+     *
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return {@link CompletableFuture} of the procedure response.
+     */
+    public default CompletableFuture<ClientResponse> callProcedureAsync(String procName, Object... parameters) {
+        final CompletableFuture<ClientResponse> future = new CompletableFuture<>();
+        try {
+            if (!callProcedure(new ProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponse clientResponse) {
+                    future.complete(clientResponse);
+                }
+            }, procName, parameters)) {
+                future.completeExceptionally(new IOException("Unable to queue client request."));
+            }
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * <p>Asynchronously invoke the same procedure once for each parameter set. Invocations bound for the same
+     * server are serialized into a single buffer and written together, which amortizes the per-call
+     * overhead when submitting many small transactions. Partitioned procedures are still routed to the
+     * partition master when client affinity is enabled.</p>
+     *
+     * <p>The returned futures are in the same order as <code>parameterSets</code> and behave as those returned
+     * by {@link #callProcedureAsync(String, Object...)}.</p>
+     *
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameterSets list of procedure parameter values, one entry per invocation.
+     * @return list of {@link CompletableFuture} of the procedure responses.
+     */
+    public default List<CompletableFuture<ClientResponse>> callProceduresBatch(String procName, List<Object[]> parameterSets) {
+        final List<CompletableFuture<ClientResponse>> futures = new ArrayList<>(parameterSets.size());
+        for (Object[] parameters : parameterSets) {
+            futures.add(callProcedureAsync(procName, parameters));
+        }
+        return futures;
+    }
+
     /**
      * <p>Synchronously invoke a procedure with timeout. Blocks until a result is available. A {@link ProcCallException}
      * is thrown if the response is anything other then success.</p>
@@ -68,6 +68,7 @@ public class ClientConfig {
     boolean m_sendReadsToReplicasBytDefaultIfCAEnabled = false;
     SslConfig m_sslConfig;
     boolean m_topologyChangeAware = false;
+    boolean m_parkSyncCalls = false;
     boolean m_enableSSL = false;
     String m_sslPropsFile = null;
 
@@ -364,6 +365,18 @@ public class ClientConfig {
         m_topologyChangeAware = enabled;
     }
 
+    /**
+     * <p>Make synchronous procedure calls wait for their response by parking the calling
+     * thread instead of blocking on a per-call semaphore. No lock or monitor is held while
+     * waiting, which suits applications that issue synchronous calls from a very large
+     * number of threads, including virtual threads.</p>
+     * <p>Defaults to false.</p>
+     * @param on Enable or disable parking synchronous calls.
+     */
+    public void setParkSynchronousCalls(boolean on) {
+        m_parkSyncCalls = on;
+    }
+
     /**
      * <p>By default, reads are sent to the leader replica for each partition. This
      * is usually optimal for the default read consistency value, SAFE. If you are
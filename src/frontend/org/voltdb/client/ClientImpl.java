@@ -21,10 +21,13 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -33,6 +36,8 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
@@ -103,6 +108,9 @@ public final class ClientImpl implements Client {
     // global instance of null callback for performance (you only need one)
     private static final ProcedureCallback NULL_CALLBACK = new NullCallback();
 
+    // largest chunk the server is asked to stream, see callProcedureStreaming
+    static final int STREAM_CHUNK_BYTES = Integer.getInteger("CLIENT_STREAM_CHUNK_BYTES", 1024 * 1024);
+
     /****************************************************
                         Public API
      ****************************************************/
@@ -136,6 +144,7 @@ public final class ClientImpl implements Client {
                 config.m_subject,
                 m_sslContext);
         m_distributer.addClientStatusListener(m_listener);
+        m_parkSyncCalls = config.m_parkSyncCalls;
         String username = config.m_username;
         if (config.m_subject != null) {
             username = ClientConfig.getUserNameFromSubject(config.m_subject);
@@ -406,6 +415,67 @@ public final class ClientImpl implements Client {
         return internalAsyncCallProcedure(callback, clientTimeoutUnit.toNanos(clientTimeout), invocation);
     }
 
+    @Override
+    public List<CompletableFuture<ClientResponse>> callProceduresBatch(String procName, List<Object[]> parameterSets) {
+        final int count = parameterSets.size();
+        final List<CompletableFuture<ClientResponse>> futures = new ArrayList<>(count);
+        final List<ProcedureInvocation> invocations = new ArrayList<>(count);
+        final List<ProcedureCallback> callbacks = new ArrayList<>(count);
+        for (Object[] parameters : parameterSets) {
+            final CompletableFuture<ClientResponse> future = new CompletableFuture<>();
+            futures.add(future);
+            invocations.add(new ProcedureInvocation(m_handle.getAndIncrement(), procName, parameters));
+            callbacks.add(new ProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponse clientResponse) {
+                    future.complete(clientResponse);
+                }
+            });
+        }
+
+        if (m_isShutdown) {
+            failFutures(futures, new NoConnectionsException("Client instance is shutdown"));
+            return futures;
+        }
+
+        //Blessed threads (the ones that invoke callbacks) are not subject to backpressure
+        final boolean isBlessed = m_blessedThreadIds.contains(Thread.currentThread().getId());
+        final BitSet queued;
+        try {
+            queued = m_distributer.queueBatch(invocations, callbacks, isBlessed, System.nanoTime(),
+                    Distributer.USE_DEFAULT_CLIENT_TIMEOUT);
+        } catch (NoConnectionsException e) {
+            failFutures(futures, e);
+            return futures;
+        }
+
+        /*
+         * Anything that hit backpressure goes through the regular path one at a time,
+         * which blocks or gives up according to the blocking configuration.
+         */
+        for (int i = queued.nextClearBit(0); i < count; i = queued.nextClearBit(i + 1)) {
+            try {
+                if (!internalAsyncCallProcedure(callbacks.get(i), Distributer.USE_DEFAULT_CLIENT_TIMEOUT,
+                        invocations.get(i))) {
+                    futures.get(i).completeExceptionally(new IOException("Unable to queue client request."));
+                }
+            } catch (IOException e) {
+                // give up on the remaining unqueued invocations, queued ones still get their responses
+                for (int j = i; j < count; j = queued.nextClearBit(j + 1)) {
+                    futures.get(j).completeExceptionally(e);
+                }
+                break;
+            }
+        }
+        return futures;
+    }
+
+    private static void failFutures(List<CompletableFuture<ClientResponse>> futures, Throwable t) {
+        for (CompletableFuture<ClientResponse> future : futures) {
+            future.completeExceptionally(t);
+        }
+    }
+
     @Deprecated
     @Override
     public int calculateInvocationSerializedSize(
@@ -426,6 +496,58 @@ public final class ClientImpl implements Client {
         return callProcedure(callback, procName, parameters);
     }
 
+    /**
+     * Synchronously invoke a procedure and iterate its results as the server streams them,
+     * in chunks of at most <code>CLIENT_STREAM_CHUNK_BYTES</code> (1MB by default).
+     * Blocks until the first chunk or the response is available.
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return ClientResultStream over the procedure's results.
+     * @throws org.voltdb.client.ProcCallException
+     * @throws NoConnectionsException
+     */
+    @Override
+    public ClientResultStream callProcedureStreaming(String procName, Object... parameters)
+            throws IOException, NoConnectionsException, ProcCallException {
+        if (m_isShutdown) {
+            throw new NoConnectionsException("Client instance is shutdown");
+        }
+
+        if (m_blessedThreadIds.contains(Thread.currentThread().getId())) {
+            throw new IOException("Can't stream procedure results from within the client callback thread " +
+                    "without deadlocking the client library");
+        }
+
+        long handle = m_handle.getAndIncrement();
+        ProcedureInvocation invocation = new ProcedureInvocation(handle, BatchTimeoutOverrideType.NO_TIMEOUT, -1,
+                STREAM_CHUNK_BYTES, procName, parameters);
+        ClientResultStream stream = new ClientResultStream();
+        if (!internalAsyncCallProcedure(stream, Distributer.USE_DEFAULT_CLIENT_TIMEOUT, invocation)) {
+            throw unableToQueue();
+        }
+
+        final ClientResponse failure;
+        try {
+            failure = stream.awaitFirstResponse();
+        } catch (final InterruptedException e) {
+            throw new java.io.InterruptedIOException("Interrupted while waiting for response");
+        }
+        if (failure != null && failure.getStatus() != ClientResponse.SUCCESS) {
+            throw new ProcCallException(failure, failure.getStatusString(), null);
+        }
+        return stream;
+    }
+
+    private static ProcCallException unableToQueue() {
+        final ClientResponseImpl r = new ClientResponseImpl(
+                ClientResponse.GRACEFUL_FAILURE,
+                ClientResponse.UNINITIALIZED_APP_STATUS_CODE,
+                "",
+                new VoltTable[0],
+                String.format("Unable to queue client request."));
+        return new ProcCallException(r, "Unable to queue client request.", null);
+    }
+
     private final ClientResponse internalSyncCallProcedure(
             long clientTimeoutNanos,
             ProcedureInvocation invocation) throws ProcCallException, IOException {
@@ -439,17 +561,11 @@ public final class ClientImpl implements Client {
                     " without deadlocking the client library");
         }
 
-        SyncCallbackLight cb = new SyncCallbackLight();
+        SyncCallbackBase cb = m_parkSyncCalls ? new ParkingSyncCallback() : new SyncCallbackLight();
 
         boolean success = internalAsyncCallProcedure(cb, clientTimeoutNanos, invocation);
         if (!success) {
-            final ClientResponseImpl r = new ClientResponseImpl(
-                    ClientResponse.GRACEFUL_FAILURE,
-                    ClientResponse.UNINITIALIZED_APP_STATUS_CODE,
-                    "",
-                    new VoltTable[0],
-                    String.format("Unable to queue client request."));
-            throw new ProcCallException(r, "Unable to queue client request.", null);
+            throw unableToQueue();
         }
 
         try {
@@ -597,9 +713,7 @@ public final class ClientImpl implements Client {
                     " without deadlocking the client library");
         }
         m_isShutdown = true;
-        synchronized (m_backpressureLock) {
-            m_backpressureLock.notifyAll();
-        }
+        signalBackpressureWaiters(false);
 
         if (m_reconnectStatusListener != null) {
             m_distributer.removeClientStatusListener(m_reconnectStatusListener);
@@ -637,7 +751,8 @@ public final class ClientImpl implements Client {
                     " without deadlocking the client library");
         }
         if (m_backpressure) {
-            synchronized (m_backpressureLock) {
+            m_backpressureLock.lock();
+            try {
                 if (m_backpressure) {
                     while (m_backpressure && !m_isShutdown) {
                        if (start != 0) {
@@ -647,7 +762,7 @@ public final class ClientImpl implements Client {
                            }
 
                             //Wait on the condition for the specified timeout remaining
-                            m_backpressureLock.wait(timeoutNanos / TimeUnit.MILLISECONDS.toNanos(1), (int)(timeoutNanos % TimeUnit.MILLISECONDS.toNanos(1)));
+                            m_backpressureCondition.awaitNanos(timeoutNanos);
 
                             //Condition is true, break and return false
                             if (!m_backpressure) {
@@ -664,15 +779,33 @@ public final class ClientImpl implements Client {
                             //Reassigning timeout nanos with remainder of timeout
                             timeoutNanos -= deltaNanos;
                        } else {
-                           m_backpressureLock.wait();
+                           m_backpressureCondition.await();
                        }
                     }
                 }
+            } finally {
+                m_backpressureLock.unlock();
             }
         }
         return false;
     }
 
+    /**
+     * Update the backpressure flag, waking any threads blocked in
+     * {@link #backpressureBarrier} unless backpressure is being turned on.
+     */
+    private void signalBackpressureWaiters(boolean backpressure) {
+        m_backpressureLock.lock();
+        try {
+            m_backpressure = backpressure;
+            if (!backpressure) {
+                m_backpressureCondition.signalAll();
+            }
+        } finally {
+            m_backpressureLock.unlock();
+        }
+    }
+
     class HostConfig {
         String m_ipAddress;
         String m_hostName;
@@ -702,14 +835,7 @@ public final class ClientImpl implements Client {
         AtomicInteger connectionTaskCount = new AtomicInteger(0);
         @Override
         public void backpressure(boolean status) {
-            synchronized (m_backpressureLock) {
-                if (status) {
-                    m_backpressure = true;
-                } else {
-                    m_backpressure = false;
-                    m_backpressureLock.notifyAll();
-                }
-            }
+            signalBackpressureWaiters(status);
         }
 
         @Override
@@ -718,10 +844,7 @@ public final class ClientImpl implements Client {
             if (connectionsLeft == 0) {
                 //Wake up client and let it attempt to queue work
                 //and then fail with a NoConnectionsException
-                synchronized (m_backpressureLock) {
-                    m_backpressure = false;
-                    m_backpressureLock.notifyAll();
-                }
+                signalBackpressureWaiters(false);
             }
         }
 
@@ -849,8 +972,12 @@ public final class ClientImpl implements Client {
 
     static final Logger LOG = Logger.getLogger(ClientImpl.class.getName());  // Logger shared by client package.
     private final Distributer m_distributer;                             // de/multiplexes connections to a cluster
-    private final Object m_backpressureLock = new Object();
-    private boolean m_backpressure = false;
+    // A j.u.c lock rather than a monitor so that threads waiting out backpressure
+    // never pin a carrier thread when the caller runs on virtual threads.
+    private final ReentrantLock m_backpressureLock = new ReentrantLock();
+    private final Condition m_backpressureCondition = m_backpressureLock.newCondition();
+    private volatile boolean m_backpressure = false;
+    private final boolean m_parkSyncCalls;
 
     private boolean m_blockingQueue = true;
 
@@ -1074,7 +1201,23 @@ public final class ClientImpl implements Client {
      * of storing the parameters of every outstanding request while waiting for a response.
      *
      */
-    private final class SyncCallbackLight implements ProcedureCallback {
+    private static abstract class SyncCallbackBase implements ProcedureCallback {
+        /**
+         * <p>Retrieve the ClientResponse returned for this procedure invocation.</p>
+         *
+         * @return ClientResponse for this invocation
+         */
+        abstract ClientResponse getResponse();
+
+        /**
+         * <p>Block until a response has been received for the invocation associated with this callback.</p>
+         *
+         * @throws InterruptedException on interruption.
+         */
+        abstract void waitForResponse() throws InterruptedException;
+    }
+
+    private static final class SyncCallbackLight extends SyncCallbackBase {
         private final Semaphore m_lock;
         private ClientResponse m_response;
 
@@ -1093,27 +1236,58 @@ public final class ClientImpl implements Client {
             m_lock.release();
         }
 
-        /**
-         * <p>Retrieve the ClientResponse returned for this procedure invocation.</p>
-         *
-         * @return ClientResponse for this invocation
-         */
+        @Override
         public ClientResponse getResponse() {
             return m_response;
         }
 
-        /**
-         * <p>Block until a response has been received for the invocation associated with this callback. Call getResponse
-         * to retrieve the response or result() to retrieve the just the results.</p>
-         *
-         * @throws InterruptedException on interruption.
-         */
+        @Override
         public void waitForResponse() throws InterruptedException {
             m_lock.acquire();
             m_lock.release();
         }
     }
 
+    /**
+     * Sync callback that parks the waiting thread until the response arrives. Nothing is
+     * allocated beyond the callback itself and no monitor is held while waiting, so it is
+     * safe for very large numbers of (possibly virtual) caller threads.
+     */
+    private static final class ParkingSyncCallback extends SyncCallbackBase {
+        private volatile ClientResponse m_response;
+        private volatile Thread m_waiter;
+
+        @Override
+        public void clientCallback(ClientResponse clientResponse) {
+            m_response = clientResponse;
+            // The waiter publishes itself before re-checking m_response, so either it
+            // sees the response or we see the waiter.
+            final Thread waiter = m_waiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        @Override
+        public ClientResponse getResponse() {
+            return m_response;
+        }
+
+        @Override
+        public void waitForResponse() throws InterruptedException {
+            if (m_response != null) {
+                return;
+            }
+            m_waiter = Thread.currentThread();
+            while (m_response == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
     /**
      * Procedure call back for async callAllPartitionProcedure
      */
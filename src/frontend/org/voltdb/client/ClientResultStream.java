@@ -0,0 +1,180 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.voltcore.network.Connection;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+
+/**
+ * <p>Results of {@link Client#callProcedureStreaming(String, Object...)}, iterated as a
+ * sequence of tables while the server is still sending the rest. Each table returned by
+ * {@link #next()} is a chunk of the procedure result given by {@link #getResultIndex()};
+ * a large result arrives as several consecutive chunks with the same index and schema.</p>
+ *
+ * <p>Up to <code>CLIENT_STREAM_BUFFER_BYTES</code> (8MB by default) of unread chunks are
+ * buffered. Past that the client stops reading from the connection, which in turn holds
+ * back the server, until the application catches up. Other responses on the same
+ * connection are held back too, so consume the stream promptly.</p>
+ *
+ * <p>A server that does not stream results sends the whole response at once, which is
+ * iterated the same way with one chunk per result table.</p>
+ */
+public final class ClientResultStream implements Iterator<VoltTable>, ProcedureCallback {
+
+    static final int BUFFER_BYTES = Integer.getInteger("CLIENT_STREAM_BUFFER_BYTES", 8 * 1024 * 1024);
+
+    private static final class Chunk {
+        final int m_resultIndex;
+        final VoltTable m_table;
+        // bytes counted against the buffer limit, zero for tables of the final response
+        final int m_bytes;
+
+        Chunk(int resultIndex, VoltTable table, int bytes) {
+            m_resultIndex = resultIndex;
+            m_table = table;
+            m_bytes = bytes;
+        }
+    }
+
+    private final ArrayDeque<Chunk> m_chunks = new ArrayDeque<>();
+    private long m_bufferedBytes = 0;
+    private Connection m_pausedConnection = null;
+    private ClientResponse m_response = null;
+    private int m_resultIndex = -1;
+
+    ClientResultStream() {
+    }
+
+    /**
+     * Wrap a response that has already been received in full.
+     */
+    ClientResultStream(ClientResponse response) {
+        clientCallback(response);
+    }
+
+    /**
+     * Called by the network thread for every partial response of the invocation.
+     */
+    synchronized void partialResponse(ClientResponseImpl response, Connection c) {
+        final VoltTable table = response.getResults()[0];
+        final int bytes = table.getSerializedSize();
+        m_chunks.add(new Chunk(response.getResultIndex(), table, bytes));
+        m_bufferedBytes += bytes;
+        if (m_bufferedBytes > BUFFER_BYTES && m_pausedConnection == null) {
+            m_pausedConnection = c;
+            c.disableReadSelection();
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void clientCallback(ClientResponse response) {
+        if (response.getStatus() == ClientResponse.SUCCESS) {
+            final VoltTable[] results = response.getResults();
+            for (int i = 0; i < results.length; i++) {
+                m_chunks.add(new Chunk(i, results[i], 0));
+            }
+        }
+        m_response = response;
+        resumeReads();
+        notifyAll();
+    }
+
+    private void resumeReads() {
+        if (m_pausedConnection != null) {
+            m_pausedConnection.enableReadSelection();
+            m_pausedConnection = null;
+        }
+    }
+
+    /**
+     * Block until the first chunk or the final response arrives and return the final
+     * response if it came first.
+     */
+    synchronized ClientResponse awaitFirstResponse() throws InterruptedException {
+        while (m_chunks.isEmpty() && m_response == null) {
+            wait();
+        }
+        return m_chunks.isEmpty() ? m_response : null;
+    }
+
+    /**
+     * Block until another chunk is available or the stream has ended.
+     *
+     * @throws IllegalStateException if the invocation failed (for example the connection
+     * was lost or the call timed out) before all chunks were received, or the calling
+     * thread was interrupted while waiting.
+     */
+    @Override
+    public synchronized boolean hasNext() {
+        while (m_chunks.isEmpty() && m_response == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for streamed results", e);
+            }
+        }
+        if (!m_chunks.isEmpty()) {
+            return true;
+        }
+        if (m_response.getStatus() != ClientResponse.SUCCESS) {
+            throw new IllegalStateException("Streamed results ended with status " + m_response.getStatus() +
+                    ": " + m_response.getStatusString());
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized VoltTable next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Chunk chunk = m_chunks.poll();
+        m_resultIndex = chunk.m_resultIndex;
+        m_bufferedBytes -= chunk.m_bytes;
+        if (m_bufferedBytes <= BUFFER_BYTES / 2) {
+            resumeReads();
+        }
+        return chunk.m_table;
+    }
+
+    /**
+     * @return the index of the procedure result the table last returned by {@link #next()}
+     * belongs to, or -1 before the first call.
+     */
+    public synchronized int getResultIndex() {
+        return m_resultIndex;
+    }
+
+    /**
+     * <p>The final response of the invocation, or null while it is still in progress. It carries
+     * the status, application status and round trip times; its results are empty if the server
+     * streamed them.</p>
+     *
+     * @return {@link ClientResponse} completing this stream, or null.
+     */
+    public synchronized ClientResponse getResponse() {
+        return m_response;
+    }
+}
@@ -23,10 +23,12 @@ import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -34,7 +36,6 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -105,7 +106,7 @@ class Distributer {
     private final CopyOnWriteArrayList<NodeConnection> m_connections =
             new CopyOnWriteArrayList<>();
 
-    private final ArrayList<ClientStatusListenerExt> m_listeners = new ArrayList<>();
+    private final CopyOnWriteArrayList<ClientStatusListenerExt> m_listeners = new CopyOnWriteArrayList<>();
 
     //Selector and connection handling, does all work in blocking selection thread
     private final VoltNetworkPool m_network;
@@ -113,7 +114,7 @@ class Distributer {
     private final SslContext m_sslContext;
 
     // Temporary until a distribution/affinity algorithm is written
-    private int m_nextConnection = 0;
+    private final AtomicInteger m_nextConnection = new AtomicInteger(0);
 
     private final boolean m_useMultipleThreads;
     private final boolean m_useClientAffinity;
@@ -136,8 +137,12 @@ class Distributer {
         }
     }
 
-    private final Map<Integer, NodeConnection> m_partitionMasters = new HashMap<>();
-    private final Map<Integer, NodeConnection[]> m_partitionReplicas = new HashMap<>();
+    /*
+     * Routing state read by queue() without holding the Distributer lock. Writers hold
+     * the lock, build a new map and publish it, so readers always see a consistent map.
+     */
+    private volatile ImmutableMap<Integer, NodeConnection> m_partitionMasters = ImmutableMap.of();
+    private volatile ImmutableMap<Integer, NodeConnection[]> m_partitionReplicas = ImmutableMap.of();
     private final Map<Integer, NodeConnection> m_hostIdToConnection = new HashMap<>();
     private final AtomicReference<ImmutableSortedMap<String, Procedure>> m_procedureInfo =
                                 new AtomicReference<ImmutableSortedMap<String, Procedure>>();
@@ -147,12 +152,12 @@ class Distributer {
     private final AtomicReference<ClientResponse> m_partitionUpdateStatus = new AtomicReference<ClientResponse>();
 
     //This is the instance of the Hashinator we picked from TOPO used only for client affinity.
-    private HashinatorLite m_hashinator = null;
+    private volatile HashinatorLite m_hashinator = null;
     //This is a global timeout that will be used if a per-procedure timeout is not provided with the procedure call.
     private final long m_procedureCallTimeoutNanos;
     private static final long MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS = 30 * 60 * 1000; // 30 minutes
     private final long m_connectionResponseTimeoutNanos;
-    private final Map<Integer, ClientAffinityStats> m_clientAffinityStats = new HashMap<>();
+    private final ConcurrentHashMap<Integer, ClientAffinityStats> m_clientAffinityStats = new ConcurrentHashMap<>();
 
     public final RateLimiter m_rateLimiter = new RateLimiter();
 
@@ -355,10 +360,7 @@ class Distributer {
                     }
 
                     // for each outstanding procedure
-                    for (final Map.Entry<Long, CallbackBookeeping> e : c.m_callbacks.entrySet()) {
-                        final long handle = e.getKey();
-                        final CallbackBookeeping cb = e.getValue();
-
+                    c.m_callbacks.forEach(cb -> {
                         // if the timeout is expired, call the callback and remove the
                         // bookeeping data
                         final long deltaNanos = Math.max(1, nowNanos - cb.timestampNanos);
@@ -368,12 +370,12 @@ class Distributer {
                             //unless it is > MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS
                             final boolean isLongOp = isLongOp(cb.name);
                             if (isLongOp && (deltaNanos < TimeUnit.MILLISECONDS.toNanos(MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS))) {
-                                continue;
+                                return;
                             }
 
-                            c.handleTimedoutCallback(handle, nowNanos);
+                            c.handleTimedoutCallback(cb.handle, nowNanos);
                         }
-                    }
+                    });
                 }
             } catch (Throwable t) {
                 t.printStackTrace();
@@ -397,15 +399,21 @@ class Distributer {
         return false;
     }
 
-    class CallbackBookeeping {
-        public CallbackBookeeping(long timestampNanos, ProcedureCallback callback, String name, long timeoutNanos, boolean ignoreBackpressure) {
+    class CallbackBookeeping implements CallbackTable.Entry {
+        public CallbackBookeeping(long handle, long timestampNanos, ProcedureCallback callback, String name, long timeoutNanos, boolean ignoreBackpressure) {
             assert(callback != null);
+            this.handle = handle;
             this.timestampNanos = timestampNanos;
             this.callback = callback;
             this.name = name;
             this.procedureTimeoutNanos = timeoutNanos;
             this.ignoreBackpressure = ignoreBackpressure;
         }
+        @Override
+        public long getHandle() {
+            return handle;
+        }
+        final long handle;
         long timestampNanos;
         //Timeout in ms 0 means use conenction specified procedure timeoutMS.
         final long procedureTimeoutNanos;
@@ -416,7 +424,7 @@ class Distributer {
 
     class NodeConnection extends VoltProtocolHandler implements org.voltcore.network.QueueMonitor {
         private final AtomicInteger m_callbacksToInvoke = new AtomicInteger(0);
-        private final ConcurrentMap<Long, CallbackBookeeping> m_callbacks = new ConcurrentHashMap<>();
+        private final CallbackTable<CallbackBookeeping> m_callbacks = new CallbackTable<>();
         private final NonBlockingHashMap<String, ClientStats> m_stats = new NonBlockingHashMap<>();
         private Connection m_connection;
         private volatile boolean m_isConnected = true;
@@ -435,6 +443,70 @@ class Distributer {
          */
         public void createWork(final long nowNanos, long handle, String name, ByteBuffer c,
                 ProcedureCallback callback, boolean ignoreBackpressure, long timeoutNanos) {
+            if (!admitWork(nowNanos, handle, name, callback, ignoreBackpressure, timeoutNanos)) {
+                return;
+            }
+
+            //Check for disconnect
+            if (!m_isConnected) {
+                failAdmittedWork(nowNanos, handle, callback, ignoreBackpressure);
+            } else {
+                m_connection.writeStream().enqueue(c);
+            }
+        }
+
+        /*
+         * Batched variant of createWork. Each invocation is admitted individually so rate limiting,
+         * timeouts and callback bookkeeping are unchanged, but the admitted invocations are
+         * serialized back to back into a single buffer and handed to the write stream at once.
+         */
+        void createWorkBatch(final long nowNanos, List<Integer> indices, List<ProcedureInvocation> invocations,
+                List<ProcedureCallback> callbacks, boolean ignoreBackpressure, long timeoutNanos) {
+            final List<ProcedureInvocation> admitted = new ArrayList<>(indices.size());
+            int totalSize = 0;
+            for (int i : indices) {
+                final ProcedureInvocation invocation = invocations.get(i);
+                if (admitWork(nowNanos, invocation.getHandle(), invocation.getProcName(), callbacks.get(i),
+                        ignoreBackpressure, timeoutNanos)) {
+                    admitted.add(invocation);
+                    totalSize += invocation.getSerializedSize() + 4;
+                }
+            }
+            if (admitted.isEmpty()) {
+                return;
+            }
+
+            //Check for disconnect
+            if (!m_isConnected) {
+                for (int i : indices) {
+                    final ProcedureInvocation invocation = invocations.get(i);
+                    failAdmittedWork(nowNanos, invocation.getHandle(), callbacks.get(i), ignoreBackpressure);
+                }
+                return;
+            }
+
+            final ByteBuffer buf = ByteBuffer.allocate(totalSize);
+            try {
+                for (ProcedureInvocation invocation : admitted) {
+                    final int lengthPosition = buf.position();
+                    buf.putInt(0);
+                    invocation.flattenToBuffer(buf);
+                    buf.putInt(lengthPosition, buf.position() - lengthPosition - 4);
+                }
+            } catch (Exception e) {
+                Throwables.propagate(e);
+            }
+            buf.flip();
+            m_connection.writeStream().enqueue(buf);
+        }
+
+        /*
+         * Rate limit the invocation, register its callback and schedule its timeout.
+         * Returns false if the invocation timed out in the rate limiter, in which case
+         * the callback has already been invoked.
+         */
+        private boolean admitWork(final long nowNanos, long handle, String name,
+                ProcedureCallback callback, boolean ignoreBackpressure, long timeoutNanos) {
             assert(callback != null);
 
             //How long from the starting point in time to wait to get this stuff done
@@ -462,17 +534,17 @@ class Distributer {
                  */
                 final long deltaNanos = Math.max(1, System.nanoTime() - nowNanos);
                 invokeCallbackWithTimeout(name, callback, deltaNanos, afterRateLimitNanos, timeoutNanos, handle, ignoreBackpressure);
-                return;
+                return false;
             }
 
-            assert(m_callbacks.containsKey(handle) == false);
+            assert(m_callbacks.contains(handle) == false);
 
             //Drain needs to know when all callbacks have been invoked
             final int callbacksToInvoke = m_callbacksToInvoke.incrementAndGet();
             assert(callbacksToInvoke >= 0);
 
             //Optimistically submit the task
-            m_callbacks.put(handle, new CallbackBookeeping(nowNanos, callback, name, timeoutNanos, ignoreBackpressure));
+            m_callbacks.put(new CallbackBookeeping(handle, nowNanos, callback, name, timeoutNanos, ignoreBackpressure));
 
             //Schedule the timeout to fire relative to the amount of time
             //spent getting to this point. Might fire immediately
@@ -484,33 +556,34 @@ class Distributer {
             if (timeoutNanos < TimeUnit.SECONDS.toNanos(1) && !isLongOp(name)) {
                 submitDiscreteTimeoutTask(handle, Math.max(0, timeoutRemaining));
             }
+            return true;
+        }
 
-            //Check for disconnect
-            if (!m_isConnected) {
-                //Check if the disconnect or expiration already handled the callback
-                if (m_callbacks.remove(handle) == null) {
-                    return;
-                }
-                final ClientResponse r = new ClientResponseImpl(
-                        ClientResponse.CONNECTION_LOST, new VoltTable[0],
-                        "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
-                ") was lost before a response was received");
-                try {
-                    callback.clientCallback(r);
-                } catch (Exception e) {
-                    uncaughtException(callback, r, e);
-                }
-
-                //Drain needs to know when all callbacks have been invoked
-                final int remainingToInvoke = m_callbacksToInvoke.decrementAndGet();
-                assert(remainingToInvoke >= 0);
-
-                //for bookkeeping, but it feels dishonest to call this here
-                m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
+        /*
+         * Fail an admitted invocation because the connection went away before it was written
+         */
+        private void failAdmittedWork(final long nowNanos, long handle, ProcedureCallback callback,
+                boolean ignoreBackpressure) {
+            //Check if the disconnect or expiration already handled the callback
+            if (m_callbacks.remove(handle) == null) {
                 return;
-            } else {
-                m_connection.writeStream().enqueue(c);
             }
+            final ClientResponse r = new ClientResponseImpl(
+                    ClientResponse.CONNECTION_LOST, new VoltTable[0],
+                    "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
+            ") was lost before a response was received");
+            try {
+                callback.clientCallback(r);
+            } catch (Exception e) {
+                uncaughtException(callback, r, e);
+            }
+
+            //Drain needs to know when all callbacks have been invoked
+            final int remainingToInvoke = m_callbacksToInvoke.decrementAndGet();
+            assert(remainingToInvoke >= 0);
+
+            //for bookkeeping, but it feels dishonest to call this here
+            m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
         }
 
         /*
@@ -684,6 +757,16 @@ class Distributer {
                 return;
             }
 
+            // partial responses of a streamed result leave the callback in place
+            // for the rest of the stream, timeouts still apply to the whole call
+            if (response.isPartial()) {
+                final CallbackBookeeping stuff = m_callbacks.get(handle);
+                if (stuff != null && stuff.callback instanceof ClientResultStream) {
+                    ((ClientResultStream) stuff.callback).partialResponse(response, c);
+                }
+                return;
+            }
+
             //Race with expiration thread to be the first to remove the callback
             //from the map and process it
             final CallbackBookeeping stuff = m_callbacks.remove(response.getClientHandle());
@@ -760,13 +843,15 @@ class Distributer {
                 /*
                  * Repair all cluster topology data with the node connection removed
                  */
-                Iterator<Map.Entry<Integer, NodeConnection>> i = m_partitionMasters.entrySet().iterator();
+                Map<Integer, NodeConnection> masters = new HashMap<>(m_partitionMasters);
+                Iterator<Map.Entry<Integer, NodeConnection>> i = masters.entrySet().iterator();
                 while (i.hasNext()) {
                     Map.Entry<Integer, NodeConnection> entry = i.next();
                     if (entry.getValue() == this) {
                         i.remove();
                     }
                 }
+                m_partitionMasters = ImmutableMap.copyOf(masters);
 
                 i = m_hostIdToConnection.entrySet().iterator();
                 while (i.hasNext()) {
@@ -776,7 +861,8 @@ class Distributer {
                     }
                 }
 
-                Iterator<Map.Entry<Integer, NodeConnection[]>> i2 = m_partitionReplicas.entrySet().iterator();
+                Map<Integer, NodeConnection[]> replicas = new HashMap<>(m_partitionReplicas);
+                Iterator<Map.Entry<Integer, NodeConnection[]>> i2 = replicas.entrySet().iterator();
                 List<Pair<Integer, NodeConnection[]>> entriesToRewrite = new ArrayList<>();
                 while (i2.hasNext()) {
                     Map.Entry<Integer, NodeConnection[]> entry = i2.next();
@@ -788,7 +874,7 @@ class Distributer {
                 }
 
                 for (Pair<Integer, NodeConnection[]> entry : entriesToRewrite) {
-                    m_partitionReplicas.remove(entry.getFirst());
+                    replicas.remove(entry.getFirst());
                     NodeConnection survivors[] = new NodeConnection[entry.getSecond().length - 1];
                     if (survivors.length == 0) {
                         break;
@@ -799,8 +885,9 @@ class Distributer {
                             survivors[zz++] = entry.getSecond()[ii];
                         }
                     }
-                    m_partitionReplicas.put(entry.getFirst(), survivors);
+                    replicas.put(entry.getFirst(), survivors);
                 }
+                m_partitionReplicas = ImmutableMap.copyOf(replicas);
 
                 m_connections.remove(this);
                 //Notify listeners that a connection has been lost
@@ -845,12 +932,11 @@ class Distributer {
                         ClientResponse.CONNECTION_LOST, new VoltTable[0],
                         "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
                 ") was lost before a response was received");
-            for (Map.Entry<Long, CallbackBookeeping> e : m_callbacks.entrySet()) {
+            m_callbacks.forEach(callBk -> {
                 //Check for race with other threads
-                if (m_callbacks.remove(e.getKey()) == null) {
-                    continue;
+                if (m_callbacks.remove(callBk.handle) == null) {
+                    return;
                 }
-                final CallbackBookeeping callBk = e.getValue();
                 try {
                     callBk.callback.clientCallback(r);
                 }
@@ -863,7 +949,7 @@ class Distributer {
                 assert(remainingToInvoke >= 0);
 
                 m_rateLimiter.transactionResponseReceived(System.nanoTime(), -1, callBk.ignoreBackpressure);
-            }
+            });
         }
 
         @Override
@@ -1159,145 +1245,253 @@ class Distributer {
         assert(invocation != null);
         assert(cb != null);
 
-        NodeConnection cxn = null;
-        boolean backpressure = true;
-
         /*
-         * Synchronization is necessary to ensure that m_connections is not modified
-         * as well as to ensure that backpressure is reported correctly
+         * Pick a connection without taking the Distributer lock so that application
+         * threads calling into the same client don't serialize on it. m_connections is
+         * copy-on-write and the routing maps are immutable snapshots, so a racing
+         * topology change at worst routes this call by the previous topology.
          */
-        synchronized (this) {
-            final int totalConnections = m_connections.size();
+        final List<NodeConnection> connections = m_connections;
+        if (connections.isEmpty()) {
+            throw new NoConnectionsException("No connections.");
+        }
 
-            if (totalConnections == 0) {
-                throw new NoConnectionsException("No connections.");
-            }
+        NodeConnection cxn = routeInvocation(invocation, connections, ignoreBackpressure);
+        boolean backpressure = (cxn == null || (!ignoreBackpressure && cxn.hadBackPressure()));
 
+        if (backpressure) {
             /*
-             * Check if the master for the partition is known. No back pressure check to ensure correct
-             * routing, but backpressure will be managed anyways. This is where we guess partition based on client
-             * affinity and known topology (hashinator initialized).
+             * Synchronization on Distributer.this is necessary to ensure that backpressure is
+             * reported correctly: offBackPressure() reports the end of backpressure while holding
+             * it, so re-check the connections under the lock before reporting backpressure to
+             * avoid a lost wakeup. A partition master with backpressure is only re-checked, the
+             * invocation is not sent around it.
              */
-            if (m_useClientAffinity && (m_hashinator != null)) {
-                final ImmutableSortedMap<String, Procedure> procedures = m_procedureInfo.get();
-                Procedure procedureInfo = null;
-                if (procedures != null) {
-                    procedureInfo = procedures.get(invocation.getProcName());
+            synchronized (this) {
+                if (m_connections.isEmpty()) {
+                    throw new NoConnectionsException("No connections.");
                 }
-                Integer hashedPartition = invocation.getPartitionDestination();
-
-                if (procedureInfo != null) {
-                    hashedPartition = Constants.MP_INIT_PID;
-                    if (invocation.hasPartitionDestination()) {
-                        hashedPartition = invocation.getPartitionDestination();
-                    } else if (!procedureInfo.multiPart && procedureInfo.partitionParameter != Procedure.PARAMETER_NONE
-                            // User may have passed too few parameters to allow dispatching.
-                            // Avoid an indexing error here to fall through to the proper ProcCallException.
-                            && procedureInfo.partitionParameter < invocation.getPassedParamCount()) {
-                        hashedPartition = m_hashinator.getHashedPartitionForParameter(
-                                procedureInfo.partitionParameterType,
-                                invocation.getPartitionParamValue(procedureInfo.partitionParameter));
+                if (cxn == null) {
+                    cxn = nextRoundRobinConnection(m_connections, ignoreBackpressure);
+                } else if (cxn.hadBackPressure()) {
+                    cxn = null;
+                }
+                if (cxn == null) {
+                    for (ClientStatusListenerExt s : m_listeners) {
+                        s.backpressure(true);
                     }
-                    /*
-                     * If the procedure is read only and single part and the user wants it, load balance across replicas
-                     * This is probably slower for SAFE consistency.
-                     */
-                    if (!procedureInfo.multiPart && procedureInfo.readOnly && m_sendReadsToReplicasBytDefaultIfCAEnabled) {
-                        NodeConnection partitionReplicas[] = m_partitionReplicas.get(hashedPartition);
-                        if (partitionReplicas != null && partitionReplicas.length > 0) {
-                            cxn = partitionReplicas[ThreadLocalRandom.current().nextInt(partitionReplicas.length)];
-                            if (cxn.hadBackPressure()) {
-                                //See if there is one without backpressure, make sure it's still connected
-                                for (NodeConnection nc : partitionReplicas) {
-                                    if (!nc.hadBackPressure() && nc.m_isConnected) {
-                                        cxn = nc;
-                                        break;
-                                    }
+                } else {
+                    backpressure = false;
+                }
+            }
+        }
+
+        /*
+         * Do the heavy weight serialization outside the synchronized block.
+         * createWork synchronizes on an individual connection which allows for more concurrency
+         */
+        if (cxn != null) {
+            ByteBuffer buf = null;
+            try {
+                buf = serializeSPI(invocation);
+            } catch (Exception e) {
+                Throwables.propagate(e);
+            }
+            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure, timeoutNanos);
+        }
+        if (m_topologyChangeAware) {
+            createConnectionsUponTopologyChange();
+        }
+        return !backpressure;
+    }
+
+    /**
+     * Queue a batch of invocations. Invocations are routed individually, exactly as by
+     * {@link #queue}, then every invocation bound for the same connection is serialized
+     * into one buffer and written with a single enqueue. Invocations that could only be
+     * routed to a connection with backpressure are not queued and left to the caller,
+     * which is expected to retry them through {@link #queue} so that blocking and
+     * backpressure reporting behave as for individual calls.
+     * @param invocations invocations to queue
+     * @param callbacks callbacks, one per invocation in the same order
+     * @param ignoreBackpressure If true the invocations will be queued even if there is backpressure
+     * @param nowNanos Current time in nanoseconds using System.nanoTime
+     * @param timeoutNanos nanoseconds from nowNanos where timeout should fire
+     * @return indices of the invocations that were queued
+     * @throws NoConnectionsException
+     */
+    BitSet queueBatch(
+            List<ProcedureInvocation> invocations,
+            List<ProcedureCallback> callbacks,
+            final boolean ignoreBackpressure, final long nowNanos, final long timeoutNanos)
+            throws NoConnectionsException {
+        assert(invocations.size() == callbacks.size());
+        final BitSet queued = new BitSet(invocations.size());
+        if (m_shutdown.get()) {
+            return queued;
+        }
+
+        final List<NodeConnection> connections = m_connections;
+        if (connections.isEmpty()) {
+            throw new NoConnectionsException("No connections.");
+        }
+
+        // NodeConnection has identity equality, preserve submission order per connection
+        final Map<NodeConnection, List<Integer>> byConnection = new LinkedHashMap<>();
+        for (int i = 0; i < invocations.size(); i++) {
+            final NodeConnection cxn = routeInvocation(invocations.get(i), connections, ignoreBackpressure);
+            if (cxn == null || (!ignoreBackpressure && cxn.hadBackPressure())) {
+                continue;
+            }
+            List<Integer> indices = byConnection.get(cxn);
+            if (indices == null) {
+                indices = new ArrayList<>();
+                byConnection.put(cxn, indices);
+            }
+            indices.add(i);
+            queued.set(i);
+        }
+
+        for (Map.Entry<NodeConnection, List<Integer>> e : byConnection.entrySet()) {
+            e.getKey().createWorkBatch(nowNanos, e.getValue(), invocations, callbacks, ignoreBackpressure, timeoutNanos);
+        }
+        if (m_topologyChangeAware) {
+            createConnectionsUponTopologyChange();
+        }
+        return queued;
+    }
+
+    /**
+     * Pick the connection for an invocation without taking the Distributer lock. The partition
+     * master (or a replica for reads) is preferred when client affinity is enabled, otherwise
+     * connections are used round-robin.
+     * @return the connection to use, which is the chosen partition master or replica even if it
+     *         has backpressure, or null if every round-robin candidate has backpressure
+     */
+    private NodeConnection routeInvocation(ProcedureInvocation invocation, List<NodeConnection> connections,
+            boolean ignoreBackpressure) {
+        NodeConnection cxn = null;
+
+        /*
+         * Check if the master for the partition is known. No back pressure check to ensure correct
+         * routing, but backpressure will be managed anyways. This is where we guess partition based on client
+         * affinity and known topology (hashinator initialized).
+         */
+        final HashinatorLite hashinator = m_hashinator;
+        if (m_useClientAffinity && (hashinator != null)) {
+            final ImmutableSortedMap<String, Procedure> procedures = m_procedureInfo.get();
+            Procedure procedureInfo = null;
+            if (procedures != null) {
+                procedureInfo = procedures.get(invocation.getProcName());
+            }
+            Integer hashedPartition = invocation.getPartitionDestination();
+
+            if (procedureInfo != null) {
+                hashedPartition = Constants.MP_INIT_PID;
+                if (invocation.hasPartitionDestination()) {
+                    hashedPartition = invocation.getPartitionDestination();
+                } else if (!procedureInfo.multiPart && procedureInfo.partitionParameter != Procedure.PARAMETER_NONE
+                        // User may have passed too few parameters to allow dispatching.
+                        // Avoid an indexing error here to fall through to the proper ProcCallException.
+                        && procedureInfo.partitionParameter < invocation.getPassedParamCount()) {
+                    hashedPartition = hashinator.getHashedPartitionForParameter(
+                            procedureInfo.partitionParameterType,
+                            invocation.getPartitionParamValue(procedureInfo.partitionParameter));
+                }
+                /*
+                 * If the procedure is read only and single part and the user wants it, load balance across replicas
+                 * This is probably slower for SAFE consistency.
+                 */
+                if (!procedureInfo.multiPart && procedureInfo.readOnly && m_sendReadsToReplicasBytDefaultIfCAEnabled) {
+                    NodeConnection partitionReplicas[] = m_partitionReplicas.get(hashedPartition);
+                    if (partitionReplicas != null && partitionReplicas.length > 0) {
+                        cxn = partitionReplicas[ThreadLocalRandom.current().nextInt(partitionReplicas.length)];
+                        if (cxn.hadBackPressure()) {
+                            //See if there is one without backpressure, make sure it's still connected
+                            for (NodeConnection nc : partitionReplicas) {
+                                if (!nc.hadBackPressure() && nc.m_isConnected) {
+                                    cxn = nc;
+                                    break;
                                 }
                             }
                         }
-                    } else {
-                        /*
-                         * For writes or SAFE reads, this is the best way to go
-                         */
-                        cxn = m_partitionMasters.get(hashedPartition);
-
                     }
-                } else if (invocation.hasPartitionDestination()) {
+                } else {
+                    /*
+                     * For writes or SAFE reads, this is the best way to go
+                     */
                     cxn = m_partitionMasters.get(hashedPartition);
+
                 }
+            } else if (invocation.hasPartitionDestination()) {
+                cxn = m_partitionMasters.get(hashedPartition);
+            }
 
-                if (cxn != null) {
-                    if (!cxn.m_isConnected) {
-                        // Would be nice to log something here
-                        // Client affinity picked a connection that was actually disconnected. Reset to null
-                        // and let the round-robin choice pick a connection
-                        cxn = null;
-                    } else if (!cxn.hadBackPressure() || ignoreBackpressure) {
-                        backpressure = false;
-                    }
+            if (cxn != null) {
+                if (!cxn.m_isConnected) {
+                    // Would be nice to log something here
+                    // Client affinity picked a connection that was actually disconnected. Reset to null
+                    // and let the round-robin choice pick a connection
+                    cxn = null;
+                } else if (!ignoreBackpressure && cxn.hadBackPressure()) {
+                    // The caller reports backpressure, it is counted when the call is retried
+                    return cxn;
                 }
+            }
 
-                ClientAffinityStats stats = m_clientAffinityStats.get(hashedPartition);
-                if (stats == null) {
-                    stats = new ClientAffinityStats(hashedPartition, 0, 0, 0, 0);
-                    m_clientAffinityStats.put(hashedPartition, stats);
+            ClientAffinityStats stats = m_clientAffinityStats.get(hashedPartition);
+            if (stats == null) {
+                stats = new ClientAffinityStats(hashedPartition, 0, 0, 0, 0);
+                ClientAffinityStats existing = m_clientAffinityStats.putIfAbsent(hashedPartition, stats);
+                if (existing != null) {
+                    stats = existing;
                 }
-                if (cxn != null) {
-                    if (procedureInfo != null && procedureInfo.readOnly) {
-                        stats.addAffinityRead();
-                    }
-                    else {
-                        stats.addAffinityWrite();
-                    }
+            }
+            if (cxn != null) {
+                if (procedureInfo != null && procedureInfo.readOnly) {
+                    stats.addAffinityRead();
                 }
-                // account these here because we lose the partition ID and procedure info once we
-                // bust out of this scope.
                 else {
-                    if (procedureInfo != null && procedureInfo.readOnly) {
-                        stats.addRrRead();
-                    }
-                    else {
-                        stats.addRrWrite();
-                    }
+                    stats.addAffinityWrite();
                 }
             }
-            if (cxn == null) {
-                for (int i=0; i < totalConnections; ++i) {
-                    cxn = m_connections.get(Math.abs(++m_nextConnection % totalConnections));
-                    if (!cxn.hadBackPressure() || ignoreBackpressure) {
-                        // serialize and queue the invocation
-                        backpressure = false;
-                        break;
-                    }
+            // account these here because we lose the partition ID and procedure info once we
+            // bust out of this scope.
+            else {
+                if (procedureInfo != null && procedureInfo.readOnly) {
+                    stats.addRrRead();
+                }
+                else {
+                    stats.addRrWrite();
                 }
             }
 
-            if (backpressure) {
-                cxn = null;
-                for (ClientStatusListenerExt s : m_listeners) {
-                    s.backpressure(true);
-                }
+            if (cxn != null) {
+                return cxn;
             }
         }
+        return nextRoundRobinConnection(connections, ignoreBackpressure);
+    }
 
-        /*
-         * Do the heavy weight serialization outside the synchronized block.
-         * createWork synchronizes on an individual connection which allows for more concurrency
-         */
-        if (cxn != null) {
-            ByteBuffer buf = null;
+    /**
+     * Round-robin over the connections starting after the last one handed out.
+     * @return a connection without backpressure, or null if all have backpressure
+     */
+    private NodeConnection nextRoundRobinConnection(List<NodeConnection> connections, boolean ignoreBackpressure) {
+        final int totalConnections = connections.size();
+        for (int i = 0; i < totalConnections; ++i) {
+            final NodeConnection cxn;
             try {
-                buf = serializeSPI(invocation);
-            } catch (Exception e) {
-                Throwables.propagate(e);
+                cxn = connections.get(Math.abs(m_nextConnection.incrementAndGet() % totalConnections));
+            } catch (IndexOutOfBoundsException e) {
+                // a connection was removed concurrently
+                return null;
+            }
+            if (!cxn.hadBackPressure() || ignoreBackpressure) {
+                return cxn;
             }
-            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure, timeoutNanos);
-        }
-        if (m_topologyChangeAware) {
-            createConnectionsUponTopologyChange();
         }
-        return !backpressure;
+        return null;
     }
 
     /**
@@ -1402,11 +1596,9 @@ class Distributer {
     Map<Integer, ClientAffinityStats> getAffinityStatsSnapshot()
     {
         Map<Integer, ClientAffinityStats> retval = new HashMap<>();
-        // these get modified under this lock in queue()
-        synchronized(this) {
-            for (Entry<Integer, ClientAffinityStats> e : m_clientAffinityStats.entrySet()) {
-                retval.put(e.getKey(), (ClientAffinityStats)e.getValue().clone());
-            }
+        // queue() updates these without the Distributer lock; clone() synchronizes on each entry
+        for (Entry<Integer, ClientAffinityStats> e : m_clientAffinityStats.entrySet()) {
+            retval.put(e.getKey(), (ClientAffinityStats)e.getValue().clone());
         }
         return retval;
     }
@@ -1469,8 +1661,8 @@ class Distributer {
                     tables[1].getVarbinary("HASHCONFIG"),
                     cooked);
         }
-        m_partitionMasters.clear();
-        m_partitionReplicas.clear();
+        Map<Integer, NodeConnection> masters = new HashMap<>();
+        Map<Integer, NodeConnection[]> replicas = new HashMap<>();
         // The MPI's partition ID is 16383 (MpInitiator.MP_INIT_PID), so we shouldn't inadvertently
         // hash to it.  Go ahead and include it in the maps, we can use it at some point to
         // route MP transactions directly to the MPI node.
@@ -1494,14 +1686,16 @@ class Distributer {
                     unconnected.add(hostId);
                }
             }
-            m_partitionReplicas.put(partition, connections.toArray(new NodeConnection[0]));
+            replicas.put(partition, connections.toArray(new NodeConnection[0]));
 
 
             Integer leaderHostId = Integer.valueOf(leader.split(":")[0]);
             if (m_hostIdToConnection.containsKey(leaderHostId)) {
-                m_partitionMasters.put(partition, m_hostIdToConnection.get(leaderHostId));
+                masters.put(partition, m_hostIdToConnection.get(leaderHostId));
             }
         }
+        m_partitionMasters = ImmutableMap.copyOf(masters);
+        m_partitionReplicas = ImmutableMap.copyOf(replicas);
         if (m_topologyChangeAware) {
             m_unconnectedHosts.set(ImmutableSet.copyOf(unconnected));
         }
@@ -38,6 +38,7 @@ public class ProcedureInvocation {
     private final int m_batchTimeout;
     private final ParameterSet m_parameters;
     private final int m_partitionDestination;
+    private final int m_streamChunkSize;
 
     // pre-cache this for serialization
     // this duplicates some other code, but it's nice to keep the client code
@@ -54,6 +55,15 @@ public class ProcedureInvocation {
 
     public ProcedureInvocation(long handle, int batchTimeout, int partitionDestination, String procName,
             Object... parameters) {
+        this(handle, batchTimeout, partitionDestination, 0, procName, parameters);
+    }
+
+    /**
+     * @param streamChunkSize if positive, ask the server to deliver results larger than this
+     * many bytes as a sequence of partial responses
+     */
+    public ProcedureInvocation(long handle, int batchTimeout, int partitionDestination, int streamChunkSize,
+            String procName, Object... parameters) {
         if ((batchTimeout < 0) && (batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT)) {
             throw new IllegalArgumentException("Timeout value can't be negative." );
         }
@@ -66,6 +76,7 @@ public class ProcedureInvocation {
 
         m_batchTimeout = batchTimeout;
         m_partitionDestination = partitionDestination;
+        m_streamChunkSize = streamChunkSize;
     }
 
     /** return the clientHandle value */
@@ -101,6 +112,14 @@ public class ProcedureInvocation {
         return m_partitionDestination;
     }
 
+    public boolean isStreamingResults() {
+        return m_streamChunkSize > 0;
+    }
+
+    public int getStreamChunkSize() {
+        return m_streamChunkSize;
+    }
+
     public int getSerializedSize() {
         // convert proc name to bytes if needed
         if (m_procNameBytes == null) {
@@ -114,13 +133,15 @@ public class ProcedureInvocation {
         // 2 is one byte for ext type, one for size +
         // 6 is one byte for ext type, one for size, and 4 for integer value
         int partitionDestinationSize = hasPartitionDestination() ? 8 : 0;
+        // 6 is one byte for ext type, one for size, and 4 for integer value
+        int streamResultsSize = isStreamingResults() ? 6 : 0;
 
         int size =
             1 + // type
             4 + m_procNameBytes.length + // procname
             8 + // client handle
             1 + // extension count
-            batchExtensionSize + partitionDestinationSize + // extensions
+            batchExtensionSize + partitionDestinationSize + streamResultsSize + // extensions
             m_parameters.getSerializedSize(); // parameters
         assert(size > 0); // sanity
         return size;
@@ -138,7 +159,7 @@ public class ProcedureInvocation {
 
         buf.putLong(m_clientHandle);
 
-        // there are two possible extensions, count which apply
+        // count the extensions which apply
         byte extensionCount = 0;
         if (m_batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT) {
             ++extensionCount;
@@ -146,6 +167,9 @@ public class ProcedureInvocation {
         if (hasPartitionDestination()) {
             extensionCount += 2;
         }
+        if (isStreamingResults()) {
+            ++extensionCount;
+        }
         // write the count as one byte
         buf.put(extensionCount);
         // write any extensions that apply
@@ -156,6 +180,9 @@ public class ProcedureInvocation {
             ProcedureInvocationExtensions.writeAllPartitionWithTypeByte(buf);
             ProcedureInvocationExtensions.writePartitionDestinationWithTypeByte(buf, m_partitionDestination);
         }
+        if (isStreamingResults()) {
+            ProcedureInvocationExtensions.writeStreamResultsWithTypeByte(buf, m_streamChunkSize);
+        }
 
         m_parameters.flattenToBuffer(buf);
 
@@ -48,6 +48,7 @@ public abstract class ProcedureInvocationExtensions {
     public static final byte BATCH_TIMEOUT = 1;  // batch timeout
     public static final byte ALL_PARTITION = 2; // whether proc is part of run-everywhere
     public static final byte PARTITION_DESTINATION = 3; // Which partition this procedure is targeting
+    public static final byte STREAM_RESULTS = 4; // deliver large results in chunks of at most this many bytes
 
     private static final int INTEGER_SIZE = Integer.BYTES;
 
@@ -97,6 +98,20 @@ public abstract class ProcedureInvocationExtensions {
         return partitionDestination;
     }
 
+    public static void writeStreamResultsWithTypeByte(ByteBuffer buf, int maxChunkBytes) {
+        buf.put(STREAM_RESULTS);
+        writeLength(buf, INTEGER_SIZE);
+        buf.putInt(maxChunkBytes);
+    }
+
+    public static int readStreamResults(ByteBuffer buf) {
+        int maxChunkBytes = readInt(buf, "Stream results");
+        if (maxChunkBytes <= 0) {
+            throw new IllegalStateException("Invalid stream chunk size deserialized: " + maxChunkBytes);
+        }
+        return maxChunkBytes;
+    }
+
     public static void skipUnknownExtension(ByteBuffer buf) {
         int len = readLength(buf);
         buf.position(buf.position() + len); // skip ahead
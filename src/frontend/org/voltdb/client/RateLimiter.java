@@ -21,6 +21,8 @@ import java.util.ArrayDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google_voltpatches.common.base.Throwables;
 
@@ -31,6 +33,8 @@ import com.google_voltpatches.common.base.Throwables;
  * send rate to get a good balance of througput and latency on the
  * server.
  *
+ * Sending and receiving never take the monitor. Outstanding and per-block counts are
+ * atomics; only the roll-over to a new 100ms block, and re-tuning, synchronize.
  */
 class RateLimiter {
 
@@ -40,23 +44,24 @@ class RateLimiter {
     final int MINIMUM_MOVEMENT = 5;
 
     //Boolean indicating whether the only thing being tracked is max outstanding
-    protected boolean m_doesAnyTuning = false;
-    protected boolean m_autoTune = false;
-    protected int m_targetTxnsPerSecond = Integer.MAX_VALUE;
+    protected volatile boolean m_doesAnyTuning = false;
+    protected volatile boolean m_autoTune = false;
+    protected volatile int m_targetTxnsPerSecond = Integer.MAX_VALUE;
     //protected int m_targetTxnsPerBlock = Integer.MAX_VALUE;
-    protected int m_latencyTarget = 5;
+    protected volatile int m_latencyTarget = 5;
 
-    protected int m_currentBlockSendCount = 0;
-    protected int m_currentBlockRecvSuccessCount = 0;
-    protected int m_outstandingTxns = 0;
+    protected final AtomicInteger m_currentBlockSendCount = new AtomicInteger(0);
+    protected final AtomicInteger m_currentBlockRecvSuccessCount = new AtomicInteger(0);
+    protected final AtomicInteger m_outstandingTxns = new AtomicInteger(0);
     protected Semaphore m_outstandingTxnsSemaphore = new Semaphore(10);
 
-    protected int m_maxOutstandingTxns = 10;
+    protected volatile int m_maxOutstandingTxns = 10;
 
-    protected long m_currentBlockTimestamp = -1;
+    protected volatile long m_currentBlockTimestamp = -1;
 
-    protected long m_currentBlockTotalInternalLatency = 0;
+    protected final LongAdder m_currentBlockTotalInternalLatency = new LongAdder();
 
+    // only accessed while holding the monitor
     protected ArrayDeque<Double> m_prevInternalLatencyAvgs = new ArrayDeque<Double>();
 
     protected void autoTuneTargetFromHistory() {
@@ -72,53 +77,58 @@ class RateLimiter {
             mediumTermLatency /= m_prevInternalLatencyAvgs.size();
         }
 
+        int maxOutstandingTxns = m_maxOutstandingTxns;
         if ((mediumTermLatency > m_latencyTarget) && (recentLatency > m_latencyTarget)) {
-            m_maxOutstandingTxns -= Math.max(0.1 * m_maxOutstandingTxns, MINIMUM_MOVEMENT);
+            maxOutstandingTxns -= Math.max(0.1 * maxOutstandingTxns, MINIMUM_MOVEMENT);
         }
         else if ((mediumTermLatency < m_latencyTarget) && (recentLatency > m_latencyTarget)) {
-            --m_maxOutstandingTxns;
+            --maxOutstandingTxns;
         }
         else if ((mediumTermLatency > m_latencyTarget) && (recentLatency < m_latencyTarget)) {
-            m_maxOutstandingTxns++;
+            maxOutstandingTxns++;
         }
         else { // if ((mediumTermLatency < m_latencyTarget) && (recentLatency < m_latencyTarget)) {
-            m_maxOutstandingTxns += Math.max(0.1 * m_maxOutstandingTxns, MINIMUM_MOVEMENT);
+            maxOutstandingTxns += Math.max(0.1 * maxOutstandingTxns, MINIMUM_MOVEMENT);
         }
 
         // don't let this go to 0, latency be damned
-        if (m_maxOutstandingTxns <= 0) {
-            m_maxOutstandingTxns = 1;
+        if (maxOutstandingTxns <= 0) {
+            maxOutstandingTxns = 1;
         }
+        m_maxOutstandingTxns = maxOutstandingTxns;
     }
 
     protected void ensureCurrentBlockIsKosher(long timestamp) {
         long thisBlock = timestamp - (timestamp % BLOCK_SIZE);
 
-        // handle first time initialization
-        if (m_currentBlockTimestamp == -1) {
-            m_currentBlockTimestamp = thisBlock;
+        // common case: still in the current block (or time moved backwards a bit)
+        if (thisBlock <= m_currentBlockTimestamp) {
+            return;
         }
 
-        // handle time moving backwards (a bit)
-        if (thisBlock < m_currentBlockTimestamp) {
-            thisBlock = m_currentBlockTimestamp;
-        }
-
-        // check for new block
-        if (thisBlock > m_currentBlockTimestamp) {
-            // need to deal with 100ms skips here TODO
-            m_currentBlockTimestamp = thisBlock;
-            m_prevInternalLatencyAvgs.addFirst(
-                    m_currentBlockTotalInternalLatency / (double) m_currentBlockRecvSuccessCount);
-            while (m_prevInternalLatencyAvgs.size() > HISTORY_SIZE) {
-                m_prevInternalLatencyAvgs.pollLast();
+        synchronized (this) {
+            // handle first time initialization
+            if (m_currentBlockTimestamp == -1) {
+                m_currentBlockTimestamp = thisBlock;
+                return;
             }
-            m_currentBlockSendCount = 0;
-            m_currentBlockRecvSuccessCount = 0;
-            m_currentBlockTotalInternalLatency = 0;
 
-            if (m_autoTune) {
-                autoTuneTargetFromHistory();
+            // check for new block, another thread may have switched already
+            if (thisBlock > m_currentBlockTimestamp) {
+                // need to deal with 100ms skips here TODO
+                // Counts racing with the switch may be attributed to either block.
+                final int recvSuccessCount = m_currentBlockRecvSuccessCount.getAndSet(0);
+                m_prevInternalLatencyAvgs.addFirst(
+                        m_currentBlockTotalInternalLatency.sumThenReset() / (double) recvSuccessCount);
+                while (m_prevInternalLatencyAvgs.size() > HISTORY_SIZE) {
+                    m_prevInternalLatencyAvgs.pollLast();
+                }
+                m_currentBlockSendCount.set(0);
+                m_currentBlockTimestamp = thisBlock;
+
+                if (m_autoTune) {
+                    autoTuneTargetFromHistory();
+                }
             }
         }
     }
@@ -128,10 +138,10 @@ class RateLimiter {
      */
     synchronized void enableAutoTuning(int latencyTarget) {
         m_autoTune = true;
-        m_doesAnyTuning = true;
         m_targetTxnsPerSecond = Integer.MAX_VALUE;
         m_maxOutstandingTxns = 20;
         m_latencyTarget = latencyTarget;
+        m_doesAnyTuning = true;
     }
 
     /**
@@ -139,6 +149,10 @@ class RateLimiter {
      */
     synchronized void setLimits(int txnsPerSec, int maxOutstanding) {
         m_autoTune = false;
+        m_targetTxnsPerSecond = txnsPerSec;
+        m_maxOutstandingTxns = maxOutstanding;
+        m_outstandingTxnsSemaphore.drainPermits();
+        m_outstandingTxnsSemaphore.release(maxOutstanding);
         /*
          * If the rate limit is some reasonably low value then go through the effort
          * of rate limiting
@@ -146,10 +160,6 @@ class RateLimiter {
         if (txnsPerSec < Integer.MAX_VALUE / 2) {
             m_doesAnyTuning = true;
         }
-        m_targetTxnsPerSecond = txnsPerSec;
-        m_maxOutstandingTxns = maxOutstanding;
-        m_outstandingTxnsSemaphore.drainPermits();
-        m_outstandingTxnsSemaphore.release(maxOutstanding);
     }
 
     /**
@@ -157,7 +167,7 @@ class RateLimiter {
      * @return A length-2 array of integers representing max throughput/sec and
      * max outstanding txns.
      */
-    synchronized int[] getLimits() {
+    int[] getLimits() {
         int[] limits = new int[2];
         limits[0] = m_targetTxnsPerSecond;
         limits[1] = m_maxOutstandingTxns;
@@ -172,14 +182,12 @@ class RateLimiter {
      */
     void transactionResponseReceived(long timestampNanos, int internalLatency, boolean ignoreBackpressure) {
         if (m_doesAnyTuning) {
-            synchronized (this) {
-                ensureCurrentBlockIsKosher(TimeUnit.NANOSECONDS.toMillis(timestampNanos));
-                --m_outstandingTxns;
-                assert(m_outstandingTxns >= 0);
-                if (internalLatency != -1) {
-                    ++m_currentBlockRecvSuccessCount;
-                    m_currentBlockTotalInternalLatency += internalLatency;
-                }
+            ensureCurrentBlockIsKosher(TimeUnit.NANOSECONDS.toMillis(timestampNanos));
+            final int outstanding = m_outstandingTxns.decrementAndGet();
+            assert(outstanding >= 0);
+            if (internalLatency != -1) {
+                m_currentBlockRecvSuccessCount.incrementAndGet();
+                m_currentBlockTotalInternalLatency.add(internalLatency);
             }
         } else {
             if (ignoreBackpressure) return;
@@ -198,39 +206,43 @@ class RateLimiter {
         if (m_doesAnyTuning) {
             long timestamp = TimeUnit.NANOSECONDS.toMillis(timestampNanos);
             while (true) {
-                synchronized(this) {
-                    // switch to a new block if 100ms has passed
-                    // possibly compute a new target rate
-                    ensureCurrentBlockIsKosher(timestamp);
-
-                    assert((timestamp - m_currentBlockTimestamp) <= BLOCK_SIZE);
+                // switch to a new block if 100ms has passed
+                // possibly compute a new target rate
+                ensureCurrentBlockIsKosher(timestamp);
 
-                    // don't let the time be before the start of the current block
-                    // also ensure faketime - m_currentBlockTimestamp is positive
-                    long faketime = timestamp < m_currentBlockTimestamp ? m_currentBlockTimestamp : timestamp;
+                final long currentBlockTimestamp = m_currentBlockTimestamp;
 
-                    long targetTxnsPerBlock = m_targetTxnsPerSecond / (1000 / BLOCK_SIZE);
+                // don't let the time be before the start of the current block
+                // also ensure faketime - m_currentBlockTimestamp is positive
+                long faketime = timestamp < currentBlockTimestamp ? currentBlockTimestamp : timestamp;
+                // another thread may already have moved on to a later block
+                faketime = Math.min(faketime, currentBlockTimestamp + BLOCK_SIZE - 1);
 
-                    // compute the percentage of the current 100ms block that has passed
-                    double expectedTxnsSent =
-                            targetTxnsPerBlock * (faketime - m_currentBlockTimestamp + 1.0) / BLOCK_SIZE;
-                    expectedTxnsSent = Math.ceil(expectedTxnsSent);
+                long targetTxnsPerBlock = m_targetTxnsPerSecond / (1000 / BLOCK_SIZE);
 
-                    assert(expectedTxnsSent <= targetTxnsPerBlock); // stupid fp math
-                    assert((expectedTxnsSent >= 1.0) || (targetTxnsPerBlock == 0));
+                // compute the percentage of the current 100ms block that has passed
+                double expectedTxnsSent =
+                        targetTxnsPerBlock * (faketime - currentBlockTimestamp + 1.0) / BLOCK_SIZE;
+                expectedTxnsSent = Math.ceil(expectedTxnsSent);
 
-                    // if the rate is under target, no problems
-                    if (((m_currentBlockSendCount < expectedTxnsSent) &&
-                         (m_outstandingTxns < m_maxOutstandingTxns)) ||
-                        (ignoreBackpressure == true)) {
+                assert(expectedTxnsSent <= targetTxnsPerBlock); // stupid fp math
+                assert((expectedTxnsSent >= 1.0) || (targetTxnsPerBlock == 0));
 
-                        // bookkeeping
-                        ++m_currentBlockSendCount;
-                        ++m_outstandingTxns;
+                if (ignoreBackpressure) {
+                    m_currentBlockSendCount.incrementAndGet();
+                    m_outstandingTxns.incrementAndGet();
+                    break;
+                }
 
+                // if the rate is under target, no problems
+                // claim an outstanding slot first, then a send in this block; give both back if
+                // the block turned out to be full
+                if (tryIncrementBelow(m_outstandingTxns, m_maxOutstandingTxns)) {
+                    if (tryIncrementBelow(m_currentBlockSendCount, expectedTxnsSent)) {
                         // exit the while loop
                         break;
                     }
+                    m_outstandingTxns.decrementAndGet();
                 }
 
                 // if the rate is above target, pause for the smallest time possible
@@ -258,10 +270,22 @@ class RateLimiter {
         return timestampNanos;
     }
 
+    private static boolean tryIncrementBelow(AtomicInteger counter, double limit) {
+        while (true) {
+            final int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
     public synchronized void debug() {
         System.out.printf("Target throughput/s is %d and max outstanding txns is %d\n",
                 m_targetTxnsPerSecond, m_maxOutstandingTxns);
         System.out.printf("Current outstanding is %d and recent internal latency is %.2f\n",
-                m_outstandingTxns, m_prevInternalLatencyAvgs.peekFirst());
+                m_outstandingTxns.get(), m_prevInternalLatencyAvgs.peekFirst());
     }
 }
@@ -0,0 +1,254 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.voltdb.LogEntryType;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * A single file of the command log written by {@link GroupCommitCommandLog}.
+ *
+ * A segment starts with a header holding the highest spHandle seen per partition before the
+ * segment was opened, followed by records of the form
+ * <pre>[int payload length][int CRC32 of payload][payload]</pre>
+ * where the first byte of the payload is a {@link LogEntryType}. A torn record at the tail of
+ * the newest segment is expected after a crash and simply ends the segment during replay.
+ *
+ * Instances are only written to by the command log writer thread.
+ */
+final class CommandLogSegment {
+    static final int MAGIC = 0x56474343; // "VGCC"
+    static final int VERSION = 1;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final String FILE_PREFIX = "gccl_";
+    static final String FILE_SUFFIX = ".log";
+
+    final long m_id;
+    final File m_file;
+    private final FileChannel m_channel;
+    private long m_size;
+    // Highest spHandle written to this segment per partition, used to retire it after truncation
+    private final Map<Integer, Long> m_maxSpHandles = new HashMap<>();
+
+    private CommandLogSegment(long id, File file, FileChannel channel, long size) {
+        m_id = id;
+        m_file = file;
+        m_channel = channel;
+        m_size = size;
+    }
+
+    /**
+     * Create a new segment file and write its header
+     * @param lastSeenSpHandles highest spHandle per partition written before this segment
+     */
+    static CommandLogSegment create(File dir, long id, Map<Integer, Long> lastSeenSpHandles) throws IOException {
+        final File file = new File(dir, fileName(id));
+        final FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(headerSize(lastSeenSpHandles.size()));
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(id);
+        header.putLong(System.currentTimeMillis());
+        header.putInt(lastSeenSpHandles.size());
+        for (Map.Entry<Integer, Long> e : lastSeenSpHandles.entrySet()) {
+            header.putInt(e.getKey());
+            header.putLong(e.getValue());
+        }
+        header.flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new CommandLogSegment(id, file, channel, header.limit());
+    }
+
+    static int headerSize(int partitionCount) {
+        return 4 + 4 + 8 + 8 + 4 + partitionCount * (4 + 8);
+    }
+
+    static String fileName(long id) {
+        return String.format("%s%016d%s", FILE_PREFIX, id, FILE_SUFFIX);
+    }
+
+    static long parseId(File file) {
+        final String name = file.getName();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * @return the segment files in the directory in the order they were written
+     */
+    static File[] listSegmentFiles(File dir) {
+        File[] files = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                final String name = f.getName();
+                return f.isFile() && name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(parseId(a), parseId(b));
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Write the records with a single gathering write
+     */
+    void write(ByteBuffer[] records, int count, long bytes) throws IOException {
+        long remaining = bytes;
+        int offset = 0;
+        while (remaining > 0) {
+            remaining -= m_channel.write(records, offset, count - offset);
+            while (offset < count && !records[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+        m_size += bytes;
+    }
+
+    static long recordSpHandle(ByteBuffer record) {
+        return record.getLong(record.position() + RECORD_HEADER_SIZE + 1);
+    }
+
+    static int recordPartitionId(ByteBuffer record) {
+        return record.getInt(record.position() + RECORD_HEADER_SIZE + 1 + 8);
+    }
+
+    void recordSpHandle(int partitionId, long spHandle) {
+        Long max = m_maxSpHandles.get(partitionId);
+        if (max == null || max < spHandle) {
+            m_maxSpHandles.put(partitionId, spHandle);
+        }
+    }
+
+    /**
+     * @param metadata false to only sync the data (fdatasync), true for a full fsync
+     */
+    void sync(boolean metadata) throws IOException {
+        m_channel.force(metadata);
+    }
+
+    long size() {
+        return m_size;
+    }
+
+    Map<Integer, Long> maxSpHandles() {
+        return m_maxSpHandles;
+    }
+
+    /**
+     * @return true if every record in this segment is included in a snapshot taken at the given txnIds
+     */
+    boolean isCoveredBy(Map<Integer, Long> partitionTxnIds) {
+        for (Map.Entry<Integer, Long> e : m_maxSpHandles.entrySet()) {
+            final Long snapshotTxnId = partitionTxnIds.get(e.getKey());
+            if (snapshotTxnId == null || snapshotTxnId < e.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void close() throws IOException {
+        m_channel.close();
+    }
+
+    boolean delete() {
+        return m_file.delete();
+    }
+
+    /**
+     * Build a complete initiation record for the message as it will appear on disk
+     */
+    static ByteBuffer initiationRecord(Iv2InitiateTaskMessage message, long spHandle, int partitionId,
+            int[] involvedPartitions) throws IOException {
+        final int involvedCount = involvedPartitions == null ? 0 : involvedPartitions.length;
+        final ByteBuffer flattened = ByteBuffer.allocate(message.getSerializedSize());
+        message.flattenToBuffer(flattened);
+        flattened.flip();
+
+        final int payloadSize = 1 + 8 + 4 + 4 + involvedCount * 4 + flattened.remaining();
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadSize);
+        record.position(RECORD_HEADER_SIZE);
+        record.put(LogEntryType.INITIATION.asByte());
+        record.putLong(spHandle);
+        record.putInt(partitionId);
+        record.putInt(involvedCount);
+        for (int i = 0; i < involvedCount; i++) {
+            record.putInt(involvedPartitions[i]);
+        }
+        record.put(flattened);
+        return finishRecord(record);
+    }
+
+    /**
+     * Build a complete IV2 fault or master mode record as it will appear on disk
+     */
+    static ByteBuffer faultRecord(LogEntryType type, long writerHSId, Set<Long> survivorHSIds, int partitionId,
+            long spHandle) {
+        final int payloadSize = 1 + 8 + 4 + 8 + 4 + survivorHSIds.size() * 8;
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadSize);
+        record.position(RECORD_HEADER_SIZE);
+        record.put(type.asByte());
+        record.putLong(spHandle);
+        record.putInt(partitionId);
+        record.putLong(writerHSId);
+        record.putInt(survivorHSIds.size());
+        for (long hsId : survivorHSIds) {
+            record.putLong(hsId);
+        }
+        return finishRecord(record);
+    }
+
+    private static ByteBuffer finishRecord(ByteBuffer record) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer payload = record.duplicate();
+        payload.flip();
+        payload.position(RECORD_HEADER_SIZE);
+        crc.update(payload);
+        record.putInt(0, record.position() - RECORD_HEADER_SIZE);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+}
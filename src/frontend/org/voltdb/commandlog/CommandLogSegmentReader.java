@@ -0,0 +1,206 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.commandlog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.VoltMessage;
+import org.voltdb.LogEntryType;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.messaging.VoltDbMessageFactory;
+
+/**
+ * Sequential reader for a {@link CommandLogSegment} file. Reading stops at the end of the file
+ * or at the first record that is truncated or fails its checksum.
+ */
+final class CommandLogSegmentReader implements Closeable {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    static class Entry {
+        final LogEntryType m_type;
+        final long m_spHandle;
+        final int m_partitionId;
+        final int m_size;
+        // Set for INITIATION entries
+        final int[] m_involvedPartitions;
+        final Iv2InitiateTaskMessage m_message;
+        // Set for IV2FAULT and MASTERMODE entries
+        final long m_writerHSId;
+        final Set<Long> m_survivorHSIds;
+
+        private Entry(LogEntryType type, long spHandle, int partitionId, int size, int[] involvedPartitions,
+                Iv2InitiateTaskMessage message, long writerHSId, Set<Long> survivorHSIds) {
+            m_type = type;
+            m_spHandle = spHandle;
+            m_partitionId = partitionId;
+            m_size = size;
+            m_involvedPartitions = involvedPartitions;
+            m_message = message;
+            m_writerHSId = writerHSId;
+            m_survivorHSIds = survivorHSIds;
+        }
+    }
+
+    private final File m_file;
+    private final FileChannel m_channel;
+    private final VoltDbMessageFactory m_messageFactory = new VoltDbMessageFactory();
+    private final CRC32 m_crc = new CRC32();
+    private final long m_id;
+    private final Map<Integer, Long> m_lastSeenSpHandles = new TreeMap<>();
+    private ByteBuffer m_buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private boolean m_eof = false;
+
+    CommandLogSegmentReader(File file) throws IOException {
+        m_file = file;
+        m_channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        m_buffer.flip();
+        try {
+            if (!fill(CommandLogSegment.headerSize(0))) {
+                throw new IOException("Command log segment " + file + " has a truncated header");
+            }
+            final int magic = m_buffer.getInt();
+            final int version = m_buffer.getInt();
+            if (magic != CommandLogSegment.MAGIC || version != CommandLogSegment.VERSION) {
+                throw new IOException("Command log segment " + file + " has an unknown format");
+            }
+            m_id = m_buffer.getLong();
+            m_buffer.getLong(); // creation time
+            final int partitionCount = m_buffer.getInt();
+            if (!fill(partitionCount * (4 + 8))) {
+                throw new IOException("Command log segment " + file + " has a truncated header");
+            }
+            for (int i = 0; i < partitionCount; i++) {
+                m_lastSeenSpHandles.put(m_buffer.getInt(), m_buffer.getLong());
+            }
+        } catch (IOException e) {
+            m_channel.close();
+            throw e;
+        }
+    }
+
+    long getId() {
+        return m_id;
+    }
+
+    /**
+     * @return the highest spHandle per partition written before this segment
+     */
+    Map<Integer, Long> getLastSeenSpHandles() {
+        return m_lastSeenSpHandles;
+    }
+
+    /**
+     * @return the next entry, or null at the end of the readable part of the segment
+     */
+    Entry next() throws IOException {
+        if (m_eof) {
+            return null;
+        }
+        if (!fill(CommandLogSegment.RECORD_HEADER_SIZE)) {
+            return endOfSegment(m_buffer.hasRemaining());
+        }
+        final int length = m_buffer.getInt();
+        final int checksum = m_buffer.getInt();
+        if (length <= 0 || !fill(length)) {
+            return endOfSegment(true);
+        }
+
+        // Copied out because the deserialized invocation keeps a reference to its parameter bytes
+        final byte[] bytes = new byte[length];
+        m_buffer.get(bytes);
+        m_crc.reset();
+        m_crc.update(bytes, 0, length);
+        if ((int) m_crc.getValue() != checksum) {
+            return endOfSegment(true);
+        }
+
+        final ByteBuffer payload = ByteBuffer.wrap(bytes);
+        final LogEntryType type = LogEntryType.valueOf(payload.get());
+        final long spHandle = payload.getLong();
+        final int partitionId = payload.getInt();
+        if (type == LogEntryType.INITIATION) {
+            final int[] involved = new int[payload.getInt()];
+            for (int i = 0; i < involved.length; i++) {
+                involved[i] = payload.getInt();
+            }
+            // The factory consumes the message type byte before handing the rest to the message
+            final VoltMessage message = m_messageFactory.createMessageFromBuffer(payload.slice(), -1);
+            return new Entry(type, spHandle, partitionId, length, involved,
+                    (Iv2InitiateTaskMessage) message, -1, null);
+        } else if (type == LogEntryType.IV2FAULT || type == LogEntryType.MASTERMODE) {
+            final long writerHSId = payload.getLong();
+            final int survivorCount = payload.getInt();
+            final Set<Long> survivors = new HashSet<>(survivorCount * 2);
+            for (int i = 0; i < survivorCount; i++) {
+                survivors.add(payload.getLong());
+            }
+            return new Entry(type, spHandle, partitionId, length, null, null, writerHSId, survivors);
+        }
+        throw new IOException("Unknown command log entry type " + type + " in " + m_file);
+    }
+
+    private Entry endOfSegment(boolean torn) {
+        if (torn) {
+            LOG.info("Ignoring incomplete trailing record in command log segment " + m_file);
+        }
+        m_eof = true;
+        return null;
+    }
+
+    /**
+     * Make sure at least count bytes are available in the buffer
+     * @return false if the file ends first
+     */
+    private boolean fill(int count) throws IOException {
+        if (m_buffer.remaining() >= count) {
+            return true;
+        }
+        if (m_buffer.capacity() < count) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(count, m_buffer.capacity() * 2));
+            larger.put(m_buffer);
+            m_buffer = larger;
+        } else {
+            m_buffer.compact();
+        }
+        while (m_buffer.position() < count) {
+            if (m_channel.read(m_buffer) < 0) {
+                m_buffer.flip();
+                return false;
+            }
+        }
+        m_buffer.flip();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_channel.close();
+    }
+}
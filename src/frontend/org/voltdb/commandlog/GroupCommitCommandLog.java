@@ -0,0 +1,556 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zookeeper_voltpatches.CreateMode;
+import org.apache.zookeeper_voltpatches.ZooDefs.Ids;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.Pair;
+import org.voltdb.CommandLog;
+import org.voltdb.CommandLogStats;
+import org.voltdb.LogEntryType;
+import org.voltdb.SnapshotCompletionInterest;
+import org.voltdb.SnapshotCompletionMonitor;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltZK;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+import com.google_voltpatches.common.collect.ImmutableSet;
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
+
+/**
+ * Command log that appends initiations to {@link CommandLogSegment} files from a single writer
+ * thread using group commit. Sites serialize their own entries and hand them over under a short
+ * lock, the writer then writes everything that accumulated with one gathering write and one
+ * sync, and releases the durability checks of every site that contributed to the group.
+ *
+ * The log is synced at most once every fsync interval, or as soon as the configured number of
+ * transactions is waiting. With synchronous logging transactions are only handed to the site
+ * for execution once they are durable. With asynchronous logging they execute right away, only
+ * the durable unique IDs wait for the sync, and the sites are pushed back on once too much data
+ * is waiting to be written.
+ *
+ * Initiations logged before {@link #init} are rejected: they are not written and not tracked for
+ * durability, and {@link #canOfferTask} has the site execute them directly. Those are replayed
+ * transactions, which are still in the previous log and are covered by the truncation snapshot
+ * taken after replay. Faults logged before init are kept and written once the log is open.
+ */
+public class GroupCommitCommandLog implements CommandLog, SnapshotCompletionInterest {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    /**
+     * Use this command log when command logging is enabled in the deployment but the enterprise
+     * implementation is not available
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("GROUP_COMMIT_COMMAND_LOG");
+    // Sync only the file data (fdatasync) instead of data and metadata (fsync)
+    static final boolean FDATASYNC = Boolean.parseBoolean(System.getProperty("COMMAND_LOG_FDATASYNC", "true"));
+    static final long SEGMENT_SIZE = Integer.getInteger("COMMAND_LOG_SEGMENT_SIZE_MB", 64) * 1024L * 1024L;
+    // Asynchronous logging makes the sites wait once this much is waiting to be written
+    static final long BACKPRESSURE_BYTES = Integer.getInteger("COMMAND_LOG_BACKPRESSURE_MB", 32) * 1024L * 1024L;
+
+    private static final ListenableFuture<Object> NO_BACKPRESSURE = Futures.immediateFuture(null);
+
+    private final boolean m_synchronous;
+    private final int m_fsyncIntervalMs;
+    private final long m_fsyncIntervalNanos;
+    private final int m_maxTxnsBeforeSync;
+    private final File m_logDir;
+    private final Thread m_writer;
+
+    private final Object m_lock = new Object();
+    // Everything below is guarded by m_lock
+    private ArrayList<ByteBuffer> m_pending = new ArrayList<>();
+    private long m_pendingBytes = 0;
+    private int m_pendingTxns = 0;
+    private final Set<DurabilityListener> m_dirtyListeners =
+            Collections.newSetFromMap(new IdentityHashMap<DurabilityListener, Boolean>());
+    private final ArrayList<SettableFuture<Boolean>> m_pendingFaults = new ArrayList<>();
+    private SettableFuture<Object> m_backpressure = null;
+    private boolean m_writerIdle = false;
+    private boolean m_shutdown = false;
+    private boolean m_rollRequested = false;
+    private boolean m_truncationPending = false;
+    private CommandLogSegment m_currentSegment = null;
+    private final ArrayDeque<CommandLogSegment> m_closedSegments = new ArrayDeque<>();
+    // Segments left by a previous run that no truncation snapshot has covered yet
+    private List<File> m_previousRunSegments = Collections.emptyList();
+
+    // Only used by the writer thread after init
+    private final Map<Integer, Long> m_lastSeenSpHandles = new TreeMap<>();
+    private long m_nextSegmentId;
+    private long m_logSizeBytes = Long.MAX_VALUE;
+
+    private volatile boolean m_initialized = false;
+    private volatile ImmutableSet<Integer> m_decommissionedPartitions = ImmutableSet.of();
+
+    public GroupCommitCommandLog(boolean synchronous, int fsyncIntervalMs, int maxTxnsBeforeSync,
+            String logPath, String logSnapshotPath) {
+        m_synchronous = synchronous;
+        m_fsyncIntervalMs = fsyncIntervalMs;
+        m_fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        m_maxTxnsBeforeSync = maxTxnsBeforeSync;
+        m_logDir = new File(logPath);
+        m_writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        }, "Command log writer");
+        m_writer.setDaemon(true);
+        m_writer.start();
+    }
+
+    @Override
+    public void init(int logSize, long txnId, String coreBinding, Map<Integer, Long> perPartitionTxnId) {
+        // A truncation snapshot at txnId covers everything logged by the previous run
+        open(logSize, perPartitionTxnId, txnId != Long.MIN_VALUE);
+    }
+
+    @Override
+    public void initForRejoin(int logSize, long txnId, boolean isRejoin, String coreBinding,
+            Map<Integer, Long> perPartitionTxnId) {
+        // The rejoined data comes from the cluster, anything left on disk is stale
+        open(logSize, perPartitionTxnId, true);
+    }
+
+    private void open(int logSizeMb, Map<Integer, Long> perPartitionTxnId, boolean discardExisting) {
+        try {
+            if (!m_logDir.exists() && !m_logDir.mkdirs()) {
+                throw new IOException("Unable to create command log directory " + m_logDir);
+            }
+            final File[] existing = CommandLogSegment.listSegmentFiles(m_logDir);
+            long nextId = 0;
+            List<File> previousRun = new ArrayList<>();
+            for (File f : existing) {
+                nextId = Math.max(nextId, CommandLogSegment.parseId(f) + 1);
+                if (discardExisting) {
+                    if (!f.delete()) {
+                        LOG.warn("Unable to delete command log segment " + f);
+                    }
+                } else {
+                    previousRun.add(f);
+                }
+            }
+            if (perPartitionTxnId != null) {
+                m_lastSeenSpHandles.putAll(perPartitionTxnId);
+            }
+            m_nextSegmentId = nextId + 1;
+            m_logSizeBytes = logSizeMb * 1024L * 1024L;
+            final CommandLogSegment first = CommandLogSegment.create(m_logDir, nextId, m_lastSeenSpHandles);
+            synchronized (m_lock) {
+                m_previousRunSegments = previousRun;
+                m_currentSegment = first;
+            }
+        } catch (IOException e) {
+            VoltDB.crashLocalVoltDB("Unable to initialize the command log in " + m_logDir, true, e);
+        }
+
+        final SnapshotCompletionMonitor monitor = VoltDB.instance().getSnapshotCompletionMonitor();
+        if (monitor != null) {
+            monitor.addInterest(this);
+        }
+        synchronized (m_lock) {
+            m_initialized = true;
+            m_lock.notify();
+        }
+        LOG.info(String.format("Command logging to %s, %s with fsync interval %d ms and at most %d txns per fsync",
+                m_logDir, m_synchronous ? "synchronous" : "asynchronous", m_fsyncIntervalMs, m_maxTxnsBeforeSync));
+    }
+
+    @Override
+    public boolean needsInitialization() {
+        return !m_initialized;
+    }
+
+    @Override
+    public ListenableFuture<Object> log(
+            Iv2InitiateTaskMessage message,
+            long spHandle,
+            int[] involvedPartitions,
+            DurabilityListener listener,
+            TransactionTask durabilityHandle) {
+        if (!m_initialized) {
+            // Nothing is written before init, so nothing may be reported durable
+            return null;
+        }
+        ByteBuffer record = null;
+        if (message != null) {
+            try {
+                record = CommandLogSegment.initiationRecord(message, spHandle, TxnEgo.getPartitionId(spHandle),
+                        involvedPartitions);
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to serialize command log entry", true, e);
+            }
+        }
+
+        synchronized (m_lock) {
+            if (record != null) {
+                m_pending.add(record);
+                m_pendingBytes += record.remaining();
+                m_pendingTxns++;
+            }
+            // The listener is not thread safe, the writer only touches it while holding m_lock
+            listener.addTransaction(durabilityHandle);
+            m_dirtyListeners.add(listener);
+            if (m_writerIdle || m_pendingTxns >= m_maxTxnsBeforeSync || m_pendingBytes > BACKPRESSURE_BYTES) {
+                m_lock.notify();
+            }
+
+            if (m_synchronous) {
+                return null;
+            }
+            if (m_pendingBytes > BACKPRESSURE_BYTES) {
+                if (m_backpressure == null) {
+                    m_backpressure = SettableFuture.create();
+                }
+                return m_backpressure;
+            }
+        }
+        return NO_BACKPRESSURE;
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId, int partitionId,
+            long spHandle) {
+        return logIv2Fault(writerHSId, survivorHSId, partitionId, spHandle, LogEntryType.IV2FAULT);
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId, int partitionId,
+            long spHandle, LogEntryType entryType) {
+        final SettableFuture<Boolean> written = SettableFuture.create();
+        final ByteBuffer record =
+                CommandLogSegment.faultRecord(entryType, writerHSId, survivorHSId, partitionId, spHandle);
+        synchronized (m_lock) {
+            if (m_shutdown) {
+                written.set(false);
+                return written;
+            }
+            m_pending.add(record);
+            m_pendingBytes += record.remaining();
+            m_pendingFaults.add(written);
+            if (m_writerIdle) {
+                m_lock.notify();
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void initializeLastDurableUniqueId(DurabilityListener listener, long uniqueId) {
+        synchronized (m_lock) {
+            listener.initializeLastDurableUniqueId(uniqueId);
+            m_dirtyListeners.add(listener);
+            if (m_writerIdle) {
+                m_lock.notify();
+            }
+        }
+    }
+
+    private void runWriter() {
+        final List<Pair<DurabilityListener, CompletionChecks>> unsyncedChecks = new ArrayList<>();
+        final List<SettableFuture<Boolean>> unsyncedFaults = new ArrayList<>();
+        ArrayList<ByteBuffer> batch = new ArrayList<>();
+        ByteBuffer[] gather = new ByteBuffer[64];
+        boolean unsyncedData = false;
+        int txnsSinceSync = 0;
+        long lastSyncNanos = System.nanoTime();
+
+        try {
+            while (true) {
+                final CommandLogSegment segment;
+                final SettableFuture<Object> backpressure;
+                final boolean roll;
+                final boolean shutdown;
+                long batchBytes;
+                synchronized (m_lock) {
+                    while (!m_shutdown && (m_currentSegment == null || !m_rollRequested)) {
+                        if (m_currentSegment == null) {
+                            // Faults logged before init wait for the first segment
+                            m_writerIdle = true;
+                            m_lock.wait();
+                            m_writerIdle = false;
+                            continue;
+                        }
+                        final boolean hasWork = !m_pending.isEmpty() || !m_dirtyListeners.isEmpty()
+                                || !m_pendingFaults.isEmpty();
+                        if (!hasWork && !unsyncedData && unsyncedChecks.isEmpty() && unsyncedFaults.isEmpty()) {
+                            m_writerIdle = true;
+                            m_lock.wait();
+                            m_writerIdle = false;
+                            continue;
+                        }
+                        final long remaining = lastSyncNanos + m_fsyncIntervalNanos - System.nanoTime();
+                        if (remaining <= 0 || txnsSinceSync + m_pendingTxns >= m_maxTxnsBeforeSync
+                                || m_pendingBytes > BACKPRESSURE_BYTES) {
+                            break;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(m_lock, remaining);
+                    }
+
+                    if (m_currentSegment == null) {
+                        // Shut down before init, none of the pending faults were written
+                        for (SettableFuture<Boolean> f : m_pendingFaults) {
+                            f.set(false);
+                        }
+                        m_pendingFaults.clear();
+                        return;
+                    }
+
+                    final ArrayList<ByteBuffer> swap = m_pending;
+                    m_pending = batch;
+                    batch = swap;
+                    batchBytes = m_pendingBytes;
+                    txnsSinceSync += m_pendingTxns;
+                    m_pendingBytes = 0;
+                    m_pendingTxns = 0;
+                    for (DurabilityListener listener : m_dirtyListeners) {
+                        unsyncedChecks.add(Pair.of(listener, listener.startNewTaskList(listener.getNumberOfTasks())));
+                    }
+                    m_dirtyListeners.clear();
+                    unsyncedFaults.addAll(m_pendingFaults);
+                    m_pendingFaults.clear();
+                    backpressure = m_backpressure;
+                    m_backpressure = null;
+                    roll = m_rollRequested;
+                    m_rollRequested = false;
+                    shutdown = m_shutdown;
+                    segment = m_currentSegment;
+                }
+
+                if (!batch.isEmpty()) {
+                    if (gather.length < batch.size()) {
+                        gather = new ByteBuffer[Integer.highestOneBit(batch.size()) << 1];
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        final ByteBuffer record = batch.get(i);
+                        gather[i] = record;
+                        segment.recordSpHandle(CommandLogSegment.recordPartitionId(record),
+                                CommandLogSegment.recordSpHandle(record));
+                    }
+                    segment.write(gather, batch.size(), batchBytes);
+                    Arrays.fill(gather, 0, batch.size(), null);
+                    unsyncedData = true;
+                    batch.clear();
+                }
+                if (backpressure != null) {
+                    backpressure.set(null);
+                }
+
+                final long now = System.nanoTime();
+                if (shutdown || roll || now - lastSyncNanos >= m_fsyncIntervalNanos
+                        || txnsSinceSync >= m_maxTxnsBeforeSync) {
+                    if (unsyncedData) {
+                        segment.sync(!FDATASYNC);
+                        unsyncedData = false;
+                    }
+                    lastSyncNanos = now;
+                    txnsSinceSync = 0;
+                    for (Pair<DurabilityListener, CompletionChecks> p : unsyncedChecks) {
+                        p.getFirst().processDurabilityChecks(p.getSecond());
+                    }
+                    unsyncedChecks.clear();
+                    for (SettableFuture<Boolean> f : unsyncedFaults) {
+                        f.set(true);
+                    }
+                    unsyncedFaults.clear();
+
+                    if (roll || segment.size() >= SEGMENT_SIZE) {
+                        rollSegment(segment);
+                    }
+                }
+                if (shutdown) {
+                    segment.close();
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            VoltDB.crashLocalVoltDB("Command log writer failed", true, t);
+        }
+    }
+
+    /**
+     * Close the synced current segment and continue in a new one
+     */
+    private void rollSegment(CommandLogSegment segment) throws IOException {
+        segment.close();
+        for (Map.Entry<Integer, Long> e : segment.maxSpHandles().entrySet()) {
+            final Long seen = m_lastSeenSpHandles.get(e.getKey());
+            if (seen == null || seen < e.getValue()) {
+                m_lastSeenSpHandles.put(e.getKey(), e.getValue());
+            }
+        }
+        final CommandLogSegment next = CommandLogSegment.create(m_logDir, m_nextSegmentId++, m_lastSeenSpHandles);
+        long totalBytes = next.size();
+        boolean requestTruncation;
+        synchronized (m_lock) {
+            m_closedSegments.addLast(segment);
+            m_currentSegment = next;
+            for (CommandLogSegment closed : m_closedSegments) {
+                totalBytes += closed.size();
+            }
+            requestTruncation = totalBytes > m_logSizeBytes && !m_truncationPending;
+        }
+        if (requestTruncation) {
+            LOG.info("Command log has grown to " + (totalBytes >> 20) + " MB, requesting a truncation snapshot");
+            requestTruncationSnapshot(false);
+        }
+    }
+
+    @Override
+    public void requestTruncationSnapshot(final boolean queueIfPending) {
+        synchronized (m_lock) {
+            if (m_truncationPending && !queueIfPending) {
+                return;
+            }
+            m_truncationPending = true;
+            // Start a new segment so that everything logged so far can be retired by the snapshot
+            m_rollRequested = true;
+            m_lock.notify();
+        }
+        final HostMessenger messenger = VoltDB.instance().getHostMessenger();
+        if (messenger == null) {
+            return;
+        }
+        try {
+            messenger.getZK().create(VoltZK.request_truncation_snapshot_node, null,
+                    Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
+        } catch (Exception e) {
+            LOG.warn("Unable to request a command log truncation snapshot", e);
+            synchronized (m_lock) {
+                m_truncationPending = false;
+            }
+        }
+    }
+
+    @Override
+    public CountDownLatch snapshotCompleted(SnapshotCompletionEvent event) {
+        if (!event.truncationSnapshot || !event.didSucceed) {
+            return new CountDownLatch(0);
+        }
+        final List<CommandLogSegment> retired = new ArrayList<>();
+        final List<File> previousRun;
+        synchronized (m_lock) {
+            m_truncationPending = false;
+            while (!m_closedSegments.isEmpty() && m_closedSegments.peekFirst().isCoveredBy(event.partitionTxnIds)) {
+                retired.add(m_closedSegments.pollFirst());
+            }
+            previousRun = m_previousRunSegments;
+            m_previousRunSegments = Collections.emptyList();
+        }
+        for (File f : previousRun) {
+            if (!f.delete()) {
+                LOG.warn("Unable to delete command log segment " + f);
+            }
+        }
+        for (CommandLogSegment segment : retired) {
+            if (!segment.delete()) {
+                LOG.warn("Unable to delete command log segment " + segment.m_file);
+            }
+        }
+        if (!retired.isEmpty() || !previousRun.isEmpty()) {
+            LOG.info("Truncation snapshot " + event.nonce + " retired " + (retired.size() + previousRun.size())
+                    + " command log segments");
+        }
+        return new CountDownLatch(0);
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        synchronized (m_lock) {
+            m_shutdown = true;
+            m_lock.notify();
+        }
+        m_writer.join();
+        final SnapshotCompletionMonitor monitor = VoltDB.instance().getSnapshotCompletionMonitor();
+        if (monitor != null && m_initialized) {
+            monitor.removeInterest(this);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void populateCommandLogStats(Map<String, Integer> columnNameToIndex, Object[] rowValues) {
+        final long pendingBytes;
+        final int pendingTxns;
+        final int segmentCount;
+        synchronized (m_lock) {
+            pendingBytes = m_pendingBytes;
+            pendingTxns = m_pendingTxns;
+            segmentCount = m_closedSegments.size() + m_previousRunSegments.size() + (m_currentSegment == null ? 0 : 1);
+        }
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_BYTES.name())] = pendingBytes;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_TXNS.name())] = pendingTxns;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.IN_USE_SEGMENT_COUNT.name())] = segmentCount;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.SEGMENT_COUNT.name())] = segmentCount;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.FSYNC_INTERVAL.name())] = m_fsyncIntervalMs;
+    }
+
+    @Override
+    public boolean isSynchronous() {
+        return m_synchronous;
+    }
+
+    @Override
+    public boolean canOfferTask() {
+        // Synchronous logging hands the task to the site once it is durable. Initiations logged
+        // before init are not tracked and run right away, init only happens once replay is done
+        // so no site is logging while this changes.
+        return !m_synchronous || !m_initialized;
+    }
+
+    @Override
+    public void registerDurabilityListener(DurabilityListener durabilityListener) {
+        // Listeners are tracked as they log
+    }
+
+    @Override
+    public void notifyDecommissionPartitions(List<Integer> partitions) {
+        m_decommissionedPartitions = ImmutableSet.copyOf(partitions);
+    }
+
+    @Override
+    public ImmutableSet<Integer> getDecommissionedPartitions() {
+        return m_decommissionedPartitions;
+    }
+}
@@ -0,0 +1,268 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.commandlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+
+import org.json_voltpatches.JSONObject;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.InstanceId;
+import org.voltcore.zk.ZKCountdownLatch;
+import org.voltdb.ClientInterface;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.CommandLogReinitiator;
+import org.voltdb.CreateTransactionResult;
+import org.voltdb.LogEntryType;
+import org.voltdb.RestoreAgent;
+import org.voltdb.SimpleClientResponseAdapter;
+import org.voltdb.StartAction;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltZK;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.dtxn.TransactionCreator;
+import org.voltdb.iv2.Cartographer;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * Replays the segments written by {@link GroupCommitCommandLog} on recover.
+ *
+ * Every host replays the single partition transactions of the partitions it leads from its own
+ * copy of the log, and places a sentinel for every multi-partition transaction in those
+ * partitions. The host of the MPI initiates each multi-partition transaction it finds in its log.
+ * Transactions covered by the restored snapshot are skipped.
+ *
+ * The log of a host only contains the partitions that host had replicas of, so the cluster has
+ * to come back with the same partition placement. A multi-partition transaction is only replayed
+ * when the MPI host had a replica of at least one of the partitions it touched.
+ */
+public class GroupCommitCommandLogReinitiator implements CommandLogReinitiator {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    private final int m_hostId;
+    private final HostMessenger m_messenger;
+    private final SimpleClientResponseAdapter m_adapter;
+    private final File[] m_segments;
+    private final Map<Integer, Long> m_logStart;
+
+    private Callback m_callback;
+    private TransactionCreator m_initiator;
+    private Map<Integer, Long> m_snapshotSpHandles = Collections.emptyMap();
+    private long m_snapshotMpTxnId = Long.MIN_VALUE;
+    private volatile boolean m_hasReplayedTxns = false;
+
+    public GroupCommitCommandLogReinitiator(int hostId, StartAction action, HostMessenger messenger,
+            String clPath, SimpleClientResponseAdapter adapter) {
+        m_hostId = hostId;
+        m_messenger = messenger;
+        m_adapter = adapter;
+
+        File[] segments = new File[0];
+        Map<Integer, Long> logStart = null;
+        if (action.doesRecover()) {
+            segments = CommandLogSegment.listSegmentFiles(new File(clPath));
+            if (segments.length > 0) {
+                try (CommandLogSegmentReader reader = new CommandLogSegmentReader(segments[0])) {
+                    logStart = reader.getLastSeenSpHandles();
+                } catch (IOException e) {
+                    VoltDB.crashLocalVoltDB("Unable to read command log segment " + segments[0], false, e);
+                }
+            }
+        }
+        m_segments = segments;
+        m_logStart = logStart;
+    }
+
+    @Override
+    public void setSnapshotTxnId(RestoreAgent.SnapshotInfo info) {
+        m_snapshotSpHandles = new TreeMap<>(info.partitionToTxnId);
+        final Long mpTxnId = info.partitionToTxnId.get(MpInitiator.MP_INIT_PID);
+        m_snapshotMpTxnId = mpTxnId != null ? mpTxnId : info.txnId;
+    }
+
+    @Override
+    public void setCallback(Callback callback) {
+        m_callback = callback;
+    }
+
+    @Override
+    public void setInitiator(TransactionCreator initiator) {
+        m_initiator = initiator;
+    }
+
+    @Override
+    public void replay() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    replayLocalSegments();
+                    final ZKCountdownLatch barrier = new ZKCountdownLatch(m_messenger.getZK(),
+                            VoltZK.commandlog_replay_barrier, m_messenger.getLiveHostIds().size());
+                    barrier.countDown(true);
+                    barrier.await();
+                } catch (Exception e) {
+                    VoltDB.crashGlobalVoltDB("Command log replay failed", false, e);
+                }
+                if (m_callback != null) {
+                    m_callback.onReplayCompletion();
+                }
+            }
+        }, "Command log replay").start();
+    }
+
+    private void replayLocalSegments() throws IOException, InterruptedException {
+        final Cartographer cartographer = VoltDB.instance().getCartographer();
+        final boolean isMpiHost = isLocalMaster(cartographer, MpInitiator.MP_INIT_PID);
+        final Set<Integer> ledPartitions = new HashSet<>();
+        final Set<Long> initiatedMps = new HashSet<>();
+        final Semaphore outstanding = new Semaphore(0);
+        final SimpleClientResponseAdapter.Callback responseCallback = new SimpleClientResponseAdapter.Callback() {
+            @Override
+            public void handleResponse(ClientResponse response) {
+                if (response.getStatus() != ClientResponse.SUCCESS) {
+                    LOG.warn("Replayed transaction failed: " + ((ClientResponseImpl) response).toJSONString());
+                }
+                outstanding.release();
+            }
+        };
+
+        int replayed = 0;
+        for (File segment : m_segments) {
+            try (CommandLogSegmentReader reader = new CommandLogSegmentReader(segment)) {
+                CommandLogSegmentReader.Entry entry;
+                while ((entry = reader.next()) != null) {
+                    if (entry.m_type != LogEntryType.INITIATION) {
+                        continue;
+                    }
+                    final int partition = entry.m_partitionId;
+                    final Long snapshotSpHandle = m_snapshotSpHandles.get(partition);
+                    if (snapshotSpHandle != null && entry.m_spHandle <= snapshotSpHandle) {
+                        continue;
+                    }
+                    final boolean leader = ledPartitions.contains(partition) || isLocalMaster(cartographer, partition);
+                    if (leader) {
+                        ledPartitions.add(partition);
+                    }
+
+                    final Iv2InitiateTaskMessage msg = entry.m_message;
+                    if (msg.isSinglePartition()) {
+                        if (leader && initiate(msg, Iv2InitiateTaskMessage.UNUSED_MP_TXNID, true, partition,
+                                entry.m_size, responseCallback)) {
+                            replayed++;
+                        }
+                        continue;
+                    }
+                    if (msg.getTxnId() <= m_snapshotMpTxnId) {
+                        continue;
+                    }
+                    if (leader) {
+                        m_initiator.sendSentinel(msg.getUniqueId(), partition);
+                    }
+                    if (isMpiHost && initiatedMps.add(msg.getTxnId())
+                            && initiate(msg, msg.getTxnId(), false, MpInitiator.MP_INIT_PID,
+                                    entry.m_size, responseCallback)) {
+                        replayed++;
+                    }
+                }
+            }
+        }
+        if (isMpiHost) {
+            m_initiator.sendEOLMessage(MpInitiator.MP_INIT_PID);
+        }
+
+        if (replayed > 0) {
+            m_hasReplayedTxns = true;
+        }
+        outstanding.acquire(replayed);
+        LOG.info("Replayed " + replayed + " transactions from " + m_segments.length + " command log segments");
+    }
+
+    private boolean initiate(Iv2InitiateTaskMessage msg, long txnId, boolean isSinglePartition, int partition,
+            int size, SimpleClientResponseAdapter.Callback responseCallback) {
+        final StoredProcedureInvocation invocation = msg.getStoredProcedureInvocation();
+        invocation.setClientHandle(m_adapter.registerCallback(responseCallback));
+        final CreateTransactionResult result = m_initiator.createTransaction(ClientInterface.RESTORE_AGENT_CID,
+                txnId, msg.getUniqueId(), invocation, msg.isReadOnly(), isSinglePartition,
+                msg.isEveryPartition(), partition, size, System.nanoTime());
+        if (result != CreateTransactionResult.SUCCESS) {
+            LOG.warn("Unable to replay " + invocation.getProcName() + " on partition " + partition + ": " + result);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isLocalMaster(Cartographer cartographer, int partition) {
+        final Long master = cartographer.getHSIdForMaster(partition);
+        return master != null && CoreUtils.getHostIdFromHSId(master) == m_hostId;
+    }
+
+    @Override
+    public boolean hasReplayedSegments() {
+        return m_segments.length > 0;
+    }
+
+    @Override
+    public boolean hasReplayedTxns() {
+        return m_hasReplayedTxns;
+    }
+
+    @Override
+    public Long getMaxLastSeenTxn() {
+        if (m_logStart == null || m_logStart.isEmpty()) {
+            return null;
+        }
+        return Collections.max(m_logStart.values());
+    }
+
+    @Override
+    public Map<Integer, Long> getMaxLastSeenTxnByPartition() {
+        return m_logStart;
+    }
+
+    @Override
+    public InstanceId getInstanceId() {
+        // Segments don't record the instance ID, skip the check in RestoreAgent.generatePlans()
+        return null;
+    }
+
+    @Override
+    public void initPartitionTracking() {}
+
+    @Override
+    public void generateReplayPlan(long snapshotTimeStamp, long snapshotTxnId,
+            int newPartitionCount, boolean isMpiNode, JSONObject elasticOperationMetadata) {
+    }
+
+    @Override
+    public void returnAllSegments() {
+    }
+
+    @Override
+    public void resumeElasticOperationIfNecessary() {}
+}
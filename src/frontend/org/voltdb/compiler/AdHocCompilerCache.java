@@ -18,19 +18,25 @@
 package org.voltdb.compiler;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.voltdb.common.Constants;
 import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
 import org.voltdb.utils.Encoder;
 
 import com.google_voltpatches.common.cache.Cache;
 import com.google_voltpatches.common.cache.CacheBuilder;
+import com.google_voltpatches.common.cache.CacheStats;
+import com.google_voltpatches.common.cache.RemovalListener;
+import com.google_voltpatches.common.cache.RemovalNotification;
+import com.google_voltpatches.common.cache.Weigher;
 
 /**
  * Keep a cache two level cache of plans generated by the Ad Hoc
@@ -43,6 +49,9 @@ import com.google_voltpatches.common.cache.CacheBuilder;
  * statement mapped to core parameterized plans. These parameterized
  * plans need parameter values and sql literals in order to be
  * actually used.
+ *
+ * Both levels are concurrent segmented LRU caches, so lookups from many
+ * threads don't serialize on the cache.
  */
 public class AdHocCompilerCache implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -84,21 +93,16 @@ public class AdHocCompilerCache implements Serializable {
     final int MAX_CORE_ENTRIES;
 
     /** cache of literals to full plans */
-    final Map<String, AdHocPlannedStatement> m_literalCache;
+    final Cache<String, AdHocPlannedStatement> m_literalCache;
     /** cache of parameterized plan descriptions to one or more core parameterized plans,
      *  each plan optionally has its own requirements for which parameters need to be bound
      *  to what values to enable its specialized (expression-indexed) plan. */
-    final Map<String, List<BoundPlan> > m_coreCache;
-
-    // placeholder stats used during development that may/may not survive
-    long m_literalHits = 0;
-    long m_literalQueries = 0;
-    long m_literalInsertions = 0;
-    long m_literalEvictions = 0;
-    long m_planHits = 0;
-    long m_planQueries = 0;
-    long m_planInsertions = 0;
-    long m_planEvictions = 0;
+    final Cache<String, List<BoundPlan> > m_coreCache;
+
+    final AtomicLong m_literalInsertions = new AtomicLong();
+    final AtomicLong m_literalEvictions = new AtomicLong();
+    final AtomicLong m_planInsertions = new AtomicLong();
+    final AtomicLong m_planEvictions = new AtomicLong();
 
     /** {@see this#startPeriodicStatsPrinting() } */
     Timer m_statsTimer = null;
@@ -120,83 +124,40 @@ public class AdHocCompilerCache implements Serializable {
         MAX_LITERAL_ENTRIES = maxLiteralEntries;
         MAX_CORE_ENTRIES = maxCoreEntries;
 
-        // an LRU cache map
-        m_literalCache = new AdHocStatementCache(MAX_LITERAL_ENTRIES, MAX_LITERAL_MEM);
-
-        // an LRU cache map
-        m_coreCache = new LinkedHashMap<String, List<BoundPlan> >(MAX_CORE_ENTRIES * 2, .75f, true) {
-            private static final long serialVersionUID = 1L;
-
-            // This method is called just after a new entry has been added
-            @Override
-            public boolean removeEldestEntry(Map.Entry<String, List<BoundPlan> > eldest) {
-                if (size() > MAX_CORE_ENTRIES) {
-                    ++m_planEvictions;
-                    return true;
-                }
-                return false;
-            }
-
-        };
+        // The literal cache is bounded by both entry count and on-heap size. Each plan weighs at least
+        // its share of the memory budget, so the weight bound also caps the number of entries.
+        final int minLiteralWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, MAX_LITERAL_MEM / MAX_LITERAL_ENTRIES));
+        m_literalCache = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_LITERAL_MEM)
+                .weigher(new Weigher<String, AdHocPlannedStatement>() {
+                    @Override
+                    public int weigh(String sql, AdHocPlannedStatement plan) {
+                        return Math.max(minLiteralWeight, plan.getSerializedSize());
+                    }
+                })
+                .removalListener(new EvictionCounter<AdHocPlannedStatement>(m_literalEvictions))
+                .recordStats()
+                .build();
+
+        m_coreCache = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CORE_ENTRIES)
+                .removalListener(new EvictionCounter<List<BoundPlan>>(m_planEvictions))
+                .recordStats()
+                .build();
     }
 
-    // define a LinkedHashMap based LRU cache bounds by both entry number and entry value on-heap size
-    // without changing Map.Entry, only works for value of type AdHocPlannedStatement
-    // only extend put, remove,clear and removeEldestEntry methods to account weight
-    public class AdHocStatementCache extends LinkedHashMap<String, AdHocPlannedStatement>{
-       private static final long serialVersionUID = 2988383448026641836L;
-        private final int maxEntries;
-        private final long maxMemory; // in bytes
-        private long currentMemory;   // in bytes
-
-        public AdHocStatementCache() {
-            // default max entry of 1000
-            // default max value size of 32MB
-            this(1000, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries) {
-            this(maxEntries, 32 * 1024 * 1024);
-        }
+    private static class EvictionCounter<V> implements RemovalListener<String, V> {
+        private final AtomicLong m_evictions;
 
-        public AdHocStatementCache(final int maxEntries, final long maxMemory) {
-            // set accessOrder to true for LRU
-            super(maxEntries * 2, .75f, true);
-            this.maxEntries = maxEntries;
-            this.maxMemory = maxMemory;
-            this.currentMemory = 0;
+        EvictionCounter(AtomicLong evictions) {
+            m_evictions = evictions;
         }
 
-        // This method is called just after a new entry has been added
         @Override
-        public boolean removeEldestEntry(final Map.Entry<String, AdHocPlannedStatement> eldest) {
-            if ((size() > maxEntries) || (this.currentMemory > this.maxMemory))  {
-                ++m_literalEvictions;
-                this.currentMemory -= eldest.getValue().getSerializedSize();
-                return true;
+        public void onRemoval(RemovalNotification<String, V> notification) {
+            if (notification.wasEvicted()) {
+                m_evictions.incrementAndGet();
             }
-            return false;
-        }
-
-        @Override
-        public AdHocPlannedStatement put(String key, AdHocPlannedStatement value) {
-            this.currentMemory += value.getSerializedSize();
-            return super.put(key,value);
-        }
-
-        @Override
-        public AdHocPlannedStatement remove(Object key) {
-            AdHocPlannedStatement value = super.remove(key);
-            if (value != null) {
-                this.currentMemory -= value.getSerializedSize();
-            }
-            return value;
-        }
-
-        @Override
-        public void clear() {
-            super.clear();
-            this.currentMemory = 0;
         }
     }
 
@@ -204,39 +165,26 @@ public class AdHocCompilerCache implements Serializable {
      * Stats printing method used during development.
      * Probably shouldn't live past real stats integration.
      */
-    synchronized void printStats() {
+    void printStats() {
+        CacheStats literalStats = m_literalCache.stats();
+        CacheStats planStats = m_coreCache.stats();
         String line1 = String.format("CACHE STATS - Literals: Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_literalHits, m_literalQueries, (m_literalHits * 100.0) / m_literalQueries,
-                m_literalInsertions, m_literalEvictions);
+                literalStats.hitCount(), literalStats.requestCount(), literalStats.hitRate() * 100.0,
+                m_literalInsertions.get(), m_literalEvictions.get());
         String line2 = String.format("CACHE STATS - Plans:    Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_planHits, m_planQueries, (m_planHits * 100.0) /m_planQueries,
-                m_planInsertions, m_planEvictions);
+                planStats.hitCount(), planStats.requestCount(), planStats.hitRate() * 100.0,
+                m_planInsertions.get(), m_planEvictions.get());
 
         System.out.print(line1 + line2);
         System.out.flush();
-
-        // reset these
-        m_literalHits = 0;
-        m_literalQueries = 0;
-        m_literalInsertions = 0;
-        m_literalEvictions = 0;
-        m_planHits = 0;
-        m_planQueries = 0;
-        m_planInsertions = 0;
-        m_planEvictions = 0;
     }
 
     /**
      * @param sql SQL literal
      * @return full, ready-to-go plan
      */
-    public synchronized AdHocPlannedStatement getWithSQL(String sql) {
-        ++m_literalQueries;
-        AdHocPlannedStatement retval = m_literalCache.get(sql);
-        if (retval != null) {
-            ++m_literalHits;
-        }
-        return retval;
+    public AdHocPlannedStatement getWithSQL(String sql) {
+        return m_literalCache.getIfPresent(sql);
     }
 
     /**
@@ -244,13 +192,8 @@ public class AdHocCompilerCache implements Serializable {
      * SQL statement
      * @return A CorePlan that needs parameter values to run.
      */
-    public synchronized List<BoundPlan> getWithParsedToken(String parsedToken) {
-        ++m_planQueries;
-        List<BoundPlan> retval = m_coreCache.get(parsedToken);
-        if (retval != null) {
-            ++m_planHits;
-        }
-        return retval;
+    public List<BoundPlan> getWithParsedToken(String parsedToken) {
+        return m_coreCache.getIfPresent(parsedToken);
     }
 
     /**
@@ -271,12 +214,12 @@ public class AdHocCompilerCache implements Serializable {
      * @param hasUserQuestionMarkParameters is user provided parameterized query
      * @param hasAutoParameterizedException is the auto parameterized query has parameter exception
      */
-    public synchronized void put(String sql,
-                                 String parsedToken,
-                                 AdHocPlannedStatement planIn,
-                                 String[] extractedLiterals,
-                                 boolean hasUserQuestionMarkParameters,
-                                 boolean hasAutoParameterizedException)
+    public void put(String sql,
+                    String parsedToken,
+                    AdHocPlannedStatement planIn,
+                    String[] extractedLiterals,
+                    boolean hasUserQuestionMarkParameters,
+                    boolean hasAutoParameterizedException)
     {
         assert(sql != null);
         assert(parsedToken != null);
@@ -296,47 +239,51 @@ public class AdHocCompilerCache implements Serializable {
             BoundPlan matched = null;
             BoundPlan unmatched = new BoundPlan(planIn.core, planIn.parameterBindings(extractedLiterals));
             // deal with the parameterized plan cache first
-            List<BoundPlan> boundVariants = m_coreCache.get(parsedToken);
+            List<BoundPlan> boundVariants = m_coreCache.asMap().get(parsedToken);
             if (boundVariants == null) {
-                boundVariants = new ArrayList<BoundPlan>();
-                m_coreCache.put(parsedToken, boundVariants);
-                // Note that there is an edge case in which more than one plan is getting counted as one
-                // "plan insertion". This only happens when two different plans arose from the same parameterized
-                // query (token) because one invocation used the correct constants to trigger an expression index and
-                // another invocation did not.  These are not counted separately (which would have to happen below
-                // after each call to boundVariants.add) because they are not evicted separately.
-                // It seems saner to use consistent units when counting insertions vs. evictions.
-                ++m_planInsertions;
-            } else {
+                List<BoundPlan> newVariants = new CopyOnWriteArrayList<BoundPlan>();
+                boundVariants = m_coreCache.asMap().putIfAbsent(parsedToken, newVariants);
+                if (boundVariants == null) {
+                    boundVariants = newVariants;
+                    // Note that there is an edge case in which more than one plan is getting counted as one
+                    // "plan insertion". This only happens when two different plans arose from the same parameterized
+                    // query (token) because one invocation used the correct constants to trigger an expression index and
+                    // another invocation did not.  These are not counted separately (which would have to happen below
+                    // after each call to boundVariants.add) because they are not evicted separately.
+                    // It seems saner to use consistent units when counting insertions vs. evictions.
+                    m_planInsertions.incrementAndGet();
+                }
+            }
+            // Readers iterate the variants without locking, writers serialize on the list
+            synchronized (boundVariants) {
                 for (BoundPlan boundPlan : boundVariants) {
                     if (boundPlan.equals(unmatched)) {
                         matched = boundPlan;
                         break;
                     }
                 }
-                if (matched != null) {
-                    // if a different core is found, reuse it
-                    // this is useful when updating the literal cache
-                    if (unmatched.m_core != matched.m_core) {
-                        plan = new AdHocPlannedStatement(planIn, matched.m_core);
-                        plan.setBoundConstants(matched.m_constants);
-                    }
+                if (matched == null) {
+                    // Don't count insertions (of possibly repeated tokens) here
+                    //  -- see the comment above where only UNIQUE token insertions are being counted, instead.
+                    boundVariants.add(unmatched);
                 }
             }
-            if (matched == null) {
-                // Don't count insertions (of possibly repeated tokens) here
-                //  -- see the comment above where only UNIQUE token insertions are being counted, instead.
-                boundVariants.add(unmatched);
+            if (matched != null) {
+                // if a different core is found, reuse it
+                // this is useful when updating the literal cache
+                if (unmatched.m_core != matched.m_core) {
+                    plan = new AdHocPlannedStatement(planIn, matched.m_core);
+                    plan.setBoundConstants(matched.m_constants);
+                }
             }
         }
 
         // then deal with the L1 cache
         if (! hasUserQuestionMarkParameters) {
-            AdHocPlannedStatement cachedPlan = m_literalCache.get(sql);
+            AdHocPlannedStatement cachedPlan = m_literalCache.asMap().putIfAbsent(sql, plan);
             if (cachedPlan == null) {
                 //* enable to debug */ System.out.println("DEBUG: Caching literal '" + sql + "'");
-                m_literalCache.put(sql, plan);
-                ++m_literalInsertions;
+                m_literalInsertions.incrementAndGet();
             }
             else {
                 assert(cachedPlan.equals(plan));
@@ -344,6 +291,43 @@ public class AdHocCompilerCache implements Serializable {
         }
     }
 
+    /**
+     * Copy the plans of a cache for a catalog with the same schema into this one. The plans only differ in
+     * the catalog hash they were planned against, so they are rebased onto {@code catalogHash} instead of
+     * being planned again after the catalog update.
+     *
+     * @param previous     cache of the previous catalog version
+     * @param catalogHash  hash of the catalog this cache belongs to
+     */
+    public void carryOver(AdHocCompilerCache previous, byte[] catalogHash) {
+        // Keep cores shared between the two levels shared after rebasing them
+        final Map<CorePlan, CorePlan> rebased = new IdentityHashMap<>();
+        for (Map.Entry<String, List<BoundPlan>> e : previous.m_coreCache.asMap().entrySet()) {
+            List<BoundPlan> variants = new CopyOnWriteArrayList<BoundPlan>();
+            for (BoundPlan boundPlan : e.getValue()) {
+                variants.add(new BoundPlan(rebase(rebased, boundPlan.m_core, catalogHash), boundPlan.m_constants));
+            }
+            if (m_coreCache.asMap().putIfAbsent(e.getKey(), variants) == null) {
+                m_planInsertions.incrementAndGet();
+            }
+        }
+        for (Map.Entry<String, AdHocPlannedStatement> e : previous.m_literalCache.asMap().entrySet()) {
+            AdHocPlannedStatement plan = e.getValue().withCore(rebase(rebased, e.getValue().core, catalogHash));
+            if (m_literalCache.asMap().putIfAbsent(e.getKey(), plan) == null) {
+                m_literalInsertions.incrementAndGet();
+            }
+        }
+    }
+
+    private static CorePlan rebase(Map<CorePlan, CorePlan> rebased, CorePlan core, byte[] catalogHash) {
+        CorePlan result = rebased.get(core);
+        if (result == null) {
+            result = core.withCatalogHash(catalogHash);
+            rebased.put(core, result);
+        }
+        return result;
+    }
+
     /**
      * Start a timer that prints cache stats to the console every 5s.
      * Used for development until we get better stats integration.
@@ -365,7 +349,7 @@ public class AdHocCompilerCache implements Serializable {
      * @return  literal cache size as a count
      */
     public int getLiteralCacheSize() {
-        return m_literalCache.size();
+        return (int) m_literalCache.size();
     }
 
     /**
@@ -373,6 +357,20 @@ public class AdHocCompilerCache implements Serializable {
      * @return  core cache size as a count
      */
     public int getCoreCacheSize() {
-        return m_coreCache.size();
+        return (int) m_coreCache.size();
+    }
+
+    /**
+     * @return number of literal plans evicted from this cache to make room for others
+     */
+    public long getLiteralEvictions() {
+        return m_literalEvictions.get();
+    }
+
+    /**
+     * @return number of parameterized plans evicted from this cache to make room for others
+     */
+    public long getCoreEvictions() {
+        return m_planEvictions.get();
     }
 }
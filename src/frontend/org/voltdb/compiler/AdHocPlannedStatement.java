@@ -69,6 +69,15 @@ public class AdHocPlannedStatement {
         this(original.sql, coreIn, original.extractedParamValues, null);
     }
 
+    /**
+     * @return this statement, including its parameter bindings, with its core plan replaced
+     */
+    AdHocPlannedStatement withCore(CorePlan coreIn) {
+        AdHocPlannedStatement copy = new AdHocPlannedStatement(sql, coreIn, extractedParamValues, boundParamIndexes);
+        copy.boundParamStrings = boundParamStrings;
+        return copy;
+    }
+
     private void validate() {
         assert(core != null);
         assert(extractedParamValues != null);
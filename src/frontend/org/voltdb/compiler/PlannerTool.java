@@ -74,7 +74,8 @@ public class PlannerTool {
 
     private Database m_database;
     private byte[] m_catalogHash;
-    private AdHocCompilerCache m_cache;
+    // Read without holding the planner lock by literal cache lookups
+    private volatile AdHocCompilerCache m_cache;
     private SchemaPlus m_schemaPlus;
     private long m_adHocLargeFallbackCount = 0;
     private long m_adHocLargeModeCount = 0;
@@ -142,7 +143,13 @@ public class PlannerTool {
     public PlannerTool updateWhenNoSchemaChange(Database database, byte[] catalogHash) {
         m_database = database;
         m_catalogHash = catalogHash;
-        m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        // The schema is unchanged so every cached plan is still valid for the new catalog
+        final AdHocCompilerCache previous = m_cache;
+        final AdHocCompilerCache cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        if (cache != previous) {
+            cache.carryOver(previous, catalogHash);
+        }
+        m_cache = cache;
         if (AdHocNTBase.USING_CALCITE) {
             // Do not use Calcite to process DDLs, until we have full support of all DDLs, as well as
             // catalog commands such as "DR TABLE foo".
@@ -317,7 +324,26 @@ public class PlannerTool {
         // return new AdHocPlannedStatement(plan, core);
     }
 
-    public synchronized AdHocPlannedStatement planSql(
+    public AdHocPlannedStatement planSql(
+            String sql, StatementPartitioning partitioning, boolean isExplainMode, final Object[] userParams,
+            boolean isSwapTables, boolean isLargeQuery) {
+        // Literal cache hits don't need the planner, so serve them without waiting for statements being planned.
+        // Statements that may be switched to large mode have to go through the planner lock.
+        if (sql != null && partitioning.isInferred() && !isLargeQuery && m_largeModeRatio <= 0) {
+            final AdHocCompilerCache cache = m_cache;
+            final AdHocPlannedStatement cachedPlan = cache.getWithSQL(sql.trim());
+            if (cachedPlan != null) {
+                if (m_plannerStats != null) {
+                    m_plannerStats.recordCacheHit(cache.getLiteralCacheSize(), cache.getCoreCacheSize(),
+                            cache.getLiteralEvictions(), cache.getCoreEvictions(), -1);
+                }
+                return cachedPlan;
+            }
+        }
+        return planSqlSynchronized(sql, partitioning, isExplainMode, userParams, isSwapTables, isLargeQuery);
+    }
+
+    private synchronized AdHocPlannedStatement planSqlSynchronized(
             String sql, StatementPartitioning partitioning, boolean isExplainMode, final Object[] userParams,
             boolean isSwapTables, boolean isLargeQuery) {
         // large_mode_ratio will force execution of SQL queries to use the "large" path (for read-only queries)
@@ -399,7 +425,8 @@ public class PlannerTool {
             }
         } finally {
             if (m_plannerStats != null) {
-                m_plannerStats.endStatsCollection(m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(), cacheUse, -1);
+                m_plannerStats.endStatsCollection(m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(),
+                        m_cache.getLiteralEvictions(), m_cache.getCoreEvictions(), cacheUse, -1);
             }
         }
     }
@@ -20,12 +20,12 @@ package org.voltdb.dtxn;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.HdrHistogram_voltpatches.AbstractHistogram;
 import org.HdrHistogram_voltpatches.AtomicHistogram;
 import org.HdrHistogram_voltpatches.Histogram;
+import org.HdrHistogram_voltpatches.Recorder;
 import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltdb.ClientInterface;
 import org.voltdb.SiteStatsSource;
@@ -69,16 +69,25 @@ public class LatencyHistogramStats extends SiteStatsSource {
         }
     }
 
+    private static final long HIGHEST_TRACKABLE_VALUE = 60L * 60L * 1000000L;
+    private static final int SIGNIFICANT_VALUE_DIGITS = 3;
+
     public static AbstractHistogram constructHistogram(boolean threadSafe) {
-        final long highestTrackableValue = 60L * 60L * 1000000L;
-        final int numberOfSignificantValueDigits = 3;
         if (threadSafe) {
-            return new AtomicHistogram( highestTrackableValue, numberOfSignificantValueDigits);
+            return new AtomicHistogram(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_VALUE_DIGITS);
         } else {
-            return new Histogram( highestTrackableValue, numberOfSignificantValueDigits);
+            return new Histogram(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_VALUE_DIGITS);
         }
     }
 
+    /**
+     * Construct a recorder whose interval histograms are compatible with {@link #constructHistogram(boolean)}.
+     * Any number of threads can record into it without locking.
+     */
+    public static Recorder constructRecorder() {
+        return new Recorder(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_VALUE_DIGITS);
+    }
+
     private WeakReference<byte[]> m_compressedCache = null;
     private WeakReference<byte[]> m_serializedCache = null;
 
@@ -93,10 +102,7 @@ public class LatencyHistogramStats extends SiteStatsSource {
                 m_totals.reset();
                 ClientInterface ci = VoltDB.instance().getClientInterface();
                 if (ci != null) {
-                    List<AbstractHistogram> thisci = ci.getLatencyStats();
-                    for (AbstractHistogram info : thisci) {
-                        m_totals.add(info);
-                    }
+                    ci.addLatencyTotalsTo(m_totals);
                 }
                 m_compressedCache = null;
                 m_serializedCache = null;
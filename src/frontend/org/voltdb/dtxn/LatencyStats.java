@@ -19,7 +19,6 @@ package org.voltdb.dtxn;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -38,8 +37,8 @@ import org.voltdb.VoltTable.ColumnInfo;
  *
  * Each call returns latency percentiles from the most recent complete window,
  * along with the timestamp associated with that window.
- * Samples are calculated by using a differential histogram,
- * subtracting the previous window's histogram from the current one.
+ * Samples are the interval histograms swapped out of each admission control group's recorder
+ * during the window, so no cumulative histogram is copied or subtracted.
  * Tables with the same HOST_ID and TIMESTAMP represent the same data.
  *
  * Statistics are returned with one row for each node.
@@ -55,23 +54,14 @@ public class LatencyStats extends StatsSource {
     private ScheduledExecutorService m_updater = Executors.newScheduledThreadPool(1);
 
     private class UpdaterJob implements Runnable {
-
-        private AbstractHistogram m_previousHist = LatencyHistogramStats.constructHistogram(false);
-
         @Override
         public void run() {
-            AbstractHistogram currentHist = LatencyHistogramStats.constructHistogram(false);
+            AbstractHistogram diffHist = LatencyHistogramStats.constructHistogram(false);
             ClientInterface clientInterface = VoltDB.instance().getClientInterface();
             if (clientInterface != null) {
-                List<AbstractHistogram> statsHists = clientInterface.getLatencyStats();
-                for (AbstractHistogram hist : statsHists) {
-                    currentHist.add(hist);
-                }
+                clientInterface.addLatencyWindowTo(diffHist);
             }
-            AbstractHistogram diffHist = currentHist.copy();
-            diffHist.subtract(m_previousHist);
             diffHist.setEndTimeStamp(System.currentTimeMillis());
-            m_previousHist = currentHist;
             m_diffHistProvider.set(diffHist);
         }
     }
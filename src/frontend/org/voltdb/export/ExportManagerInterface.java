@@ -121,6 +121,9 @@ public interface ExportManagerInterface {
         VoltDB.instance().getStatsAgent().registerStatsSource(StatsSelector.EXPORT,
                 myHostId, // m_siteId,
                 em.getExportStats());
+        VoltDB.instance().getStatsAgent().registerStatsSource(StatsSelector.EXPORTWORKERS,
+                myHostId,
+                new ExportWorkerStats());
     }
 
     /**
@@ -0,0 +1,97 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.export;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportWorkerPool;
+
+/**
+ * Statistics of the shared export worker pool, returned by @Statistics EXPORTWORKERS.
+ * One row per export decoder executor, that is per stream and partition, or per table
+ * for exporters that serialize all partitions of a table. LAG is how long the oldest
+ * block queued for the decoder has been waiting for a worker. All times are in
+ * milliseconds and counts cover the lifetime of the decoder.
+ */
+public class ExportWorkerStats extends StatsSource {
+
+    private List<ExportWorkerPool.Stats> m_stats;
+
+    public ExportWorkerStats() {
+        super(false);
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("SOURCE", VoltType.STRING));
+        columns.add(new ColumnInfo("PARTITION_ID", VoltType.BIGINT));
+        columns.add(new ColumnInfo("PENDING", VoltType.INTEGER));
+        columns.add(new ColumnInfo("LAG", VoltType.BIGINT));
+        columns.add(new ColumnInfo("COMPLETED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("AVG_WAIT", VoltType.BIGINT));
+        columns.add(new ColumnInfo("MAX_WAIT", VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object rowValues[]) {
+        super.updateStatsRow(rowKey, rowValues);
+        ExportWorkerPool.Stats stat = m_stats.get((Integer) rowKey);
+        rowValues[columnNameToIndex.get("SOURCE")] = stat.m_source;
+        rowValues[columnNameToIndex.get("PARTITION_ID")] = stat.m_partitionId;
+        rowValues[columnNameToIndex.get("PENDING")] = stat.m_pending;
+        rowValues[columnNameToIndex.get("LAG")] = TimeUnit.NANOSECONDS.toMillis(stat.m_lagNanos);
+        rowValues[columnNameToIndex.get("COMPLETED")] = stat.m_completed;
+        rowValues[columnNameToIndex.get("AVG_WAIT")] =
+                TimeUnit.NANOSECONDS.toMillis(stat.m_totalWaitNanos / Math.max(1, stat.m_completed));
+        rowValues[columnNameToIndex.get("MAX_WAIT")] = TimeUnit.NANOSECONDS.toMillis(stat.m_maxWaitNanos);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        m_stats = ExportWorkerPool.getStats();
+        return new Iterator<Object>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < m_stats.size();
+            }
+
+            @Override
+            public Object next() {
+                if (index < m_stats.size()) {
+                    return index++;
+                }
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -17,7 +17,6 @@
 
 package org.voltdb.export.processors;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -45,7 +44,9 @@ import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowCursor;
 import org.voltdb.exportclient.ExportRowSchema;
+import org.voltdb.exportclient.ExportWorkerPool;
 
 import com.google_voltpatches.common.base.Preconditions;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
@@ -200,7 +201,7 @@ public class GuestProcessor implements ExportDataProcessor {
             Pair<ExportDecoderBase, AdvertisedDataSource> pair = Pair.of(edb, ads);
             m_decoders.add(pair);
             final ListenableFuture<AckingContainer> fut = m_source.poll();
-            addBlockListener(m_source, fut, edb);
+            addBlockListener(m_source, fut, edb, new ExportRowCursor(() -> m_shutdown));
         }
 
         // This runnable executes the starting sequence on the {@code ExportDataSource}
@@ -303,7 +304,8 @@ public class GuestProcessor implements ExportDataProcessor {
     private void addBlockListener(
             final ExportDataSource source,
             final ListenableFuture<AckingContainer> fut,
-            final ExportDecoderBase edb) {
+            final ExportDecoderBase edb,
+            final ExportRowCursor rows) {
         /*
          * The listener runs in the thread specified by the EDB.
          *
@@ -320,180 +322,194 @@ public class GuestProcessor implements ExportDataProcessor {
                 AckingContainer cont = null;
                 try {
                     cont = fut.get();
-                    if (cont == null) {
-                        if (EXPORTLOG.isDebugEnabled()) {
-                            EXPORTLOG.debug("Received an end of stream event, exiting listener");
-                        }
-                        return;
-                    }
-                    // If export master accepts promotion in case of mastership migration or leader re-election,
-                    // we need an extra poll to get the schema of current buffer to setup the decoder
-                    try {
-                        //Position to restart at on error
-                        final int startPosition = cont.b().position();
-
-                        //Track the amount of backoff to use next time, will be updated on repeated failure
-                        int backoffQuantity = 10 + (int)(10 * ThreadLocalRandom.current().nextDouble());
-
-                        // Extract the sp handle of the last committed row in the block, if present
-                        long committedSpHandle = 0L;
-
-                        /*
-                         * If there is an error processing the block the decoder thinks is recoverable
-                         * start the block from the beginning and repeat until it is processed.
-                         * Also allow the decoder to request exponential backoff
-                         */
-                        while (!m_shutdown) {
-                            try {
-                                final ByteBuffer buf = cont.b();
-                                buf.position(startPosition);
-                                buf.order(ByteOrder.LITTLE_ENDIAN);
-                                ExportRow row = null;
-                                boolean firstRowOfBlock = true;
-                                long start = 0L;
-                                if (EXPORTLOG.isDebugEnabled()) {
-                                    EXPORTLOG.debug("Processing " + cont + " on " + source);
-                                    start = System.nanoTime();
-                                }
-                                while (buf.hasRemaining() && !m_shutdown) {
-                                    int length = buf.getInt();
-                                    byte[] rowdata = new byte[length];
-                                    buf.get(rowdata, 0, length);
-
-                                    try {
-                                        cont.updateStartTime(System.currentTimeMillis());
-                                        ExportRow schema = edb.getExportRowSchema();
-                                        if (schema == null || schema.generation != cont.getSchema().generation) {
-                                            // Note {@code ExportRowSchema} is a special {@code ExportRow}
-                                            ExportRowSchema newSchema = cont.getSchema();
-                                            if (EXPORTLOG.isDebugEnabled()) {
-                                                EXPORTLOG.debug("Set schema to: " + newSchema);
-                                            }
-                                            edb.setExportRowSchema(newSchema);
-                                        }
-                                        row = ExportRow.decodeRow(edb.getExportRowSchema(), source.getPartitionId(),
-                                                rowdata);
-                                    } catch (IOException ioe) {
-                                        EXPORTLOG.warn("Failed decoding row for partition " + source.getPartitionId()
-                                                + ". " + ioe.getMessage());
-                                        cont.discard();
-                                        cont = null;
-                                        break;
-                                    }
-                                    if (firstRowOfBlock) {
-                                        edb.onBlockStart(row);
-                                        firstRowOfBlock = false;
-                                    }
-                                    edb.processRow(row);
-                                    if (committedSpHandle == 0) {
-                                        committedSpHandle = extractCommittedSpHandle(row, cont.getCommittedSeqNo());
-                                    }
-                                }
-                                if (row != null) {
-                                    edb.onBlockCompletion(row);
-                                }
-                                if (EXPORTLOG.isDebugEnabled()) {
-                                    long elapsedMs = TimeUnit.MILLISECONDS.convert(
-                                            System.nanoTime() - start, TimeUnit.NANOSECONDS);
-                                    long elapsedS = TimeUnit.SECONDS.convert(elapsedMs, TimeUnit.MILLISECONDS);
-                                    long rowsS = cont.getTupleCount() / (elapsedS > 0? elapsedS : 1);
-                                    EXPORTLOG.debug("Processed " + cont + " on " + source + ", "
-                                            + cont.getTupleCount() + " rows in " + elapsedMs + " ms"
-                                            + " (" + rowsS + " rows/s)");
-                                }
-                                // Make sure to discard after onBlockCompletion so that if completion
-                                // wants to retry we don't lose block.
-                                // Please note that if export manager is shutting down it's possible
-                                // that container isn't fully consumed. Discard the buffer prematurely
-                                // would cause missing rows in export stream.
-                                if (!m_shutdown && cont != null) {
-                                    if (committedSpHandle != 0) {
-                                        // We came across the last committed row in the buffer,
-                                        // record its sp handle
-                                        cont.setCommittedSpHandle(committedSpHandle);
-                                    }
-                                    cont.discard();
-                                    cont = null;
-                                }
-                                break;
-                            } catch (RestartBlockException e) {
-                                if (m_shutdown) {
-                                    if (EXPORTLOG.isDebugEnabled()) {
-                                        // log message for debugging.
-                                        EXPORTLOG.debug("Shutdown detected, ignore restart exception. " + e);
-                                    }
-                                    break;
-                                }
-                                if (e.requestBackoff) {
-                                    Thread.sleep(backoffQuantity);
-                                    //Cap backoff to 8 seconds, then double modulo some randomness
-                                    if (backoffQuantity < 8000) {
-                                        backoffQuantity += (backoffQuantity * .5);
-                                        backoffQuantity +=
-                                                (backoffQuantity * .5 * ThreadLocalRandom.current().nextDouble());
-                                    }
-                                }
-                            }
-                        }
-                        //Don't discard the block also set the start position to the beginning.
-                        if (m_shutdown && cont != null) {
-                            if (EXPORTLOG.isDebugEnabled()) {
-                                // log message for debugging.
-                                EXPORTLOG.debug("Shutdown detected, queue block to pending");
-                            }
-                            cont.b().position(startPosition);
-                            source.setPendingContainer(cont);
-                            cont = null;
-                        }
-                    } finally {
-                        if (cont != null) {
-                            cont.discard();
-                            cont = null;
-                        }
-                    }
                 } catch (Exception e) {
                     if (e.getCause() instanceof ReentrantPollException) {
                         EXPORTLOG.info("Stopping processing export blocks: " + e.getMessage());
                         return;
-
-                    } else {
-                        EXPORTLOG.error("Error processing export block, continuing processing: ", e);
                     }
-                } finally {
-                    if (cont != null) {
-                        cont.discard();
-                        cont = null;
+                    EXPORTLOG.error("Error processing export block, continuing processing: ", e);
+                    if (!m_shutdown) {
+                        addBlockListener(source, source.poll(), edb, rows);
                     }
+                    return;
                 }
-                if (!m_shutdown) {
-                    addBlockListener(source, source.poll(), edb);
+                if (cont == null) {
+                    if (EXPORTLOG.isDebugEnabled()) {
+                        EXPORTLOG.debug("Received an end of stream event, exiting listener");
+                    }
+                    return;
                 }
+                new BlockProcessor(source, cont, edb, rows).run();
             }
         }, edb.getExecutor());
     }
 
     /**
-     * If the row is the last committed row, return the SpHandle, otherwise return 0
-     *
-     * @param row the export row
-     * @param committedSeqNo the sequence number of the last committed row
-     * @return
+     * Hands one polled block to its decoder, and polls the next block once this one is done.
+     * <p>
+     * If there is an error processing the block the decoder thinks is recoverable, the block
+     * is started again from the beginning until it is processed. A retry is queued on the
+     * decoder's executor again instead of looping, and a backoff requested by the decoder is
+     * waited out on the retry scheduler, so a shared export worker is never held while waiting.
      */
-    private long extractCommittedSpHandle(ExportRow row, long committedSeqNo) {
-        long ret = 0;
-        if (committedSeqNo == ExportDataSource.NULL_COMMITTED_SEQNO) {
-            return ret;
+    private class BlockProcessor implements Runnable {
+        private final ExportDataSource m_source;
+        private final ExportDecoderBase m_edb;
+        private final ExportRowCursor m_rows;
+        private AckingContainer m_cont;
+
+        //Position to restart at on error
+        private final int m_startPosition;
+
+        //Track the amount of backoff to use next time, will be updated on repeated failure
+        private int m_backoffQuantity = 10 + (int)(10 * ThreadLocalRandom.current().nextDouble());
+
+        // Extract the sp handle of the last committed row in the block, if present
+        private long m_committedSpHandle = 0L;
+
+        BlockProcessor(ExportDataSource source, AckingContainer cont, ExportDecoderBase edb, ExportRowCursor rows) {
+            m_source = source;
+            m_cont = cont;
+            m_edb = edb;
+            m_rows = rows;
+            m_startPosition = cont.b().position();
         }
 
-        // Get the rows's sequence number (3rd column)
-        long seqNo = (long) row.values[2];
-        if (seqNo != committedSeqNo) {
-            return ret;
+        @Override
+        public void run() {
+            try {
+                if (!m_shutdown) {
+                    processBlock();
+                }
+            } catch (RestartBlockException e) {
+                if (m_shutdown) {
+                    if (EXPORTLOG.isDebugEnabled()) {
+                        // log message for debugging.
+                        EXPORTLOG.debug("Shutdown detected, ignore restart exception. " + e);
+                    }
+                } else {
+                    // Keep the block, it is retried later on this executor
+                    retry(e.requestBackoff);
+                    return;
+                }
+            } catch (Exception e) {
+                EXPORTLOG.error("Error processing export block, continuing processing: ", e);
+            }
+            //Don't discard the block also set the start position to the beginning.
+            if (m_shutdown && m_cont != null) {
+                if (EXPORTLOG.isDebugEnabled()) {
+                    // log message for debugging.
+                    EXPORTLOG.debug("Shutdown detected, queue block to pending");
+                }
+                setPending();
+            }
+            if (m_cont != null) {
+                m_cont.discard();
+                m_cont = null;
+            }
+            if (!m_shutdown) {
+                addBlockListener(m_source, m_source.poll(), m_edb, m_rows);
+            }
+        }
+
+        private void processBlock() throws RestartBlockException {
+            final ByteBuffer buf = m_cont.b();
+            buf.position(m_startPosition);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            long start = 0L;
+            if (EXPORTLOG.isDebugEnabled()) {
+                EXPORTLOG.debug("Processing " + m_cont + " on " + m_source);
+                start = System.nanoTime();
+            }
+            ExportRow schema = m_edb.getExportRowSchema();
+            if (schema == null || schema.generation != m_cont.getSchema().generation) {
+                // Note {@code ExportRowSchema} is a special {@code ExportRow}
+                ExportRowSchema newSchema = m_cont.getSchema();
+                if (EXPORTLOG.isDebugEnabled()) {
+                    EXPORTLOG.debug("Set schema to: " + newSchema);
+                }
+                m_edb.setExportRowSchema(newSchema);
+            }
+            m_rows.reset(m_edb.getExportRowSchema(), m_source.getPartitionId(), buf,
+                    m_cont.getCommittedSeqNo());
+            if (m_rows.advance()) {
+                m_edb.onBlockStart(m_rows.row());
+                // Hand the decoder the whole block, starting again from the first row
+                buf.position(m_startPosition);
+                m_rows.reset(m_edb.getExportRowSchema(), m_source.getPartitionId(), buf,
+                        m_cont.getCommittedSeqNo());
+                m_edb.processRows(m_rows);
+                m_cont.updateStartTime(System.currentTimeMillis());
+            }
+            if (m_committedSpHandle == 0) {
+                m_committedSpHandle = m_rows.getCommittedSpHandle();
+            }
+            if (m_rows.getDecodeError() != null) {
+                EXPORTLOG.warn("Failed decoding row for partition " + m_source.getPartitionId()
+                        + ". " + m_rows.getDecodeError().getMessage());
+                m_cont.discard();
+                m_cont = null;
+            }
+            if (m_rows.rowCount() > 0) {
+                m_edb.onBlockCompletion(m_rows.row());
+            }
+            if (EXPORTLOG.isDebugEnabled() && m_cont != null) {
+                long elapsedMs = TimeUnit.MILLISECONDS.convert(
+                        System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                long elapsedS = TimeUnit.SECONDS.convert(elapsedMs, TimeUnit.MILLISECONDS);
+                long rowsS = m_cont.getTupleCount() / (elapsedS > 0? elapsedS : 1);
+                EXPORTLOG.debug("Processed " + m_cont + " on " + m_source + ", "
+                        + m_cont.getTupleCount() + " rows in " + elapsedMs + " ms"
+                        + " (" + rowsS + " rows/s)");
+            }
+            // Make sure to discard after onBlockCompletion so that if completion
+            // wants to retry we don't lose block.
+            // Please note that if export manager is shutting down it's possible
+            // that container isn't fully consumed. Discard the buffer prematurely
+            // would cause missing rows in export stream.
+            if (!m_shutdown && m_cont != null) {
+                if (m_committedSpHandle != 0) {
+                    // We came across the last committed row in the buffer,
+                    // record its sp handle
+                    m_cont.setCommittedSpHandle(m_committedSpHandle);
+                }
+                m_cont.discard();
+                m_cont = null;
+            }
         }
 
-        // Get the row's sp handle (1rst column)
-        ret = (long) row.values[0];
-        return ret;
+        private void retry(boolean backoff) {
+            if (!backoff) {
+                resubmit();
+                return;
+            }
+            final int delay = m_backoffQuantity;
+            //Cap backoff to 8 seconds, then double modulo some randomness
+            if (m_backoffQuantity < 8000) {
+                m_backoffQuantity += (m_backoffQuantity * .5);
+                m_backoffQuantity +=
+                        (m_backoffQuantity * .5 * ThreadLocalRandom.current().nextDouble());
+            }
+            ExportWorkerPool.getRetryScheduler().schedule(this::resubmit, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void resubmit() {
+            try {
+                m_edb.getExecutor().execute(this);
+            } catch (RejectedExecutionException e) {
+                // The decoder went away while the block was waiting to be retried
+                if (EXPORTLOG.isDebugEnabled()) {
+                    EXPORTLOG.debug("Decoder shut down before retrying " + m_cont + ", queue block to pending");
+                }
+                setPending();
+            }
+        }
+
+        private void setPending() {
+            m_cont.b().position(m_startPosition);
+            m_source.setPendingContainer(m_cont);
+            m_cont = null;
+        }
     }
 
     @Override
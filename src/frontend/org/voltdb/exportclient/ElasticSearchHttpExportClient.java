@@ -48,7 +48,6 @@ import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.util.EntityUtils;
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
-import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
 import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.export.ExportManager;
@@ -333,9 +332,7 @@ public class ElasticSearchHttpExportClient extends ExportClientBase
                 m_entityDecoder = null;
             }
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                // TODO: how to make it named unique
-                m_es = CoreUtils.getListeningSingleThreadExecutor(
-                        "Elastic Export Decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
@@ -113,6 +113,25 @@ public abstract class ExportDecoderBase {
         throw new UnsupportedOperationException("processRow must be implemented.");
     }
 
+    /**
+     * Process all the rows of a block. The default implementation hands a copy
+     * of each row to {@link #processRow(ExportRow)}. Decoders that can consume
+     * the values of the cursor's current row before moving on should override
+     * this to avoid materializing an {@link ExportRow} per row.
+     * <p>
+     * Stop iterating and return when {@link ExportRowCursor#advance()} returns
+     * false. A {@code RestartBlockException} restarts the whole block, starting
+     * with {@link #onBlockStart(ExportRow)}.
+     *
+     * @param rows cursor positioned before the first row of the block
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public void processRows(ExportRowCursor rows) throws RestartBlockException {
+        while (rows.advance()) {
+            processRow(rows.row());
+        }
+    }
+
     abstract public void sourceNoLongerAdvertised(AdvertisedDataSource source);
 
     /**
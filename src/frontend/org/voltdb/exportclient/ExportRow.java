@@ -351,7 +351,7 @@ public class ExportRow {
     // This does not decode an arbitrary column because fds keeps getting
     // consumed.
     // Rather, it decodes the next non-null column in the FastDeserializer
-    private static Object decodeNextColumn(ByteBuffer bb, VoltType columnType)
+    static Object decodeNextColumn(ByteBuffer bb, VoltType columnType)
             throws IOException {
         Object retval = null;
         switch (columnType) {
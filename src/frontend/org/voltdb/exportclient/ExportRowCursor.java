@@ -0,0 +1,355 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.voltdb.VoltType;
+import org.voltdb.compiler.DDLCompiler;
+import org.voltdb.export.ExportDataSource;
+
+/**
+ * Forward-only cursor over the rows of an export block, handed to
+ * {@link ExportDecoderBase#processRows(ExportRowCursor)}.
+ * <p>
+ * Rows are decoded in place from the block's {@code ByteBuffer} into a value
+ * array owned by the cursor, so iterating a block does not allocate a row
+ * object, a copy of the row bytes or a null flag array per row. The array
+ * returned by {@link #values()} is only valid until the next call to
+ * {@link #advance()}; decoders that need to keep a row past that point must
+ * take a copy with {@link #row()}.
+ * <p>
+ * Decoders that forward rows without looking at their values can iterate with
+ * {@link #advanceRaw()} instead, which only checks the row header and reads the
+ * export metadata columns it needs, and then use the serialized row in
+ * {@link #block()} between {@link #rawRowOffset()} and its
+ * {@link #rawRowLength()}. The values of a row reached that way are decoded on
+ * first access.
+ * <p>
+ * A cursor is reused for every block of a data source and is not thread safe.
+ */
+public class ExportRowCursor {
+
+    private static final ExportRow.ROW_OPERATION[] OPERATIONS = ExportRow.ROW_OPERATION.values();
+
+    private final BooleanSupplier m_stopped;
+
+    private ExportRow m_schema;
+    private int m_partitionId;
+    private ByteBuffer m_block;
+    private long m_committedSeqNo;
+
+    // The current row is decoded into m_values; m_scratch receives the next
+    // row so that a decode failure leaves the last good row intact.
+    private Object[] m_values = new Object[0];
+    private Object[] m_scratch = new Object[0];
+    private Object m_partitionValue;
+    private int m_partitionColIndex;
+    private int m_rowCount;
+    private long m_committedSpHandle;
+    private IOException m_decodeError;
+    // True if the metadata columns can be read in place to find the committed sp handle
+    private boolean m_fixedMetadata;
+
+    // Layout of the current row in the block
+    private int m_rowStart;
+    private int m_rowEnd;
+    private int m_nullArrayStart;
+    private int m_valuesStart;
+    // True once m_values holds the current row, or if there is no current row
+    private boolean m_decoded;
+
+    public ExportRowCursor() {
+        this(() -> false);
+    }
+
+    /**
+     * @param stopped checked before each row, iteration ends early once it returns true
+     */
+    public ExportRowCursor(BooleanSupplier stopped) {
+        m_stopped = stopped;
+    }
+
+    /**
+     * Position the cursor before the first row of a block.
+     *
+     * @param schema schema of the rows in the block, usually an {@link ExportRowSchema}
+     * @param partitionId partition the block was exported from
+     * @param block block data positioned at the first row
+     * @param committedSeqNo sequence number of the last committed row, used to
+     *        locate its sp handle, or {@link ExportDataSource#NULL_COMMITTED_SEQNO}
+     */
+    public void reset(ExportRow schema, int partitionId, ByteBuffer block, long committedSeqNo) {
+        m_schema = schema;
+        m_partitionId = partitionId;
+        m_block = block;
+        m_block.order(ByteOrder.LITTLE_ENDIAN);
+        m_committedSeqNo = committedSeqNo;
+        final int columnCount = schema.names.size();
+        if (m_values.length != columnCount) {
+            m_values = new Object[columnCount];
+            m_scratch = new Object[columnCount];
+        }
+        m_partitionValue = null;
+        m_partitionColIndex = -1;
+        m_rowCount = 0;
+        m_committedSpHandle = 0L;
+        m_decodeError = null;
+        m_fixedMetadata = columnCount > 2;
+        for (int i = 0; m_fixedMetadata && i <= 2; i++) {
+            m_fixedMetadata = schema.types.get(i) == VoltType.BIGINT || schema.types.get(i) == VoltType.TIMESTAMP;
+        }
+        m_rowStart = -1;
+        m_decoded = true;
+    }
+
+    /**
+     * Decode the next row of the block.
+     *
+     * @return false at the end of the block, when the cursor was stopped or if
+     *         the row could not be decoded, see {@link #getDecodeError()}
+     */
+    public boolean advance() {
+        return advanceRaw() && ensureDecoded();
+    }
+
+    /**
+     * Move to the next row of the block without decoding its values.
+     *
+     * @return false at the end of the block, when the cursor was stopped or if
+     *         the row header is invalid, see {@link #getDecodeError()}
+     */
+    public boolean advanceRaw() {
+        if (m_decodeError != null || !m_block.hasRemaining() || m_stopped.getAsBoolean()) {
+            return false;
+        }
+        final ByteBuffer bb = m_block;
+        final int rowStart = bb.position();
+        try {
+            final int length = bb.getInt();
+            final int rowEnd = bb.position() + length;
+            if (length < 8 || rowEnd > bb.limit()) {
+                throw new IOException(String.format("Invalid row length %d at offset %d of block with limit %d",
+                        length, rowStart, bb.limit()));
+            }
+            final int partitionColIndex = bb.getInt();
+            final int columnCount = bb.getInt();
+            assert(columnCount <= DDLCompiler.MAX_COLUMNS);
+            if (columnCount != m_values.length) {
+                throw new IOException(
+                        String.format("Read %d columns from row but expected %d columns: %s", columnCount,
+                                m_values.length, m_schema));
+            }
+            m_rowStart = rowStart;
+            m_rowEnd = rowEnd;
+            m_partitionColIndex = partitionColIndex;
+            // Null flags are one bit per column, most significant bit first
+            m_nullArrayStart = bb.position();
+            m_valuesStart = m_nullArrayStart + (((columnCount + 7) & -8) >> 3);
+            bb.position(rowEnd);
+        } catch (IOException | RuntimeException e) {
+            bb.position(bb.limit());
+            m_decodeError = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+            return false;
+        }
+        m_decoded = false;
+        m_rowCount++;
+        if (m_committedSpHandle == 0L && m_committedSeqNo != ExportDataSource.NULL_COMMITTED_SEQNO) {
+            if (m_fixedMetadata) {
+                // Transaction id and sequence number are the first and third 8 byte columns
+                if (!isNull(0) && !isNull(1) && !isNull(2)
+                        && bb.getLong(m_valuesStart + 16) == m_committedSeqNo) {
+                    m_committedSpHandle = bb.getLong(m_valuesStart);
+                }
+            } else if (ensureDecoded() && (long) m_values[2] == m_committedSeqNo) {
+                m_committedSpHandle = (long) m_values[0];
+            }
+        }
+        return true;
+    }
+
+    private boolean ensureDecoded() {
+        if (m_decoded) {
+            return true;
+        }
+        if (m_decodeError != null) {
+            return false;
+        }
+        final int position = m_block.position();
+        try {
+            m_block.position(m_valuesStart);
+            decodeRow();
+            m_decoded = true;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            m_decodeError = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+            m_rowCount--;
+            return false;
+        } finally {
+            m_block.position(position);
+        }
+    }
+
+    private void decodeRow() throws IOException {
+        final ByteBuffer bb = m_block;
+        final int columnCount = m_scratch.length;
+        final List<VoltType> types = m_schema.types;
+        Object pval = null;
+        for (int i = 0; i < columnCount; ++i) {
+            if (isNull(i)) {
+                m_scratch[i] = null;
+            } else {
+                m_scratch[i] = ExportRow.decodeNextColumn(bb, types.get(i));
+            }
+            if (i == m_partitionColIndex) {
+                pval = m_scratch[i];
+            }
+        }
+
+        final Object[] tmp = m_values;
+        m_values = m_scratch;
+        m_scratch = tmp;
+        m_partitionValue = pval == null ? m_partitionId : pval;
+    }
+
+    /**
+     * @return true if the value of a column of the current row is null, without decoding the row
+     */
+    public boolean isNull(int column) {
+        return (m_block.get(m_nullArrayStart + (column >> 3)) & (0x80 >>> (column & 7))) != 0;
+    }
+
+    /**
+     * @return the block being iterated, its position must not be changed
+     */
+    public ByteBuffer block() {
+        return m_block;
+    }
+
+    /**
+     * @return offset in {@link #block()} of the current row, starting with its 4 byte length
+     */
+    public int rawRowOffset() {
+        return m_rowStart;
+    }
+
+    /**
+     * @return length of the current row in {@link #block()}, including its 4 byte length
+     */
+    public int rawRowLength() {
+        return m_rowEnd - m_rowStart;
+    }
+
+    /**
+     * @return offset in {@link #block()} of the first non null value of the current row
+     */
+    public int rawValuesOffset() {
+        return m_valuesStart;
+    }
+
+    /**
+     * @return offset in {@link #block()} of the end of the current row
+     */
+    public int rawRowEnd() {
+        return m_rowEnd;
+    }
+
+    /**
+     * @return the values of the current row, overwritten by the next call to {@link #advance()}
+     */
+    public Object[] values() {
+        ensureDecoded();
+        return m_values;
+    }
+
+    public Object partitionValue() {
+        ensureDecoded();
+        return m_partitionValue;
+    }
+
+    public int partitionColIndex() {
+        return m_partitionColIndex;
+    }
+
+    public int partitionId() {
+        return m_partitionId;
+    }
+
+    public String tableName() {
+        return m_schema.tableName;
+    }
+
+    public long generation() {
+        return m_schema.generation;
+    }
+
+    public List<String> names() {
+        return m_schema.names;
+    }
+
+    public List<VoltType> types() {
+        return m_schema.types;
+    }
+
+    public List<Integer> lengths() {
+        return m_schema.lengths;
+    }
+
+    public ExportRow schema() {
+        return m_schema;
+    }
+
+    public ExportRow.ROW_OPERATION getOperation() {
+        ensureDecoded();
+        return OPERATIONS[(byte) m_values[ExportRow.INTERNAL_OPERATION_COLUMN]];
+    }
+
+    /**
+     * @return a standalone {@link ExportRow} holding a copy of the current row
+     */
+    public ExportRow row() {
+        ensureDecoded();
+        return new ExportRow(m_schema.tableName, m_schema.names, m_schema.types, m_schema.lengths,
+                m_values.clone(), m_partitionValue, m_partitionColIndex, m_partitionId, m_schema.generation);
+    }
+
+    /**
+     * @return the number of rows read since the last {@link #reset}, not counting rows that could not be decoded
+     */
+    public int rowCount() {
+        return m_rowCount;
+    }
+
+    /**
+     * @return the error that ended iteration, or null if the rows decoded so far were valid
+     */
+    public IOException getDecodeError() {
+        return m_decodeError;
+    }
+
+    /**
+     * @return the sp handle of the last committed row if it was seen, otherwise 0
+     */
+    public long getCommittedSpHandle() {
+        return m_committedSpHandle;
+    }
+}
@@ -0,0 +1,186 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.VoltDecimalHelper;
+
+/**
+ * Transcodes the current row of an {@link ExportRowCursor} straight from its
+ * export serialization into a serialized {@link ParameterSet}, one parameter
+ * per column, without decoding the values into Java objects. Only geography
+ * values, whose byte order is internal to their encoding, go through their
+ * Java representation.
+ * <p>
+ * Not thread safe, each decoder needs its own encoder.
+ */
+public class ExportRowParameterEncoder {
+
+    private ByteBuffer m_scratch = ByteBuffer.allocate(4096);
+
+    private void ensure(int bytes) {
+        if (m_scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(m_scratch.capacity() * 2, m_scratch.position() + bytes));
+            m_scratch.flip();
+            larger.put(m_scratch);
+            m_scratch = larger;
+        }
+    }
+
+    /**
+     * @param rows cursor positioned on a row, usually with {@link ExportRowCursor#advanceRaw()}
+     * @param firstField index of the first column to pass as a parameter
+     * @return a new buffer holding the serialized parameters, positioned at 0
+     * @throws IOException if the row is not consistent with the schema of the cursor
+     */
+    public ByteBuffer encode(ExportRowCursor rows, int firstField) throws IOException {
+        final ByteBuffer in = rows.block().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final int limit = in.limit();
+        final List<VoltType> types = rows.types();
+        final int rowEnd = rows.rawRowEnd();
+        int pos = rows.rawValuesOffset();
+
+        m_scratch.clear();
+        m_scratch.putShort((short) (types.size() - firstField));
+        try {
+            for (int i = 0; i < types.size(); i++) {
+                final boolean emit = i >= firstField;
+                ensure(32);
+                if (rows.isNull(i)) {
+                    if (emit) {
+                        m_scratch.put(VoltType.NULL.getValue());
+                    }
+                    continue;
+                }
+                final VoltType type = types.get(i);
+                if (emit) {
+                    m_scratch.put(type.getValue());
+                }
+                switch (type) {
+                case TINYINT:
+                    if (emit) {
+                        m_scratch.put(in.get(pos));
+                    }
+                    pos += 1;
+                    break;
+                case SMALLINT:
+                    if (emit) {
+                        m_scratch.putShort(in.getShort(pos));
+                    }
+                    pos += 2;
+                    break;
+                case INTEGER:
+                    if (emit) {
+                        m_scratch.putInt(in.getInt(pos));
+                    }
+                    pos += 4;
+                    break;
+                case BIGINT:
+                case TIMESTAMP:
+                case FLOAT:
+                    // Same bits, only the byte order changes
+                    if (emit) {
+                        m_scratch.putLong(in.getLong(pos));
+                    }
+                    pos += 8;
+                    break;
+                case STRING:
+                case VARBINARY: {
+                    final int length = in.getInt(pos);
+                    pos += 4;
+                    if (emit) {
+                        ensure(4 + length);
+                        m_scratch.putInt(length);
+                        in.limit(pos + length);
+                        in.position(pos);
+                        m_scratch.put(in);
+                        in.limit(limit);
+                    }
+                    pos += length;
+                    break;
+                }
+                case DECIMAL: {
+                    final int scale = in.get(pos);
+                    final int length = in.get(pos + 1);
+                    pos += 2;
+                    if (emit) {
+                        if (scale == VoltDecimalHelper.kDefaultScale && length <= 16) {
+                            // Sign extend the unscaled value to the 16 bytes of a parameter
+                            final byte sign = in.get(pos) < 0 ? (byte) -1 : 0;
+                            for (int b = length; b < 16; b++) {
+                                m_scratch.put(sign);
+                            }
+                            for (int b = 0; b < length; b++) {
+                                m_scratch.put(in.get(pos + b));
+                            }
+                        } else {
+                            final byte[] unscaled = new byte[length];
+                            in.position(pos);
+                            in.get(unscaled);
+                            VoltDecimalHelper.serializeBigDecimal(new BigDecimal(new BigInteger(unscaled), scale),
+                                    m_scratch);
+                        }
+                    }
+                    pos += length;
+                    break;
+                }
+                case GEOGRAPHY_POINT: {
+                    in.position(pos);
+                    final GeographyPointValue point = ExportRow.decodeGeographyPoint(in);
+                    pos = in.position();
+                    if (emit) {
+                        point.flattenToBuffer(m_scratch);
+                    }
+                    break;
+                }
+                case GEOGRAPHY: {
+                    in.position(pos);
+                    final GeographyValue geography = ExportRow.decodeGeography(in);
+                    pos = in.position();
+                    if (emit) {
+                        ensure(4 + geography.getLengthInBytes());
+                        m_scratch.putInt(geography.getLengthInBytes());
+                        geography.flattenToBuffer(m_scratch);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Invalid column type: " + type);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to transcode row at offset " + rows.rawRowOffset() + ": " + e, e);
+        }
+        if (pos > rowEnd) {
+            throw new IOException(String.format("Read %d bytes past the end of the row at offset %d",
+                    pos - rowEnd, rows.rawRowOffset()));
+        }
+        return ByteBuffer.wrap(Arrays.copyOf(m_scratch.array(), m_scratch.position()));
+    }
+}
@@ -649,9 +649,8 @@ public class ExportToFileClient extends ExportClientBase {
                     if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC && m_es == null) {
                         ListeningExecutorService executor = m_decoderExecutor.get(row.tableName);
                         if (executor == null) {
-                            executor = CoreUtils.getListeningSingleThreadExecutor(
-                                "File Export decoder for table " + row.tableName + CoreUtils.MEDIUM_STACK_SIZE
-                                );
+                            // One executor per table, the partitions of a table share its files
+                            executor = ExportWorkerPool.newSerialExecutor(row.tableName, -1);
                             m_decoderExecutor.put(row.tableName, executor);
                         }
                         m_es = executor;
@@ -708,9 +707,21 @@ public class ExportToFileClient extends ExportClientBase {
 
         @Override
         public boolean processRow(ExportRow rd) throws RestartBlockException {
+            return writeRow(rd.generation, rd.tableName, rd.types, rd.names, rd.values);
+        }
+
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            while (rows.advance()) {
+                writeRow(rows.generation(), rows.tableName(), rows.types(), rows.names(), rows.values());
+            }
+        }
+
+        private boolean writeRow(long generation, String tableName, List<VoltType> types, List<String> names,
+                Object[] values) {
             // reader lock is acquired in on-block start
             try {
-                m_csvWriterDecoder.decode(rd.generation, rd.tableName, rd.types, rd.names, m_writer,rd.values);
+                m_csvWriterDecoder.decode(generation, tableName, types, names, m_writer, values);
             }
             catch (IOException io) {
                 rateLimitedLogError(m_logger, "failed to to process export row %s", Throwables.getStackTraceAsString(io));
@@ -0,0 +1,291 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+import com.google_voltpatches.common.util.concurrent.MoreExecutors;
+
+/**
+ * Bounded pool of threads shared by the export decoders of every stream and partition.
+ * <p>
+ * Each decoder gets its own serial executor from {@link #newSerialExecutor}, which runs
+ * the decoder's tasks one at a time and in submission order, so blocks of a partition
+ * are still delivered in order. A serial executor holds no thread of its own: when it
+ * has work it queues itself on the shared pool, runs a single task on whichever worker
+ * picks it up, and queues itself again at the back of the pool if more work arrived.
+ * Idle workers therefore take over the next ready stream, and a busy stream cannot hold
+ * a worker for more than one block while other streams are waiting.
+ * <p>
+ * The number of workers is set with the EXPORT_WORKER_THREADS system property.
+ */
+public class ExportWorkerPool {
+
+    private static final VoltLogger EXPORTLOG = new VoltLogger("EXPORT");
+
+    public static final int WORKER_THREADS =
+            Integer.getInteger("EXPORT_WORKER_THREADS", Math.max(4, CoreUtils.availableProcessors()));
+
+    private static final Set<SerialExecutor> s_executors = ConcurrentHashMap.newKeySet();
+
+    private ExportWorkerPool() {
+    }
+
+    // Created on first use, only the decoders of the community export manager need it
+    private static class PoolHolder {
+        static final ThreadPoolExecutor POOL = createPool();
+
+        private static ThreadPoolExecutor createPool() {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS,
+                    60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    CoreUtils.getThreadFactory(null, "Export Worker", CoreUtils.MEDIUM_STACK_SIZE, true, null));
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    // Holds the retries of export blocks until their backoff expires, so that no worker sleeps
+    private static class SchedulerHolder {
+        static final ScheduledThreadPoolExecutor SCHEDULER =
+                CoreUtils.getScheduledThreadPoolExecutor("Export Retry Scheduler", 1, CoreUtils.SMALL_STACK_SIZE);
+    }
+
+    /**
+     * Scheduler for delayed retries of export blocks. Its tasks must only hand the retry back
+     * to the decoder's executor, they are not meant to process blocks themselves.
+     */
+    public static ScheduledExecutorService getRetryScheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    /**
+     * Create an executor that runs tasks in order, one at a time, on the shared pool.
+     *
+     * @param source name of the stream, or of the table for exporters serialized per table
+     * @param partitionId partition of the stream, or -1 if the executor serves every partition
+     * @return a new serial executor
+     */
+    public static ListeningExecutorService newSerialExecutor(String source, int partitionId) {
+        SerialExecutor executor = new SerialExecutor(source, partitionId);
+        s_executors.add(executor);
+        return MoreExecutors.listeningDecorator(executor);
+    }
+
+    /**
+     * Snapshot the queueing statistics of every live serial executor.
+     */
+    public static List<Stats> getStats() {
+        final long now = System.nanoTime();
+        List<Stats> stats = new ArrayList<>(s_executors.size());
+        for (SerialExecutor executor : s_executors) {
+            stats.add(executor.getStats(now));
+        }
+        return stats;
+    }
+
+    /**
+     * Queueing statistics of a serial executor. Wait times are in nanoseconds, from the
+     * submission of a task to the moment a worker started running it. The lag is how long
+     * the oldest queued task has been waiting so far, 0 if there is none.
+     */
+    public static class Stats {
+        public final String m_source;
+        public final int m_partitionId;
+        public final int m_pending;
+        public final long m_lagNanos;
+        public final long m_completed;
+        public final long m_totalWaitNanos;
+        public final long m_maxWaitNanos;
+
+        Stats(String source, int partitionId, int pending, long lagNanos, long completed,
+                long totalWaitNanos, long maxWaitNanos) {
+            m_source = source;
+            m_partitionId = partitionId;
+            m_pending = pending;
+            m_lagNanos = lagNanos;
+            m_completed = completed;
+            m_totalWaitNanos = totalWaitNanos;
+            m_maxWaitNanos = maxWaitNanos;
+        }
+    }
+
+    private static final class Task {
+        final Runnable m_runnable;
+        final long m_queuedNanos;
+
+        Task(Runnable runnable, long queuedNanos) {
+            m_runnable = runnable;
+            m_queuedNanos = queuedNanos;
+        }
+    }
+
+    /**
+     * Executor running its tasks one at a time on the shared pool. All state is guarded
+     * by the executor's monitor.
+     */
+    static final class SerialExecutor extends AbstractExecutorService {
+        private final String m_source;
+        private final int m_partitionId;
+        private final ArrayDeque<Task> m_queue = new ArrayDeque<>();
+        // True while a turn of this executor is queued or running on the pool
+        private boolean m_scheduled = false;
+        private Thread m_runner = null;
+        private boolean m_shutdown = false;
+        private boolean m_terminated = false;
+
+        private long m_completed = 0;
+        private long m_totalWaitNanos = 0;
+        private long m_maxWaitNanos = 0;
+
+        SerialExecutor(String source, int partitionId) {
+            m_source = source;
+            m_partitionId = partitionId;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            synchronized (this) {
+                if (m_shutdown) {
+                    throw new RejectedExecutionException("Export executor for " + m_source + " is shut down");
+                }
+                m_queue.add(new Task(command, System.nanoTime()));
+                if (m_scheduled) {
+                    return;
+                }
+                m_scheduled = true;
+            }
+            PoolHolder.POOL.execute(this::runNext);
+        }
+
+        private void runNext() {
+            Task task;
+            synchronized (this) {
+                task = m_queue.poll();
+                if (task == null) {
+                    // Drained by shutdownNow() while this turn was queued
+                    m_scheduled = false;
+                    terminateIfIdle();
+                    return;
+                }
+                m_runner = Thread.currentThread();
+                final long wait = System.nanoTime() - task.m_queuedNanos;
+                m_totalWaitNanos += wait;
+                m_maxWaitNanos = Math.max(m_maxWaitNanos, wait);
+            }
+
+            boolean more = false;
+            try {
+                task.m_runnable.run();
+            } catch (Throwable t) {
+                EXPORTLOG.error("Unexpected error running export task for " + m_source, t);
+            } finally {
+                synchronized (this) {
+                    m_runner = null;
+                    // Don't leak an interrupt from shutdownNow() to the next stream's task
+                    Thread.interrupted();
+                    m_completed++;
+                    more = !m_queue.isEmpty();
+                    if (!more) {
+                        m_scheduled = false;
+                        terminateIfIdle();
+                    }
+                }
+            }
+            if (more) {
+                // Go to the back of the pool queue so that other streams get their turn
+                PoolHolder.POOL.execute(this::runNext);
+            }
+        }
+
+        private void terminateIfIdle() {
+            if (m_shutdown && !m_scheduled && !m_terminated) {
+                m_terminated = true;
+                s_executors.remove(this);
+                notifyAll();
+            }
+        }
+
+        synchronized Stats getStats(long now) {
+            final Task oldest = m_queue.peek();
+            return new Stats(m_source, m_partitionId, m_queue.size(),
+                    oldest == null ? 0 : now - oldest.m_queuedNanos,
+                    m_completed, m_totalWaitNanos, m_maxWaitNanos);
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            m_shutdown = true;
+            terminateIfIdle();
+        }
+
+        @Override
+        public synchronized List<Runnable> shutdownNow() {
+            m_shutdown = true;
+            List<Runnable> pending = new ArrayList<>(m_queue.size());
+            for (Task task : m_queue) {
+                pending.add(task.m_runnable);
+            }
+            m_queue.clear();
+            if (m_runner != null) {
+                m_runner.interrupt();
+            }
+            terminateIfIdle();
+            return pending;
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return m_shutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return m_terminated;
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + remaining;
+            while (!m_terminated) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            return true;
+        }
+    }
+}
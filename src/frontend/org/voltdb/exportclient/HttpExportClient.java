@@ -84,6 +84,7 @@ import org.apache.http.util.EntityUtils;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
+import org.voltdb.VoltType;
 import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.exportclient.decode.AvroEntityDecoder;
 import org.voltdb.exportclient.decode.CSVEntityDecoder;
@@ -916,8 +917,7 @@ public class HttpExportClient extends ExportClientBase {
 
             m_exportPath = null;
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                m_es = CoreUtils.getListeningSingleThreadExecutor(
-                        "HTTP Export decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
@@ -925,6 +925,25 @@ public class HttpExportClient extends ExportClientBase {
 
         @Override
         public boolean processRow(ExportRow row) throws RestartBlockException
+        {
+            startProcessingRow(row, null);
+            return sendRow(row.generation, row.tableName, row.types, row.names, row.values);
+        }
+
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException
+        {
+            while (rows.advance()) {
+                startProcessingRow(null, rows);
+                sendRow(rows.generation(), rows.tableName(), rows.types(), rows.names(), rows.values());
+            }
+        }
+
+        /**
+         * Make sure the client is connected and, on the first row, prime the export path.
+         * The first row is only materialized from the cursor when priming needs it.
+         */
+        private void startProcessingRow(ExportRow row, ExportRowCursor rows) throws RestartBlockException
         {
             URI exportPath = m_exportPath;
             if (m_client == null || !m_client.isRunning()) {
@@ -936,6 +955,9 @@ public class HttpExportClient extends ExportClientBase {
                 }
             }
             if (!m_startedProcessingRows) try {
+                if (row == null) {
+                    row = rows.row();
+                }
                 if (m_isHdfs) {
                     DecodedStatus status = makePath(exportPath, getHeaderEntity(row));
                     if (status != DecodedStatus.OK) {
@@ -948,12 +970,17 @@ public class HttpExportClient extends ExportClientBase {
                     rateLimitedLogError(m_logger, "Unable to prime http export client to %s %s", exportPath, Throwables.getStackTraceAsString(e));
                 throw new RestartBlockException(true);
             }
+        }
 
+        private boolean sendRow(long generation, String tableName, List<VoltType> types, List<String> names,
+                Object[] values) throws RestartBlockException
+        {
+            URI exportPath = m_exportPath;
             HttpUriRequest rqst;
 
             if (m_decodeType == DecodeType.FORM) {
                 try {
-                    rqst = makeRequest(exportPath, m_nvpairDecoder.decode(row.generation, row.tableName, row.types, row.names, null, row.values));
+                    rqst = makeRequest(exportPath, m_nvpairDecoder.decode(generation, tableName, types, names, null, values));
                 } catch (RuntimeException e) {
                     // non restartable structural failure
                     rateLimitedLogError(m_logger, "unable to build an HTTP request from an exported row %s", Throwables.getStackTraceAsString(e));
@@ -961,7 +988,7 @@ public class HttpExportClient extends ExportClientBase {
                 }
             } else if (m_batchMode) {
                 try {
-                    m_entityDecoder.add(row.generation, row.tableName, row.types, row.names, row.values);
+                    m_entityDecoder.add(generation, tableName, types, names, values);
                     return true;
                 } catch (RuntimeException e) {
                     // non restartable structural failure
@@ -39,7 +39,6 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.tomcat.jdbc.pool.DataSource;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.voltcore.logging.VoltLogger;
-import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltType;
 import org.voltdb.export.AdvertisedDataSource;
@@ -193,9 +192,7 @@ public class JDBCExportClient extends ExportClientBase {
             m_curGenId = -1;
             m_ds = ds;
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                m_es =
-                        CoreUtils.getListeningSingleThreadExecutor(
-                                "JDBC Export decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
@@ -686,9 +683,35 @@ public class JDBCExportClient extends ExportClientBase {
 
         @Override
         public boolean processRow(ExportRow rowinst) throws RestartBlockException {
+            if (writeRow(rowinst.generation, rowinst.tableName, rowinst.names, rowinst.types, rowinst.lengths,
+                    rowinst.getOperation(), rowinst.values)) {
+                m_dataRows.add(new BatchRow(rowinst));
+            }
+            return true;
+        }
+
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            while (rows.advance()) {
+                if (writeRow(rows.generation(), rows.tableName(), rows.names(), rows.types(), rows.lengths(),
+                        rows.getOperation(), rows.values())) {
+                    // Batch errors are reported after the cursor has moved on, keep a copy of the row
+                    m_dataRows.add(new BatchRow(rows.row()));
+                }
+            }
+        }
+
+        /**
+         * Bind the row to the insert statement and add it to the batch, or execute it
+         * when batch updates are not supported.
+         *
+         * @return true if the row was added to the batch
+         */
+        private boolean writeRow(long generation, String tableName, List<String> names, List<VoltType> columnTypes,
+                List<Integer> lengths, ROW_OPERATION operation, Object[] row) throws RestartBlockException {
             if (m_preparedStmtStr == null) {
                 try {
-                    initialize(rowinst.generation, rowinst.tableName, rowinst.names, rowinst.types, rowinst.lengths);
+                    initialize(generation, tableName, names, columnTypes, lengths);
                 } catch (Exception e) {
                     m_logger.warn("JDBC export unable to initialize jdbc target database", e);
                     closeConnection();
@@ -699,12 +722,12 @@ public class JDBCExportClient extends ExportClientBase {
                 throw new RestartBlockException(true);
             }
 
-            if (rowinst.getOperation() == ROW_OPERATION.UPDATE_NEW && !m_supportsUpsert) {
+            if (operation == ROW_OPERATION.UPDATE_NEW && !m_supportsUpsert) {
                 if (!m_warnedOfUnsupportedOperation) {
                     rateLimitedLogWarn(m_logger, "JDBC export skipped past a row with an operation type " +
-                            rowinst.getOperation().name() + " from stream " + rowinst.tableName);
+                            operation.name() + " from stream " + tableName);
                 }
-                return true;
+                return false;
             }
             if (pstmt == null) {
                 if (m_disableAutoCommits) {
@@ -737,9 +760,8 @@ public class JDBCExportClient extends ExportClientBase {
                 }
             }
 
-            Object[] row = rowinst.values;
-            List<VoltType> columnTypes = rowinst.types;
             boolean restartBlock = false;
+            boolean batched = false;
             try {
                 for (int i = firstField; i < columnTypes.size(); i++) {
                     final int pstmtIndex = i + 1 - firstField;
@@ -777,16 +799,16 @@ public class JDBCExportClient extends ExportClientBase {
                 try {
                     if (m_supportsBatchUpdates) {
                         pstmt.addBatch();
-                        m_dataRows.add(new BatchRow(rowinst));
+                        batched = true;
                     } else {
                         pstmt.executeUpdate();
                     }
                 } catch (SQLException e) {
-                    rateLimitedLogError(m_logger, "executeUpdate() failed in processRow() for table %s %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
+                    rateLimitedLogError(m_logger, "executeUpdate() failed in processRow() for table %s %s", tableName, Throwables.getStackTraceAsString(e));
                     restartBlock = true;
                 }
             } catch (Exception e) {
-                rateLimitedLogError(m_logger, "processRow() failed in table %s, %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
+                rateLimitedLogError(m_logger, "processRow() failed in table %s, %s", tableName, Throwables.getStackTraceAsString(e));
                 restartBlock = true;
             }
 
@@ -795,7 +817,7 @@ public class JDBCExportClient extends ExportClientBase {
                 throw new RestartBlockException(true);
             }
 
-            return true;
+            return batched;
         }
 
         /*
@@ -0,0 +1,379 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.VoltDB;
+import org.voltdb.export.AdvertisedDataSource;
+import org.voltdb.export.ExportManager;
+import org.voltdb.export.ExportManagerInterface.ExportMode;
+import org.voltdb.exportclient.parquet.ParquetFileWriter;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Export client writing each stream partition to Parquet files.
+ * <p>
+ * Rows go from the export blocks straight into per column buffers, strings
+ * being dictionary encoded, and the rows of each block are written and forced
+ * to disk as a row group before the block is acknowledged. The file being
+ * written is named with the {@code active-} prefix and only gets its footer,
+ * which makes it a readable Parquet file, when it is closed and renamed: once
+ * it reaches {@code rollsize} megabytes, after {@code period} minutes, when the
+ * schema of the stream changes, or on shutdown. Active files left behind by a
+ * server that stopped without closing them are completed from their index, and
+ * renamed, when the stream partition is exported again.
+ */
+public class ParquetExportClient extends ExportClientBase {
+
+    private static final VoltLogger m_logger = new VoltLogger("ExportClient");
+    private static final TimeUnit TIME_PERIOD_UNIT =
+            TimeUnit.valueOf(System.getProperty("__EXPORT_FILE_ROTATE_PERIOD_UNIT__", TimeUnit.MINUTES.name()));
+
+    private static final String ACTIVE_PREFIX = "active-";
+    private static final String EXTENSION = ".parquet";
+
+    String m_nonce;
+    File m_outDir;
+    // how often to roll files, in TIME_PERIOD_UNIT
+    int m_period;
+    long m_rollBytes;
+    ParquetFileWriter.Codec m_codec;
+    boolean m_skipinternal;
+    TimeZone m_timeZone;
+
+    private final Set<ParquetExportDecoder> m_decoders = ConcurrentHashMap.newKeySet();
+    // Active files of the decoders of every client, which must not be recovered
+    private static final Set<File> m_openFiles = ConcurrentHashMap.newKeySet();
+
+    // timer used to roll files
+    private ScheduledExecutorService m_scheduledFileRotatorService;
+
+    //For test
+    public static String TEST_VOLTDB_ROOT = null;
+
+    class ParquetExportDecoder extends ExportDecoderBase {
+        private final ListeningExecutorService m_es;
+        private final SimpleDateFormat m_dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+
+        // Guarded by this, the rotator closes idle files from its own thread
+        private ParquetFileWriter m_writer;
+        private long m_generation = Long.MIN_VALUE;
+        private long m_openedMillis;
+        // True between onBlockStart and onBlockCompletion, while processRows uses the writer unlocked
+        private boolean m_inBlock = false;
+        private boolean m_closed = false;
+        private boolean m_recovered = false;
+
+        ParquetExportDecoder(AdvertisedDataSource source) {
+            super(source);
+            m_dateFormat.setTimeZone(m_timeZone);
+            if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
+            } else {
+                m_es = null;
+            }
+        }
+
+        @Override
+        public ListeningExecutorService getExecutor() {
+            return m_es;
+        }
+
+        @Override
+        public synchronized void onBlockStart(ExportRow row) throws RestartBlockException {
+            if (m_closed) {
+                throw new RestartBlockException("Parquet export decoder for " + row.tableName + " is closed", true);
+            }
+            if (m_inBlock) {
+                // The previous block never completed, drop its rows
+                m_writer.discardBuffered();
+                m_inBlock = false;
+            }
+            if (m_writer != null && (row.generation != m_generation || isRollDue(System.currentTimeMillis()))) {
+                closeWriter();
+            }
+            if (m_writer == null) {
+                openWriter(row);
+            }
+            m_inBlock = true;
+        }
+
+        @Override
+        public boolean processRow(ExportRow row) throws RestartBlockException {
+            m_writer.append(row.values);
+            return true;
+        }
+
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            final ParquetFileWriter writer = m_writer;
+            while (rows.advance()) {
+                writer.append(rows.values());
+            }
+        }
+
+        @Override
+        public synchronized void onBlockCompletion(ExportRow row) throws RestartBlockException {
+            m_inBlock = false;
+            // The block is acknowledged once this returns, its rows must be on disk
+            try {
+                m_writer.writeRowGroup();
+            } catch (IOException e) {
+                rateLimitedLogWarn(m_logger, "Failed to write row group to file '" + m_writer.getFile() +
+                        "'. Export file may be unavailable/unwritable, or not enough space.");
+                m_writer.discardBuffered();
+                if (m_closed) {
+                    closeWriter();
+                }
+                throw new RestartBlockException("Failed to complete the block.", e, true);
+            }
+            // close() may have been called while this block was being processed
+            if (m_closed || m_writer.getLength() >= m_rollBytes) {
+                closeWriter();
+            }
+        }
+
+        private void openWriter(ExportRow row) throws RestartBlockException {
+            final String prefix = m_nonce + "-" + row.tableName + "-" + row.partitionId + "-";
+            if (!m_recovered) {
+                recoverFiles(prefix);
+                m_recovered = true;
+            }
+            final String name = prefix + m_dateFormat.format(new Date()) + "-" + row.generation;
+            File file = new VoltFile(m_outDir, ACTIVE_PREFIX + name + EXTENSION);
+            for (int i = 1; file.exists() || new File(m_outDir, name + EXTENSION).exists(); i++) {
+                file = new VoltFile(m_outDir, ACTIVE_PREFIX + name + "-" + i + EXTENSION);
+            }
+            m_openFiles.add(file);
+            try {
+                m_writer = new ParquetFileWriter(file, row.names, row.types,
+                        m_skipinternal ? INTERNAL_FIELD_COUNT : 0, m_codec);
+            } catch (IOException e) {
+                m_openFiles.remove(file);
+                m_logger.error("Failed to create export file '" + file +
+                        "'. Export file may be unavailable/unwritable, or not enough space.", e);
+                throw new RestartBlockException("Fail to start the block", e, true);
+            }
+            m_generation = row.generation;
+            m_openedMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * Complete and rename the active files of this stream partition that were
+         * not closed, by a server that stopped for instance.
+         */
+        private void recoverFiles(String prefix) {
+            final File[] files = m_outDir.listFiles(
+                    (dir, name) -> name.startsWith(ACTIVE_PREFIX + prefix) && name.endsWith(EXTENSION));
+            if (files == null) {
+                return;
+            }
+            for (File active : files) {
+                if (m_openFiles.contains(active)) {
+                    continue;
+                }
+                try {
+                    if (ParquetFileWriter.recover(active)) {
+                        m_logger.info("Recovered export file '" + active + "'");
+                        rename(active);
+                    }
+                } catch (IOException e) {
+                    m_logger.warn("Failed to recover export file '" + active + "'", e);
+                }
+            }
+        }
+
+        private boolean isRollDue(long now) {
+            return now - m_openedMillis >= TIME_PERIOD_UNIT.toMillis(m_period);
+        }
+
+        /**
+         * Write the buffered rows and the footer of the active file, and drop its
+         * prefix. Files without any row are deleted instead.
+         */
+        private void closeWriter() {
+            final ParquetFileWriter writer = m_writer;
+            m_writer = null;
+            final File active = writer.getFile();
+            try {
+                writer.close();
+                if (writer.getRowCount() == 0) {
+                    active.delete();
+                    return;
+                }
+                rename(active);
+            } catch (IOException e) {
+                // The rows are in the index, the file is recovered when the stream is exported again
+                m_logger.warn("Failed to close export file '" + active + "'", e);
+            } finally {
+                m_openFiles.remove(active);
+            }
+        }
+
+        private void rename(File active) {
+            File target = new File(active.getParentFile(), active.getName().substring(ACTIVE_PREFIX.length()));
+            if (!active.renameTo(target)) {
+                m_logger.warn("Failed to rename export file '" + active + "' to '" + target + "'");
+            }
+        }
+
+        synchronized void rollIfDue(long now) {
+            if (m_writer != null && !m_inBlock && isRollDue(now)) {
+                closeWriter();
+            }
+        }
+
+        /**
+         * Close the active file. If a block is being processed, the file is closed
+         * when the block completes instead. No file is opened after this.
+         */
+        synchronized void close() {
+            m_closed = true;
+            if (m_writer != null && !m_inBlock) {
+                closeWriter();
+            }
+        }
+
+        @Override
+        public void sourceNoLongerAdvertised(AdvertisedDataSource source) {
+            m_decoders.remove(this);
+            // Let the block in progress complete first
+            if (m_es != null) {
+                m_es.shutdown();
+                try {
+                    m_es.awaitTermination(365, TimeUnit.DAYS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            close();
+        }
+    }
+
+    @Override
+    public ExportDecoderBase constructExportDecoder(AdvertisedDataSource source) {
+        ParquetExportDecoder decoder = new ParquetExportDecoder(source);
+        m_decoders.add(decoder);
+        return decoder;
+    }
+
+    @Override
+    public void shutdown() {
+        m_scheduledFileRotatorService.shutdown();
+        try {
+            m_scheduledFileRotatorService.awaitTermination(365, TimeUnit.DAYS);
+        } catch (InterruptedException iex) {
+            throw new RuntimeException(iex);
+        }
+        for (ParquetExportDecoder decoder : m_decoders) {
+            decoder.close();
+        }
+    }
+
+    public String getVoltDBRootPath() {
+        return TEST_VOLTDB_ROOT != null ? TEST_VOLTDB_ROOT : VoltDB.instance().getVoltDBRootPath();
+    }
+
+    @Override
+    public void configure(Properties conf) throws Exception {
+        String nonce = conf.getProperty("nonce");
+        if (nonce == null) {
+            throw new IllegalArgumentException("ParquetExport: must provide a filename nonce");
+        }
+        String dir = conf.getProperty("outdir");
+        if (dir == null || dir.length() == 0) {
+            dir = getVoltDBRootPath() + File.separator + "parquet_export";
+        }
+        File outdir = new VoltFile(dir);
+        if (!outdir.isAbsolute()) {
+            outdir = new File(getVoltDBRootPath(), outdir.getPath());
+        }
+        if (!outdir.exists()) {
+            if (!outdir.mkdir()) {
+                throw new IllegalArgumentException("Error: " + outdir.getPath() + " cannot be created");
+            }
+        }
+        if (!outdir.canRead() || !outdir.canWrite() || !outdir.canExecute()) {
+            throw new IllegalArgumentException("Error: " + outdir.getPath() +
+                    " must have read, write and execute permission set");
+        }
+
+        int period = Integer.parseInt(conf.getProperty("period", "60"));
+        if (period < 1) {
+            throw new IllegalArgumentException("Error: Specified value for period must be >= 1.");
+        }
+        int rollsize = Integer.parseInt(conf.getProperty("rollsize", "128"));
+        if (rollsize < 1) {
+            throw new IllegalArgumentException("Error: Specified value for rollsize must be >= 1.");
+        }
+        ParquetFileWriter.Codec codec;
+        String compression = conf.getProperty("compression", "snappy").trim().toUpperCase();
+        try {
+            codec = "NONE".equals(compression) ?
+                    ParquetFileWriter.Codec.UNCOMPRESSED : ParquetFileWriter.Codec.valueOf(compression);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Error: compression must be one of NONE, SNAPPY or GZIP");
+        }
+        boolean skipinternal = Boolean.parseBoolean(conf.getProperty("skipinternals", "false"));
+        TimeZone tz = TimeZone.getTimeZone(conf.getProperty("timezone", VoltDB.GMT_TIMEZONE.getID()));
+
+        //Dont do actual config in check mode.
+        boolean configcheck = Boolean.parseBoolean(conf.getProperty(ExportManager.CONFIG_CHECK_ONLY, "false"));
+        if (configcheck) {
+            return;
+        }
+        setRunEverywhere(Boolean.parseBoolean(conf.getProperty("replicated", "false")));
+
+        m_nonce = nonce;
+        m_outDir = outdir;
+        m_period = period;
+        m_rollBytes = rollsize * 1024L * 1024L;
+        m_codec = codec;
+        m_skipinternal = skipinternal;
+        m_timeZone = tz;
+
+        // Files are rolled by age, check them every time unit
+        m_scheduledFileRotatorService =
+                CoreUtils.getScheduledThreadPoolExecutor(
+                        "Export parquet rotate timer for nonce " + nonce, 1, CoreUtils.SMALL_STACK_SIZE);
+        m_scheduledFileRotatorService.scheduleWithFixedDelay(() -> {
+            try {
+                final long now = System.currentTimeMillis();
+                for (ParquetExportDecoder decoder : m_decoders) {
+                    decoder.rollIfDue(now);
+                }
+            } catch (Throwable t) {
+                m_logger.warn("Failed to roll file periodically.", t);
+            }
+        }, 1, 1, TIME_PERIOD_UNIT);
+    }
+}
@@ -19,7 +19,6 @@ package org.voltdb.exportclient;
 
 import java.util.Properties;
 
-import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
 import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.export.ExportManagerInterface.ExportMode;
@@ -43,8 +42,7 @@ public class RejectingExportClient extends ExportClientBase {
         public DiscardDecoder(AdvertisedDataSource source) {
             super(source);
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                m_es = CoreUtils.getListeningSingleThreadExecutor(
-                        "Kafka Export decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
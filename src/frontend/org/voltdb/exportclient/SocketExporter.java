@@ -45,12 +45,32 @@ import org.voltdb.exportclient.decode.CSVStringDecoder;
 import com.google_voltpatches.common.net.HostAndPort;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 
+/**
+ * Export client writing the rows of each stream partition to one or more sockets.
+ * <p>
+ * By default every row is written as a line of CSV. With {@code passthrough}
+ * set, rows are not decoded: each block is written as the serialized rows of
+ * the export buffer, preceded by the schema of the stream whenever it changes
+ * on the connection. Frames start with a one byte type, framing integers and
+ * the schema are big endian while the rows keep the little endian export
+ * encoding, metadata columns included:
+ * <pre>
+ *   'S' int length, serialized {@link ExportRowSchema}
+ *   'R' int row count, int length, rows as [int length][int partition column]
+ *       [int column count][null bits][values]
+ *   'B' end of block, sent with {@code syncblocks} and acknowledged by the target
+ * </pre>
+ */
 public class SocketExporter extends ExportClientBase {
 
     private static final VoltLogger m_logger = new VoltLogger("ExportClient");
 
     public static final String SYNC_BLOCK_PROP = "syncblocks";
     public static final String SYNC_BLOCK_MSG = "__SYNC_BLOCK__";
+    public static final String PASSTHROUGH_PROP = "passthrough";
+    public static final byte SCHEMA_FRAME = 'S';
+    public static final byte ROWS_FRAME = 'R';
+    public static final byte SYNC_BLOCK_FRAME = 'B';
     private static final byte[] SYNC_BLOCK_BYTES;
     static {
         byte[] bytes = null;
@@ -66,6 +86,7 @@ public class SocketExporter extends ExportClientBase {
     ExportDecoderBase.BinaryEncoding m_binaryEncoding = ExportDecoderBase.BinaryEncoding.HEX;
     private String[] serverArray;
     private boolean m_syncBlocks;
+    private boolean m_passthrough;
 
     @Override
     public void configure(Properties config) throws Exception {
@@ -78,6 +99,7 @@ public class SocketExporter extends ExportClientBase {
             m_timeZone = TimeZone.getTimeZone(timeZoneID);
         }
         m_syncBlocks = Boolean.parseBoolean(config.getProperty(SYNC_BLOCK_PROP));
+        m_passthrough = Boolean.parseBoolean(config.getProperty(PASSTHROUGH_PROP));
 
         //Dont do actual config in check mode.
         boolean configcheck = Boolean.parseBoolean(config.getProperty(ExportManager.CONFIG_CHECK_ONLY, "false"));
@@ -115,6 +137,10 @@ public class SocketExporter extends ExportClientBase {
         long timerStart = 0;
         final CSVStringDecoder m_decoder;
         final Map<HostAndPort, Pair<OutputStream, InputStream>> haplist = new HashMap<HostAndPort, Pair<OutputStream, InputStream>>();
+        // Generation of the schema last sent on the current connections
+        private long m_sentGeneration = Long.MIN_VALUE;
+        private final ByteBuffer m_frameHeader = ByteBuffer.allocate(9);
+        private byte[] m_rowBytes = new byte[0];
 
         @Override
         public ListeningExecutorService getExecutor() {
@@ -158,6 +184,17 @@ public class SocketExporter extends ExportClientBase {
                 }
                 haplist.put(hap, connectToOneServer(hap.getHost(), port));
             }
+            m_sentGeneration = Long.MIN_VALUE;
+        }
+
+        private void ensureConnected() throws IOException, RestartBlockException {
+            if (haplist.isEmpty()) {
+                connect();
+            }
+            if (haplist.isEmpty()) {
+                m_logger.rateLimitedLog(120, Level.ERROR, null, "Failed to connect to export socket endpoint %s, some servers may be down.", host);
+                throw new RestartBlockException(true);
+            }
         }
 
         @Override
@@ -189,13 +226,7 @@ public class SocketExporter extends ExportClientBase {
         @Override
         public boolean processRow(ExportRow rd) throws ExportDecoderBase.RestartBlockException {
             try {
-                if (haplist.isEmpty()) {
-                    connect();
-                }
-                if (haplist.isEmpty()) {
-                    m_logger.rateLimitedLog(120, Level.ERROR, null, "Failed to connect to export socket endpoint %s, some servers may be down.", host);
-                    throw new RestartBlockException(true);
-                }
+                ensureConnected();
                 if (m_logger.isDebugEnabled()) {
                     m_logger.debug(m_source.tableName + ":P" + m_source.partitionId + " sending seqNum: " + rd.values[2]);
                 }
@@ -217,12 +248,82 @@ public class SocketExporter extends ExportClientBase {
             return true;
         }
 
+        /**
+         * In pass-through mode the rows of the block are written as they were
+         * serialized, only their headers are read.
+         */
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            if (!m_passthrough) {
+                super.processRows(rows);
+                return;
+            }
+            int start = -1;
+            int end = -1;
+            int rowCount = 0;
+            while (rows.advanceRaw()) {
+                if (start < 0) {
+                    start = rows.rawRowOffset();
+                }
+                end = rows.rawRowEnd();
+                rowCount++;
+            }
+            // The cursor stops at a corrupt row, the rows before it are sent like
+            // processRow() would and the processor discards the rest of the block
+            if (rowCount == 0) {
+                return;
+            }
+            try {
+                ensureConnected();
+                if (m_sentGeneration != rows.generation()) {
+                    final ExportRowSchema schema = getExportRowSchema();
+                    final ByteBuffer buf = ByteBuffer.allocate(5 + schema.getSerializedSize());
+                    buf.put(SCHEMA_FRAME).putInt(schema.getSerializedSize());
+                    schema.serialize(buf);
+                    writeToAll(buf.array(), 0, buf.position());
+                    m_sentGeneration = rows.generation();
+                }
+                final int length = end - start;
+                m_frameHeader.clear();
+                m_frameHeader.put(ROWS_FRAME).putInt(rowCount).putInt(length);
+                writeToAll(m_frameHeader.array(), 0, m_frameHeader.position());
+                final ByteBuffer block = rows.block();
+                if (block.hasArray()) {
+                    writeToAll(block.array(), block.arrayOffset() + start, length);
+                } else {
+                    if (m_rowBytes.length < length) {
+                        m_rowBytes = new byte[length];
+                    }
+                    final ByteBuffer dup = block.duplicate();
+                    dup.position(start);
+                    dup.get(m_rowBytes, 0, length);
+                    writeToAll(m_rowBytes, 0, length);
+                }
+            } catch (RestartBlockException e) {
+                throw e;
+            } catch (Exception e) {
+                m_logger.warn("Unexpected error processing rows: " + e.getLocalizedMessage() + ". Rows will be retried.");
+                haplist.clear();
+                throw new RestartBlockException(true);
+            }
+        }
+
+        private void writeToAll(byte[] bytes, int offset, int length) throws IOException {
+            for (Pair<OutputStream, InputStream> streams : haplist.values()) {
+                streams.getFirst().write(bytes, offset, length);
+            }
+        }
+
         @Override
         public void onBlockCompletion(ExportRow row) throws RestartBlockException {
             try {
                 for (Pair<OutputStream, InputStream> streams : haplist.values()) {
                     if (m_syncBlocks) {
-                        streams.getFirst().write(SYNC_BLOCK_BYTES);
+                        if (m_passthrough) {
+                            streams.getFirst().write(SYNC_BLOCK_FRAME);
+                        } else {
+                            streams.getFirst().write(SYNC_BLOCK_BYTES);
+                        }
                     }
                     streams.getFirst().flush();
                     if (m_syncBlocks) { // wait for the other side to tell us it got the block
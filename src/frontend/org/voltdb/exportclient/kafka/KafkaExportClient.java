@@ -40,8 +40,8 @@ import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.hsqldb_voltpatches.lib.StringUtil;
-import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
+import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.export.ExportDataProcessor;
@@ -51,6 +51,8 @@ import org.voltdb.exportclient.ExportClientLogger;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowCursor;
+import org.voltdb.exportclient.ExportWorkerPool;
 import org.voltdb.exportclient.decode.AvroDecoder;
 import org.voltdb.exportclient.decode.CSVStringDecoder;
 import org.voltdb.serdes.EncodeFormat;
@@ -317,6 +319,17 @@ public class KafkaExportClient extends ExportClientBase {
         CSVStringDecoder m_csvDecoder;
         final List<Future<RecordMetadata>> m_futures = new ArrayList<>();
         private final AtomicBoolean m_failure = new AtomicBoolean(false);
+        // One callback serves every send, it only flags the failure for onBlockCompletion
+        private final Callback m_sendCallback = new Callback() {
+            @Override
+            public void onCompletion(RecordMetadata metadata, Exception e) {
+                if (e != null){
+                    LOG.warn("Failed to send data. Verify if the kafka server matches bootstrap.servers %s", e,
+                            m_decoderProducerConfig.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+                    m_failure.compareAndSet(false, true);
+                }
+            }
+        };
         final ListeningExecutorService m_es;
         private volatile boolean m_primed = false;
         private volatile boolean m_paused = false;;
@@ -338,9 +351,7 @@ public class KafkaExportClient extends ExportClientBase {
             }
 
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                m_es = CoreUtils.getListeningSingleThreadExecutor(
-                        "Kafka Export decoder for partition " +
-                                source.tableName + " - " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
@@ -438,37 +449,42 @@ public class KafkaExportClient extends ExportClientBase {
         @Override
         public boolean processRow(ExportRow rd) throws RestartBlockException {
             checkOnFirstRow();
+            sendRow(rd.generation, rd.tableName, rd.types, rd.names, rd.values, rd.partitionValue, rd.partitionId);
+            return true;
+        }
+
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            checkOnFirstRow();
+            while (rows.advance()) {
+                sendRow(rows.generation(), rows.tableName(), rows.types(), rows.names(), rows.values(),
+                        rows.partitionValue(), rows.partitionId());
+            }
+        }
+
+        private void sendRow(long generation, String tableName, List<VoltType> types, List<String> names,
+                Object[] values, Object partitionValue, int partitionId) throws RestartBlockException {
             //Use partition value by default if its null use partition id.
             //partition value will be null only if partition column is overridden table.column and is nullable
-            String pval = (rd.partitionValue == null) ? String.valueOf(rd.partitionId) : rd.partitionValue.toString();
+            String pval = (partitionValue == null) ? String.valueOf(partitionId) : partitionValue.toString();
             ProducerRecord<String, Object> krec;
             if (m_encodeFormat == EncodeFormat.AVRO) {
-                AvroDecoder decoder = m_tableAvroDecoderMap.computeIfAbsent(rd.tableName, k -> new AvroDecoder.Builder().build());
-                GenericRecord avroRecord = decoder.decode(rd.generation, rd.tableName, rd.types, rd.names, null, rd.values);
+                AvroDecoder decoder = m_tableAvroDecoderMap.computeIfAbsent(tableName, k -> new AvroDecoder.Builder().build());
+                GenericRecord avroRecord = decoder.decode(generation, tableName, types, names, null, values);
                 krec = new ProducerRecord<>(m_topic, pval, avroRecord);
             } else {
-                String decoded = m_csvDecoder.decode(rd.generation, rd.tableName, rd.types, rd.names, null, rd.values);
+                String decoded = m_csvDecoder.decode(generation, tableName, types, names, null, values);
                 krec = new ProducerRecord<>(m_topic, pval, decoded);
             }
 
             try {
-                m_futures.add(m_producer.send(krec, new Callback() {
-                    @Override
-                    public void onCompletion(RecordMetadata metadata, Exception e) {
-                        if (e != null){
-                            LOG.warn("Failed to send data. Verify if the kafka server matches bootstrap.servers %s", e,
-                                    m_decoderProducerConfig.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
-                            m_failure.compareAndSet(false, true);
-                        }
-                    }
-                }));
+                m_futures.add(m_producer.send(krec, m_sendCallback));
             } catch (KafkaException e) {
                 LOG.warn("Unable to send %s", e, krec);
                 throw new RestartBlockException("Unable to send message", e, true);
             } catch(IllegalStateException e) { // thrown if a catalog update closes the producer through pause()
                 throw new RestartBlockException("IllegalStateException, possibly because kafka producer was closed", e, false);
             }
-            return true;
         }
 
         @Override
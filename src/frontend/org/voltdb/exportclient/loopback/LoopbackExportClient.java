@@ -27,8 +27,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -38,11 +40,11 @@ import java.util.function.Predicate;
 
 import org.aeonbits.owner.Accessible;
 import org.aeonbits.owner.ConfigFactory;
-import org.voltcore.utils.CoreUtils;
 import org.voltdb.AuthSystem.AuthUser;
 import org.voltdb.InternalConnectionHandler;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltDBInterface;
+import org.voltdb.VoltType;
 import org.voltdb.client.BatchTimeoutOverrideType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
@@ -53,6 +55,9 @@ import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportClientLogger;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowCursor;
+import org.voltdb.exportclient.ExportRowParameterEncoder;
+import org.voltdb.exportclient.ExportWorkerPool;
 import org.voltdb.exportclient.decode.CSVWriterDecoder;
 
 import com.google_voltpatches.common.base.Supplier;
@@ -69,6 +74,7 @@ public class LoopbackExportClient extends ExportClientBase {
     private String m_failureLog;
     private File m_rejectedDH;
     private boolean m_skipInternals = true;
+    private boolean m_passthrough = false;
 
     public LoopbackExportClient() {
     }
@@ -77,6 +83,7 @@ public class LoopbackExportClient extends ExportClientBase {
         final static String PROCEDURE = "procedure";
         final static String FAILURE_LOG_FILE = "failurelogfile";
         final static String SKIP_INTERNALS = "skipinternals";
+        final static String PASSTHROUGH = "passthrough";
 
         @Key(PROCEDURE)
         public String getProcedureName();
@@ -87,6 +94,9 @@ public class LoopbackExportClient extends ExportClientBase {
         @Key(FAILURE_LOG_FILE)
         public String getFailureLogFile();
 
+        @Key(PASSTHROUGH)
+        public String getPassthrough();
+
         public static Config create(Map<?, ?>... imports) {
             return ConfigFactory.create(Config.class, imports);
         }
@@ -106,6 +116,7 @@ public class LoopbackExportClient extends ExportClientBase {
         if (skipVal != null && !skipVal.isEmpty()) {
             m_skipInternals = Boolean.parseBoolean(skipVal);
         }
+        m_passthrough = Boolean.parseBoolean(config.getPassthrough());
 
         m_failureLog = config.getFailureLogFile();
         if (m_failureLog != null && m_failureLog.trim().length() > 0) {
@@ -145,6 +156,7 @@ public class LoopbackExportClient extends ExportClientBase {
         private final AuthUser m_user;
         private final InternalConnectionHandler m_invoker;
         private final Predicate<Integer> m_shouldContinue;
+        private final ExportRowParameterEncoder m_paramEncoder = new ExportRowParameterEncoder();
 
         private BitSet m_failed = new BitSet(0);
         private BitSet m_resubmit = new BitSet(0);
@@ -191,8 +203,7 @@ public class LoopbackExportClient extends ExportClientBase {
             ;
             m_csvWriterDecoder = builder.build();
             if (VoltDB.getExportManager().getExportMode() == ExportMode.BASIC) {
-                m_es = CoreUtils.getListeningSingleThreadExecutor(
-                        "Loopback Export decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+                m_es = ExportWorkerPool.newSerialExecutor(source.tableName, source.partitionId);
             } else {
                 m_es = null;
             }
@@ -268,13 +279,7 @@ public class LoopbackExportClient extends ExportClientBase {
                 return true;
             }
             if (m_restarted && !m_resubmit.get(bix) && m_rejs != null) {
-                try {
-                    m_csvWriterDecoder.decode(rd.generation, rd.tableName, rd.types, rd.names, m_rejs.get(), rd.values);
-                } catch (IOException e) {
-                    LOG.error("failed to write failed invocation to rejected file", e);
-                    return false;
-                }
-                return true;
+                return writeRejected(rd.generation, rd.tableName, rd.types, rd.names, rd.values);
             }
             int firstFieldOffset = m_skipInternals ? INTERNAL_FIELD_COUNT : 0;
             LoopbackCallback cb = m_ctx.createCallback(bix);
@@ -290,6 +295,56 @@ public class LoopbackExportClient extends ExportClientBase {
             return true;
         }
 
+        /**
+         * In pass-through mode the procedure parameters are transcoded from the
+         * serialized rows of the block, rows are only decoded to be written to
+         * the rejected file.
+         */
+        @Override
+        public void processRows(ExportRowCursor rows) throws RestartBlockException {
+            if (!m_passthrough) {
+                super.processRows(rows);
+                return;
+            }
+            final int firstFieldOffset = m_skipInternals ? INTERNAL_FIELD_COUNT : 0;
+            while (rows.advanceRaw()) {
+                final int bix = m_ctx.recs++;
+                if (m_restarted && !m_failed.get(bix)) {
+                    continue;
+                }
+                if (m_restarted && !m_resubmit.get(bix) && m_rejs != null) {
+                    writeRejected(rows.generation(), rows.tableName(), rows.types(), rows.names(), rows.values());
+                    continue;
+                }
+                final ByteBuffer params;
+                try {
+                    params = m_paramEncoder.encode(rows, firstFieldOffset);
+                } catch (IOException e) {
+                    LOG.error("failed to transcode export row for procedure " + m_procedure, e);
+                    continue;
+                }
+                LoopbackCallback cb = m_ctx.createCallback(bix);
+                if (m_invoker.callProcedureWithSerializedParams(m_user, false,
+                        BatchTimeoutOverrideType.NO_TIMEOUT,
+                        cb, false, m_shouldContinue, m_procedure, params)) {
+                    m_ctx.m_outstandingTransactions.getAndIncrement();
+                } else {
+                    LOG.error("failed to Invoke procedure: " + m_procedure);
+                }
+            }
+        }
+
+        private boolean writeRejected(long generation, String tableName, List<VoltType> types, List<String> names,
+                Object[] values) {
+            try {
+                m_csvWriterDecoder.decode(generation, tableName, types, names, m_rejs.get(), values);
+            } catch (IOException e) {
+                LOG.error("failed to write failed invocation to rejected file", e);
+                return false;
+            }
+            return true;
+        }
+
         @Override
         public void sourceNoLongerAdvertised(AdvertisedDataSource source) {
             if (m_wrote && m_rejs != null) {
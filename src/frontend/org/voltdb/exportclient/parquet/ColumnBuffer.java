@@ -0,0 +1,362 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient.parquet;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.TimestampType;
+import org.voltdb.types.VoltDecimalHelper;
+
+/**
+ * Values of one column for the row group being built. Every column is an
+ * optional Parquet field: definition levels record which rows are null and only
+ * the non null values are encoded, straight into their PLAIN representation or,
+ * for strings, into a dictionary.
+ */
+abstract class ColumnBuffer {
+
+    // Parquet physical types
+    static final int INT32 = 1;
+    static final int INT64 = 2;
+    static final int DOUBLE = 5;
+    static final int BYTE_ARRAY = 6;
+    static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+    // Parquet converted types
+    static final int NO_CONVERTED_TYPE = -1;
+    static final int UTF8 = 0;
+    static final int DECIMAL = 5;
+    static final int TIMESTAMP_MICROS = 10;
+    static final int INT_8 = 15;
+    static final int INT_16 = 16;
+
+    // Parquet encodings
+    static final int PLAIN = 0;
+    static final int PLAIN_DICTIONARY = 2;
+    static final int RLE = 3;
+
+    static final int DECIMAL_LENGTH = 16;
+
+    final String m_name;
+    final int m_physicalType;
+    final int m_convertedType;
+
+    private int[] m_levels = new int[1024];
+    private int m_count = 0;
+    private int m_nullCount = 0;
+    final EncodingBuffer m_values = new EncodingBuffer();
+
+    ColumnBuffer(String name, int physicalType, int convertedType) {
+        m_name = name;
+        m_physicalType = physicalType;
+        m_convertedType = convertedType;
+    }
+
+    static ColumnBuffer create(String name, VoltType type) {
+        switch (type) {
+        case TINYINT:
+            return new Int32Column(name, INT_8);
+        case SMALLINT:
+            return new Int32Column(name, INT_16);
+        case INTEGER:
+            return new Int32Column(name, NO_CONVERTED_TYPE);
+        case BIGINT:
+            return new Int64Column(name);
+        case TIMESTAMP:
+            return new TimestampColumn(name);
+        case FLOAT:
+            return new DoubleColumn(name);
+        case STRING:
+            return new StringColumn(name);
+        case VARBINARY:
+            return new BinaryColumn(name);
+        case DECIMAL:
+            return new DecimalColumn(name);
+        case GEOGRAPHY:
+        case GEOGRAPHY_POINT:
+            return new WktColumn(name);
+        default:
+            throw new IllegalArgumentException("Unsupported column type " + type + " for column " + name);
+        }
+    }
+
+    final void append(Object value) {
+        if (m_count == m_levels.length) {
+            m_levels = Arrays.copyOf(m_levels, m_count * 2);
+        }
+        if (value == null) {
+            m_levels[m_count++] = 0;
+            m_nullCount++;
+        } else {
+            m_levels[m_count++] = 1;
+            appendValue(value);
+        }
+    }
+
+    abstract void appendValue(Object value);
+
+    int count() {
+        return m_count;
+    }
+
+    int nullCount() {
+        return m_nullCount;
+    }
+
+    void clear() {
+        m_count = 0;
+        m_nullCount = 0;
+        m_values.clear();
+    }
+
+    /**
+     * @return an estimate of the encoded size of the buffered values
+     */
+    long bufferedBytes() {
+        return m_values.size() + m_count / 8;
+    }
+
+    void writeDefinitionLevels(EncodingBuffer out) {
+        out.writeHybrid(m_levels, m_count, 1);
+    }
+
+    /**
+     * @return true if the values are written as dictionary indices, decided once
+     *         all the rows of the row group have been appended
+     */
+    boolean isDictionaryEncoded() {
+        return false;
+    }
+
+    void writeDictionary(EncodingBuffer out) {
+        throw new UnsupportedOperationException();
+    }
+
+    int dictionarySize() {
+        return 0;
+    }
+
+    void writeValues(EncodingBuffer out) {
+        out.write(m_values);
+    }
+
+    int typeLength() {
+        return 0;
+    }
+
+    static final class Int32Column extends ColumnBuffer {
+        Int32Column(String name, int convertedType) {
+            super(name, INT32, convertedType);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            m_values.writeIntLE(((Number) value).intValue());
+        }
+    }
+
+    static final class Int64Column extends ColumnBuffer {
+        Int64Column(String name) {
+            super(name, INT64, NO_CONVERTED_TYPE);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            m_values.writeLongLE(((Number) value).longValue());
+        }
+    }
+
+    static final class TimestampColumn extends ColumnBuffer {
+        TimestampColumn(String name) {
+            super(name, INT64, TIMESTAMP_MICROS);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            m_values.writeLongLE(((TimestampType) value).getTime());
+        }
+    }
+
+    static final class DoubleColumn extends ColumnBuffer {
+        DoubleColumn(String name) {
+            super(name, DOUBLE, NO_CONVERTED_TYPE);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            m_values.writeLongLE(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+    }
+
+    static class BinaryColumn extends ColumnBuffer {
+        BinaryColumn(String name) {
+            this(name, NO_CONVERTED_TYPE);
+        }
+
+        BinaryColumn(String name, int convertedType) {
+            super(name, BYTE_ARRAY, convertedType);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            appendBytes((byte[]) value);
+        }
+
+        final void appendBytes(byte[] bytes) {
+            m_values.writeIntLE(bytes.length);
+            m_values.write(bytes);
+        }
+    }
+
+    static final class WktColumn extends BinaryColumn {
+        WktColumn(String name) {
+            super(name, UTF8);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            final String wkt = value instanceof GeographyValue ?
+                    ((GeographyValue) value).toWKT() : ((GeographyPointValue) value).toWKT();
+            appendBytes(wkt.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * VoltDB decimals as 16 byte big endian two's complement unscaled values
+     */
+    static final class DecimalColumn extends ColumnBuffer {
+        private final byte[] m_scratch = new byte[DECIMAL_LENGTH];
+
+        DecimalColumn(String name) {
+            super(name, FIXED_LEN_BYTE_ARRAY, DECIMAL);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            final byte[] unscaled = ((BigDecimal) value).setScale(VoltDecimalHelper.kDefaultScale,
+                    RoundingMode.HALF_UP).unscaledValue().toByteArray();
+            final int pad = DECIMAL_LENGTH - unscaled.length;
+            Arrays.fill(m_scratch, 0, pad, unscaled[0] < 0 ? (byte) -1 : 0);
+            System.arraycopy(unscaled, 0, m_scratch, pad, unscaled.length);
+            m_values.write(m_scratch);
+        }
+
+        @Override
+        int typeLength() {
+            return DECIMAL_LENGTH;
+        }
+    }
+
+    /**
+     * Strings are dictionary encoded as they are appended. Distinct values are
+     * kept in PLAIN form so that the row group can fall back to PLAIN encoding,
+     * without encoding the strings again, when the dictionary would not be
+     * smaller.
+     */
+    static final class StringColumn extends ColumnBuffer {
+        private final HashMap<String, Integer> m_dictionary = new HashMap<>();
+        // Offset of every distinct value in m_values, plus the end offset
+        private int[] m_offsets = new int[] { 0 };
+        private int[] m_indices = new int[1024];
+        private int m_indexCount = 0;
+        private long m_plainBytes = 0;
+
+        StringColumn(String name) {
+            super(name, BYTE_ARRAY, UTF8);
+        }
+
+        @Override
+        void appendValue(Object value) {
+            Integer index = m_dictionary.get(value);
+            if (index == null) {
+                index = m_dictionary.size();
+                m_dictionary.put((String) value, index);
+                final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                m_values.writeIntLE(bytes.length);
+                m_values.write(bytes);
+                if (index + 1 == m_offsets.length) {
+                    m_offsets = Arrays.copyOf(m_offsets, m_offsets.length * 2);
+                }
+                m_offsets[index + 1] = m_values.size();
+            }
+            if (m_indexCount == m_indices.length) {
+                m_indices = Arrays.copyOf(m_indices, m_indexCount * 2);
+            }
+            m_indices[m_indexCount++] = index;
+            m_plainBytes += m_offsets[index + 1] - m_offsets[index];
+        }
+
+        private int indexBitWidth() {
+            return EncodingBuffer.bitWidth(m_dictionary.size() - 1);
+        }
+
+        @Override
+        boolean isDictionaryEncoded() {
+            if (m_dictionary.isEmpty()) {
+                return false;
+            }
+            final long indexBytes = 1 + ((long) m_indexCount * indexBitWidth() + 7) / 8;
+            return m_values.size() + indexBytes < m_plainBytes;
+        }
+
+        @Override
+        int dictionarySize() {
+            return m_dictionary.size();
+        }
+
+        @Override
+        void writeDictionary(EncodingBuffer out) {
+            out.write(m_values);
+        }
+
+        @Override
+        void writeValues(EncodingBuffer out) {
+            if (isDictionaryEncoded()) {
+                final int bitWidth = indexBitWidth();
+                out.write(bitWidth);
+                out.writeHybrid(m_indices, m_indexCount, bitWidth);
+            } else {
+                final byte[] dictionary = m_values.array();
+                for (int i = 0; i < m_indexCount; i++) {
+                    final int index = m_indices[i];
+                    out.write(dictionary, m_offsets[index], m_offsets[index + 1] - m_offsets[index]);
+                }
+            }
+        }
+
+        @Override
+        long bufferedBytes() {
+            return m_plainBytes + count() / 8;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            m_dictionary.clear();
+            m_indexCount = 0;
+            m_plainBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient.parquet;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte array with the little endian, varint and RLE/bit-packed hybrid
+ * encodings used by Parquet pages. Not thread safe.
+ */
+final class EncodingBuffer {
+
+    private byte[] m_buf;
+    private int m_size = 0;
+
+    EncodingBuffer() {
+        this(1024);
+    }
+
+    EncodingBuffer(int capacity) {
+        m_buf = new byte[capacity];
+    }
+
+    private void ensure(int extra) {
+        if (m_size + extra > m_buf.length) {
+            m_buf = Arrays.copyOf(m_buf, Math.max(m_buf.length * 2, m_size + extra));
+        }
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    byte[] array() {
+        return m_buf;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(m_buf, m_size);
+    }
+
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(m_buf, 0, m_size);
+    }
+
+    void clear() {
+        m_size = 0;
+    }
+
+    void write(int b) {
+        ensure(1);
+        m_buf[m_size++] = (byte) b;
+    }
+
+    void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    void write(byte[] b, int offset, int length) {
+        ensure(length);
+        System.arraycopy(b, offset, m_buf, m_size, length);
+        m_size += length;
+    }
+
+    void write(EncodingBuffer other) {
+        write(other.m_buf, 0, other.m_size);
+    }
+
+    void writeIntLE(int v) {
+        ensure(4);
+        m_buf[m_size++] = (byte) v;
+        m_buf[m_size++] = (byte) (v >>> 8);
+        m_buf[m_size++] = (byte) (v >>> 16);
+        m_buf[m_size++] = (byte) (v >>> 24);
+    }
+
+    void writeLongLE(long v) {
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            m_buf[m_size++] = (byte) (v >>> (i * 8));
+        }
+    }
+
+    void writeUnsignedVarInt(long v) {
+        while ((v & ~0x7FL) != 0) {
+            write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        write((int) v);
+    }
+
+    /**
+     * Encode values with the RLE/bit-packed hybrid encoding. Runs of at least
+     * eight equal values become RLE runs, everything else is bit-packed in
+     * groups of eight, the last group being padded with zeros.
+     */
+    void writeHybrid(int[] values, int count, int bitWidth) {
+        int packedStart = -1;
+        int i = 0;
+        while (i < count) {
+            int run = 1;
+            while (i + run < count && values[i + run] == values[i]) {
+                run++;
+            }
+            if (run >= 8) {
+                if (packedStart >= 0) {
+                    writeBitPacked(values, packedStart, i, bitWidth);
+                    packedStart = -1;
+                }
+                writeUnsignedVarInt(((long) run) << 1);
+                final int value = values[i];
+                for (int b = 0; b < bitWidth; b += 8) {
+                    write(value >>> b);
+                }
+                i += run;
+            } else {
+                if (packedStart < 0) {
+                    packedStart = i;
+                }
+                i = Math.min(i + 8, count);
+            }
+        }
+        if (packedStart >= 0) {
+            writeBitPacked(values, packedStart, count, bitWidth);
+        }
+    }
+
+    private void writeBitPacked(int[] values, int from, int to, int bitWidth) {
+        final int groups = (to - from + 7) / 8;
+        writeUnsignedVarInt(((long) groups << 1) | 1);
+        final long mask = (1L << bitWidth) - 1;
+        long acc = 0;
+        int bits = 0;
+        for (int i = from; i < from + groups * 8; i++) {
+            final long v = i < to ? values[i] & mask : 0;
+            acc |= v << bits;
+            bits += bitWidth;
+            while (bits >= 8) {
+                write((int) acc);
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+    }
+
+    static int bitWidth(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+}
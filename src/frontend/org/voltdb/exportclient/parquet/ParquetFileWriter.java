@@ -0,0 +1,516 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.voltdb.VoltType;
+import org.voltdb.types.VoltDecimalHelper;
+import org.xerial.snappy.Snappy;
+
+/**
+ * Writes rows of a VoltDB table to a Parquet file, one row group at a time.
+ * <p>
+ * Rows are appended column by column into {@link ColumnBuffer}s and written out
+ * by {@link #writeRowGroup()} as one column chunk per column, each holding an
+ * optional dictionary page and a single V1 data page. The file footer, which
+ * lists every row group, is written once by {@link #close()}. Until then the
+ * schema and the metadata of every row group are also appended to an index file
+ * next to the data file, and both are forced to disk when a row group is written,
+ * so that {@link #recover(File)} can write the footer of a file whose writer did
+ * not close it. If writing a row group fails both files are truncated back to the
+ * end of the previous row group and the rows stay buffered.
+ * <p>
+ * Not thread safe.
+ */
+public class ParquetFileWriter implements Closeable {
+
+    public static final String INDEX_SUFFIX = ".index";
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CREATED_BY = "VoltDB export";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int OPTIONAL = 1;
+    private static final int DATA_PAGE = 0;
+    private static final int DICTIONARY_PAGE = 2;
+
+    public enum Codec {
+        UNCOMPRESSED(0),
+        SNAPPY(1),
+        GZIP(2);
+
+        final int m_id;
+
+        Codec(int id) {
+            m_id = id;
+        }
+
+        byte[] compress(EncodingBuffer page) throws IOException {
+            switch (this) {
+            case SNAPPY: {
+                byte[] out = new byte[Snappy.maxCompressedLength(page.size())];
+                int length = Snappy.compress(page.array(), 0, page.size(), out, 0);
+                return Arrays.copyOf(out, length);
+            }
+            case GZIP: {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(page.size() / 2 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(page.array(), 0, page.size());
+                }
+                return out.toByteArray();
+            }
+            default:
+                return page.toByteArray();
+            }
+        }
+    }
+
+    private final File m_file;
+    private final File m_indexFile;
+    private final FileChannel m_channel;
+    private FileChannel m_indexChannel;
+    private final Codec m_codec;
+    private final int m_firstColumn;
+    private final ColumnBuffer[] m_columns;
+    // Encoded SchemaElement structs, the root element first
+    private final byte[] m_schema;
+
+    // Encoded RowGroup structs of the row groups already in the file
+    private final List<byte[]> m_rowGroups = new ArrayList<>();
+    private long m_rowCount = 0;
+    private int m_bufferedRows = 0;
+    // End of the last row group, which is where the next row group or the footer goes
+    private long m_dataEnd;
+    private long m_indexEnd;
+
+    private final EncodingBuffer m_page = new EncodingBuffer(64 * 1024);
+    private final EncodingBuffer m_chunks = new EncodingBuffer(64 * 1024);
+
+    /**
+     * Create the file and its index, replacing any existing files, and write their headers.
+     *
+     * @param file file to write
+     * @param names column names
+     * @param types column types
+     * @param firstColumn index of the first column to write, used to skip the export metadata columns
+     * @param codec compression of the pages
+     */
+    public ParquetFileWriter(File file, List<String> names, List<VoltType> types, int firstColumn, Codec codec)
+            throws IOException {
+        m_file = file;
+        m_indexFile = indexFile(file);
+        m_codec = codec;
+        m_firstColumn = firstColumn;
+        m_columns = new ColumnBuffer[names.size() - firstColumn];
+        for (int i = 0; i < m_columns.length; i++) {
+            m_columns[i] = ColumnBuffer.create(names.get(firstColumn + i), types.get(firstColumn + i));
+        }
+        m_schema = buildSchema();
+        m_channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFully(m_channel, ByteBuffer.wrap(MAGIC), 0);
+            m_dataEnd = MAGIC.length;
+            m_indexChannel = FileChannel.open(m_indexFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            EncodingBuffer header = new EncodingBuffer(8 + m_schema.length);
+            header.writeIntLE(m_columns.length + 1);
+            header.writeIntLE(m_schema.length);
+            header.write(m_schema);
+            writeFully(m_indexChannel, header.asByteBuffer(), 0);
+            m_indexEnd = header.size();
+            m_channel.force(false);
+            m_indexChannel.force(false);
+        } catch (IOException e) {
+            m_channel.close();
+            if (m_indexChannel != null) {
+                m_indexChannel.close();
+            }
+            throw e;
+        }
+    }
+
+    static File indexFile(File file) {
+        return new File(file.getPath() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Buffer a row for the next row group.
+     *
+     * @param values all the values of the row, including the skipped leading columns
+     */
+    public void append(Object[] values) {
+        for (int i = 0; i < m_columns.length; i++) {
+            m_columns[i].append(values[m_firstColumn + i]);
+        }
+        m_bufferedRows++;
+    }
+
+    public int getBufferedRowCount() {
+        return m_bufferedRows;
+    }
+
+    /**
+     * @return an estimate of the encoded size of the buffered rows
+     */
+    public long getBufferedBytes() {
+        long bytes = 0;
+        for (ColumnBuffer column : m_columns) {
+            bytes += column.bufferedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Drop the rows buffered since the last row group.
+     */
+    public void discardBuffered() {
+        for (ColumnBuffer column : m_columns) {
+            column.clear();
+        }
+        m_bufferedRows = 0;
+    }
+
+    /**
+     * @return the number of rows in the row groups written to the file
+     */
+    public long getRowCount() {
+        return m_rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return m_rowGroups.size();
+    }
+
+    /**
+     * @return the size of the row groups written to the file, the footer is only added by {@link #close()}
+     */
+    public long getLength() {
+        return m_dataEnd;
+    }
+
+    public File getFile() {
+        return m_file;
+    }
+
+    /**
+     * Write the buffered rows as a new row group and force it to disk with its
+     * index entry. Nothing is written if no rows are buffered. On success the
+     * buffers are cleared; on failure the files are truncated back to their
+     * previous length and the rows stay buffered.
+     */
+    public void writeRowGroup() throws IOException {
+        if (m_bufferedRows == 0) {
+            return;
+        }
+        m_chunks.clear();
+        EncodingBuffer rowGroup = new EncodingBuffer(256 + m_columns.length * 128);
+        ThriftCompactWriter thrift = new ThriftCompactWriter(rowGroup);
+        thrift.structBegin();
+        thrift.fieldListBegin(1, ThriftCompactWriter.TYPE_STRUCT, m_columns.length);
+        long totalUncompressed = 0;
+        for (ColumnBuffer column : m_columns) {
+            totalUncompressed += writeColumnChunk(column, thrift);
+        }
+        thrift.fieldI64(2, totalUncompressed);
+        thrift.fieldI64(3, m_bufferedRows);
+        thrift.fieldI64(5, m_dataEnd);
+        thrift.fieldI64(6, m_chunks.size());
+        thrift.structEnd();
+
+        final long dataEnd = m_dataEnd + m_chunks.size();
+        EncodingBuffer entry = new EncodingBuffer(rowGroup.size() + 20);
+        entry.writeIntLE(rowGroup.size());
+        entry.write(rowGroup);
+        entry.writeLongLE(m_bufferedRows);
+        entry.writeLongLE(dataEnd);
+        try {
+            // The row group must be on disk before the index refers to it
+            writeFully(m_channel, m_chunks.asByteBuffer(), m_dataEnd);
+            m_channel.force(false);
+            writeFully(m_indexChannel, entry.asByteBuffer(), m_indexEnd);
+            m_indexChannel.force(false);
+        } catch (IOException e) {
+            try {
+                m_indexChannel.truncate(m_indexEnd);
+                m_channel.truncate(m_dataEnd);
+            } catch (IOException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+            throw e;
+        }
+        m_rowGroups.add(rowGroup.toByteArray());
+        m_rowCount += m_bufferedRows;
+        m_dataEnd = dataEnd;
+        m_indexEnd += entry.size();
+        discardBuffered();
+    }
+
+    /**
+     * Encode the pages of a column into m_chunks and its ColumnChunk struct
+     *
+     * @return the uncompressed size of the chunk, page headers included
+     */
+    private long writeColumnChunk(ColumnBuffer column, ThriftCompactWriter rowGroup) throws IOException {
+        final long chunkOffset = m_dataEnd + m_chunks.size();
+        final boolean dictionary = column.isDictionaryEncoded();
+        long uncompressed = 0;
+        long dictionaryOffset = -1;
+        if (dictionary) {
+            dictionaryOffset = chunkOffset;
+            m_page.clear();
+            column.writeDictionary(m_page);
+            uncompressed += writePage(DICTIONARY_PAGE, column.dictionarySize(), ColumnBuffer.PLAIN_DICTIONARY);
+        }
+
+        final long dataOffset = m_dataEnd + m_chunks.size();
+        m_page.clear();
+        // Definition levels of a V1 page are prefixed with their length
+        final int lengthAt = m_page.size();
+        m_page.writeIntLE(0);
+        column.writeDefinitionLevels(m_page);
+        final int levelsLength = m_page.size() - lengthAt - 4;
+        final byte[] page = m_page.array();
+        page[lengthAt] = (byte) levelsLength;
+        page[lengthAt + 1] = (byte) (levelsLength >>> 8);
+        page[lengthAt + 2] = (byte) (levelsLength >>> 16);
+        page[lengthAt + 3] = (byte) (levelsLength >>> 24);
+        column.writeValues(m_page);
+        final int valueEncoding = dictionary ? ColumnBuffer.PLAIN_DICTIONARY : ColumnBuffer.PLAIN;
+        uncompressed += writePage(DATA_PAGE, column.count(), valueEncoding);
+        final long compressed = m_dataEnd + m_chunks.size() - chunkOffset;
+
+        rowGroup.structBegin();
+        rowGroup.fieldI64(2, chunkOffset);
+        rowGroup.fieldStructBegin(3);
+        rowGroup.fieldI32(1, column.m_physicalType);
+        rowGroup.fieldListBegin(2, ThriftCompactWriter.TYPE_I32, 2);
+        rowGroup.writeVarInt(valueEncoding);
+        rowGroup.writeVarInt(ColumnBuffer.RLE);
+        rowGroup.fieldListBegin(3, ThriftCompactWriter.TYPE_BINARY, 1);
+        rowGroup.writeString(column.m_name);
+        rowGroup.fieldI32(4, m_codec.m_id);
+        rowGroup.fieldI64(5, column.count());
+        rowGroup.fieldI64(6, uncompressed);
+        rowGroup.fieldI64(7, compressed);
+        rowGroup.fieldI64(9, dataOffset);
+        if (dictionary) {
+            rowGroup.fieldI64(11, dictionaryOffset);
+        }
+        rowGroup.structEnd();
+        rowGroup.structEnd();
+        return uncompressed;
+    }
+
+    /**
+     * Compress m_page and append it to m_chunks with its header
+     *
+     * @return the uncompressed size of the page and its header
+     */
+    private int writePage(int pageType, int valueCount, int encoding) throws IOException {
+        final byte[] body = m_codec.compress(m_page);
+        final int headerStart = m_chunks.size();
+        ThriftCompactWriter header = new ThriftCompactWriter(m_chunks);
+        header.structBegin();
+        header.fieldI32(1, pageType);
+        header.fieldI32(2, m_page.size());
+        header.fieldI32(3, body.length);
+        if (pageType == DATA_PAGE) {
+            header.fieldStructBegin(5);
+            header.fieldI32(1, valueCount);
+            header.fieldI32(2, encoding);
+            header.fieldI32(3, ColumnBuffer.RLE);
+            header.fieldI32(4, ColumnBuffer.RLE);
+            header.structEnd();
+        } else {
+            header.fieldStructBegin(7);
+            header.fieldI32(1, valueCount);
+            header.fieldI32(2, encoding);
+            header.structEnd();
+        }
+        header.structEnd();
+        final int headerLength = m_chunks.size() - headerStart;
+        m_chunks.write(body);
+        return headerLength + m_page.size();
+    }
+
+    /**
+     * Encode the SchemaElement structs of the file
+     */
+    private byte[] buildSchema() {
+        EncodingBuffer schema = new EncodingBuffer(64 + m_columns.length * 64);
+        ThriftCompactWriter thrift = new ThriftCompactWriter(schema);
+        thrift.structBegin();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, m_columns.length);
+        thrift.structEnd();
+        for (ColumnBuffer column : m_columns) {
+            thrift.structBegin();
+            thrift.fieldI32(1, column.m_physicalType);
+            if (column.typeLength() > 0) {
+                thrift.fieldI32(2, column.typeLength());
+            }
+            thrift.fieldI32(3, OPTIONAL);
+            thrift.fieldString(4, column.m_name);
+            if (column.m_convertedType != ColumnBuffer.NO_CONVERTED_TYPE) {
+                thrift.fieldI32(6, column.m_convertedType);
+            }
+            if (column.m_convertedType == ColumnBuffer.DECIMAL) {
+                thrift.fieldI32(7, VoltDecimalHelper.kDefaultScale);
+                thrift.fieldI32(8, VoltDecimalHelper.kDefaultPrecision);
+            }
+            thrift.structEnd();
+        }
+        return schema.toByteArray();
+    }
+
+    /**
+     * Encode FileMetaData followed by its length and the trailing magic
+     */
+    private static byte[] buildFooter(int schemaCount, byte[] schema, long rowCount, List<byte[]> rowGroups) {
+        EncodingBuffer footer = new EncodingBuffer(512 + schema.length);
+        ThriftCompactWriter thrift = new ThriftCompactWriter(footer);
+        thrift.structBegin();
+        thrift.fieldI32(1, FORMAT_VERSION);
+        thrift.fieldListBegin(2, ThriftCompactWriter.TYPE_STRUCT, schemaCount);
+        thrift.writeRaw(schema);
+        thrift.fieldI64(3, rowCount);
+        thrift.fieldListBegin(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+        for (byte[] rowGroup : rowGroups) {
+            thrift.writeRaw(rowGroup);
+        }
+        thrift.fieldString(6, CREATED_BY);
+        thrift.structEnd();
+
+        final int metadataLength = footer.size();
+        footer.writeIntLE(metadataLength);
+        footer.write(MAGIC);
+        return footer.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+
+    /**
+     * Write any buffered rows and the footer, close the file and delete its index.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeRowGroup();
+            writeFully(m_channel, ByteBuffer.wrap(buildFooter(m_columns.length + 1, m_schema, m_rowCount,
+                    m_rowGroups)), m_dataEnd);
+            m_channel.force(false);
+        } finally {
+            m_channel.close();
+            m_indexChannel.close();
+        }
+        Files.delete(m_indexFile.toPath());
+    }
+
+    /**
+     * Complete a file whose writer did not close it, from the row groups listed in
+     * its index. Data after the last row group in the index is dropped. A file without
+     * index is left as is if it already has its footer.
+     *
+     * @return true if the file is a complete Parquet file holding rows, false if it
+     *         had no row and was deleted
+     */
+    public static boolean recover(File file) throws IOException {
+        final File index = indexFile(file);
+        if (!index.exists()) {
+            if (hasFooter(file)) {
+                return true;
+            }
+            // The writer failed before creating its index, so before writing any row
+            Files.deleteIfExists(file.toPath());
+            return false;
+        }
+        final ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(index.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        final List<byte[]> rowGroups = new ArrayList<>();
+        long rowCount = 0;
+        long dataEnd = MAGIC.length;
+        byte[] schema = null;
+        int schemaCount = 0;
+        if (entries.remaining() >= 8) {
+            schemaCount = entries.getInt();
+            final int schemaLength = entries.getInt();
+            if (schemaLength <= entries.remaining()) {
+                schema = new byte[schemaLength];
+                entries.get(schema);
+            }
+        }
+        // A partially written entry is the row group whose write failed or never completed
+        while (schema != null && entries.remaining() >= 4) {
+            final int length = entries.getInt();
+            if (length < 0 || entries.remaining() < length + 16) {
+                break;
+            }
+            final byte[] rowGroup = new byte[length];
+            entries.get(rowGroup);
+            rowGroups.add(rowGroup);
+            rowCount += entries.getLong();
+            dataEnd = entries.getLong();
+        }
+        if (rowGroups.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            Files.delete(index.toPath());
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(dataEnd);
+            writeFully(channel, ByteBuffer.wrap(buildFooter(schemaCount, schema, rowCount, rowGroups)), dataEnd);
+            channel.force(false);
+        }
+        Files.delete(index.toPath());
+        return true;
+    }
+
+    private static boolean hasFooter(File file) throws IOException {
+        if (!file.exists() || file.length() < 2 * MAGIC.length + 4) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer tail = ByteBuffer.allocate(MAGIC.length);
+            long position = channel.size() - MAGIC.length;
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, position + tail.position()) < 0) {
+                    return false;
+                }
+            }
+            return Arrays.equals(MAGIC, tail.array());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient.parquet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Just enough of the Thrift compact protocol to write the Parquet page headers
+ * and file metadata. Structs are written field by field with increasing field
+ * ids; callers are responsible for following the Parquet IDL.
+ */
+final class ThriftCompactWriter {
+
+    static final byte TYPE_I32 = 5;
+    static final byte TYPE_I64 = 6;
+    static final byte TYPE_BINARY = 8;
+    static final byte TYPE_LIST = 9;
+    static final byte TYPE_STRUCT = 12;
+
+    private final EncodingBuffer m_out;
+    // Last field id of each open struct, deltas are encoded against it
+    private short[] m_lastFieldIds = new short[8];
+    private int m_depth = -1;
+
+    ThriftCompactWriter(EncodingBuffer out) {
+        m_out = out;
+    }
+
+    void structBegin() {
+        if (++m_depth == m_lastFieldIds.length) {
+            m_lastFieldIds = Arrays.copyOf(m_lastFieldIds, m_depth * 2);
+        }
+        m_lastFieldIds[m_depth] = 0;
+    }
+
+    void structEnd() {
+        m_out.write(0);
+        m_depth--;
+    }
+
+    private void fieldHeader(int id, byte type) {
+        final int delta = id - m_lastFieldIds[m_depth];
+        if (delta > 0 && delta <= 15) {
+            m_out.write((delta << 4) | type);
+        } else {
+            m_out.write(type);
+            writeVarInt(id);
+        }
+        m_lastFieldIds[m_depth] = (short) id;
+    }
+
+    void fieldI32(int id, int value) {
+        fieldHeader(id, TYPE_I32);
+        writeVarInt(value);
+    }
+
+    void fieldI64(int id, long value) {
+        fieldHeader(id, TYPE_I64);
+        writeVarInt(value);
+    }
+
+    void fieldString(int id, String value) {
+        fieldHeader(id, TYPE_BINARY);
+        writeString(value);
+    }
+
+    void fieldStructBegin(int id) {
+        fieldHeader(id, TYPE_STRUCT);
+        structBegin();
+    }
+
+    void fieldListBegin(int id, byte elementType, int size) {
+        fieldHeader(id, TYPE_LIST);
+        if (size < 15) {
+            m_out.write((size << 4) | elementType);
+        } else {
+            m_out.write(0xF0 | elementType);
+            m_out.writeUnsignedVarInt(size);
+        }
+    }
+
+    /**
+     * Write an i32 list element or enum value
+     */
+    void writeVarInt(long value) {
+        // zigzag
+        m_out.writeUnsignedVarInt((value << 1) ^ (value >> 63));
+    }
+
+    void writeString(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        m_out.writeUnsignedVarInt(bytes.length);
+        m_out.write(bytes);
+    }
+
+    /**
+     * Append an already encoded struct, used for list elements
+     */
+    void writeRaw(byte[] encoded) {
+        m_out.write(encoded);
+    }
+}
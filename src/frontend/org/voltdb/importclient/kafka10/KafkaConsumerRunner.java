@@ -208,6 +208,21 @@ public abstract class KafkaConsumerRunner implements Runnable {
 
     public abstract boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception;
 
+    /**
+     * Invoke the messages of a topic partition polled together. By default every
+     * message is invoked on its own.
+     *
+     * @return for each message, true if it was queued and its callback will be invoked
+     */
+    public boolean[] invoke(String topic, List<String> rawMessages, List<Long> offsets, List<Object[]> params,
+            List<ProcedureCallback> procedureCallbacks) throws Exception {
+        final boolean[] queued = new boolean[params.size()];
+        for (int i = 0; i < queued.length; i++) {
+            queued[i] = invoke(rawMessages.get(i), offsets.get(i), topic, params.get(i), procedureCallbacks.get(i));
+        }
+        return queued;
+    }
+
     @Override
     public void run() {
         if (LOGGER.isDebugEnabled()) {
@@ -216,6 +231,11 @@ public abstract class KafkaConsumerRunner implements Runnable {
         List<TopicPartition> seekList = new ArrayList<>();
         Map<TopicPartition, AtomicLong> submitCounts = new HashMap<>();
         CSVParser csvParser = new CSVParser();
+        List<String> batchMessages = new ArrayList<>();
+        List<Long> batchOffsets = new ArrayList<>();
+        List<Long> batchNextOffsets = new ArrayList<>();
+        List<Object[]> batchParams = new ArrayList<>();
+        List<ProcedureCallback> batchCallbacks = new ArrayList<>();
         try {
             subscribe();
             int sleepCounter = 1;
@@ -273,6 +293,11 @@ public abstract class KafkaConsumerRunner implements Runnable {
                         }
 
                         String topicIdentifer = "group " + m_config.getGroupId() + "-" + partition;
+                        batchMessages.clear();
+                        batchOffsets.clear();
+                        batchNextOffsets.clear();
+                        batchParams.clear();
+                        batchCallbacks.clear();
                         List<ConsumerRecord<ByteBuffer, ByteBuffer>> messages = records.records(partition);
                         int count = messages.size();
                         for (int i = 0; i < count; i++) {
@@ -313,14 +338,11 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                         topicIdentifer);
                                 partitionSubmittedCount++;
 
-                                if (invoke(smsg, offset, partition.topic(), params, cb)) {
-                                    m_workTrackers.get(partition).produceWork();
-                                } else {
-                                    if (LOGGER.isDebugEnabled()) {
-                                        LOGGER.debug("Failed to process. possibly bad data: " + Arrays.toString(params));
-                                    }
-                                    commitTracker.commit(nextOffSet);
-                                }
+                                batchMessages.add(smsg);
+                                batchOffsets.add(offset);
+                                batchNextOffsets.add(nextOffSet);
+                                batchParams.add(params);
+                                batchCallbacks.add(cb);
                             } catch (FormatException | IOException e) {
                                 partitionSubmittedCount++;
                                 LOGGER.rateLimitedLog(KafkaConstants.LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, e,
@@ -331,6 +353,20 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                 break;
                             }
                         }
+                        if (!batchParams.isEmpty()) {
+                            boolean[] queued = invoke(partition.topic(), batchMessages, batchOffsets, batchParams,
+                                    batchCallbacks);
+                            for (int i = 0; i < queued.length; i++) {
+                                if (queued[i]) {
+                                    m_workTrackers.get(partition).produceWork();
+                                } else {
+                                    if (LOGGER.isDebugEnabled()) {
+                                        LOGGER.debug("Failed to process. possibly bad data: " + Arrays.toString(batchParams.get(i)));
+                                    }
+                                    commitTracker.commit(batchNextOffsets.get(i));
+                                }
+                            }
+                        }
                         if (partitionSubmittedCount > 0) {
                             topicPartitions.add(partition);
                         }
@@ -17,6 +17,7 @@
 package org.voltdb.importclient.kafka10;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.kafka.clients.consumer.Consumer;
 import org.voltdb.client.ProcedureCallback;
@@ -33,4 +34,13 @@ public class KafkaInternalConsumerRunner extends KafkaConsumerRunner {
     public boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
         return ((AbstractImporter)m_lifecycle).callProcedure(new Invocation(m_config.getProcedure(topic), params), procedureCallback);
     }
+
+    @Override
+    public boolean[] invoke(String topic, List<String> rawMessages, List<Long> offsets, List<Object[]> params,
+            List<ProcedureCallback> procedureCallbacks) throws Exception {
+        if (!m_config.isBatch()) {
+            return super.invoke(topic, rawMessages, offsets, params, procedureCallbacks);
+        }
+        return ((AbstractImporter)m_lifecycle).callProcedures(m_config.getProcedure(topic), params, procedureCallbacks);
+    }
 }
@@ -114,6 +114,9 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
 
     private String m_securityProtocol;
     private String m_saslKerberosServiceName;
+
+    // Invoke the messages of a poll together, configured via property batch. Default: false
+    private boolean m_batch;
     /**
      * Importer configuration constructor.
      * @param properties Properties read from the deployment XML.
@@ -156,6 +159,7 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
 
         //the smaller, the quicker response from kafka, minimize the blocking time.
         m_pollTimeout = parseProperty(properties, ImportDataProcessor.POLL_TIMEOUT_MS, 100);
+        m_batch = Boolean.parseBoolean(properties.getProperty(ImportDataProcessor.IMPORT_BATCH, "false").trim());
 
         m_procedureMap = (Map<String, String>) properties.get(ImportDataProcessor.KAFKA10_PROCEDURES);
         if (m_procedureMap == null) {
@@ -360,6 +364,10 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         return m_pollTimeout;
     }
 
+    public boolean isBatch() {
+        return m_batch;
+    }
+
     public int getConsumerCount() {
         return m_consumerCount;
     }
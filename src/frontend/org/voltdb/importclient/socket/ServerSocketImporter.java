@@ -39,6 +39,9 @@ import org.voltdb.importer.formatter.Formatter;
  */
 public class ServerSocketImporter extends AbstractImporter {
 
+    // Lines already received are invoked together, up to this many at a time
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("SOCKET_IMPORTER_MAX_BATCH_SIZE", 1000);
+
     private final ServerSocketImporterConfig m_config;
     private List<ClientConnectionHandler> m_clients = new ArrayList<>();
 
@@ -118,6 +121,7 @@ public class ServerSocketImporter extends AbstractImporter {
                         new InputStreamReader(m_clientSocket.getInputStream()));
                 Formatter formatter = m_config.getFormatterBuilder().create();
                 Object params[] = null;
+                List<Object[]> batch = new ArrayList<>();
                 while (shouldRun()) {
                     String line = in.readLine();
                     if (line == null) {
@@ -126,15 +130,22 @@ public class ServerSocketImporter extends AbstractImporter {
                     try{
                         params = formatter.transform(ByteBuffer.wrap(line.getBytes()));
                         //You should convert your data to params here.
-                        if (params == null) continue;
-                        Invocation invocation = new Invocation(m_procedure, params);
-                        if (!callProcedure(invocation)) {
+                        if (m_config.isBatch()) {
+                            if (params != null) {
+                                batch.add(params);
+                            }
+                        } else if (params != null && !callProcedure(new Invocation(m_procedure, params))) {
                             rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
                         }
                    } catch (FormatException e){
                        rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s" ,line);
                   }
+                    // Do not hold rows back waiting for more data
+                    if (batch.size() >= MAX_BATCH_SIZE || (!batch.isEmpty() && !in.ready())) {
+                        invokeBatch(batch);
+                    }
                 }
+                invokeBatch(batch);
             } catch (IOException ioe) {
                 error(ioe, "IO exception reading from client socket connection in socket importer");
             }
@@ -147,6 +158,19 @@ public class ServerSocketImporter extends AbstractImporter {
             }
         }
 
+        private void invokeBatch(List<Object[]> batch)
+        {
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (boolean queued : callProcedures(m_procedure, batch, null)) {
+                if (!queued) {
+                    rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+                }
+            }
+            batch.clear();
+        }
+
         public void stopClient()
         {
             // nothing to do for now
@@ -23,6 +23,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Properties;
 
+import org.voltdb.importer.ImportDataProcessor;
 import org.voltdb.importer.ImporterConfig;
 import org.voltdb.importer.formatter.FormatterBuilder;
 
@@ -38,6 +39,7 @@ public class ServerSocketImporterConfig implements ImporterConfig
     private final String m_procedure;
     private final int m_port;
     private final ServerSocket m_serverSocket;
+    private final boolean m_batch;
 
     public ServerSocketImporterConfig(Properties props, FormatterBuilder formatterBuilder)
     {
@@ -70,6 +72,7 @@ public class ServerSocketImporterConfig implements ImporterConfig
             throw new RuntimeException(e);
         }
 
+        m_batch = Boolean.parseBoolean(propsCopy.getProperty(ImportDataProcessor.IMPORT_BATCH, "false").trim());
         m_formatterBuilder = formatterBuilder;
     }
 
@@ -94,6 +97,11 @@ public class ServerSocketImporterConfig implements ImporterConfig
         return m_serverSocket;
     }
 
+    public boolean isBatch()
+    {
+        return m_batch;
+    }
+
     @Override
     public FormatterBuilder getFormatterBuilder()
     {
@@ -18,6 +18,7 @@
 package org.voltdb.importer;
 
 import java.net.URI;
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.voltcore.logging.Level;
@@ -120,6 +121,31 @@ public abstract class AbstractImporter
         }
     }
 
+    /**
+     * This should be used by importer implementations to execute a stored procedure for a batch
+     * of rows, which is much cheaper than one call per row when the procedure is the default
+     * insert or upsert procedure of a table.
+     *
+     * @param procedure the name of the procedure
+     * @param rows the parameters of each invocation
+     * @param callbacks the callback of each row that will receive its invocation status, may be null
+     * @return for each row, true if it was queued and its callback will be invoked; false otherwise
+     */
+    public boolean[] callProcedures(String procedure, List<Object[]> rows, List<ProcedureCallback> callbacks)
+    {
+        boolean[] result;
+        try {
+            result = m_importServerAdapter.callProcedures(this, m_backPressurePredicate, procedure, rows, callbacks);
+        } catch (Exception ex) {
+            rateLimitedLog(Level.ERROR, ex, "%s: Error trying to import", getName());
+            result = new boolean[rows.size()];
+        }
+        for (boolean queued : result) {
+            reportStat(queued, procedure);
+        }
+        return result;
+    }
+
     /**
      * Called to stop the importer from processing more data.
      */
@@ -33,6 +33,8 @@ public interface ImportDataProcessor  {
     public static final String IMPORT_PROCEDURE = "procedure";
     public static final String IMPORTER_CLASS = "impl";
     public static final String IMPORTER_SERVICE_CLASS = "org.voltdb.importer.ImportHandlerProxy";
+    // importers supporting it invoke the procedure for batches of rows, see AbstractImporter.callProcedures
+    public static final String IMPORT_BATCH = "batch";
 
     //used for kafka 10
     static final String KAFKA10_PROCEDURES = "import_kafka_procedures";
@@ -17,6 +17,7 @@
 
 package org.voltdb.importer;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.voltdb.client.ProcedureCallback;
@@ -50,6 +51,23 @@ public interface ImporterServerAdapter {
     public boolean callProcedure(AbstractImporter importer, Predicate<Integer> backPressurePredicate,
             ProcedureCallback callback, String proc, Object... fieldList);
 
+    /**
+     * This is used by importers to execute a procedure once for each row of a batch. Rows
+     * for the default insert or upsert procedure of a table are loaded with one transaction
+     * per partition instead of one transaction per row.
+     *
+     * @param importer the calling importer instance.
+     * @param backPressurePredicate the predicate to check when the partition is
+     *                              on back pressure, see {@link #callProcedure}
+     * @param proc the name of the procedure that is to be executed
+     * @param rows the parameters to be passed in to the procedure for each row
+     * @param callbacks the callback object of each row that will receive its execution status, may be null
+     * @return for each row, true if it was queued for execution, its callback is then invoked;
+     * false otherwise, as returned by {@link #callProcedure} for a single row.
+     */
+    public boolean[] callProcedures(AbstractImporter importer, Predicate<Integer> backPressurePredicate,
+            String proc, List<Object[]> rows, List<ProcedureCallback> callbacks);
+
     /**
      * This should be used by importers to report failure while trying to execute a procedure.
      *
@@ -0,0 +1,216 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.voltdb.iv2.SpScheduler.DuplicateCounterKey;
+
+/**
+ * Open addressing map from a (txnId, spHandle) pair to the {@link DuplicateCounter}
+ * tracking the replica responses for that pair. Lookups, inserts and removes on the
+ * replicated transaction path take the two primitive longs directly, so no key object
+ * or map entry is allocated per transaction.
+ *
+ * The repair and rejoin paths need the counters in (txnId, spHandle) order. They are
+ * rare, so instead of keeping the table sorted they take a sorted snapshot of the keys
+ * from {@link #sortedKeys()}.
+ *
+ * Not thread safe; only the scheduler thread owning the {@link SpScheduler} uses it.
+ */
+class DuplicateCounterMap {
+    private static final int MIN_CAPACITY = 64;
+
+    private long[] m_txnIds;
+    private long[] m_spHandles;
+    private DuplicateCounter[] m_counters;
+    private int m_mask;
+    private int m_size;
+    private int m_resizeThreshold;
+
+    DuplicateCounterMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        m_txnIds = new long[capacity];
+        m_spHandles = new long[capacity];
+        m_counters = new DuplicateCounter[capacity];
+        m_mask = capacity - 1;
+        m_resizeThreshold = capacity * 3 / 4;
+    }
+
+    private static int hash(long txnId, long spHandle) {
+        long h = (txnId * 0x9E3779B97F4A7C15L + spHandle) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long txnId, long spHandle) {
+        int idx = hash(txnId, spHandle) & m_mask;
+        while (m_counters[idx] != null) {
+            if (m_txnIds[idx] == txnId && m_spHandles[idx] == spHandle) {
+                return idx;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    DuplicateCounter get(long txnId, long spHandle) {
+        int idx = indexOf(txnId, spHandle);
+        return idx < 0 ? null : m_counters[idx];
+    }
+
+    DuplicateCounter get(DuplicateCounterKey key) {
+        return get(key.m_txnId, key.m_spHandle);
+    }
+
+    /**
+     * @return the counter previously mapped to the pair, or null if there was none
+     */
+    DuplicateCounter put(long txnId, long spHandle, DuplicateCounter counter) {
+        assert(counter != null);
+        int idx = hash(txnId, spHandle) & m_mask;
+        while (m_counters[idx] != null) {
+            if (m_txnIds[idx] == txnId && m_spHandles[idx] == spHandle) {
+                DuplicateCounter old = m_counters[idx];
+                m_counters[idx] = counter;
+                return old;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+        m_txnIds[idx] = txnId;
+        m_spHandles[idx] = spHandle;
+        m_counters[idx] = counter;
+        if (++m_size > m_resizeThreshold) {
+            rehash(m_counters.length << 1);
+        }
+        return null;
+    }
+
+    DuplicateCounter remove(long txnId, long spHandle) {
+        int idx = indexOf(txnId, spHandle);
+        if (idx < 0) {
+            return null;
+        }
+        DuplicateCounter old = m_counters[idx];
+        deleteSlot(idx);
+        return old;
+    }
+
+    DuplicateCounter remove(DuplicateCounterKey key) {
+        return remove(key.m_txnId, key.m_spHandle);
+    }
+
+    /**
+     * Remove the counters of every version of {@code txnId} whose spHandle is below
+     * {@code spHandle}, i.e. stale attempts of a restarted transaction.
+     */
+    void removeStaleVersions(long txnId, long spHandle) {
+        for (DuplicateCounterKey key : keys()) {
+            if (key.m_txnId == txnId && key.m_spHandle < spHandle) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the counters of every version of {@code txnId}.
+     */
+    void removeTxn(long txnId) {
+        for (DuplicateCounterKey key : keys()) {
+            if (key.m_txnId == txnId) {
+                remove(key);
+            }
+        }
+    }
+
+    void clear() {
+        if (m_size > 0) {
+            Arrays.fill(m_counters, null);
+            m_size = 0;
+        }
+    }
+
+    private List<DuplicateCounterKey> keys() {
+        List<DuplicateCounterKey> keys = new ArrayList<>(m_size);
+        for (int i = 0; i < m_counters.length; i++) {
+            if (m_counters[i] != null) {
+                keys.add(new DuplicateCounterKey(m_txnIds[i], m_spHandles[i]));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return a snapshot of the keys sorted by txnId then spHandle
+     */
+    List<DuplicateCounterKey> sortedKeys() {
+        List<DuplicateCounterKey> keys = keys();
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private void deleteSlot(int hole) {
+        m_counters[hole] = null;
+        m_size--;
+        // Shift back any following entries in the probe run that can fill the hole.
+        int idx = (hole + 1) & m_mask;
+        while (m_counters[idx] != null) {
+            int home = hash(m_txnIds[idx], m_spHandles[idx]) & m_mask;
+            if (((idx - home) & m_mask) >= ((idx - hole) & m_mask)) {
+                m_txnIds[hole] = m_txnIds[idx];
+                m_spHandles[hole] = m_spHandles[idx];
+                m_counters[hole] = m_counters[idx];
+                m_counters[idx] = null;
+                hole = idx;
+            }
+            idx = (idx + 1) & m_mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldTxnIds = m_txnIds;
+        long[] oldSpHandles = m_spHandles;
+        DuplicateCounter[] oldCounters = m_counters;
+        allocate(capacity);
+        for (int i = 0; i < oldCounters.length; i++) {
+            if (oldCounters[i] != null) {
+                int idx = hash(oldTxnIds[i], oldSpHandles[i]) & m_mask;
+                while (m_counters[idx] != null) {
+                    idx = (idx + 1) & m_mask;
+                }
+                m_txnIds[idx] = oldTxnIds[i];
+                m_spHandles[idx] = oldSpHandles[i];
+                m_counters[idx] = oldCounters[i];
+            }
+        }
+    }
+}
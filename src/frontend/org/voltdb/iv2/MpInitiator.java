@@ -37,6 +37,7 @@ import org.voltdb.Promotable;
 import org.voltdb.RealVoltDB;
 import org.voltdb.StartAction;
 import org.voltdb.StatsAgent;
+import org.voltdb.StatsSelector;
 import org.voltdb.TTLManager;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltZK;
@@ -121,6 +122,9 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
                 m_partitionId,
                 m_initiatorMailbox);
         sched.setMpRoSitePool(sitePool);
+        agent.registerStatsSource(StatsSelector.MPREADPOOL,
+                                  getInitiatorHSId(),
+                                  sitePool.getStats());
 
         // add ourselves to the ephemeral node list which BabySitters will watch for this
         // partition
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
@@ -38,12 +39,25 @@ import org.voltdb.StarvationTracker;
  * Provide a pool of MP Read-only sites to do MP RO work.
  * This should be owned by the MpTransactionTaskQueue and expects all operations
  * to be done while holding its lock.
+ *
+ * Sites are created on demand up to a target size, which starts at
+ * MPI_READ_POOL_SIZE. While reads are parked in the MP queue because every site
+ * is busy, and the oldest of them has waited at least MPI_READ_POOL_GROW_WAIT_MS,
+ * the target grows by one site at a time up to MPI_READ_POOL_MAX_SIZE. Once no
+ * read has been parked for MPI_READ_POOL_IDLE_TIMEOUT_MS the target shrinks back
+ * one site at a time, and sites left idle that long are shut down.
  */
 class MpRoSitePool {
     final static VoltLogger tmLog = new VoltLogger("TM");
 
-    static final int MAX_POOL_SIZE = Integer.getInteger("MPI_READ_POOL_SIZE", 3);
+    static final int BASE_POOL_SIZE = Integer.getInteger("MPI_READ_POOL_SIZE", 3);
+    static final int MAX_POOL_SIZE = Math.max(BASE_POOL_SIZE,
+            Integer.getInteger("MPI_READ_POOL_MAX_SIZE", BASE_POOL_SIZE * 2));
     static final int INITIAL_POOL_SIZE = 1;
+    static final long GROW_WAIT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("MPI_READ_POOL_GROW_WAIT_MS", 5));
+    static final long IDLE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("MPI_READ_POOL_IDLE_TIMEOUT_MS", 60_000));
 
     class MpRoSiteContext {
         final private SiteTaskerQueue m_queue;
@@ -51,6 +65,7 @@ class MpRoSitePool {
         final private CatalogContext m_catalogContext;
         final private LoadedProcedureSet m_loadedProcedures;
         final private Thread m_siteThread;
+        private long m_idleSinceNanos = System.nanoTime();
 
         MpRoSiteContext(long siteId, BackendTarget backend,
                 CatalogContext context, int partitionId,
@@ -113,6 +128,12 @@ class MpRoSitePool {
     private ThreadFactory m_poolThreadFactory;
     private volatile boolean m_shuttingDown = false;
 
+    // Adaptive sizing state
+    private int m_targetSize = BASE_POOL_SIZE;
+    private long m_lastResizeNanos = System.nanoTime();
+    private long m_lastParkedNanos = Long.MIN_VALUE;
+    private final MpRoSitePoolStats m_stats;
+
     MpRoSitePool(
             long siteId,
             BackendTarget backend,
@@ -129,7 +150,8 @@ class MpRoSitePool {
             CoreUtils.getThreadFactory("RO MP Site - " + CoreUtils.hsIdToString(m_siteId),
                     CoreUtils.MEDIUM_STACK_SIZE);
 
-        tmLog.info("Setting maximum size of MPI read pool to: " + MAX_POOL_SIZE);
+        m_stats = new MpRoSitePoolStats(siteId, MAX_POOL_SIZE);
+        tmLog.info("Setting size of MPI read pool to: " + BASE_POOL_SIZE + ", growing up to: " + MAX_POOL_SIZE);
 
         // Construct the initial pool
         for (int i = 0; i < INITIAL_POOL_SIZE; i++) {
@@ -142,6 +164,12 @@ class MpRoSitePool {
             m_idleSites.push(site);
             m_allSites.add(site);
         }
+        publishStats();
+    }
+
+    MpRoSitePoolStats getStats()
+    {
+        return m_stats;
     }
 
     /**
@@ -167,6 +195,7 @@ class MpRoSitePool {
                 m_allSites.remove(site);
             }
         }
+        publishStats();
     }
 
     /**
@@ -203,7 +232,89 @@ class MpRoSitePool {
         if (m_shuttingDown) {
             return false;
         }
-        return (!m_idleSites.isEmpty() || m_busySites.size() < MAX_POOL_SIZE);
+        return (!m_idleSites.isEmpty() || m_busySites.size() < m_targetSize);
+    }
+
+    /**
+     * Called when a read is parked because {@link #canAcceptWork()} is false.
+     * Raise the target size by one site if the oldest parked read has waited
+     * long enough, and no more than once per wait period.
+     * @param headWaitNanos How long the read at the head of the queue has waited
+     * @return true if the pool grew and can now accept the read
+     */
+    boolean tryGrow(long headWaitNanos)
+    {
+        if (m_shuttingDown) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        m_lastParkedNanos = now;
+        if (m_targetSize >= MAX_POOL_SIZE
+                || headWaitNanos < GROW_WAIT_NANOS
+                || now - m_lastResizeNanos < GROW_WAIT_NANOS) {
+            return false;
+        }
+        m_targetSize++;
+        m_lastResizeNanos = now;
+        m_stats.grew();
+        if (tmLog.isDebugEnabled()) {
+            tmLog.debug("Growing MPI read pool to " + m_targetSize + " sites, head of queue waited "
+                    + TimeUnit.NANOSECONDS.toMicros(headWaitNanos) + "us");
+        }
+        publishStats();
+        return canAcceptWork();
+    }
+
+    /**
+     * Record how long a read waited in the MP queue before it was handed to the pool
+     */
+    void recordQueueWait(long waitNanos)
+    {
+        m_stats.dispatched(waitNanos);
+    }
+
+    /**
+     * Count a read that could not be handed to the pool as soon as it was queued
+     */
+    void parked()
+    {
+        m_stats.parked();
+    }
+
+    /**
+     * Shrink the target size after a quiet period and shut down sites that
+     * are beyond the target or have been idle for too long. The longest idle
+     * site is at the bottom of the idle stack.
+     */
+    private void trimIdleSites()
+    {
+        final long now = System.nanoTime();
+        if (m_targetSize > BASE_POOL_SIZE
+                && now - m_lastParkedNanos >= IDLE_TIMEOUT_NANOS
+                && now - m_lastResizeNanos >= IDLE_TIMEOUT_NANOS) {
+            m_targetSize--;
+            m_lastResizeNanos = now;
+            m_stats.shrank();
+            if (tmLog.isDebugEnabled()) {
+                tmLog.debug("Shrinking MPI read pool to " + m_targetSize + " sites");
+            }
+        }
+        while (!m_idleSites.isEmpty()) {
+            final int size = m_idleSites.size() + m_busySites.size();
+            final MpRoSiteContext site = m_idleSites.peekLast();
+            if (size <= INITIAL_POOL_SIZE
+                    || (size <= m_targetSize && now - site.m_idleSinceNanos < IDLE_TIMEOUT_NANOS)) {
+                break;
+            }
+            m_idleSites.pollLast();
+            site.shutdown();
+            m_allSites.remove(site);
+        }
+    }
+
+    private void publishStats()
+    {
+        m_stats.updateSize(m_idleSites.size() + m_busySites.size(), m_busySites.size(), m_targetSize);
     }
 
     /**
@@ -236,6 +347,7 @@ class MpRoSitePool {
             m_busySites.put(txnId, site);
         }
         site.offer(task);
+        publishStats();
         return true;
     }
 
@@ -257,12 +369,15 @@ class MpRoSitePool {
         // pool with the updated catalog.
         if (site.getCatalogCRC() == m_catalogContext.getCatalogCRC()
                 && site.getCatalogVersion() == m_catalogContext.catalogVersion) {
+            site.m_idleSinceNanos = System.nanoTime();
             m_idleSites.push(site);
         }
         else {
             site.shutdown();
             m_allSites.remove(site);
         }
+        trimIdleSites();
+        publishStats();
     }
 
     void shutdown()
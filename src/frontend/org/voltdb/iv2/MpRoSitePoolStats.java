@@ -0,0 +1,172 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltdb.SiteStatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * Statistics of the MP read-only site pool, returned by @Statistics MPREADPOOL.
+ * Sizes are instantaneous; counts and queue wait times (in microseconds) cover
+ * the lifetime of the pool or, for interval requests, the time since the last
+ * interval request. All updates are made by the pool while holding the MP
+ * transaction task queue lock, but the statistics agent reads them from
+ * another thread, so the counters are atomic.
+ */
+class MpRoSitePoolStats extends SiteStatsSource {
+
+    private final int m_maxSize;
+
+    private volatile int m_currentSize;
+    private volatile int m_activeSites;
+    private volatile int m_targetSize;
+
+    private final AtomicLong m_dispatched = new AtomicLong();
+    private final AtomicLong m_parked = new AtomicLong();
+    private final AtomicLong m_totalWait = new AtomicLong();
+    private final AtomicLong m_maxWait = new AtomicLong();
+    private final AtomicLong m_intervalMaxWait = new AtomicLong();
+    private final AtomicLong m_grown = new AtomicLong();
+    private final AtomicLong m_shrunk = new AtomicLong();
+
+    // Values at the last interval request, only used by the statistics agent
+    private long m_lastDispatched = 0;
+    private long m_lastParked = 0;
+    private long m_lastTotalWait = 0;
+    private long m_lastGrown = 0;
+    private long m_lastShrunk = 0;
+
+    private boolean m_interval;
+
+    MpRoSitePoolStats(long siteId, int maxSize) {
+        super(siteId, false);
+        m_maxSize = maxSize;
+    }
+
+    void updateSize(int currentSize, int activeSites, int targetSize) {
+        m_currentSize = currentSize;
+        m_activeSites = activeSites;
+        m_targetSize = targetSize;
+    }
+
+    void dispatched(long waitNanos) {
+        m_dispatched.incrementAndGet();
+        m_totalWait.addAndGet(waitNanos);
+        m_maxWait.accumulateAndGet(waitNanos, Math::max);
+        m_intervalMaxWait.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void parked() {
+        m_parked.incrementAndGet();
+    }
+
+    void grew() {
+        m_grown.incrementAndGet();
+    }
+
+    void shrank() {
+        m_shrunk.incrementAndGet();
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("CURRENT_SIZE", VoltType.INTEGER));
+        columns.add(new ColumnInfo("ACTIVE_SITES", VoltType.INTEGER));
+        columns.add(new ColumnInfo("TARGET_SIZE", VoltType.INTEGER));
+        columns.add(new ColumnInfo("MAX_SIZE", VoltType.INTEGER));
+        columns.add(new ColumnInfo("DISPATCHED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("PARKED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("AVG_WAIT", VoltType.BIGINT));
+        columns.add(new ColumnInfo("MAX_WAIT", VoltType.BIGINT));
+        columns.add(new ColumnInfo("GROWN", VoltType.BIGINT));
+        columns.add(new ColumnInfo("SHRUNK", VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object rowValues[]) {
+        final long totalDispatched = m_dispatched.get();
+        final long totalParked = m_parked.get();
+        final long totalWaitNanos = m_totalWait.get();
+        final long totalGrown = m_grown.get();
+        final long totalShrunk = m_shrunk.get();
+        long dispatched = totalDispatched;
+        long parked = totalParked;
+        long totalWait = totalWaitNanos;
+        long maxWait = m_maxWait.get();
+        long grown = totalGrown;
+        long shrunk = totalShrunk;
+        if (m_interval) {
+            dispatched -= m_lastDispatched;
+            parked -= m_lastParked;
+            totalWait -= m_lastTotalWait;
+            maxWait = m_intervalMaxWait.getAndSet(0);
+            grown -= m_lastGrown;
+            shrunk -= m_lastShrunk;
+            m_lastDispatched = totalDispatched;
+            m_lastParked = totalParked;
+            m_lastTotalWait = totalWaitNanos;
+            m_lastGrown = totalGrown;
+            m_lastShrunk = totalShrunk;
+        }
+        rowValues[columnNameToIndex.get("CURRENT_SIZE")] = m_currentSize;
+        rowValues[columnNameToIndex.get("ACTIVE_SITES")] = m_activeSites;
+        rowValues[columnNameToIndex.get("TARGET_SIZE")] = m_targetSize;
+        rowValues[columnNameToIndex.get("MAX_SIZE")] = m_maxSize;
+        rowValues[columnNameToIndex.get("DISPATCHED")] = dispatched;
+        rowValues[columnNameToIndex.get("PARKED")] = parked;
+        rowValues[columnNameToIndex.get("AVG_WAIT")] = (totalWait / Math.max(1, dispatched)) / 1000;
+        rowValues[columnNameToIndex.get("MAX_WAIT")] = maxWait / 1000;
+        rowValues[columnNameToIndex.get("GROWN")] = grown;
+        rowValues[columnNameToIndex.get("SHRUNK")] = shrunk;
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(final boolean interval) {
+        m_interval = interval;
+        return new Iterator<Object>() {
+            boolean returnRow = true;
+            @Override
+            public boolean hasNext() {
+                return returnRow;
+            }
+
+            @Override
+            public Object next() {
+                if (returnRow) {
+                    returnRow = false;
+                    return new Object();
+                } else {
+                    return null;
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+    }
+}
@@ -51,6 +51,7 @@ import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2EndOfLogMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.sysprocs.BalancePartitionsRequest;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.ProClass;
 import org.voltdb.utils.VoltTrace;
@@ -312,6 +313,8 @@ public class MpScheduler extends Scheduler
 
         // Don't have an SP HANDLE at the MPI, so fill in the unused value
         Iv2Trace.logIv2InitiateTaskMessage(message, m_mailbox.getHSId(), mpTxnId, Long.MIN_VALUE);
+        FlightRecorder.recordTxn(FlightRecorder.Stage.QUEUE, message.getConnectionId(),
+                                 message.getClientInterfaceHandle(), mpTxnId);
 
         // Handle every-site system procedures (at the MPI)
         if (message.isEveryPartition()) {
@@ -91,8 +91,12 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     synchronized void offer(TransactionTask task)
     {
         Iv2Trace.logTransactionTaskQueueOffer(task);
+        task.setQueueOfferTime();
         m_backlog.addLast(task);
         taskQueueOffer();
+        if (task.getTransactionState().isReadOnly() && m_backlog.peekLast() == task) {
+            m_sitePool.parked();
+        }
     }
 
     // repair is used by MPI repair to inject a repair task into the
@@ -194,7 +198,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         //     - if not, pull it from the backlog, add it to current write set, and queue it
         //     - if so, bail for now
         //   - If not, are there writes outstanding?
-        //     - if not, while there are reads on the backlog and the pool has capacity:
+        //     - if not, while there are reads on the backlog and the pool has (or can grow) capacity:
         //       - pull the read from the backlog, add it to the current read set, and queue it.
         //       - bail when done
         //     - if so, bail for now
@@ -212,11 +216,13 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
                 }
             }
             else if (m_currentWrites.isEmpty()) {
+                final long now = System.nanoTime();
                 while (task != null && task.getTransactionState().isReadOnly() &&
-                       m_sitePool.canAcceptWork())
+                       (m_sitePool.canAcceptWork() || m_sitePool.tryGrow(now - task.getQueueOfferTime())))
                 {
                     task = m_backlog.pollFirst();
                     assert(task.getTransactionState().isReadOnly());
+                    m_sitePool.recordQueueWait(now - task.getQueueOfferTime());
                     m_currentReads.put(task.getTxnId(), task);
                     taskQueueOffer(task);
                     retval = true;
@@ -17,22 +17,97 @@
 
 package org.voltdb.iv2;
 
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
+import org.jctools_voltpatches.queues.MpscChunkedArrayQueue;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.QueueDepthTracker;
+import org.voltdb.SiteProcedureConnection;
 import org.voltdb.StarvationTracker;
+import org.voltdb.rejoin.TaskLog;
 
-/** SiteTaskerScheduler orders SiteTaskers for execution. */
+/**
+ * SiteTaskerScheduler orders SiteTaskers for execution.
+ *
+ * Any thread may offer, only the site thread may take, poll or peek. Each time the site
+ * thread runs out of work it drains up to SITE_TASKER_DRAIN_BATCH ready tasks into a private
+ * batch and hands them out one at a time, so it touches the shared queue once per batch.
+ * Queue depth and wait time are accounted, and the batch is published to other threads,
+ * once per drained batch.
+ *
+ * With -DSITE_TASKER_MPSC_QUEUE=true the shared queue is an array backed multi-producer
+ * single-consumer queue instead of a LinkedTransferQueue, which avoids allocating a node for
+ * every offer. The site thread then parks when it is idle and offering threads unpark it.
+ */
 public class SiteTaskerQueue
 {
-    private final LinkedTransferQueue<SiteTasker> m_tasks = new LinkedTransferQueue<SiteTasker>();
+    static final boolean USE_MPSC_QUEUE = Boolean.getBoolean("SITE_TASKER_MPSC_QUEUE");
+    static final int DRAIN_BATCH_SIZE = Math.max(1, Integer.getInteger("SITE_TASKER_DRAIN_BATCH", 32));
+    // The MPSC queue starts at this many slots and doubles as needed. It requires a maximum,
+    // but a site with a billion pending tasks has run out of heap long before reaching it.
+    private static final int MPSC_INITIAL_CAPACITY = 1024;
+    private static final int MPSC_MAX_CAPACITY = 1 << 30;
+
+    // Offered by clear(), every task ahead of it in the queue is dropped. Never handed out.
+    private static final SiteTasker CLEAR_MARKER = new SiteTasker() {
+        @Override
+        public void run(SiteProcedureConnection siteConnection) {
+        }
+
+        @Override
+        public void runForRejoin(SiteProcedureConnection siteConnection, TaskLog rejoinTaskLog) {
+        }
+    };
+
+    private static final AtomicReferenceFieldUpdater<SiteTaskerQueue, SiteTasker> s_currentTaskUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(SiteTaskerQueue.class, SiteTasker.class, "m_currentTask");
+    private static final AtomicReferenceFieldUpdater<SiteTaskerQueue, SiteTasker> s_nextTaskUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(SiteTaskerQueue.class, SiteTasker.class, "m_nextTask");
+    private static final AtomicIntegerFieldUpdater<SiteTaskerQueue> s_batchSizeUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(SiteTaskerQueue.class, "m_batchSize");
+
+    private final Queue<SiteTasker> m_tasks;
+    private final boolean m_blocking;
     private StarvationTracker m_starvationTracker;
     private QueueDepthTracker m_queueDepthTracker;
     private int m_partitionId;
 
+    // Tasks drained from m_tasks and not yet handed out, only touched by the site thread
+    private final SiteTasker[] m_batch = new SiteTasker[DRAIN_BATCH_SIZE];
+    private int m_batchHead = 0;
+    private int m_batchTail = 0;
+
+    // Set while the site thread is parked on an empty MPSC queue
+    private volatile Thread m_parkedConsumer;
+    // Last task handed to the site thread, null once the site thread found the queue empty.
+    // Written with lazySet, readers only use it to tell whether the site is making progress.
+    private volatile SiteTasker m_currentTask;
+    // Head and size of the batch when it was drained, published with lazySet so that other
+    // threads can see tasks which already left m_tasks and may not have been handed out yet
+    private volatile SiteTasker m_nextTask;
+    private volatile int m_batchSize;
+    // Markers offered by clear() and not reached by the site thread yet
+    private final AtomicInteger m_pendingClears = new AtomicInteger();
+
     public SiteTaskerQueue(int partitionId) {
+        this(partitionId, USE_MPSC_QUEUE);
+    }
+
+    SiteTaskerQueue(int partitionId, boolean useMpscQueue) {
         m_partitionId = partitionId;
+        if (useMpscQueue) {
+            m_tasks = new MpscChunkedArrayQueue<SiteTasker>(MPSC_INITIAL_CAPACITY, MPSC_MAX_CAPACITY, false);
+            m_blocking = false;
+        } else {
+            m_tasks = new LinkedTransferQueue<SiteTasker>();
+            m_blocking = true;
+        }
     }
 
     public int getPartitionId() {
@@ -47,48 +122,85 @@ public class SiteTaskerQueue
         // the queue depth before it is incremented
         // i.e. avoid queueDepth < 0
         m_queueDepthTracker.offerUpdate();
-        return m_tasks.offer(task);
+        if (!m_tasks.offer(task)) {
+            m_queueDepthTracker.offerRejected();
+            return false;
+        }
+        if (!m_blocking) {
+            // the consumer publishes itself before its last empty check, so reading it
+            // after the offer means at least one of us sees the other
+            Thread consumer = m_parkedConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+        return true;
     }
 
     // Block on the site tasker queue.
     public SiteTasker take() throws InterruptedException
     {
-        SiteTasker task = m_tasks.poll();
-
-        if (task == null) {
-            m_starvationTracker.beginStarvation();
-        } else {
-            m_queueDepthTracker.pollUpdate(task.getQueueOfferTime());
-            return task;
-        }
-        try {
-            task = CoreUtils.queueSpinTake(m_tasks);
-            // task is never null
-            m_queueDepthTracker.pollUpdate(task.getQueueOfferTime());
-            return task;
-        } finally {
-            m_starvationTracker.endStarvation();
+        clearIfRequested();
+        if (m_batchHead == m_batchTail) {
+            m_batchHead = m_batchTail = 0;
+            if (fillBatch() == 0) {
+                s_currentTaskUpdater.lazySet(this, null);
+                m_starvationTracker.beginStarvation();
+                try {
+                    if (m_blocking) {
+                        // task is never null, but may be a clear marker which leaves the batch empty
+                        while (fillBatch(CoreUtils.queueSpinTake((BlockingQueue<SiteTasker>) m_tasks)) == 0) {
+                        }
+                    } else {
+                        awaitBatch();
+                    }
+                } finally {
+                    m_starvationTracker.endStarvation();
+                }
+            }
         }
+        return nextFromBatch();
     }
 
     // Non-blocking poll on the site tasker queue.
     public SiteTasker poll()
     {
-        SiteTasker task = m_tasks.poll();
-        if (task != null) {
-            m_queueDepthTracker.pollUpdate(task.getQueueOfferTime());
+        clearIfRequested();
+        if (!refillIfEmpty()) {
+            s_currentTaskUpdater.lazySet(this, null);
+            return null;
         }
-        return task;
+        return nextFromBatch();
     }
 
     // Non-blocking peek on the site tasker queue.
     public SiteTasker peek()
     {
-        return m_tasks.peek();
+        clearIfRequested();
+        if (!refillIfEmpty()) {
+            return null;
+        }
+        return m_batch[m_batchHead];
+    }
+
+    /**
+     * Peek usable from threads other than the site thread, for progress monitoring.
+     * This is the oldest task drained into the batch and not handed out yet. Without one,
+     * it is the head of the shared queue with the linked queue. The MPSC queue can only be
+     * read by the site thread, so it is then the task most recently handed to it, or null if
+     * it is idle. All of them stay put for as long as the site is stuck on one task.
+     */
+    public SiteTasker peekFromAnyThread()
+    {
+        SiteTasker next = m_nextTask;
+        if (next != null) {
+            return next;
+        }
+        return m_blocking ? m_tasks.peek() : m_currentTask;
     }
 
     public boolean isEmpty() {
-        return m_tasks.isEmpty();
+        return m_batchSize == 0 && m_tasks.isEmpty();
     }
 
     public void setStarvationTracker(StarvationTracker tracker) {
@@ -96,15 +208,148 @@ public class SiteTaskerQueue
     }
 
     public QueueDepthTracker setupQueueDepthTracker(long siteId) {
-        m_queueDepthTracker = new QueueDepthTracker(siteId, m_tasks);
+        m_queueDepthTracker = new QueueDepthTracker(siteId, this);
         return m_queueDepthTracker;
     }
 
     public int size() {
-        return m_tasks.size();
+        return m_batchSize + m_tasks.size();
     }
 
+    /**
+     * Drop every task offered before this call. Any thread may call this. Only the site thread
+     * may remove tasks, so a marker is offered behind the pending tasks. The site thread drops
+     * everything ahead of the marker the next time it takes, polls or peeks. Tasks offered once
+     * this returns are kept.
+     */
     public void clear() {
-        m_tasks.clear();
+        // Counted before the offer, so the site thread always expects the markers it finds
+        m_pendingClears.incrementAndGet();
+        m_tasks.offer(CLEAR_MARKER);
+        if (!m_blocking) {
+            Thread consumer = m_parkedConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    // Drop the tasks ahead of every marker offered so far
+    private void clearIfRequested() {
+        if (m_pendingClears.get() == 0) {
+            return;
+        }
+        dropBatch();
+        while (m_pendingClears.get() > 0) {
+            SiteTasker task = m_tasks.poll();
+            if (task == CLEAR_MARKER) {
+                m_pendingClears.decrementAndGet();
+            } else if (task == null) {
+                // The marker is counted but not offered yet
+                Thread.yield();
+            }
+        }
+        publishBatch();
+        s_currentTaskUpdater.lazySet(this, null);
+    }
+
+    private void dropBatch() {
+        while (m_batchHead < m_batchTail) {
+            m_batch[m_batchHead++] = null;
+        }
+        m_batchHead = m_batchTail = 0;
+    }
+
+    private SiteTasker nextFromBatch() {
+        SiteTasker task = m_batch[m_batchHead];
+        m_batch[m_batchHead++] = null;
+        if (m_batchHead == m_batchTail) {
+            // Other threads see the batch as drained until its last task is handed out
+            publishBatch();
+        }
+        s_currentTaskUpdater.lazySet(this, task);
+        return task;
+    }
+
+    private boolean refillIfEmpty() {
+        if (m_batchHead == m_batchTail) {
+            m_batchHead = m_batchTail = 0;
+            if (fillBatch() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int fillBatch() {
+        return fillBatch(m_tasks.poll());
+    }
+
+    /**
+     * Put task, and the ready tasks following it, onto the end of the batch and account for
+     * them all at once. A clear marker drops the tasks drained before it.
+     *
+     * @return how many tasks are in the batch
+     */
+    private int fillBatch(SiteTasker task) {
+        int polled = 0;
+        long now = 0;
+        long totalWait = 0;
+        long maxWait = 0;
+        while (task != null) {
+            if (task == CLEAR_MARKER) {
+                m_pendingClears.decrementAndGet();
+                dropBatch();
+            } else {
+                if (polled++ == 0) {
+                    now = System.nanoTime();
+                }
+                final long wait = now - task.getQueueOfferTime();
+                totalWait += wait;
+                if (wait > maxWait) {
+                    maxWait = wait;
+                }
+                m_batch[m_batchTail++] = task;
+            }
+            task = m_batchTail < DRAIN_BATCH_SIZE ? m_tasks.poll() : null;
+        }
+        if (polled > 0) {
+            m_queueDepthTracker.pollUpdate(polled, totalWait, maxWait, now);
+        }
+        publishBatch();
+        return m_batchTail - m_batchHead;
+    }
+
+    private void publishBatch() {
+        s_nextTaskUpdater.lazySet(this, m_batchHead < m_batchTail ? m_batch[m_batchHead] : null);
+        s_batchSizeUpdater.lazySet(this, m_batchTail - m_batchHead);
+    }
+
+    // Wait for at least one task on the MPSC queue, spinning first if QUEUE_SPIN_MICROS is set
+    private void awaitBatch() throws InterruptedException {
+        long spinStart = -1;
+        while (fillBatch() == 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (CoreUtils.QUEUE_SPIN_MICROSECONDS > 0) {
+                if (spinStart == -1) {
+                    spinStart = System.nanoTime();
+                    continue;
+                }
+                if (System.nanoTime() - spinStart <= CoreUtils.QUEUE_SPIN_MICROSECONDS) {
+                    continue;
+                }
+            }
+            m_parkedConsumer = Thread.currentThread();
+            try {
+                if (fillBatch() > 0) {
+                    return;
+                }
+                LockSupport.park(this);
+            } finally {
+                m_parkedConsumer = null;
+            }
+        }
     }
 }
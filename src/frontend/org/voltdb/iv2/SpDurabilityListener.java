@@ -23,6 +23,8 @@ import org.voltcore.logging.VoltLogger;
 import org.voltdb.CommandLog;
 import org.voltdb.CommandLog.DurabilityListener;
 import org.voltdb.iv2.SpScheduler.DurableUniqueIdListener;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.VoltTrace;
 
@@ -159,6 +161,12 @@ public class SpDurabilityListener implements DurabilityListener {
                                                                                       o.getSpHandle())));
                 }
 
+                if (o.getTransactionState().getNotice() instanceof Iv2InitiateTaskMessage) {
+                    final Iv2InitiateTaskMessage notice = (Iv2InitiateTaskMessage) o.getTransactionState().getNotice();
+                    FlightRecorder.recordTxn(FlightRecorder.Stage.DURABLE, notice.getConnectionId(),
+                                             notice.getClientInterfaceHandle(), o.getSpHandle());
+                }
+
                 m_pendingTasks.offer(o);
                 // Make sure all queued tasks for this MP txn are released
                 if (!o.getTransactionState().isSinglePartition()) {
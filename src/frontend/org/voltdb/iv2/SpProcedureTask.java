@@ -32,6 +32,7 @@ import org.voltdb.client.ClientResponse;
 import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.rejoin.TaskLog;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.LogKeys;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.VoltTrace;
@@ -74,6 +75,7 @@ public class SpProcedureTask extends ProcedureTask
         if (HOST_DEBUG_ENABLED) {
             hostLog.debug("STARTING: " + this);
         }
+        final long startNanos = System.nanoTime();
         final VoltTrace.TraceEventBatch traceLog = VoltTrace.log(VoltTrace.Category.SPI);
         if (traceLog != null) {
             traceLog.add(() -> VoltTrace.beginDuration("runSpTask",
@@ -108,6 +110,8 @@ public class SpProcedureTask extends ProcedureTask
             m_txnState.setNeedsRollback(true);
         }
         completeInitiateTask(siteConnection);
+        FlightRecorder.recordTxn(FlightRecorder.Stage.EXECUTE, txnState.m_initiationMsg.getConnectionId(),
+                                 txnState.m_initiationMsg.getClientInterfaceHandle(), getTxnId(), startNanos);
         if (traceLog != null) {
             traceLog.add(() -> VoltTrace.endDuration("runSpTask",
                                                        "txnId", TxnEgo.txnIdToString(getTxnId()),
@@ -24,14 +24,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -42,6 +39,7 @@ import org.voltcore.messaging.HostMessenger;
 import org.voltcore.messaging.TransactionInfoBaseMessage;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.LongObjectHashMap;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.CommandLog;
 import org.voltdb.CommandLog.DurabilityListener;
@@ -80,6 +78,7 @@ import org.voltdb.messaging.MigratePartitionLeaderMessage;
 import org.voltdb.messaging.MultiPartitionParticipantMessage;
 import org.voltdb.messaging.RepairLogTruncationMessage;
 import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.MiscUtils;
 import org.voltdb.utils.VoltTrace;
 
@@ -94,8 +93,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     static final VoltLogger tmLog = new VoltLogger("TM");
     static final VoltLogger hostLog = new VoltLogger("HOST");
     static class DuplicateCounterKey implements Comparable<DuplicateCounterKey> {
-        private final long m_txnId;
-        private final long m_spHandle;
+        final long m_txnId;
+        final long m_spHandle;
 
         DuplicateCounterKey(long txnId, long spHandle) {
             m_txnId = txnId;
@@ -160,10 +159,11 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     private List<Long> m_replicaHSIds = new ArrayList<>();
     long m_sendToHSIds[] = new long[0];
     private final TransactionTaskQueue m_pendingTasks;
-    private final Map<Long, TransactionState> m_outstandingTxns =
-        new HashMap<Long, TransactionState>();
-    private final TreeMap<DuplicateCounterKey, DuplicateCounter> m_duplicateCounters =
-        new TreeMap<DuplicateCounterKey, DuplicateCounter>();
+    // Both maps are touched for every replicated transaction, so they are keyed by
+    // primitive longs to avoid boxing and per-entry allocation on the replica path.
+    private final LongObjectHashMap<TransactionState> m_outstandingTxns =
+        new LongObjectHashMap<TransactionState>();
+    private final DuplicateCounterMap m_duplicateCounters = new DuplicateCounterMap();
     // MP fragment tasks or completion tasks pending durability
     private final Map<Long, Queue<TransactionTask>> m_mpsPendingDurability =
         new HashMap<Long, Queue<TransactionTask>>();
@@ -288,9 +288,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         // A new site joins in, forward the current txn (stream snapshot save) message to new site
         if (m_isLeader && snapshotTransactionState != null) {
             // Look up the DuplicateCounter for this snapshots fragment
-            DuplicateCounterKey key = new DuplicateCounterKey(snapshotTransactionState.txnId,
+            DuplicateCounter duplicateCounter = m_duplicateCounters.get(snapshotTransactionState.txnId,
                     snapshotTransactionState.m_spHandle);
-            DuplicateCounter duplicateCounter = m_duplicateCounters.get(key);
             assert (duplicateCounter != null);
             duplicateCounter.addReplicas(replicasAdded);
             // Forward fragment message to new replica
@@ -300,11 +299,11 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         // Cleanup duplicate counters and collect DONE counters
         // in this list for further processing.
         List<DuplicateCounterKey> doneCounters = new LinkedList<DuplicateCounterKey>();
-        for (Entry<DuplicateCounterKey, DuplicateCounter> entry : m_duplicateCounters.entrySet()) {
-            DuplicateCounter counter = entry.getValue();
+        for (DuplicateCounterKey key : m_duplicateCounters.sortedKeys()) {
+            DuplicateCounter counter = m_duplicateCounters.get(key);
             HashResult result = counter.updateReplicas(m_replicaHSIds);
             if (result.isDone()) {
-                doneCounters.add(entry.getKey());
+                doneCounters.add(key);
             }
         }
 
@@ -633,7 +632,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         replmsg,
                         m_mailbox.getHSId());
 
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), newSpHandle, counter);
             }
         }
         else {
@@ -674,6 +673,9 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                                                     "hsId", CoreUtils.hsIdToString(m_mailbox.getHSId())));
         }
 
+        FlightRecorder.recordTxn(FlightRecorder.Stage.QUEUE, msg.getConnectionId(), msg.getClientInterfaceHandle(),
+                                 msg.getTxnId());
+
         final String procedureName = msg.getStoredProcedureName();
         final SpProcedureTask task =
             new SpProcedureTask(m_mailbox, procedureName, m_pendingTasks, msg);
@@ -734,8 +736,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 message,
                 m_mailbox.getHSId());
 
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), message.getSpHandle());
-        updateOrAddDuplicateCounter(dcKey, counter);
+        updateOrAddDuplicateCounter(message.getTxnId(), message.getSpHandle(), counter);
         m_uniqueIdGenerator.updateMostRecentlyGeneratedUniqueId(message.getUniqueId());
         // is local repair necessary?
         if (needsRepair.contains(m_mailbox.getHSId())) {
@@ -775,8 +776,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 message,
                 m_mailbox.getHSId());
 
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), message.getSpHandle());
-        updateOrAddDuplicateCounter(dcKey, counter);
+        updateOrAddDuplicateCounter(message.getTxnId(), message.getSpHandle(), counter);
         // is local repair necessary?
         if (needsRepair.contains(m_mailbox.getHSId())) {
             needsRepair.remove(m_mailbox.getHSId());
@@ -795,11 +795,11 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         }
     }
 
-    private void updateOrAddDuplicateCounter(final DuplicateCounterKey dcKey, DuplicateCounter counter) {
-        DuplicateCounter theCounter = m_duplicateCounters.get(dcKey);
+    private void updateOrAddDuplicateCounter(long txnId, long spHandle, DuplicateCounter counter) {
+        DuplicateCounter theCounter = m_duplicateCounters.get(txnId, spHandle);
         if (theCounter == null) {
             counter.setTransactionRepair(true);
-            safeAddToDuplicateCounterMap(dcKey, counter);
+            safeAddToDuplicateCounterMap(txnId, spHandle, counter);
         } else {
             // The partition leader on the local site is being migrated away, but the migration fails. The local site
             // can be elected again as leader. In this case, update the duplicate counter.
@@ -829,8 +829,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
          * possible to read an unconfirmed transaction's writes that will be lost.
          */
         final long spHandle = message.getSpHandle();
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), spHandle);
-        DuplicateCounter counter = m_duplicateCounters.get(dcKey);
+        DuplicateCounter counter = m_duplicateCounters.get(message.getTxnId(), spHandle);
         final VoltTrace.TraceEventBatch traceLog = VoltTrace.log(VoltTrace.Category.SPI);
 
         // All reads will have no duplicate counter.
@@ -860,7 +859,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             HashResult result = counter.offer(message);
             if (result.isDone()) {
                 if (counter.isSuccess() || (!counter.isSuccess() && m_isEnterpriseLicense)) {
-                    m_duplicateCounters.remove(dcKey);
+                    m_duplicateCounters.remove(message.getTxnId(), spHandle);
                     final TransactionState txn = m_outstandingTxns.get(message.getTxnId());
                     setRepairLogTruncationHandle(spHandle, (txn != null && txn.isLeaderMigrationInvolved()));
                     if (!counter.isSuccess()) {
@@ -1069,7 +1068,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                             replmsg,
                             m_mailbox.getHSId());
                 }
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(message.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(message.getTxnId(), newSpHandle, counter);
             }
         } else {
             // message processed on replica
@@ -1281,7 +1280,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
         // Send the message to the duplicate counter, if any
         DuplicateCounter counter =
-            m_duplicateCounters.get(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()));
+            m_duplicateCounters.get(message.getTxnId(), message.getSpHandle());
         final TransactionState txn = m_outstandingTxns.get(message.getTxnId());
         if (counter != null) {
             String traceName = "recvfragment";
@@ -1300,7 +1299,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         setRepairLogTruncationHandle(txn.m_spHandle, txn.isLeaderMigrationInvolved());
                     }
 
-                    m_duplicateCounters.remove(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()));
+                    m_duplicateCounters.remove(message.getTxnId(), message.getSpHandle());
                     FragmentResponseMessage resp = (FragmentResponseMessage)counter.getLastResponse();
                     // MPI is tracking deps per partition HSID.  We need to make
                     // sure we write ours into the message getting sent to the MPI
@@ -1393,7 +1392,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                                                m_replicaHSIds,
                                                msg,
                                                m_mailbox.getHSId());
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), msg.getSpHandle()), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), msg.getSpHandle(), counter);
             }
 
             Iv2Trace.logCompleteTransactionMessage(msg, m_mailbox.getHSId());
@@ -1418,8 +1417,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
     private void handleCompleteTransactionResponseMessage(CompleteTransactionResponseMessage msg)
     {
-        final DuplicateCounterKey duplicateCounterKey = new DuplicateCounterKey(msg.getTxnId(), msg.getSpHandle());
-        DuplicateCounter counter = m_duplicateCounters.get(duplicateCounterKey);
+        DuplicateCounter counter = m_duplicateCounters.get(msg.getTxnId(), msg.getSpHandle());
         boolean txnDone = true;
         if (msg.isRestart()) {
             // Don't mark txn done for restarts
@@ -1428,12 +1426,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (msg.isAborted() && counter != null) {
             // The last completion was an abort due to a repair/abort or restart/abort so we need to remove duplicate counters
             // for stale versions of the restarted Txn that never made it past the scoreboard
-            final DuplicateCounterKey lowestPossible = new DuplicateCounterKey(msg.getTxnId(), 0);
-            DuplicateCounterKey staleMatch = m_duplicateCounters.ceilingKey(lowestPossible);
-            while (staleMatch != null && staleMatch.compareTo(duplicateCounterKey) == -1) {
-                m_duplicateCounters.remove(staleMatch);
-                staleMatch = m_duplicateCounters.ceilingKey(lowestPossible);
-            };
+            m_duplicateCounters.removeStaleVersions(msg.getTxnId(), msg.getSpHandle());
         }
 
         if (counter != null) {
@@ -1442,7 +1435,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
         if (txnDone) {
             final TransactionState txn = m_outstandingTxns.remove(msg.getTxnId());
-            m_duplicateCounters.remove(duplicateCounterKey);
+            m_duplicateCounters.remove(msg.getTxnId(), msg.getSpHandle());
             if (txn != null && !txn.isReadOnly()) {
                 // Set the truncation handle here instead of when processing
                 // FragmentResponseMessage to avoid letting replicas think a
@@ -1526,14 +1519,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             }
         }
         builder.append("\n  most recent SP handle: ").append(TxnEgo.txnIdToString(getCurrentTxnId()));
-        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(m_outstandingTxns.keySet()));
+        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(Longs.asList(m_outstandingTxns.keys())));
         builder.append("\n  ");
         m_pendingTasks.toString(builder);
         if (m_duplicateCounters.size() > 0) {
             builder.append("\n  DUPLICATE COUNTERS:\n ");
-            for (Entry<DuplicateCounterKey, DuplicateCounter> e : m_duplicateCounters.entrySet()) {
-                builder.append("  ").append(e.getKey().toString()).append(": ");
-                e.getValue().dumpCounter(builder);
+            for (DuplicateCounterKey key : m_duplicateCounters.sortedKeys()) {
+                builder.append("  ").append(key.toString()).append(": ");
+                m_duplicateCounters.get(key).dumpCounter(builder);
             }
         }
         builder.append("END of STATE DUMP FOR SITE: ").append(who);
@@ -1562,7 +1555,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         msg.getTxnId(),
                         m_replicaHSIds,
                         msg,m_mailbox.getHSId());
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), newSpHandle, counter);
             }
         } else {
             setMaxSeenTxnId(msg.getSpHandle());
@@ -1585,8 +1578,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
     private void handleDummyTransactionResponseMessage(DummyTransactionResponseMessage message) {
         final long spHandle = message.getSpHandle();
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), spHandle);
-        DuplicateCounter counter = m_duplicateCounters.get(dcKey);
+        DuplicateCounter counter = m_duplicateCounters.get(message.getTxnId(), spHandle);
         if (counter == null) {
             // this will be on SPI without k-safety or replica only with k-safety
             setRepairLogTruncationHandle(spHandle, false);
@@ -1599,7 +1591,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         HashResult result = counter.offer(message);
         if (result.isDone()) {
             // DummyTransactionResponseMessage ends on SPI
-            m_duplicateCounters.remove(dcKey);
+            m_duplicateCounters.remove(message.getTxnId(), spHandle);
             setRepairLogTruncationHandle(spHandle, false);
         }
     }
@@ -1719,10 +1711,10 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
      * Just using "put" on the dup counter map is unsafe.
      * It won't detect the case where keys collide from two different transactions.
      */
-    void safeAddToDuplicateCounterMap(DuplicateCounterKey dpKey, DuplicateCounter counter) {
-        DuplicateCounter existingDC = m_duplicateCounters.get(dpKey);
+    void safeAddToDuplicateCounterMap(long txnId, long spHandle, DuplicateCounter counter) {
+        DuplicateCounter existingDC = m_duplicateCounters.get(txnId, spHandle);
         if (existingDC == null) {
-            m_duplicateCounters.put(dpKey, counter);
+            m_duplicateCounters.put(txnId, spHandle, counter);
         } else {
             existingDC.logWithCollidingDuplicateCounters(counter);
             VoltDB.crashGlobalVoltDB("DUPLICATE COUNTER MISMATCH: two duplicate counter keys collided.", true, null);
@@ -1851,7 +1843,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_migratePartitionLeaderCheckPoint < 0) {
             return false;
         }
-        List<DuplicateCounterKey> keys = m_duplicateCounters.keySet().stream()
+        List<DuplicateCounterKey> keys = m_duplicateCounters.sortedKeys().stream()
                 .filter(k->k.m_spHandle < m_migratePartitionLeaderCheckPoint && k.isSpTransaction()).collect(Collectors.toList());
         if (!keys.isEmpty()) {
             if (tmLog.isDebugEnabled()) {
@@ -1884,8 +1876,9 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             return;
         }
         boolean sentAny = false;
-        for (Map.Entry<DuplicateCounterKey, DuplicateCounter> entry : m_duplicateCounters.entrySet()) {
-            if (snapshotSpHandle < entry.getKey().m_spHandle) {
+        for (DuplicateCounterKey key : m_duplicateCounters.sortedKeys()) {
+            final DuplicateCounter counter = m_duplicateCounters.get(key);
+            if (snapshotSpHandle < key.m_spHandle) {
                 if (!sentAny) {
                     sentAny = true;
                     if (tmLog.isDebugEnabled()) {
@@ -1895,9 +1888,9 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
                 // Then forward any message after the MP txn, I expect them are all Iv2InitiateMessages
                 if (tmLog.isDebugEnabled()) {
-                    tmLog.debug(entry.getValue().getOpenMessage().getMessageInfo());
+                    tmLog.debug(counter.getOpenMessage().getMessageInfo());
                 }
-                m_mailbox.send(replicasAdded, entry.getValue().getOpenMessage());
+                m_mailbox.send(replicasAdded, counter.getOpenMessage());
             }
         }
         if (sentAny && tmLog.isDebugEnabled()) {
@@ -1916,18 +1909,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_isLeader && m_sendToHSIds.length > 0) {
             m_mailbox.send(m_sendToHSIds, new MPBacklogFlushMessage());
         }
-        Iterator<Entry<Long, TransactionState>> iter = m_outstandingTxns.entrySet().iterator();
-        while (iter.hasNext()) {
-            Entry<Long, TransactionState> entry = iter.next();
-            TransactionState txnState = entry.getValue();
-            if (TxnEgo.getPartitionId(entry.getKey()) == MpInitiator.MP_INIT_PID ) {
-                if (txnState.isReadOnly()) {
-                    txnState.setDone();
-                    m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == entry.getKey());
-                    iter.remove();
-                }
+        m_outstandingTxns.removeIf((txnId, txnState) -> {
+            if (TxnEgo.getPartitionId(txnId) == MpInitiator.MP_INIT_PID && txnState.isReadOnly()) {
+                txnState.setDone();
+                m_duplicateCounters.removeTxn(txnId);
+                return true;
             }
-        }
+            return false;
+        });
 
         // flush all RO transactions out of backlog
         m_pendingTasks.removeMPReadTransactions();
@@ -97,7 +97,7 @@ public class TickProducer extends SiteTasker implements Runnable
     {
         m_taskQueue.offer(this);
         // check if previous task is running for more than threshold
-        SiteTasker task = m_taskQueue.peek();
+        SiteTasker task = m_taskQueue.peekFromAnyThread();
         long currentTime = System.nanoTime();
         long headOfQueueOfferTime;
         if (task != null) {
@@ -68,6 +68,9 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
     private enum Position {
                 beforeFirst, middle, afterLast
     }
+    // Per-column views, built on first use. Reading the active row through a view
+    // skips recomputing the offset of every column for each row.
+    private VoltTable.ColumnView[] columnViews;
 
     public JDBC4ResultSet(Statement sourceStatement, VoltTable sourceTable)
             throws SQLException {
@@ -95,6 +98,26 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
                     columnCount);
     }
 
+    private VoltTable.ColumnView columnView(int columnIndex) {
+        if (columnViews == null) {
+            columnViews = new VoltTable.ColumnView[columnCount];
+        }
+        VoltTable.ColumnView view = columnViews[columnIndex - 1];
+        if (view == null) {
+            view = table.columnView(columnIndex - 1);
+            columnViews[columnIndex - 1] = view;
+        }
+        return view;
+    }
+
+    private long readLong(int columnIndex) {
+        return columnView(columnIndex).getLong(table.getActiveRowIndex());
+    }
+
+    private double readDouble(int columnIndex) {
+        return columnView(columnIndex).getDouble(table.getActiveRowIndex());
+    }
+
     // Moves the cursor to the given row number in this ResultSet object.
     @Override
     public boolean absolute(int row) throws SQLException {
@@ -261,19 +284,19 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
             BigDecimal decimalValue = null;
             switch(type) {
             case TINYINT:
-                decimalValue = new BigDecimal(table.getLong(columnIndex - 1));
+                decimalValue = new BigDecimal(readLong(columnIndex));
                 break;
             case SMALLINT:
-                decimalValue = new BigDecimal(table.getLong(columnIndex - 1));
+                decimalValue = new BigDecimal(readLong(columnIndex));
                 break;
             case INTEGER:
-                decimalValue = new BigDecimal(table.getLong(columnIndex - 1));
+                decimalValue = new BigDecimal(readLong(columnIndex));
                 break;
             case BIGINT:
-                decimalValue = new BigDecimal(table.getLong(columnIndex - 1));
+                decimalValue = new BigDecimal(readLong(columnIndex));
                 break;
             case FLOAT:
-                decimalValue = new BigDecimal(table.getDouble(columnIndex - 1));
+                decimalValue = new BigDecimal(readDouble(columnIndex));
                 break;
             case DECIMAL:
                 decimalValue = table.getDecimalAsBigDecimal(columnIndex - 1);
@@ -356,19 +379,19 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
         Long longValue = null;
         switch(type) {
         case TINYINT:
-            longValue = new Long(table.getLong(columnIndex - 1));
+            longValue = new Long(readLong(columnIndex));
             break;
         case SMALLINT:
-            longValue = new Long(table.getLong(columnIndex - 1));
+            longValue = new Long(readLong(columnIndex));
             break;
         case INTEGER:
-            longValue = new Long(table.getLong(columnIndex - 1));
+            longValue = new Long(readLong(columnIndex));
             break;
         case BIGINT:
-            longValue = new Long(table.getLong(columnIndex - 1));
+            longValue = new Long(readLong(columnIndex));
             break;
         case FLOAT:
-            final Double retDouble = new Double(table.getDouble(columnIndex - 1));
+            final Double retDouble = new Double(readDouble(columnIndex));
             if (retDouble.equals(new Double(Math.ceil(retDouble)))) {
                 longValue = retDouble.longValue();
                 break;
@@ -399,7 +422,7 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
         // TODO: Tempting to apply a != 0 operation on numbers and
         // .equals("true") on strings, but... hacky
         try {
-            return (new Long(table.getLong(columnIndex - 1))).intValue() == 1;
+            return (new Long(readLong(columnIndex))).intValue() == 1;
         } catch (Exception x) {
             throw SQLError.get(x);
         }
@@ -572,19 +595,19 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
             Double doubleValue = null;
             switch(type) {
             case TINYINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case SMALLINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case INTEGER:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case BIGINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case FLOAT:
-                doubleValue = new Double(table.getDouble(columnIndex - 1));
+                doubleValue = new Double(readDouble(columnIndex));
                 break;
             case DECIMAL:
                 doubleValue = table.getDecimalAsBigDecimal(columnIndex - 1).doubleValue();
@@ -628,19 +651,19 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
             Double doubleValue = null;
             switch(type) {
             case TINYINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case SMALLINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case INTEGER:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case BIGINT:
-                doubleValue = new Double(table.getLong(columnIndex - 1));
+                doubleValue = new Double(readLong(columnIndex));
                 break;
             case FLOAT:
-                doubleValue = new Double(table.getDouble(columnIndex - 1));
+                doubleValue = new Double(readDouble(columnIndex));
                 break;
             case DECIMAL:
                 doubleValue = table.getDecimalAsBigDecimal(columnIndex - 1).doubleValue();
@@ -926,7 +949,7 @@ public class JDBC4ResultSet implements java.sql.ResultSet {
         try {
             VoltType type = table.getColumnType(columnIndex - 1);
             if (type == VoltType.STRING)
-                return table.getString(columnIndex - 1);
+                return columnView(columnIndex).getString(table.getActiveRowIndex());
             if (type == VoltType.TIMESTAMP)
                 return getTimestamp(columnIndex).toString();
             if (type == VoltType.VARBINARY)
@@ -56,6 +56,7 @@ import org.voltdb.planner.ActivePlanRepository;
 import org.voltdb.sysprocs.saverestore.HiddenColumnFilter;
 import org.voltdb.types.PlanNodeType;
 import org.voltdb.types.TimestampType;
+import org.voltdb.utils.FlightRecorder;
 import org.voltdb.utils.LogKeys;
 import org.voltdb.utils.VoltTableUtil;
 import org.voltdb.utils.VoltTrace;
@@ -728,9 +729,11 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
                 }
             }
 
+            final long startNanos = System.nanoTime();
             FastDeserializer results = coreExecutePlanFragments(m_currentBatchIndex, numFragmentIds, planFragmentIds,
                     inputDepIds, parameterSets, determinismHash, isWriteFrags, sqlCRCs, txnId, spHandle, lastCommittedSpHandle,
                     uniqueId, undoQuantumToken, traceOn);
+            FlightRecorder.record(FlightRecorder.Stage.EE, txnId, numFragmentIds, startNanos);
 
             if (traceOn) {
                 final VoltTrace.TraceEventBatch traceLog = VoltTrace.log(VoltTrace.Category.SPSITE);
@@ -187,6 +187,11 @@ public class CompleteTransactionMessage extends TransactionInfoBaseMessage
         buf.limit(buf.position());
     }
 
+    @Override
+    public boolean retainsDeserializationBuffer() {
+        return false;
+    }
+
     @Override
     public void initFromBuffer(ByteBuffer buf) throws IOException
     {
@@ -111,6 +111,11 @@ public class CompleteTransactionResponseMessage extends VoltMessage
         buf.limit(buf.position());
     }
 
+    @Override
+    public boolean retainsDeserializationBuffer() {
+        return false;
+    }
+
     @Override
     protected void initFromBuffer(ByteBuffer buf)
     {
@@ -909,6 +909,11 @@ public class FragmentTaskMessage extends TransactionInfoBaseMessage
 
     }
 
+    @Override
+    public boolean retainsDeserializationBuffer() {
+        return false;
+    }
+
     @Override
     public void initFromBuffer(ByteBuffer buf) throws IOException
     {
@@ -1029,32 +1034,25 @@ public class FragmentTaskMessage extends TransactionInfoBaseMessage
         int initiateTaskMessageLength = buf.getInt();
         if (initiateTaskMessageLength > 0) {
             int startPosition = buf.position();
+            // The initiate task was serialized with flatten, keep those bytes as its serialized
+            // form and deserialize it from them, so this message doesn't retain the input buffer
+            m_initiateTaskBuffer = ByteBuffer.allocate(initiateTaskMessageLength);
+            int cachedLimit = buf.limit();
+            buf.limit(startPosition + initiateTaskMessageLength);
+            m_initiateTaskBuffer.put(buf);
+            m_initiateTaskBuffer.flip();
+            buf.limit(cachedLimit);
+
+            ByteBuffer initiateTaskBuf = m_initiateTaskBuffer.duplicate();
             Iv2InitiateTaskMessage message = new Iv2InitiateTaskMessage();
             // EHGAWD: init task was serialized with flatten which added
             // the message type byte. deserialization expects the message
             // factory to have stripped that byte. but ... that's not the
             // way we do it here. So read the message type byte...
-            byte messageType = buf.get();
+            byte messageType = initiateTaskBuf.get();
             assert(messageType == VoltDbMessageFactory.IV2_INITIATE_TASK_ID);
-            message.initFromBuffer(buf);
+            message.initFromBuffer(initiateTaskBuf);
             m_initiateTask = message;
-            if (m_initiateTask != null && m_initiateTaskBuffer == null) {
-                m_initiateTaskBuffer = ByteBuffer.allocate(m_initiateTask.getSerializedSize());
-                try {
-                    m_initiateTask.flattenToBuffer(m_initiateTaskBuffer);
-                    m_initiateTaskBuffer.flip();
-                } catch (IOException e) {
-                    //Executive decision, don't throw a checked exception. Let it burn.
-                    throw new RuntimeException(e);
-                }
-            }
-
-            /*
-             * There is an assertion that all bytes of the message are consumed.
-             * Initiate task lazily deserializes the parameter buffer and doesn't consume
-             * all the bytes so do it here so the assertion doesn't trip
-             */
-            buf.position(startPosition + initiateTaskMessageLength);
         }
 
         // Unplanned block
@@ -319,4 +319,15 @@ public class CorePlan {
     public boolean wasPlannedAgainstHash(byte[] catalogHash) {
         return Arrays.equals(catalogHash, this.catalogHash);
     }
+
+    /**
+     * Copy of this plan for another catalog with the same schema, which makes it executable against that catalog.
+     */
+    public CorePlan withCatalogHash(byte[] catalogHash) {
+        CorePlan copy = new CorePlan(aggregatorFragment, collectorFragment, aggregatorHash, collectorHash,
+                isReplicatedTableDML, readOnly, parameterTypes, catalogHash);
+        copy.setPartitioningParamIndex(partitioningParamIndex);
+        copy.setPartitioningParamValue(partitioningParamValue);
+        return copy;
+    }
 }
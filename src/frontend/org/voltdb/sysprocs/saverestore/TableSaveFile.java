@@ -42,6 +42,9 @@ import org.json_voltpatches.JSONObject;
 import org.voltcore.TransactionIdManager;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.Bits;
+import org.voltcore.utils.CompressionStrategies;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.NativeLibraryLoader;
@@ -246,6 +249,7 @@ public class TableSaveFile implements Closeable
                 m_tableName = fd.readString();
                 m_isReplicated = fd.readBoolean();
                 m_isCompressed = false;
+                m_compression = CompressionStrategySnappy.INSTANCE;
                 m_checksumType = ChecksumType.CRC32;
                 if (!m_isReplicated) {
                     m_partitionIds = (int[])fd.readArray(int.class);
@@ -291,6 +295,8 @@ public class TableSaveFile implements Closeable
                 m_tableName = obj.getString("tableName");
                 m_isReplicated = obj.getBoolean("isReplicated");
                 m_isCompressed = obj.optBoolean("isCompressed", false);
+                //Snapshots written before the algorithm was recorded are Snappy compressed
+                m_compression = CompressionStrategies.forName(obj.optString("compression", "snappy"));
                 m_checksumType = ChecksumType.valueOf(obj.optString("checksumType", "CRC32"));
                 if (!m_isReplicated) {
                     JSONArray partitionIds = obj.getJSONArray("partitionIds");
@@ -487,6 +493,7 @@ public class TableSaveFile implements Closeable
     private final String m_tableName;
     private final boolean m_isReplicated;
     private final boolean m_isCompressed;
+    private final CompressionStrategy m_compression;
     private final int m_partitionIds[];
     private final int m_totalPartitions;
     private final long m_txnId;
@@ -662,7 +669,7 @@ public class TableSaveFile implements Closeable
                         sinceLastFAdvise += read;
                     }
                     fileInputBuffer.flip();
-                    nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
+                    nextChunkLength = m_compression.uncompressedLength(fileInputBuffer);
 
                     /*
                      * Validate the rest of the chunk. This can fail if the data is corrupted
@@ -708,7 +715,7 @@ public class TableSaveFile implements Closeable
                         m_tableHeader.position(0);
                         buf.put(m_tableHeader);
                         //Doesn't move buffer position, does change the limit
-                        CompressionService.decompressBuffer(fileInputBuffer, buf);
+                        m_compression.uncompress(fileInputBuffer, buf);
                         completedRead = true;
                     } finally {
                         if (!completedRead) {
@@ -885,7 +892,7 @@ public class TableSaveFile implements Closeable
                             }
                         }
                         fileInputBuffer.flip();
-                        nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
+                        nextChunkLength = m_compression.uncompressedLength(fileInputBuffer);
                     }
 
                     /*
@@ -931,7 +938,7 @@ public class TableSaveFile implements Closeable
                         c.b().position(c.b().position() + 4);//Leave space for row count to be moved into
                         checksumStartPosition = c.b().position();
                         if (isCompressed()) {
-                            CompressionService.decompressBuffer(fileInputBuffer, c.b());
+                            m_compression.uncompress(fileInputBuffer, c.b());
                             c.b().position(c.b().limit());
                         } else {
                             while (c.b().hasRemaining()) {
@@ -0,0 +1,132 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+import org.voltcore.utils.CompressionStrategies;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
+/**
+ * Compresses blocks on the compression service threads into pooled direct buffers while the producer moves on
+ * to the next block. The number of blocks in flight, from submission until the compressed buffer is discarded by
+ * whoever wrote it out, is bounded. Producers are often site threads that must not block, so once the bound is
+ * reached {@link #compress} compresses the block on the calling thread instead, which slows a producer that is
+ * faster than compression or the disk without parking it.
+ */
+public class CompressionPipeline {
+
+    /**
+     * Pipeline used for snapshot blocks. The algorithm is recorded in the snapshot header, see
+     * {@link #SNAPSHOT_COMPRESSION_PROPERTY}.
+     */
+    public static final String SNAPSHOT_COMPRESSION_PROPERTY = "SNAPSHOT_COMPRESSION";
+    public static final CompressionPipeline SNAPSHOT = new CompressionPipeline(
+            CompressionStrategies.forName(System.getProperty(SNAPSHOT_COMPRESSION_PROPERTY, "snappy")),
+            Integer.getInteger("SNAPSHOT_COMPRESSION_IN_FLIGHT", Math.max(4, CoreUtils.availableProcessors() * 2)));
+
+    private final CompressionStrategy m_strategy;
+    private final int m_maxInFlight;
+    private final Semaphore m_inFlight;
+
+    public CompressionPipeline(CompressionStrategy strategy, int maxInFlight) {
+        m_strategy = strategy;
+        m_maxInFlight = maxInFlight;
+        m_inFlight = new Semaphore(maxInFlight);
+    }
+
+    public CompressionStrategy getStrategy() {
+        return m_strategy;
+    }
+
+    /**
+     * @return number of blocks submitted to the compression service whose compressed buffer has not been
+     *         discarded yet
+     */
+    public int inFlight() {
+        return m_maxInFlight - m_inFlight.availablePermits();
+    }
+
+    /**
+     * Compress the remaining bytes of {@code input} asynchronously, or on the calling thread if too many blocks
+     * are in flight. The input must not be modified until the returned future completes.
+     *
+     * The compressed buffer starts with {@code headerBytes} bytes left for the caller, followed by the CRC32C of
+     * the compressed data if {@code crc32c} is set, followed by the compressed data. Its position is at the
+     * reserved header and its limit at the end of the compressed data. Discarding it admits the next block.
+     */
+    public ListenableFuture<BBContainer> compress(final ByteBuffer input, final int headerBytes, final boolean crc32c) {
+        assert(input.isDirect());
+        final boolean async = m_inFlight.tryAcquire();
+        final int dataOffset = headerBytes + (crc32c ? 4 : 0);
+        final BBContainer output;
+        try {
+            output = DBBPool.allocateDirectAndPool(dataOffset + m_strategy.maxCompressedLength(input.remaining()));
+        } catch (Throwable t) {
+            if (async) {
+                m_inFlight.release();
+            }
+            return Futures.immediateFailedFuture(t);
+        }
+        final BBContainer result = new BBContainer(output.b()) {
+            @Override
+            public void discard() {
+                super.discard();
+                output.discard();
+                if (async) {
+                    m_inFlight.release();
+                }
+            }
+        };
+        final Callable<BBContainer> task = new Callable<BBContainer>() {
+            @Override
+            public BBContainer call() throws Exception {
+                try {
+                    final ByteBuffer out = result.b();
+                    out.clear();
+                    out.position(dataOffset);
+                    final int compressedSize = m_strategy.compress(input, out);
+                    if (crc32c) {
+                        out.putInt(headerBytes, DBBPool.getCRC32C(result.address(), dataOffset, compressedSize));
+                    }
+                    out.position(headerBytes);
+                    return result;
+                } catch (Throwable t) {
+                    result.discard();
+                    throw t;
+                }
+            }
+        };
+        if (async) {
+            return CompressionService.submitCompressionTask(task);
+        }
+        try {
+            return Futures.immediateFuture(task.call());
+        } catch (Throwable t) {
+            return Futures.immediateFailedFuture(t);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.voltcore.logging.VoltLogger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Always-on recorder of transaction lifecycle events. Unlike {@link VoltTrace},
+ * which has to be enabled explicitly and allocates an event object per trace
+ * point, every recording thread owns a fixed-size off-heap ring buffer of
+ * fixed-size records. Recording an event writes six longs into the ring and
+ * publishes the new position, without allocating or taking locks, so it can be
+ * left on in production. When the ring wraps the oldest events are overwritten.
+ *
+ * The events of the last few seconds can be written out in the Chrome Trace
+ * Event format with {@link #dump(String, long)}, which is exposed as
+ * "exec @Trace recorder [seconds]". Readers copy the rings without stopping the
+ * writers and discard any records that may have been overwritten while they
+ * were being copied.
+ *
+ * The number of events retained per thread is set with the
+ * FLIGHT_RECORDER_EVENTS system property; 0 turns the recorder off.
+ */
+public class FlightRecorder {
+    private static final VoltLogger s_logger = new VoltLogger("TRACER");
+
+    static final int EVENTS_PER_THREAD = Integer.getInteger("FLIGHT_RECORDER_EVENTS", 8192);
+    public static final boolean ENABLED = EVENTS_PER_THREAD > 0;
+
+    // startNanos, endNanos, key, arg, stage, connectionId
+    static final int RECORD_SIZE = 6 * Long.BYTES;
+
+    private static final int s_pid = CLibrary.getpid();
+    private static final List<Ring> s_rings = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Ring> s_ring = ThreadLocal.withInitial(FlightRecorder::register);
+
+    /**
+     * Stages in the lifecycle of a transaction. Each stage names the meaning of
+     * the key and argument recorded with it. Stages keyed by the client
+     * interface handle are recorded with {@link #recordTxn} and also drawn on a
+     * per-transaction async track. Handles are only unique per connection, so
+     * the track is identified by the client connection id and the handle.
+     */
+    public enum Stage {
+        RECEIVE("ciHandle", "clientHandle"),
+        ROUTE("ciHandle", "initiator"),
+        QUEUE("ciHandle", "txnId"),
+        EXECUTE("ciHandle", "txnId"),
+        EE("txnId", "fragments"),
+        DURABLE("ciHandle", "spHandle"),
+        RESPOND("ciHandle", "status");
+
+        private static final Stage[] s_values = values();
+
+        final String m_keyName;
+        final String m_argName;
+
+        Stage(String keyName, String argName) {
+            m_keyName = keyName;
+            m_argName = argName;
+        }
+
+        boolean isTxnTrack() {
+            return "ciHandle".equals(m_keyName);
+        }
+    }
+
+    /**
+     * Single-writer ring owned by one thread. Only the owner writes m_next and
+     * the buffer, readers only look at m_published.
+     */
+    static final class Ring {
+        final ByteBuffer m_buffer;
+        final int m_capacity;
+        final Thread m_thread;
+        final String m_threadName;
+        private long m_next = 0;
+        private final AtomicLong m_published = new AtomicLong();
+
+        Ring(Thread thread, int capacity) {
+            m_buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+            m_capacity = capacity;
+            m_thread = thread;
+            m_threadName = thread.getName();
+        }
+
+        void put(Stage stage, long connectionId, long key, long arg, long startNanos, long endNanos) {
+            final int offset = (int) (m_next % m_capacity) * RECORD_SIZE;
+            m_buffer.putLong(offset, startNanos);
+            m_buffer.putLong(offset + 8, endNanos);
+            m_buffer.putLong(offset + 16, key);
+            m_buffer.putLong(offset + 24, arg);
+            m_buffer.putLong(offset + 32, stage.ordinal());
+            m_buffer.putLong(offset + 40, connectionId);
+            m_published.lazySet(++m_next);
+        }
+
+        /**
+         * Copy out the records that started at or after sinceNanos. Records
+         * the writer may have overwritten during the copy are dropped.
+         */
+        List<Event> snapshot(long sinceNanos) {
+            final long end = m_published.get();
+            final ByteBuffer copy = ByteBuffer.allocate(m_buffer.capacity());
+            copy.put(m_buffer.duplicate());
+            final long overwritten = m_published.get() - m_capacity;
+
+            final List<Event> events = new ArrayList<>();
+            for (long i = Math.max(0, overwritten + 1); i < end; i++) {
+                final int offset = (int) (i % m_capacity) * RECORD_SIZE;
+                final long startNanos = copy.getLong(offset);
+                if (startNanos < sinceNanos) {
+                    continue;
+                }
+                events.add(new Event(Stage.s_values[(int) copy.getLong(offset + 32)],
+                                     copy.getLong(offset + 40),
+                                     copy.getLong(offset + 16),
+                                     copy.getLong(offset + 24),
+                                     startNanos,
+                                     copy.getLong(offset + 8)));
+            }
+            return events;
+        }
+    }
+
+    static final class Event {
+        final Stage m_stage;
+        final long m_connectionId;
+        final long m_key;
+        final long m_arg;
+        final long m_startNanos;
+        final long m_endNanos;
+
+        Event(Stage stage, long connectionId, long key, long arg, long startNanos, long endNanos) {
+            m_stage = stage;
+            m_connectionId = connectionId;
+            m_key = key;
+            m_arg = arg;
+            m_startNanos = startNanos;
+            m_endNanos = endNanos;
+        }
+    }
+
+    private static Ring register() {
+        // Drop the rings of threads that have gone away before adding a new one
+        s_rings.removeIf(ring -> !ring.m_thread.isAlive());
+        final Ring ring = new Ring(Thread.currentThread(), EVENTS_PER_THREAD);
+        s_rings.add(ring);
+        return ring;
+    }
+
+    /**
+     * Record a point-in-time event on the calling thread.
+     */
+    public static void record(Stage stage, long key, long arg) {
+        if (ENABLED) {
+            final long now = System.nanoTime();
+            s_ring.get().put(stage, 0, key, arg, now, now);
+        }
+    }
+
+    /**
+     * Record an event on the calling thread that started at startNanos and
+     * ends now.
+     */
+    public static void record(Stage stage, long key, long arg, long startNanos) {
+        if (ENABLED) {
+            s_ring.get().put(stage, 0, key, arg, startNanos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Record a point-in-time event of the transaction with the given client
+     * interface handle, invoked from the given client connection.
+     */
+    public static void recordTxn(Stage stage, long connectionId, long ciHandle, long arg) {
+        if (ENABLED) {
+            final long now = System.nanoTime();
+            s_ring.get().put(stage, connectionId, ciHandle, arg, now, now);
+        }
+    }
+
+    /**
+     * Record an event of the transaction with the given client interface
+     * handle, invoked from the given client connection, that started at
+     * startNanos and ends now.
+     */
+    public static void recordTxn(Stage stage, long connectionId, long ciHandle, long arg, long startNanos) {
+        if (ENABLED) {
+            s_ring.get().put(stage, connectionId, ciHandle, arg, startNanos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Write the events recorded in the last windowMillis milliseconds to a
+     * gzipped Chrome trace file in logDir.
+     * @return The absolute path of the trace file.
+     */
+    public static String dump(String logDir, long windowMillis) throws IOException {
+        final File dir = new File(logDir);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create trace log directory " + dir.getAbsolutePath());
+        }
+        final File file = new File(dir, "recorder_" + System.currentTimeMillis() + ".json.gz");
+        if (file.exists()) {
+            throw new IOException("Trace file " + file.getAbsolutePath() + " already exists");
+        }
+
+        int count;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8))) {
+            count = writeChromeTrace(writer, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(windowMillis));
+        }
+        s_logger.info("Wrote " + count + " flight recorder events to " + file.getAbsolutePath());
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Write the events that started at or after sinceNanos as a JSON array of
+     * Chrome trace events. Timestamps are relative to the earliest event.
+     * Events with a duration are drawn as complete events on their thread, and
+     * events keyed by the client interface handle are also drawn on an async
+     * track per transaction, from RECEIVE to RESPOND.
+     * @return The number of recorded events written.
+     */
+    static int writeChromeTrace(Writer writer, long sinceNanos) throws IOException {
+        final List<Ring> rings = new ArrayList<>(s_rings);
+        final List<List<Event>> snapshots = new ArrayList<>(rings.size());
+        long firstNanos = Long.MAX_VALUE;
+        for (Ring ring : rings) {
+            final List<Event> events = ring.snapshot(sinceNanos);
+            for (Event event : events) {
+                firstNanos = Math.min(firstNanos, event.m_startNanos);
+            }
+            snapshots.add(events);
+        }
+
+        int count = 0;
+        final JsonGenerator json = new JsonFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartArray();
+        for (int i = 0; i < rings.size(); i++) {
+            final Ring ring = rings.get(i);
+            final List<Event> events = snapshots.get(i);
+            if (events.isEmpty()) {
+                continue;
+            }
+            final long tid = ring.m_thread.getId();
+
+            json.writeStartObject();
+            json.writeStringField("name", "thread_name");
+            json.writeStringField("ph", "M");
+            json.writeNumberField("pid", s_pid);
+            json.writeNumberField("tid", tid);
+            json.writeObjectFieldStart("args");
+            json.writeStringField("name", ring.m_threadName);
+            json.writeEndObject();
+            json.writeEndObject();
+
+            for (Event event : events) {
+                if (event.m_endNanos > event.m_startNanos) {
+                    writeEvent(json, event, "X", tid, firstNanos);
+                }
+                if (event.m_stage.isTxnTrack()) {
+                    final String ph;
+                    if (event.m_stage == Stage.RECEIVE) {
+                        ph = "b";
+                    } else if (event.m_stage == Stage.RESPOND) {
+                        ph = "e";
+                    } else {
+                        ph = "n";
+                    }
+                    writeEvent(json, event, ph, tid, firstNanos);
+                } else if (event.m_endNanos == event.m_startNanos) {
+                    writeEvent(json, event, "i", tid, firstNanos);
+                }
+                count++;
+            }
+        }
+        json.writeEndArray();
+        json.flush();
+        return count;
+    }
+
+    private static void writeEvent(JsonGenerator json, Event event, String ph, long tid, long firstNanos)
+            throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", event.m_stage.name());
+        json.writeStringField("cat", "txn");
+        json.writeStringField("ph", ph);
+        json.writeNumberField("pid", s_pid);
+        json.writeNumberField("tid", tid);
+        json.writeNumberField("ts", (event.m_startNanos - firstNanos) / 1000.0);
+        if ("X".equals(ph)) {
+            json.writeNumberField("dur", (event.m_endNanos - event.m_startNanos) / 1000.0);
+        } else if ("i".equals(ph)) {
+            json.writeStringField("s", "t");
+        } else {
+            json.writeStringField("id", Long.toHexString(event.m_connectionId) + ":" + Long.toHexString(event.m_key));
+        }
+        json.writeObjectFieldStart("args");
+        if (event.m_stage.isTxnTrack()) {
+            json.writeNumberField("connectionId", event.m_connectionId);
+        }
+        json.writeNumberField(event.m_stage.m_keyName, event.m_key);
+        json.writeNumberField(event.m_stage.m_argName, event.m_arg);
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+}
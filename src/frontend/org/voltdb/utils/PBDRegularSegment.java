@@ -33,12 +33,18 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.CRC32;
 
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CompressionStrategies;
+import org.voltcore.utils.CompressionStrategy;
+import org.voltcore.utils.CompressionStrategyLZ4;
+import org.voltcore.utils.CompressionStrategySnappy;
 import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
+import org.voltcore.utils.VoltUnsafe;
 import org.voltdb.utils.BinaryDeque.OutputContainerFactory;
 import org.voltdb.utils.BinaryDeque.TruncatorResponse.Status;
 
@@ -56,6 +62,13 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
     private static final int VERSION = 3;
     private static final int COMPATIBLE_VERSION = 3;
     private static final Random RANDOM = new Random();
+    // Algorithm used to compress new entries. Each entry records its algorithm in its flags.
+    private static final CompressionStrategy COMPRESSION =
+            CompressionStrategies.forName(System.getProperty("PBD_COMPRESSION", "snappy"));
+    private static final char COMPRESSION_FLAGS = (char) (COMPRESSION == CompressionStrategyLZ4.INSTANCE
+            ? FLAG_COMPRESSED | FLAG_LZ4 : FLAG_COMPRESSED);
+    // Cleared the first time madvise can't be called because the native library is not loaded
+    private static volatile boolean s_madviseAvailable = true;
 
     private final Map<String, SegmentReader> m_readCursors = new HashMap<>();
     private final Map<String, SegmentReader> m_closedCursors = new HashMap<>();
@@ -88,7 +101,14 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
     private DBBPool.BBContainer m_segmentHeaderBuf = null;
     private DBBPool.BBContainer m_entryHeaderBuf = null;
+
+    // Mapping shared by all readers of this segment when m_mmapReads is set
+    private MappedByteBuffer m_mapped = null;
+    // Slices of m_mapped which have been polled but not discarded yet
+    private final AtomicInteger m_outstandingSlices = new AtomicInteger();
     Boolean INJECT_PBD_CHECKSUM_ERROR = Boolean.getBoolean("INJECT_PBD_CHECKSUM_ERROR");
+    // Read finished segments through a read only mapping and hand out slices of it instead of copies
+    private final boolean m_mmapReads = Boolean.getBoolean("PBD_MMAP_READS");
 
     PBDRegularSegment(long id, File file, VoltLogger usageSpecificLog,
             BinaryDequeSerializer<M> extraHeaderSerializer) {
@@ -642,6 +662,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
     private void closeReadersAndFile() throws IOException {
         m_readCursors.clear();
+        releaseMapping();
         try {
             if (m_fc != null) {
                 m_fc.close();
@@ -653,6 +674,46 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         }
     }
 
+    /**
+     * Map the whole segment for reading if it is no longer being written to
+     *
+     * @return the mapping or {@code null} if this segment can't be read through a mapping
+     */
+    private MappedByteBuffer mapForRead() throws IOException {
+        if (m_mapped == null) {
+            if (m_isActive || m_fc == null || m_fc.m_writable || m_fc.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            m_mapped = m_fc.map(FileChannel.MapMode.READ_ONLY, 0, m_fc.size());
+            if (s_madviseAvailable) {
+                try {
+                    final long retval = PosixAdvise.madvise(DBBPool.wrapBB(m_mapped).address(), m_mapped.capacity(),
+                            PosixAdvise.POSIX_MADV_SEQUENTIAL);
+                    if (retval != 0 && m_usageSpecificLog.isDebugEnabled()) {
+                        m_usageSpecificLog.debug("Failed to madvise " + m_file.getName() + ", this is harmless: "
+                                + retval);
+                    }
+                } catch (UnsatisfiedLinkError e) {
+                    s_madviseAvailable = false;
+                }
+            }
+        }
+        return m_mapped;
+    }
+
+    /**
+     * Drop the mapping of this segment. It is unmapped right away unless slices of it are still in use, those keep
+     * it alive until they are garbage collected.
+     */
+    private void releaseMapping() {
+        if (m_mapped != null) {
+            if (m_outstandingSlices.get() == 0) {
+                VoltUnsafe.cleanDirectBuffer(m_mapped);
+            }
+            m_mapped = null;
+        }
+    }
+
     @Override
     void setReadOnly() throws IOException {
         m_fc.reopen(false);
@@ -701,7 +762,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         final int remaining = buf.remaining();
         boolean compress = m_compress && remaining >= 32 && buf.isDirect();
 
-        final int maxCompressedSize = (compress ? CompressionService.maxCompressedLength(remaining) : remaining)
+        final int maxCompressedSize = (compress ? COMPRESSION.maxCompressedLength(remaining) : remaining)
                 + ENTRY_HEADER_BYTES;
         if (remaining() < maxCompressedSize) {
             return -1;
@@ -715,9 +776,9 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
 
             if (compress) {
                 destBuf = DBBPool.allocateDirectAndPool(maxCompressedSize);
-                final int compressedSize = CompressionService.compressBuffer(buf, destBuf.b());
+                final int compressedSize = COMPRESSION.compress(buf, destBuf.b());
                 destBuf.b().limit(compressedSize);
-                writeEntryHeader(destBuf.b(), PBDSegment.FLAG_COMPRESSED);
+                writeEntryHeader(destBuf.b(), COMPRESSION_FLAGS);
             } else {
                 destBuf = cont;
                 writeEntryHeader(destBuf.b(), PBDSegment.NO_FLAGS);
@@ -770,6 +831,10 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         }
     }
 
+    private static CompressionStrategy compressionStrategy(char flags) {
+        return (flags & FLAG_LZ4) != 0 ? CompressionStrategyLZ4.INSTANCE : CompressionStrategySnappy.INSTANCE;
+    }
+
     private void writeEntryHeader(ByteBuffer data, char flags) {
         PBDUtils.writeEntryHeader(m_crc, m_entryHeaderBuf.b(), data, m_segmentRandomId + m_numOfEntries + 1, flags);
     }
@@ -940,6 +1005,13 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
                 return null;
             }
 
+            if (m_mmapReads && m_cursorId != TRUNCATOR_CURSOR && m_cursorId != SCANNER_CURSOR) {
+                final MappedByteBuffer mapped = mapForRead();
+                if (mapped != null) {
+                    return pollMapped(mapped, factory, checkCrc);
+                }
+            }
+
             final long writePos = m_fc.position();
             m_fc.position(m_readOffset);
 
@@ -971,10 +1043,11 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
                         try {
                             fillBuffer(compressedBuf.b(), entryId, flags, entryCRC, checkCrc);
 
-                            uncompressedLen = CompressionService.uncompressedLength(compressedBuf.bDR());
+                            final CompressionStrategy strategy = compressionStrategy(flags);
+                            uncompressedLen = strategy.uncompressedLength(compressedBuf.bDR());
                             retcont = factory.getContainer(uncompressedLen);
                             retcont.b().limit(uncompressedLen);
-                            CompressionService.decompressBuffer(compressedBuf.bDR(), retcont.b());
+                            strategy.uncompress(compressedBuf.bDR(), retcont.b());
                         } finally {
                             compressedBuf.discard();
                         }
@@ -1011,6 +1084,79 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
             }
         }
 
+        /**
+         * Poll the next entry from the mapping of this segment. Uncompressed entries are returned as a slice of the
+         * mapping, so no data is copied and no read is issued.
+         */
+        private DBBPool.BBContainer pollMapped(MappedByteBuffer mapped, OutputContainerFactory factory,
+                boolean checkCrc) throws IOException {
+            final int entryOffset = (int) m_readOffset;
+            if (entryOffset + ENTRY_HEADER_BYTES > mapped.capacity()) {
+                throw new EOFException("EOF encountered reading " + m_file + " at position " + entryOffset);
+            }
+            final int entryCRC = mapped.getInt(entryOffset + ENTRY_HEADER_CRC_OFFSET);
+            final int length = mapped.getInt(entryOffset + ENTRY_HEADER_TOTAL_BYTES_OFFSET);
+            final int entryId = mapped.getInt(entryOffset + ENTRY_HEADER_ENTRY_ID_OFFSET);
+            final char flags = mapped.getChar(entryOffset + ENTRY_HEADER_FLAG_OFFSET);
+            final boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+
+            if (length < 1 || length > PBDSegment.CHUNK_SIZE - PBDSegment.SEGMENT_HEADER_BYTES
+                    || entryOffset + ENTRY_HEADER_BYTES + length > mapped.capacity()) {
+                throw new IOException ("File corruption detected in " + m_file.getName() + ": invalid entry length.");
+            }
+
+            if (entryId != m_segmentRandomId + m_objectReadIndex + 1) {
+                throw new IOException("File corruption detected in " + m_file.getName() + ": invalid entry id.");
+            }
+
+            final ByteBuffer data = mapped.duplicate();
+            data.limit(entryOffset + ENTRY_HEADER_BYTES + length).position(entryOffset + ENTRY_HEADER_BYTES);
+            final ByteBuffer entry = data.slice();
+            if (checkCrc && (entryCRC != PBDUtils.calculateEntryCrc(m_crcReader, entry, entryId, flags)
+                    || INJECT_PBD_CHECKSUM_ERROR)) {
+                throw new IOException("File corruption detected in " + m_file.getName() + ": checksum error. "
+                        + "Truncate the file to last safe point.");
+            }
+            entry.position(0);
+
+            DBBPool.BBContainer retcont;
+            final int uncompressedLen;
+            if (compressed) {
+                final CompressionStrategy strategy = compressionStrategy(flags);
+                uncompressedLen = strategy.uncompressedLength(entry);
+                retcont = factory.getContainer(uncompressedLen);
+                try {
+                    retcont.b().limit(uncompressedLen);
+                    strategy.uncompress(entry, retcont.b());
+                } catch (Throwable t) {
+                    retcont.discard();
+                    throw t;
+                }
+            } else {
+                uncompressedLen = length;
+                m_outstandingSlices.incrementAndGet();
+                retcont = new DBBPool.BBContainer(entry) {
+                    @Override
+                    public void discard() {
+                        super.discard();
+                        m_outstandingSlices.decrementAndGet();
+                    }
+                };
+            }
+
+            m_readOffset = entryOffset + ENTRY_HEADER_BYTES + length;
+            m_bytesRead += uncompressedLen;
+            m_objectReadIndex++;
+
+            return new DBBPool.DBBDelegateContainer(retcont) {
+                @Override
+                public void discard() {
+                    super.discard();
+                    m_discardCount++;
+                }
+            };
+        }
+
         private void fillBuffer(ByteBuffer entry, int entryId, char flags, int crc, boolean checkCrc)
                 throws IOException {
             int origPosition = entry.position();
@@ -1043,6 +1189,7 @@ class PBDRegularSegment<M> extends PBDSegment<M> {
         }
 
         private void truncateToCurrentReadIndex(long endId) throws IOException {
+            releaseMapping();
             boolean wasReadOnly = m_fc.reopen(true);
             try {
                 setFinal(false);
@@ -63,6 +63,8 @@ public abstract class PBDSegment<M> {
 
     static final char NO_FLAGS = 0;
     static final char FLAG_COMPRESSED = 1;
+    // Set together with FLAG_COMPRESSED when the entry is compressed with LZ4 instead of Snappy
+    static final char FLAG_LZ4 = 2;
 
     // Export Segment Entry Header layout (each segment has multiple entries):
     //  - crc of segment entry (4 bytes),
@@ -82,60 +82,81 @@ public class VoltTableUtil {
 
     public static void toCSVWriter(CSVWriter csv, VoltTable vt, List<VoltType> columnTypes) throws IOException {
         final SimpleDateFormat sdf = m_sdf.get();
-        String[] fields = new String[vt.getColumnCount()];
-        while (vt.advanceRow()) {
-            for (int ii = 0; ii < vt.getColumnCount(); ii++) {
+        final int columnCount = vt.getColumnCount();
+        final int rowCount = vt.getRowCount();
+        String[] fields = new String[columnCount];
+
+        // Read column by column so each column is located once rather than once per row,
+        // and fixed-width values come out of a primitive array.
+        final VoltTable.ColumnView[] views = new VoltTable.ColumnView[columnCount];
+        final long[][] longs = new long[columnCount][];
+        final double[][] doubles = new double[columnCount][];
+        for (int ii = 0; ii < columnCount; ii++) {
+            final VoltType type = columnTypes.get(ii);
+            views[ii] = vt.columnView(ii);
+            if (type == VoltType.BIGINT
+                    || type == VoltType.INTEGER
+                    || type == VoltType.SMALLINT
+                    || type == VoltType.TINYINT) {
+                longs[ii] = views[ii].asLongArray();
+            } else if (type == VoltType.FLOAT) {
+                doubles[ii] = views[ii].asDoubleArray();
+            }
+        }
+
+        for (int row = 0; row < rowCount; row++) {
+            for (int ii = 0; ii < columnCount; ii++) {
                 final VoltType type = columnTypes.get(ii);
+                final VoltTable.ColumnView view = views[ii];
                 if (type == VoltType.BIGINT
                         || type == VoltType.INTEGER
                         || type == VoltType.SMALLINT
                         || type == VoltType.TINYINT) {
-                    final long value = vt.getLong(ii);
-                    if (vt.wasNull()) {
+                    if (view.isNull(row)) {
                         fields[ii] = Constants.CSV_NULL;
                     } else {
-                        fields[ii] = Long.toString(value);
+                        fields[ii] = Long.toString(longs[ii][row]);
                     }
                 } else if (type == VoltType.FLOAT) {
-                    final double value = vt.getDouble(ii);
-                    if (vt.wasNull()) {
+                    final double value = doubles[ii][row];
+                    if (value <= VoltType.NULL_FLOAT) {
                         fields[ii] = Constants.CSV_NULL;
                     } else {
                         fields[ii] = Double.toString(value);
                     }
                 } else if (type == VoltType.DECIMAL) {
-                    final BigDecimal bd = vt.getDecimalAsBigDecimal(ii);
-                    if (vt.wasNull()) {
+                    final BigDecimal bd = view.getDecimalAsBigDecimal(row);
+                    if (bd == null) {
                         fields[ii] = Constants.CSV_NULL;
                     } else {
                         fields[ii] = bd.toString();
                     }
                 } else if (type == VoltType.STRING) {
-                    final String str = vt.getString(ii);
-                    if (vt.wasNull()) {
+                    final String str = view.getString(row);
+                    if (str == null) {
                         fields[ii] = Constants.CSV_NULL;
                     } else {
                         fields[ii] = str;
                     }
                 } else if (type == VoltType.TIMESTAMP) {
-                    final TimestampType timestamp = vt.getTimestampAsTimestamp(ii);
-                    if (vt.wasNull()) {
+                    if (view.isNull(row)) {
                         fields[ii] = Constants.CSV_NULL;
                     } else {
+                        final TimestampType timestamp = new TimestampType(view.getLong(row));
                         fields[ii] = sdf.format(timestamp.asApproximateJavaDate());
                         fields[ii] += String.format("%03d", timestamp.getUSec());
                     }
                 } else if (type == VoltType.VARBINARY) {
-                   byte bytes[] = vt.getVarbinary(ii);
-                   if (vt.wasNull()) {
+                   byte bytes[] = view.getBytes(row);
+                   if (bytes == null) {
                        fields[ii] = Constants.CSV_NULL;
                    } else {
                        fields[ii] = Encoder.hexEncode(bytes);
                    }
                 }
                 else if (type == VoltType.GEOGRAPHY_POINT) {
-                    final GeographyPointValue pt = vt.getGeographyPointValue(ii);
-                    if (vt.wasNull()) {
+                    final GeographyPointValue pt = view.getGeographyPointValue(row);
+                    if (pt == null) {
                         fields[ii] = Constants.CSV_NULL;
                     }
                     else {
@@ -143,8 +164,8 @@ public class VoltTableUtil {
                     }
                 }
                 else if (type == VoltType.GEOGRAPHY) {
-                    final GeographyValue gv = vt.getGeographyValue(ii);
-                    if (vt.wasNull()) {
+                    final GeographyValue gv = view.getGeographyValue(row);
+                    if (gv == null) {
                         fields[ii] = Constants.CSV_NULL;
                     }
                     else {
@@ -266,6 +266,28 @@ public class TestNIOReadStream extends TestCase {
         assertEquals(0, slc.discard());
     }
 
+    public void testSlicesDiscardedOutOfOrder() throws Exception {
+        final int SIZE = 4096*10;
+        final int BORDER = 32 * 1024;
+        channel.nextRead = new byte[SIZE];
+        assertEquals(SIZE, stream.read(channel, SIZE, pool));
+
+        // Three slices of the first buffer, the last one also spans into the second buffer
+        NIOReadStream.Slice first = stream.getSlice(8);
+        NIOReadStream.Slice second = stream.getSlice(BORDER - 16);
+        NIOReadStream.Slice third = stream.getSlice(16);
+
+        // The first buffer stays out of the pool until every slice of it is discarded
+        assertEquals(0, third.markConsumed().discard());
+        assertEquals(0, first.markConsumed().discard());
+        assertEquals(1, second.markConsumed().discard());
+
+        // The second buffer is still referenced by the stream
+        NIOReadStream.Slice rest = stream.getSlice(SIZE - BORDER - 8);
+        assertEquals(1, rest.markConsumed().discard());
+        assertStreamIsEmpty();
+    }
+
     public void testMultipleReadsOneValue() throws IOException {
         final int HUGE_SIZE = 4096*16;
         byte[] huge = new byte[HUGE_SIZE];
@@ -0,0 +1,160 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TestPicoNIOWriteStream extends TestCase {
+
+    private NetworkDBBPool pool;
+
+    @Override
+    public void setUp() {
+        // Small buffers so a batch of messages spans several of them
+        pool = new NetworkDBBPool(64, 16);
+    }
+
+    @Override
+    public void tearDown() {
+        pool.clear();
+    }
+
+    /**
+     * Channel that records what is written and accepts a limited number of bytes before it is full.
+     */
+    private static class RecordingChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream m_written = new ByteArrayOutputStream();
+        int m_writeCalls = 0;
+        int m_maxBuffersPerWrite = 0;
+        int m_capacity;
+
+        RecordingChannel(int capacity) {
+            m_capacity = capacity;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            m_writeCalls++;
+            m_maxBuffersPerWrite = Math.max(m_maxBuffersPerWrite, length);
+            int accepted = 0;
+            for (int ii = offset; ii < offset + length && m_capacity > 0; ii++) {
+                while (srcs[ii].hasRemaining() && m_capacity > 0) {
+                    m_written.write(srcs[ii].get());
+                    accepted++;
+                    m_capacity--;
+                }
+            }
+            return accepted;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[] { src });
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static byte[] enqueueMessages(PicoNIOWriteStream stream, int count) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int ii = 0; ii < count; ii++) {
+            ByteBuffer message = ByteBuffer.allocate(12);
+            message.putInt(8).putLong(ii).flip();
+            expected.write(message.array(), 0, message.limit());
+            stream.enqueue(message);
+        }
+        return expected.toByteArray();
+    }
+
+    public void testBatchInOneWrite() throws IOException {
+        PicoNIOWriteStream stream = new PicoNIOWriteStream();
+        byte expected[] = enqueueMessages(stream, 20);
+        assertEquals(20, stream.serializeQueuedWrites(pool));
+        assertEquals(expected.length, stream.getPendingBytes());
+
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        assertEquals(expected.length, stream.drainTo(channel));
+        assertEquals(1, channel.m_writeCalls);
+        assertTrue(channel.m_maxBuffersPerWrite > 1);
+        assertTrue(stream.isEmpty());
+        assertEquals(0, stream.getPendingBytes());
+        assertTrue(Arrays.equals(expected, channel.m_written.toByteArray()));
+        long writeInfo[] = stream.getBytesAndMessagesWritten(false);
+        assertEquals(expected.length, writeInfo[0]);
+        assertEquals(20, writeInfo[1]);
+        assertEquals(1, writeInfo[2]);
+        stream.shutdown();
+    }
+
+    public void testPartialWritesResume() throws IOException {
+        PicoNIOWriteStream stream = new PicoNIOWriteStream();
+        byte expected[] = enqueueMessages(stream, 10);
+        stream.serializeQueuedWrites(pool);
+
+        RecordingChannel channel = new RecordingChannel(25);
+        stream.drainTo(channel);
+        assertFalse(stream.isEmpty());
+        assertTrue(stream.hasPartialWrite());
+
+        // messages queued while the socket is full go out after the earlier ones
+        byte more[] = enqueueMessages(stream, 10);
+        stream.serializeQueuedWrites(pool);
+        channel.m_capacity = Integer.MAX_VALUE;
+        stream.drainTo(channel);
+        assertTrue(stream.isEmpty());
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        all.write(expected);
+        all.write(more);
+        assertTrue(Arrays.equals(all.toByteArray(), channel.m_written.toByteArray()));
+        stream.shutdown();
+    }
+
+    public void testShutdownReleasesBuffers() throws IOException {
+        PicoNIOWriteStream stream = new PicoNIOWriteStream();
+        enqueueMessages(stream, 10);
+        stream.serializeQueuedWrites(pool);
+        stream.drainTo(new RecordingChannel(5));
+        enqueueMessages(stream, 1);
+        stream.shutdown();
+        assertEquals(0, stream.getPendingBytes());
+    }
+}
@@ -0,0 +1,146 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.utils.CompressionPipeline;
+
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
+public class TestCompressionStrategy {
+
+    private static final CompressionStrategy STRATEGIES[] = {
+            CompressionStrategySnappy.INSTANCE, CompressionStrategyLZ4.INSTANCE };
+
+    private static byte[] data(int length) {
+        // Half random, half repeated so there is something to compress
+        Random r = new Random(length);
+        byte bytes[] = new byte[length];
+        r.nextBytes(bytes);
+        for (int ii = length / 2; ii < length; ii++) {
+            bytes[ii] = (byte)(ii % 7);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testByteArrayRoundTrip() throws Exception {
+        for (CompressionStrategy strategy : STRATEGIES) {
+            for (int length : new int[] { 0, 1, 1000, 1024 * 1024 }) {
+                byte bytes[] = data(length);
+                byte compressed[] = strategy.compress(bytes);
+                assertTrue(compressed.length <= strategy.maxCompressedLength(length));
+                assertTrue(Arrays.equals(bytes, strategy.uncompress(compressed)));
+            }
+        }
+    }
+
+    @Test
+    public void testDirectBufferRoundTrip() throws Exception {
+        for (CompressionStrategy strategy : STRATEGIES) {
+            byte bytes[] = data(64 * 1024);
+            ByteBuffer input = ByteBuffer.allocateDirect(bytes.length + 10);
+            input.position(10);
+            input.put(bytes);
+            input.position(10);
+
+            ByteBuffer compressed = ByteBuffer.allocateDirect(strategy.maxCompressedLength(bytes.length) + 6);
+            compressed.position(6);
+            int size = strategy.compress(input, compressed);
+            assertEquals(6, compressed.position());
+            assertEquals(6 + size, compressed.limit());
+
+            assertEquals(bytes.length, strategy.uncompressedLength(compressed));
+            ByteBuffer output = ByteBuffer.allocateDirect(bytes.length + 3);
+            output.position(3);
+            assertEquals(bytes.length, strategy.uncompress(compressed, output));
+            byte result[] = new byte[bytes.length];
+            output.get(result);
+            assertTrue(strategy.name(), Arrays.equals(bytes, result));
+        }
+    }
+
+    @Test
+    public void testForName() {
+        assertSame(CompressionStrategySnappy.INSTANCE, CompressionStrategies.forName("snappy"));
+        assertSame(CompressionStrategyLZ4.INSTANCE, CompressionStrategies.forName("LZ4"));
+        for (CompressionStrategy strategy : STRATEGIES) {
+            assertSame(strategy, CompressionStrategies.forName(strategy.name()));
+        }
+        try {
+            CompressionStrategies.forName("gzip");
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+
+    @Test
+    public void testPipelineBoundsInFlight() throws Exception {
+        CompressionPipeline pipeline = new CompressionPipeline(CompressionStrategyLZ4.INSTANCE, 2);
+        byte bytes[] = data(4096);
+        ByteBuffer input = ByteBuffer.allocateDirect(bytes.length);
+        input.put(bytes).flip();
+
+        BBContainer first = pipeline.compress(input.duplicate(), 8, false).get();
+        final BBContainer second = pipeline.compress(input.duplicate(), 8, false).get();
+        assertEquals(2, pipeline.inFlight());
+        assertEquals(8, first.b().position());
+
+        ByteBuffer compressed = first.b().slice();
+        byte result[] = new byte[bytes.length];
+        ByteBuffer output = ByteBuffer.allocateDirect(bytes.length);
+        CompressionStrategyLZ4.INSTANCE.uncompress(compressed, output);
+        output.get(result);
+        assertTrue(Arrays.equals(bytes, result));
+
+        // A third block is compressed on the calling thread without waiting for the first two
+        ListenableFuture<BBContainer> third = pipeline.compress(input.duplicate(), 0, false);
+        assertTrue(third.isDone());
+        assertEquals(2, pipeline.inFlight());
+        compressed = third.get().b().slice();
+        output.clear();
+        CompressionStrategyLZ4.INSTANCE.uncompress(compressed, output);
+        output.get(result);
+        assertTrue(Arrays.equals(bytes, result));
+        third.get().discard();
+        assertEquals(2, pipeline.inFlight());
+
+        // Discarding an asynchronous block admits the next one
+        second.discard();
+        ListenableFuture<BBContainer> fourth = pipeline.compress(input.duplicate(), 0, false);
+        fourth.get(10, TimeUnit.SECONDS).discard();
+        first.discard();
+        assertEquals(0, pipeline.inFlight());
+    }
+}
@@ -0,0 +1,120 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestLongObjectHashMap extends TestCase {
+
+    @Test
+    public void testBasicOperations() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(-1L, "minus one"));
+        assertNull(map.put(0L, "zero"));
+        assertEquals("one", map.put(1L, "uno"));
+        assertEquals(3, map.size());
+        assertEquals("uno", map.get(1L));
+        assertEquals("zero", map.get(0L));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(2L));
+        assertNull(map.get(2L));
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertTrue(Arrays.equals(new long[] { -1L, 0L, 1L }, keys));
+
+        assertEquals("minus one", map.remove(-1L));
+        assertNull(map.remove(-1L));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+    }
+
+    @Test
+    public void testNullValueRejected() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        try {
+            map.put(1L, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRemoveIf() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        assertEquals(500, map.removeIf((k, v) -> k % 2 == 0));
+        assertEquals(500, map.size());
+        final long[] sum = new long[1];
+        map.forEach((k, v) -> {
+            assertEquals(k, v.longValue());
+            assertTrue(k % 2 == 1);
+            sum[0] += k;
+        });
+        assertEquals(500L * 500L, sum[0]);
+    }
+
+    /**
+     * Apply the same random operations to a HashMap and a LongObjectHashMap.
+     * Keys are drawn from a small range, and include clustered txnId-like values,
+     * so probe runs overlap and removals have to shift entries back.
+     */
+    @Test
+    public void testAgainstHashMap() {
+        Random r = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        for (int i = 0; i < 200000; i++) {
+            long key = r.nextBoolean() ? r.nextInt(512) : (r.nextInt(512) << 14);
+            switch (r.nextInt(3)) {
+            case 0:
+            case 1:
+                Long value = r.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+                break;
+            default:
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        assertEquals(expected.size(), map.keys().length);
+    }
+}
@@ -22,8 +22,13 @@
  */
 package org.voltdb;
 
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
+import org.HdrHistogram_voltpatches.AbstractHistogram;
+import org.voltdb.dtxn.LatencyHistogramStats;
+
 public class TestAdmissionControlGroup extends TestCase {
 
 
@@ -142,4 +147,34 @@ public class TestAdmissionControlGroup extends TestCase {
             acg.reduceBackpressure(-1);
         } catch (IllegalArgumentException e) {}
     }
+
+    public void testLatencyTotalsAndWindow() {
+        for (int ii = 1; ii <= 100; ii++) {
+            acg.logTransactionCompleted(32, "localhost", "Proc", TimeUnit.MILLISECONDS.toNanos(ii), (byte) 1);
+        }
+        // snapshot restores are not counted
+        acg.logTransactionCompleted(32, "localhost", "@SnapshotRestore", TimeUnit.SECONDS.toNanos(10), (byte) 1);
+
+        AbstractHistogram window = LatencyHistogramStats.constructHistogram(false);
+        acg.addLatencyWindowTo(window);
+        assertEquals(100, window.getTotalCount());
+        assertEquals(100, TimeUnit.MICROSECONDS.toMillis(window.getMaxValue()));
+
+        // reading the totals doesn't take values from the next window
+        acg.logTransactionCompleted(32, "localhost", "Proc", TimeUnit.MILLISECONDS.toNanos(500), (byte) 1);
+        AbstractHistogram totals = LatencyHistogramStats.constructHistogram(false);
+        acg.addLatencyTotalsTo(totals);
+        assertEquals(101, totals.getTotalCount());
+
+        window.reset();
+        acg.addLatencyWindowTo(window);
+        assertEquals(1, window.getTotalCount());
+        window.reset();
+        acg.addLatencyWindowTo(window);
+        assertEquals(0, window.getTotalCount());
+
+        totals.reset();
+        acg.addLatencyTotalsTo(totals);
+        assertEquals(101, totals.getTotalCount());
+    }
 }
@@ -0,0 +1,168 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.network.Connection;
+import org.voltcore.network.MockWriteStream;
+import org.voltcore.utils.DeferredSerialization;
+import org.voltdb.client.ClientResponse;
+
+public class TestClientResponseStreamer {
+
+    private static final int CHUNK_SIZE = ClientResponseStreamer.MIN_CHUNK_BYTES;
+
+    // reports serialized bytes as queued, like the network write stream does
+    private static class QueueingWriteStream extends MockWriteStream {
+        ClientResponseStreamer m_streamer;
+
+        @Override
+        public void enqueue(DeferredSerialization ds) {
+            super.enqueue(ds);
+            try {
+                m_streamer.bytesQueued(ds.getSerializedSize());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private QueueingWriteStream m_writeStream;
+    private ClientResponseStreamer m_streamer;
+
+    @Before
+    public void setUp() {
+        m_writeStream = new QueueingWriteStream();
+        Connection connection = mock(Connection.class);
+        doReturn(m_writeStream).when(connection).writeStream();
+        m_streamer = new ClientResponseStreamer(connection);
+        m_writeStream.m_streamer = m_streamer;
+    }
+
+    private static VoltTable bigTable(int rows) {
+        VoltTable t = new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING));
+        for (int i = 0; i < rows; i++) {
+            t.addRow(i, i % 7 == 0 ? null : "row number " + i + " with some padding to make it wider");
+        }
+        return t;
+    }
+
+    private static ByteBuffer serialize(DeferredSerialization ds) throws Exception {
+        ByteBuffer buf = ByteBuffer.allocate(ds.getSerializedSize());
+        ds.serialize(buf);
+        assertFalse(buf.hasRemaining());
+        buf.flip();
+        return buf;
+    }
+
+    private static ClientResponseImpl read(ByteBuffer buf) throws Exception {
+        assertEquals(buf.remaining() - 4, buf.getInt());
+        ClientResponseImpl response = new ClientResponseImpl();
+        response.initFromBuffer(buf);
+        return response;
+    }
+
+    @Test
+    public void testSmallAndFailedResponsesAreNotStreamed() throws Exception {
+        ClientResponseImpl small = new ClientResponseImpl(ClientResponse.SUCCESS, new VoltTable[] { bigTable(10) }, null);
+        assertNull(m_streamer.start(small, CHUNK_SIZE));
+
+        ClientResponseImpl failed = new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE,
+                new VoltTable[] { bigTable(10000) }, "failed");
+        assertNull(m_streamer.start(failed, CHUNK_SIZE));
+        assertEquals(0, m_streamer.getActiveStreamCount());
+    }
+
+    @Test
+    public void testChunksReassemble() throws Exception {
+        VoltTable empty = bigTable(0);
+        VoltTable big = bigTable(20000);
+        VoltTable small = bigTable(3);
+        ClientResponseImpl response = new ClientResponseImpl(ClientResponse.SUCCESS, (byte) 5, "app",
+                new VoltTable[] { empty, big, small }, null);
+        response.setClientHandle(42);
+
+        DeferredSerialization first = m_streamer.start(response, CHUNK_SIZE);
+        assertNotNull(first);
+        List<ClientResponseImpl> received = new ArrayList<>();
+        received.add(read(serialize(first)));
+
+        // only a window of chunks is queued until the writes drain
+        assertTrue(m_writeStream.m_messages.size() > 0);
+        assertTrue(m_writeStream.m_messages.size() <= ClientResponseStreamer.WINDOW_CHUNKS);
+        assertEquals(1, m_streamer.getActiveStreamCount());
+        ByteBuffer buf;
+        while ((buf = m_writeStream.m_messages.poll()) != null) {
+            // the mock write stream hands back buffers as they were serialized into
+            buf.flip();
+            assertTrue(buf.remaining() <= CHUNK_SIZE);
+            received.add(read(buf));
+            m_streamer.bytesQueued(-buf.capacity());
+        }
+        assertEquals(0, m_streamer.getActiveStreamCount());
+
+        VoltTable[] reassembled = new VoltTable[3];
+        ClientResponseImpl last = received.remove(received.size() - 1);
+        for (ClientResponseImpl partial : received) {
+            assertTrue(partial.isPartial());
+            assertEquals(42, partial.getClientHandle());
+            assertEquals(1, partial.getResults().length);
+            VoltTable chunk = partial.getResults()[0];
+            int index = partial.getResultIndex();
+            if (reassembled[index] == null) {
+                reassembled[index] = chunk.clone(0);
+            }
+            chunk.resetRowPosition();
+            while (chunk.advanceRow()) {
+                reassembled[index].add(chunk);
+            }
+        }
+        assertTrue(received.size() > 10);
+        assertEquals(empty, reassembled[0]);
+        assertEquals(big, reassembled[1]);
+        assertEquals(small, reassembled[2]);
+
+        assertFalse(last.isPartial());
+        assertEquals(42, last.getClientHandle());
+        assertEquals(ClientResponse.SUCCESS, last.getStatus());
+        assertEquals(5, last.getAppStatus());
+        assertEquals("app", last.getAppStatusString());
+        assertEquals(0, last.getResults().length);
+    }
+}
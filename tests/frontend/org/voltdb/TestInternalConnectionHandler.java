@@ -0,0 +1,381 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.voltcore.messaging.HostMessenger;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.settings.DbSettings;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.MiscUtils;
+
+public class TestInternalConnectionHandler {
+
+    private static final int PARTITION_COUNT = 3;
+
+    private static CatalogContext m_context;
+
+    private final Predicate<Integer> m_backPressure = x -> true;
+    private final InternalConnectionContext m_caller = mock(InternalConnectionContext.class);
+    // Transactions handed to the adapters, in order
+    private final List<Submitted> m_submitted = Collections.synchronizedList(new ArrayList<>());
+    // Procedures for which the adapters refuse to create a transaction
+    private final Set<String> m_rejected = Collections.synchronizedSet(new HashSet<>());
+    private InternalConnectionHandler m_handler;
+
+    private static class Submitted {
+        final String m_proc;
+        final Object[] m_params;
+        final int[] m_partitions;
+        final ProcedureCallback m_callback;
+        final Predicate<Integer> m_backPressure;
+
+        Submitted(StoredProcedureInvocation task, int[] partitions, ProcedureCallback callback,
+                Predicate<Integer> backPressure) {
+            m_proc = task.getProcName();
+            m_params = task.getParams().toArray();
+            m_partitions = partitions;
+            m_callback = callback;
+            m_backPressure = backPressure;
+        }
+    }
+
+    /**
+     * Records the responses given to the callbacks of the rows
+     */
+    private static class RowCallback implements ProcedureCallback {
+        final List<ClientResponse> m_responses = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch m_done;
+
+        RowCallback(CountDownLatch done) {
+            m_done = done;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            m_responses.add(response);
+            m_done.countDown();
+        }
+    }
+
+    /**
+     * Adapter answering every transaction from another thread, as the client interface
+     * does, failing the batch loads and executing the procedures of single rows.
+     */
+    private static class RespondingAdapter extends InternalClientResponseAdapter {
+        private final ExecutorService m_responder = Executors.newSingleThreadExecutor();
+
+        RespondingAdapter() {
+            super(1);
+        }
+
+        @Override
+        ClientResponseImpl dispatch(StoredProcedureInvocation task, InternalAdapterTaskAttributes kattrs,
+                AuthSystem.AuthUser user, boolean ntPriority) {
+            final byte status = task.getProcName().startsWith("@Load") ?
+                    ClientResponse.GRACEFUL_FAILURE : ClientResponse.SUCCESS;
+            final ClientResponseImpl response = new ClientResponseImpl(status, new VoltTable[0], null);
+            response.setClientHandle(task.getClientHandle());
+            m_responder.execute(() -> {
+                ByteBuffer buf = ByteBuffer.allocate(4 + response.getSerializedSize());
+                buf.putInt(response.getSerializedSize());
+                response.flattenToBuffer(buf);
+                buf.flip();
+                enqueue(buf);
+            });
+            return null;
+        }
+    }
+
+    @BeforeClass
+    public static void buildCatalog() throws IOException {
+        File cat = File.createTempFile("TestInternalConnectionHandler", "catalog");
+        cat.deleteOnExit();
+
+        VoltProjectBuilder builder = new VoltProjectBuilder();
+        builder.addLiteralSchema(
+                "create table P (id integer not null, val varchar(16), primary key (id));\n" +
+                "partition table P on column id;\n" +
+                "create table R (id integer not null, val varchar(16), primary key (id));\n");
+        builder.addStmtProcedure("GetR", "select * from R where id = ?");
+        if (!builder.compile(cat.getAbsolutePath())) {
+            throw new IOException();
+        }
+
+        byte[] bytes = MiscUtils.fileToBytes(cat);
+        String serializedCat = CatalogUtil.getSerializedCatalogStringFromJar(
+                CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        assertNotNull(serializedCat);
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCat);
+
+        String deploymentPath = builder.getPathToDeployment();
+        CatalogUtil.compileDeployment(catalog, deploymentPath, false);
+        DbSettings dbSettings = CatalogUtil.asDbSettings(deploymentPath);
+        m_context = new CatalogContext(catalog, dbSettings, 0, 0, bytes, null, new byte[] {},
+                mock(HostMessenger.class));
+        TheHashinator.initialize(TheHashinator.getConfiguredHashinatorClass(),
+                TheHashinator.getConfigureBytes(PARTITION_COUNT));
+    }
+
+    @Before
+    public void setUp() {
+        VoltDBInterface volt = mock(VoltDBInterface.class);
+        doReturn(m_context).when(volt).getCatalogContext();
+        VoltDB.replaceVoltDBInstanceForTest(volt);
+        when(m_caller.getName()).thenReturn("TestImporter");
+
+        InternalClientResponseAdapter adapter = mock(InternalClientResponseAdapter.class);
+        doAnswer(invocation -> {
+            StoredProcedureInvocation task = invocation.getArgument(4);
+            m_submitted.add(new Submitted(task, invocation.getArgument(6), invocation.getArgument(2),
+                    invocation.getArgument(8)));
+            return !m_rejected.contains(task.getProcName());
+        }).when(adapter).createTransaction(any(), any(), any(), any(), any(), any(), any(), anyBoolean(), any());
+
+        m_handler = new InternalConnectionHandler();
+        for (int pid = 0; pid < PARTITION_COUNT; pid++) {
+            m_handler.addAdapter(pid, adapter);
+        }
+        m_handler.addAdapter(MpInitiator.MP_INIT_PID, adapter);
+    }
+
+    private static Object[] row(int id) {
+        return new Object[] { id, "value-" + id };
+    }
+
+    private boolean[] callProcedures(String proc, List<Object[]> rows, List<RowCallback> callbacks) {
+        return m_handler.callProcedures(m_caller, m_backPressure, null, proc, rows,
+                new ArrayList<ProcedureCallback>(callbacks));
+    }
+
+    private static List<RowCallback> callbacks(int count) {
+        return callbacks(count, new CountDownLatch(count));
+    }
+
+    private static List<RowCallback> callbacks(int count, CountDownLatch done) {
+        List<RowCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            callbacks.add(new RowCallback(done));
+        }
+        return callbacks;
+    }
+
+    private static ClientResponse response(byte status) {
+        return new ClientResponseImpl(status, new VoltTable[0], null);
+    }
+
+    @Test
+    public void testRowsGroupedByPartition() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rows.add(row(i));
+        }
+        List<RowCallback> callbacks = callbacks(rows.size());
+        boolean[] queued = callProcedures("P.insert", rows, callbacks);
+        boolean[] all = new boolean[rows.size()];
+        Arrays.fill(all, true);
+        assertArrayEquals(all, queued);
+
+        // One load per partition, holding exactly the rows of that partition
+        assertEquals(PARTITION_COUNT, m_submitted.size());
+        Map<Integer, Integer> loaded = new HashMap<>();
+        for (Submitted load : m_submitted) {
+            assertEquals("@LoadSinglepartitionTable", load.m_proc);
+            assertEquals(1, load.m_partitions.length);
+            assertSame(m_backPressure, load.m_backPressure);
+            final int partition = load.m_partitions[0];
+            assertEquals("P", load.m_params[1]);
+            assertEquals((byte) 0, load.m_params[2]);
+            VoltTable table = (VoltTable) load.m_params[3];
+            while (table.advanceRow()) {
+                final int id = (int) table.getLong(0);
+                assertEquals("value-" + id, table.getString(1));
+                assertEquals(partition, TheHashinator.getPartitionForParameter(VoltType.INTEGER, id));
+                assertNull(loaded.put(id, partition));
+            }
+        }
+        assertEquals(rows.size(), loaded.size());
+
+        // Each row gets the response of its load
+        for (Submitted load : m_submitted) {
+            load.m_callback.clientCallback(response(ClientResponse.SUCCESS));
+        }
+        for (RowCallback cb : callbacks) {
+            assertEquals(1, cb.m_responses.size());
+            assertEquals(ClientResponse.SUCCESS, cb.m_responses.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void testReplicatedTable() throws Exception {
+        List<Object[]> rows = Arrays.asList(row(1), row(2), row(3));
+        List<RowCallback> callbacks = callbacks(rows.size());
+        assertArrayEquals(new boolean[] { true, true, true }, callProcedures("R.upsert", rows, callbacks));
+
+        assertEquals(1, m_submitted.size());
+        Submitted load = m_submitted.get(0);
+        assertEquals("@LoadMultipartitionTable", load.m_proc);
+        assertArrayEquals(new int[] { MpInitiator.MP_INIT_PID }, load.m_partitions);
+        assertEquals("R", load.m_params[0]);
+        assertEquals((byte) 1, load.m_params[1]);
+        assertEquals(rows.size(), ((VoltTable) load.m_params[2]).getRowCount());
+
+        load.m_callback.clientCallback(response(ClientResponse.SUCCESS));
+        for (RowCallback cb : callbacks) {
+            assertEquals(1, cb.m_responses.size());
+        }
+    }
+
+    @Test
+    public void testFailedLoadRetriedPerRow() throws Exception {
+        List<Object[]> rows = Arrays.asList(row(1), row(1));
+        CountDownLatch done = new CountDownLatch(rows.size());
+        List<RowCallback> callbacks = callbacks(rows.size(), done);
+        assertArrayEquals(new boolean[] { true, true }, callProcedures("P.insert", rows, callbacks));
+        assertEquals(1, m_submitted.size());
+
+        // A constraint violation fails the whole load, every row is inserted on its own
+        m_rejected.add("P.insert");
+        m_submitted.get(0).m_callback.clientCallback(response(ClientResponse.GRACEFUL_FAILURE));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, m_submitted.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Submitted insert = m_submitted.get(i + 1);
+            assertEquals("P.insert", insert.m_proc);
+            assertArrayEquals(rows.get(i), insert.m_params);
+            // The importer's back pressure still applies to the retries
+            assertSame(m_backPressure, insert.m_backPressure);
+            // The rows were reported as queued, so a retry that cannot be queued still gets a response
+            assertEquals(1, callbacks.get(i).m_responses.size());
+            assertEquals(ClientResponse.UNEXPECTED_FAILURE, callbacks.get(i).m_responses.get(0).getStatus());
+        }
+    }
+
+    @Test
+    public void testPerRowResults() throws Exception {
+        // Rows that do not fit the table are invoked on their own
+        List<Object[]> rows = Arrays.asList(row(1), new Object[] { 2 }, row(3), new Object[] { "x", "y" });
+        List<RowCallback> callbacks = callbacks(rows.size());
+        m_rejected.add("P.insert");
+        boolean[] queued = callProcedures("P.insert", rows, callbacks);
+        assertArrayEquals(new boolean[] { true, false, true, false }, queued);
+        for (RowCallback cb : callbacks) {
+            assertTrue(cb.m_responses.isEmpty());
+        }
+
+        // When the load cannot be queued either, every row reports its own result
+        m_submitted.clear();
+        m_rejected.add("@LoadSinglepartitionTable");
+        queued = callProcedures("P.insert", Arrays.asList(row(1), row(2)), callbacks(2));
+        assertArrayEquals(new boolean[] { false, false }, queued);
+        m_rejected.remove("P.insert");
+        m_submitted.clear();
+        queued = callProcedures("P.insert", Arrays.asList(row(1), row(2)), callbacks(2));
+        assertArrayEquals(new boolean[] { true, true }, queued);
+        for (Submitted submitted : m_submitted) {
+            assertSame(m_backPressure, submitted.m_backPressure);
+        }
+
+        // Procedures other than the default insert and upsert are invoked once per row
+        m_submitted.clear();
+        queued = callProcedures("GetR", Arrays.asList(new Object[] { 1 }, new Object[] { 2 }), callbacks(2));
+        assertArrayEquals(new boolean[] { true, true }, queued);
+        assertEquals(2, m_submitted.size());
+        for (Submitted submitted : m_submitted) {
+            assertEquals("GetR", submitted.m_proc);
+        }
+
+        // Nothing is queued for a procedure that does not exist
+        m_submitted.clear();
+        queued = callProcedures("NoSuchProc", Arrays.asList(row(1), row(2)), callbacks(2));
+        assertArrayEquals(new boolean[] { false, false }, queued);
+        assertTrue(m_submitted.isEmpty());
+    }
+
+    @Test
+    public void testFailedBatchesBeyondPendingLimit() throws Exception {
+        RespondingAdapter adapter = new RespondingAdapter();
+        m_handler = new InternalConnectionHandler();
+        m_handler.addAdapter(0, adapter);
+
+        // More rows of one partition than the adapter lets wait for a response
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 0; rows.size() < 2 * InternalClientResponseAdapter.MAX_PENDING_TRANSACTIONS + 100; id++) {
+            if (TheHashinator.getPartitionForParameter(VoltType.INTEGER, id) == 0) {
+                rows.add(row(id));
+            }
+        }
+        CountDownLatch done = new CountDownLatch(rows.size());
+        List<RowCallback> callbacks = callbacks(rows.size(), done);
+        boolean[] queued = callProcedures("P.insert", rows, callbacks);
+        for (boolean q : queued) {
+            assertTrue(q);
+        }
+
+        // Every load fails, the rows retried one by one must not wait on the thread releasing the permits
+        assertTrue("Retried rows did not complete", done.await(60, TimeUnit.SECONDS));
+        for (RowCallback cb : callbacks) {
+            assertEquals(1, cb.m_responses.size());
+            assertEquals(ClientResponse.SUCCESS, cb.m_responses.get(0).getStatus());
+        }
+        adapter.m_responder.shutdown();
+    }
+}
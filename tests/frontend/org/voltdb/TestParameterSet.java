@@ -537,4 +537,33 @@ public class TestParameterSet extends TestCase {
 
         assertTrue(Arrays.deepEquals(pset1array, pset2array));
     }
+
+    public void testReflattenDeserialized() throws IOException {
+        ParameterSet pset = ParameterSet.fromArrayNoCopy((byte) 3,
+                                                         (short) 4,
+                                                         5,
+                                                         6L,
+                                                         7.5f,
+                                                         8.5,
+                                                         "nine",
+                                                         new TimestampType(10),
+                                                         new Date(11),
+                                                         null,
+                                                         VoltType.NULL_STRING_OR_VARBINARY,
+                                                         VoltType.NULL_DECIMAL,
+                                                         new long[] {12, 13});
+
+        ByteBuffer buf = ByteBuffer.allocate(pset.getSerializedSize());
+        pset.flattenToBuffer(buf);
+        assertFalse(buf.hasRemaining());
+        buf.flip();
+
+        // a set read off the wire writes back exactly the bytes it was read from
+        ParameterSet pset2 = ParameterSet.fromByteBuffer(buf.duplicate());
+        assertEquals(pset.getSerializedSize(), pset2.getSerializedSize());
+        ByteBuffer buf2 = ByteBuffer.allocate(pset2.getSerializedSize());
+        pset2.flattenToBuffer(buf2);
+        buf2.flip();
+        assertEquals(buf, buf2);
+    }
 }
@@ -0,0 +1,107 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestProcedureStatsCollector {
+
+    private static final String STMT = "stmt";
+
+    private static ProcedureStatsCollector createCollector(boolean singlePartition) {
+        ArrayList<String> stmtNames = new ArrayList<>();
+        stmtNames.add(STMT);
+        return new ProcedureStatsCollector(0, 0, "TestProc", singlePartition, stmtNames, true);
+    }
+
+    private static Object[] getStatementRow(ProcedureStatsCollector collector) {
+        for (Object[] row : collector.getStatsRows(false, System.currentTimeMillis())) {
+            if (STMT.equals(row[collector.columnNameToIndex.get("STATEMENT")])) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private static void assertMillis(long expectedMillis, Object[] row, ProcedureStatsCollector collector,
+            String column) {
+        long actual = (Long) row[collector.columnNameToIndex.get(column)];
+        long expected = TimeUnit.MILLISECONDS.toNanos(expectedMillis);
+        // Latencies are kept with two significant digits
+        assertEquals(column, expected, actual, expected / 100.0);
+    }
+
+    @Test
+    public void testWorkerPercentiles() {
+        ProcedureStatsCollector collector = createCollector(true);
+        for (int i = 1; i <= 1000; i++) {
+            collector.endFragment(STMT, false, false, true, TimeUnit.MILLISECONDS.toNanos(i), 0, 0);
+        }
+
+        Object[] row = getStatementRow(collector);
+        assertNotNull(row);
+        assertMillis(500, row, collector, "P50_EXECUTION_TIME");
+        assertMillis(990, row, collector, "P99_EXECUTION_TIME");
+        assertMillis(999, row, collector, "P999_EXECUTION_TIME");
+    }
+
+    @Test
+    public void testWorkerAndCoordinatorPercentilesAreMerged() {
+        ProcedureStatsCollector collector = createCollector(false);
+        // 98% of the samples are fast worker fragments, 2% are slow coordinator fragments
+        for (int i = 0; i < 980; i++) {
+            collector.endFragment(STMT, false, false, true, TimeUnit.MILLISECONDS.toNanos(10), 0, 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            collector.endFragment(STMT, true, false, true, TimeUnit.MILLISECONDS.toNanos(1000), 0, 0);
+        }
+
+        Object[] row = getStatementRow(collector);
+        assertNotNull(row);
+        // Summing the per-task percentiles would report 1010ms here
+        assertMillis(10, row, collector, "P50_EXECUTION_TIME");
+        assertMillis(1000, row, collector, "P99_EXECUTION_TIME");
+        assertMillis(1000, row, collector, "P999_EXECUTION_TIME");
+    }
+
+    @Test
+    public void testUnsampledFragmentsAreNotRecorded() {
+        ProcedureStatsCollector collector = createCollector(true);
+        collector.endFragment(STMT, false, false, true, TimeUnit.MILLISECONDS.toNanos(5), 0, 0);
+        for (int i = 0; i < 100; i++) {
+            collector.endFragment(STMT, false, false, false, TimeUnit.MILLISECONDS.toNanos(1000), 0, 0);
+        }
+
+        Object[] row = getStatementRow(collector);
+        assertNotNull(row);
+        assertMillis(5, row, collector, "P50_EXECUTION_TIME");
+        assertMillis(5, row, collector, "P999_EXECUTION_TIME");
+    }
+}
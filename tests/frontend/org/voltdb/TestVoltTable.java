@@ -1462,6 +1462,103 @@ public class TestVoltTable extends TestCase {
         }
     }
 
+    public void testColumnViewMatchesRows() {
+        final int ROW_COUNT = 2000;
+
+        TableHelper th = new TableHelper();
+        VoltTable t = th.getTotallyRandomTable("FOO").table;
+        th.randomFill(t, ROW_COUNT, 64);
+        t = roundTrip(t);
+
+        for (int col = 0; col < t.getColumnCount(); col++) {
+            final VoltType type = t.getColumnType(col);
+            final VoltTable.ColumnView view = t.columnView(col);
+            assertEquals(ROW_COUNT, view.getRowCount());
+            assertEquals(type, view.getColumnType());
+
+            long[] longs = null;
+            double[] doubles = null;
+            switch (type) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case TIMESTAMP:
+                longs = view.asLongArray();
+                break;
+            case FLOAT:
+                doubles = view.asDoubleArray();
+                break;
+            default:
+                try {
+                    view.asLongArray();
+                    fail();
+                } catch (IllegalArgumentException expected) {}
+            }
+
+            // reading through the view must not move the row cursor
+            t.resetRowPosition();
+            int row = 0;
+            while (t.advanceRow()) {
+                final Object expected = t.get(col, type);
+                final boolean isNull = t.wasNull();
+                assertEquals(isNull, view.isNull(row));
+                if (longs != null && !isNull) {
+                    final long value = type == VoltType.TIMESTAMP ?
+                            ((TimestampType) expected).getTime() : ((Number) expected).longValue();
+                    assertEquals(value, longs[row]);
+                    assertEquals(value, view.getLong(row));
+                }
+                else if (doubles != null && !isNull) {
+                    assertEquals((Double) expected, doubles[row], 0.0);
+                    assertEquals((Double) expected, view.getDouble(row), 0.0);
+                }
+                else if (type == VoltType.STRING) {
+                    assertEquals(expected, view.getString(row));
+                }
+                else if (type == VoltType.VARBINARY) {
+                    assertTrue(Arrays.equals((byte[]) expected, view.getBytes(row)));
+                }
+                else if (type == VoltType.DECIMAL) {
+                    assertEquals(expected, view.getDecimalAsBigDecimal(row));
+                }
+                assertEquals(row, t.getActiveRowIndex());
+                row++;
+            }
+            assertEquals(ROW_COUNT, row);
+        }
+    }
+
+    public void testColumnViewAfterAppend() {
+        VoltTable t = new VoltTable(new ColumnInfo("s", VoltType.STRING),
+                                    new ColumnInfo("v", VoltType.INTEGER));
+        t.addRow("a", 1);
+        t.addRow(null, VoltType.NULL_INTEGER);
+        VoltTable.ColumnView first = t.columnView(1);
+        assertEquals(1, first.getLong(0));
+        assertFalse(t.wasNull());
+        assertEquals(VoltType.NULL_INTEGER, first.getLong(1));
+        assertTrue(t.wasNull());
+
+        // new rows are only visible to new views
+        t.addRow("a much longer string", 3);
+        assertEquals(2, first.getRowCount());
+        assertTrue(Arrays.equals(new long[] {1, VoltType.NULL_INTEGER, 3}, t.columnView(1).asLongArray()));
+
+        t.clearRowData();
+        t.addRow("bb", 7);
+        assertTrue(Arrays.equals(new long[] {7}, t.columnView(1).asLongArray()));
+
+        try {
+            t.columnView(2);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {}
+        try {
+            t.columnView(1).getDouble(0);
+            fail();
+        } catch (IllegalArgumentException expected) {}
+    }
+
     public void testTableJava8Streams() {
         Random rand = new Random(0);
 
@@ -0,0 +1,162 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestCallbackTable extends TestCase {
+
+    static class Entry implements CallbackTable.Entry {
+        final long m_handle;
+        Entry(long handle) {
+            m_handle = handle;
+        }
+        @Override
+        public long getHandle() {
+            return m_handle;
+        }
+    }
+
+    @Test
+    public void testPutRemove() {
+        CallbackTable<Entry> table = new CallbackTable<>(64);
+        for (long handle = 0; handle < 32; handle++) {
+            table.put(new Entry(handle));
+        }
+        for (long handle = 0; handle < 32; handle++) {
+            assertTrue(table.contains(handle));
+        }
+        assertFalse(table.contains(32));
+        Entry e = table.remove(7);
+        assertNotNull(e);
+        assertEquals(7, e.getHandle());
+        assertNull(table.remove(7));
+        assertFalse(table.contains(7));
+
+        final AtomicInteger visited = new AtomicInteger();
+        table.forEach(entry -> visited.incrementAndGet());
+        assertEquals(31, visited.get());
+    }
+
+    @Test
+    public void testOverflow() {
+        // far more outstanding entries than slots
+        CallbackTable<Entry> table = new CallbackTable<>(16);
+        for (long handle = 0; handle < 1000; handle++) {
+            table.put(new Entry(handle));
+        }
+        assertTrue(table.overflowSize() > 0);
+        final AtomicInteger visited = new AtomicInteger();
+        table.forEach(entry -> visited.incrementAndGet());
+        assertEquals(1000, visited.get());
+        for (long handle = 999; handle >= 0; handle--) {
+            assertEquals(handle, table.remove(handle).getHandle());
+        }
+        assertEquals(0, table.overflowSize());
+        visited.set(0);
+        table.forEach(entry -> visited.incrementAndGet());
+        assertEquals(0, visited.get());
+    }
+
+    /**
+     * Several threads race to remove every handle, as the network, expiration and
+     * timeout threads do; each entry must be claimed exactly once.
+     */
+    @Test
+    public void testConcurrentRemoveClaimsOnce() throws Exception {
+        final int count = 200000;
+        final int threads = 4;
+        final CallbackTable<Entry> table = new CallbackTable<>(1024);
+        final AtomicLong nextHandle = new AtomicLong();
+        final AtomicReferenceArray<Entry> claimed = new AtomicReferenceArray<>(count);
+        final AtomicInteger claimedCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        // producers add handles while removers chase them
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long handle;
+                    while ((handle = nextHandle.getAndIncrement()) < count) {
+                        table.put(new Entry(handle));
+                    }
+                }
+            });
+            workers.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (claimedCount.get() < count) {
+                        long limit = Math.min(nextHandle.get(), count);
+                        for (long handle = Math.max(0, limit - 2048); handle < limit; handle++) {
+                            Entry e = table.remove(handle);
+                            if (e != null) {
+                                assertTrue(claimed.compareAndSet((int) handle, null, e));
+                                claimedCount.incrementAndGet();
+                            }
+                        }
+                        table.forEach(e -> {
+                            if (table.remove(e.getHandle()) != null) {
+                                assertTrue(claimed.compareAndSet((int) e.getHandle(), null, e));
+                                claimedCount.incrementAndGet();
+                            }
+                        });
+                    }
+                }
+            });
+        }
+        for (Thread t : workers) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : workers) {
+            t.join(60000);
+            assertFalse(t.isAlive());
+        }
+        assertEquals(count, claimedCount.get());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, claimed.get(i).getHandle());
+        }
+    }
+}
@@ -30,8 +30,11 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -528,6 +531,66 @@ public class TestDistributer extends TestCase {
         }
     }
 
+    @Test
+    public void testQueueBatch() throws Exception {
+        // TODO: write a mock server that can grock ssl
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+
+        // A batch is spread round-robin and written as one buffer per connection
+        MockVolt volt0, volt1, volt2;
+        volt0 = volt1 = volt2 = null;
+        try {
+            volt0 = new MockVolt(20000);
+            volt0.start();
+            volt1 = new MockVolt(20001);
+            volt1.start();
+            volt2 = new MockVolt(20002);
+            volt2.start();
+
+            Distributer dist = new Distributer(false,
+                    ClientConfig.DEFAULT_PROCEDURE_TIMOUT_NANOS,
+                    ClientConfig.DEFAULT_CONNECTION_TIMOUT_MS,
+                    false, false, null /* subject */, null);
+            dist.createConnection("localhost", "", "", 20000, ClientAuthScheme.HASH_SHA1);
+            dist.createConnection("localhost", "", "", 20001, ClientAuthScheme.HASH_SHA1);
+            dist.createConnection("localhost", "", "", 20002, ClientAuthScheme.HASH_SHA1);
+
+            final AtomicInteger responses = new AtomicInteger();
+            List<ProcedureInvocation> invocations = new ArrayList<>();
+            List<ProcedureCallback> callbacks = new ArrayList<>();
+            for (int i = 0; i < 9; i++) {
+                invocations.add(new ProcedureInvocation(i + 1, "i1", new Integer(i)));
+                callbacks.add(new ProcedureCallback() {
+                    @Override
+                    public void clientCallback(ClientResponse clientResponse) {
+                        assertEquals(ClientResponse.SUCCESS, clientResponse.getStatus());
+                        responses.incrementAndGet();
+                    }
+                });
+            }
+
+            BitSet queued = dist.queueBatch(invocations, callbacks, true, System.nanoTime(), 0);
+            assertEquals(9, queued.cardinality());
+            dist.drain();
+
+            assertEquals(9, responses.get());
+            assertEquals(3, volt0.handler.roundTrips.get());
+            assertEquals(3, volt1.handler.roundTrips.get());
+            assertEquals(3, volt2.handler.roundTrips.get());
+        }
+        finally {
+            if (volt0 != null) {
+                volt0.shutdown();
+            }
+            if (volt1 != null) {
+                volt1.shutdown();
+            }
+            if (volt2 != null) {
+                volt2.shutdown();
+            }
+        }
+    }
+
     @Test
     public void testQueueMixed() throws Exception {
         // TODO: write a mock server that can grock ssl
@@ -890,6 +953,47 @@ public class TestDistributer extends TestCase {
        }
     }
 
+    public void testClientFutures() throws Exception {
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+        // TODO: write a mock server that can grock ssl
+        MockVolt volt = null;
+
+        try {
+            volt = new MockVolt(21212);
+            volt.start();
+
+            Client clt = ClientFactory.createClient();
+            clt.createConnection("localhost");
+
+            ClientResponse response = clt.callProcedureAsync("Foo", new Integer(1)).get(30, TimeUnit.SECONDS);
+            assertEquals(ClientResponse.SUCCESS, response.getStatus());
+
+            List<Object[]> parameterSets = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                parameterSets.add(new Object[] { new Integer(i) });
+            }
+            List<CompletableFuture<ClientResponse>> futures = clt.callProceduresBatch("Bar", parameterSets);
+            assertEquals(10, futures.size());
+            for (CompletableFuture<ClientResponse> future : futures) {
+                assertEquals(ClientResponse.SUCCESS, future.get(30, TimeUnit.SECONDS).getStatus());
+            }
+            clt.close();
+
+            // a closed client fails the futures rather than throwing
+            try {
+                clt.callProceduresBatch("Bar", parameterSets).get(0).get(30, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof NoConnectionsException);
+            }
+        }
+        finally {
+            if (volt != null) {
+                volt.shutdown();
+            }
+        }
+    }
+
     @Test
     public void testClientBlockedOnMaxOutstanding() throws Exception {
         // TODO: write a mock server that can grock ssl
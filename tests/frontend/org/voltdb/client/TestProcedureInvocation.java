@@ -225,4 +225,29 @@ public class TestProcedureInvocation extends TestCase{
 
         verifySpi(spi);
     }
+
+    public void testStreamResultsRoundTrip() throws Exception {
+        ProcedureInvocation streaming = new ProcedureInvocation(11, BatchTimeoutOverrideType.NO_TIMEOUT, -1,
+                1024 * 1024, "invocation1", longparam, stringparam);
+        assertTrue(streaming.isStreamingResults());
+        ByteBuffer buf = ByteBuffer.allocate(streaming.getSerializedSize());
+        streaming.flattenToBuffer(buf);
+        buf.flip();
+
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.initFromBuffer(buf);
+        assertEquals(11, spi.getClientHandle());
+        assertEquals(1024 * 1024, spi.getStreamChunkSize());
+        assertEquals(longparam, spi.getParams().toArray()[0]);
+        assertEquals(stringparam, spi.getParams().toArray()[1]);
+
+        // invocations that don't ask for streaming carry no extension
+        assertFalse(pi.isStreamingResults());
+        buf = ByteBuffer.allocate(pi.getSerializedSize());
+        pi.flattenToBuffer(buf);
+        buf.flip();
+        spi = new StoredProcedureInvocation();
+        spi.initFromBuffer(buf);
+        assertEquals(0, spi.getStreamChunkSize());
+    }
 }
@@ -0,0 +1,354 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.commandlog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.CommandLog.CompletionChecks;
+import org.voltdb.CommandLog.DurabilityListener;
+import org.voltdb.LogEntryType;
+import org.voltdb.SnapshotCompletionInterest.SnapshotCompletionEvent;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.iv2.SpScheduler.DurableUniqueIdListener;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.iv2.UniqueIdGenerator;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.sysprocs.saverestore.SnapshotPathType;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
+
+public class TestGroupCommitCommandLog {
+    private File m_dir;
+    private GroupCommitCommandLog m_log;
+
+    /**
+     * Counts the transactions that were added and the ones that were made durable
+     */
+    private static class CountingListener implements DurabilityListener {
+        final AtomicInteger m_durable = new AtomicInteger();
+        final AtomicInteger m_groups = new AtomicInteger();
+        int m_added = 0;
+        int m_sinceLastList = 0;
+
+        @Override
+        public void configureUniqueIdListener(DurableUniqueIdListener listener,
+                boolean install) {
+        }
+
+        @Override
+        public void createFirstCompletionCheck(boolean isSyncLogging, boolean commandLoggingEnabled) {
+        }
+
+        @Override
+        public boolean completionCheckInitialized() {
+            return true;
+        }
+
+        @Override
+        public void addTransaction(TransactionTask pendingTask) {
+            m_added++;
+            m_sinceLastList++;
+        }
+
+        @Override
+        public void initializeLastDurableUniqueId(long uniqueId) {
+        }
+
+        @Override
+        public int getNumberOfTasks() {
+            return m_sinceLastList;
+        }
+
+        @Override
+        public CompletionChecks startNewTaskList(int nextMaxRowCnt) {
+            final int count = m_sinceLastList;
+            m_sinceLastList = 0;
+            return new Checks(count);
+        }
+
+        @Override
+        public void processDurabilityChecks(CompletionChecks completionChecks) {
+            m_groups.incrementAndGet();
+            m_durable.addAndGet(completionChecks.getTaskListSize());
+        }
+
+        void awaitDurable(int count) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (m_durable.get() < count) {
+                assertTrue("Timed out waiting for durability", System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static class Checks implements CompletionChecks {
+        private final int m_count;
+
+        Checks(int count) {
+            m_count = count;
+        }
+
+        @Override
+        public CompletionChecks startNewCheckList(int startSize) {
+            return new Checks(0);
+        }
+
+        @Override
+        public void addTask(TransactionTask task) {
+        }
+
+        @Override
+        public void setLastDurableUniqueId(long uniqueId) {
+        }
+
+        @Override
+        public boolean isChanged() {
+            return m_count > 0;
+        }
+
+        @Override
+        public int getTaskListSize() {
+            return m_count;
+        }
+
+        @Override
+        public void processChecks() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        m_dir = File.createTempFile("gccl", null);
+        m_dir.delete();
+        m_dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_log != null) {
+            m_log.shutdown();
+        }
+        VoltFile.recursivelyDelete(m_dir);
+    }
+
+    private GroupCommitCommandLog open(boolean synchronous, int fsyncIntervalMs, int maxTxns) {
+        m_log = new GroupCommitCommandLog(synchronous, fsyncIntervalMs, maxTxns, m_dir.getPath(), m_dir.getPath());
+        m_log.init(1024, Long.MIN_VALUE, null, new HashMap<Integer, Long>());
+        assertFalse(m_log.needsInitialization());
+        return m_log;
+    }
+
+    private static Iv2InitiateTaskMessage makeMessage(long spHandle, long uniqueId, int value) {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("Insert");
+        invocation.setParams(value, "row" + value);
+        Iv2InitiateTaskMessage msg = new Iv2InitiateTaskMessage(1, 2, Long.MIN_VALUE, spHandle, uniqueId,
+                false, true, false, invocation, 4, 5, false);
+        msg.setSpHandle(spHandle);
+        return msg;
+    }
+
+    private List<CommandLogSegmentReader.Entry> readAll() throws IOException {
+        List<CommandLogSegmentReader.Entry> entries = new ArrayList<>();
+        for (File f : CommandLogSegment.listSegmentFiles(m_dir)) {
+            try (CommandLogSegmentReader reader = new CommandLogSegmentReader(f)) {
+                CommandLogSegmentReader.Entry entry;
+                while ((entry = reader.next()) != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void testSynchronousGroupCommit() throws Exception {
+        final GroupCommitCommandLog log = open(true, 2, 1000);
+        assertTrue(log.isSynchronous());
+        assertFalse(log.canOfferTask());
+
+        final int partitions = 4;
+        final int perPartition = 500;
+        final List<Thread> sites = new ArrayList<>();
+        final List<CountingListener> listeners = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            final int partitionId = p;
+            final CountingListener listener = new CountingListener();
+            listeners.add(listener);
+            sites.add(new Thread() {
+                @Override
+                public void run() {
+                    UniqueIdGenerator uig = new UniqueIdGenerator(partitionId, 0);
+                    TxnEgo ego = TxnEgo.makeZero(partitionId);
+                    for (int i = 0; i < perPartition; i++) {
+                        ego = ego.makeNext();
+                        assertNull(log.log(makeMessage(ego.getTxnId(), uig.getNextUniqueId(), i),
+                                ego.getTxnId(), null, listener, null));
+                    }
+                }
+            });
+        }
+        for (Thread t : sites) {
+            t.start();
+        }
+        for (Thread t : sites) {
+            t.join();
+        }
+        for (CountingListener listener : listeners) {
+            listener.awaitDurable(perPartition);
+            assertEquals(perPartition, listener.m_durable.get());
+            // Many transactions become durable with a single sync
+            assertTrue(listener.m_groups.get() < perPartition);
+        }
+        log.shutdown();
+        m_log = null;
+
+        final Map<Integer, Long> lastSpHandle = new HashMap<>();
+        final Map<Integer, Integer> values = new HashMap<>();
+        for (CommandLogSegmentReader.Entry entry : readAll()) {
+            assertEquals(LogEntryType.INITIATION, entry.m_type);
+            final Long last = lastSpHandle.put(entry.m_partitionId, entry.m_spHandle);
+            assertTrue(last == null || last < entry.m_spHandle);
+            assertEquals(entry.m_spHandle, entry.m_message.getSpHandle());
+            final StoredProcedureInvocation invocation = entry.m_message.getStoredProcedureInvocation();
+            assertEquals("Insert", invocation.getProcName());
+            final int expected = values.containsKey(entry.m_partitionId) ? values.get(entry.m_partitionId) + 1 : 0;
+            assertEquals(expected, ((Number) invocation.getParams().toArray()[0]).intValue());
+            values.put(entry.m_partitionId, expected);
+        }
+        assertEquals(partitions, values.size());
+        for (int value : values.values()) {
+            assertEquals(perPartition - 1, value);
+        }
+    }
+
+    @Test
+    public void testFaultAndRecordsBeforeInit() throws Exception {
+        m_log = new GroupCommitCommandLog(true, 1, Integer.MAX_VALUE, m_dir.getPath(), m_dir.getPath());
+        assertTrue(m_log.needsInitialization());
+        final CountingListener listener = new CountingListener();
+        TxnEgo ego = TxnEgo.makeZero(0).makeNext();
+        // Replayed before init, neither written nor tracked for durability, the site runs it directly
+        assertNull(m_log.log(makeMessage(ego.getTxnId(), 1, 0), ego.getTxnId(), null, listener, null));
+        assertTrue(m_log.canOfferTask());
+        assertEquals(0, listener.m_added);
+        // A fault before init waits for the log to be opened
+        final SettableFuture<Boolean> fault =
+                m_log.logIv2Fault(5, new HashSet<Long>(Arrays.asList(6L, 7L)), 0, ego.getTxnId());
+        Thread.sleep(50);
+        assertFalse(fault.isDone());
+
+        m_log.init(1024, Long.MIN_VALUE, null, Collections.singletonMap(0, ego.getTxnId()));
+        assertFalse(m_log.canOfferTask());
+        assertTrue(fault.get(30, TimeUnit.SECONDS));
+        ego = ego.makeNext();
+        assertNull(m_log.log(makeMessage(ego.getTxnId(), 2, 1), ego.getTxnId(), null, listener, null));
+        listener.awaitDurable(1);
+        m_log.shutdown();
+        m_log = null;
+
+        final List<CommandLogSegmentReader.Entry> entries = readAll();
+        assertEquals(2, entries.size());
+        assertEquals(LogEntryType.IV2FAULT, entries.get(0).m_type);
+        assertEquals(5, entries.get(0).m_writerHSId);
+        assertEquals(new HashSet<Long>(Arrays.asList(6L, 7L)), entries.get(0).m_survivorHSIds);
+        assertEquals(LogEntryType.INITIATION, entries.get(1).m_type);
+        assertEquals(ego.getTxnId(), entries.get(1).m_spHandle);
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws Exception {
+        final GroupCommitCommandLog log = open(true, 1, 1);
+        final CountingListener listener = new CountingListener();
+        TxnEgo ego = TxnEgo.makeZero(0);
+        for (int i = 0; i < 10; i++) {
+            ego = ego.makeNext();
+            log.log(makeMessage(ego.getTxnId(), i, i), ego.getTxnId(), null, listener, null);
+        }
+        listener.awaitDurable(10);
+        log.shutdown();
+        m_log = null;
+
+        final File[] files = CommandLogSegment.listSegmentFiles(m_dir);
+        assertEquals(1, files.length);
+        try (RandomAccessFile raf = new RandomAccessFile(files[0], "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertEquals(9, readAll().size());
+    }
+
+    @Test
+    public void testTruncationRetiresCoveredSegments() throws Exception {
+        final GroupCommitCommandLog log = open(false, 1, Integer.MAX_VALUE);
+        final CountingListener listener = new CountingListener();
+        TxnEgo ego = TxnEgo.makeZero(0);
+        for (int i = 0; i < 10; i++) {
+            ego = ego.makeNext();
+            log.log(makeMessage(ego.getTxnId(), i, i), ego.getTxnId(), null, listener, null);
+        }
+        listener.awaitDurable(10);
+        final long snapshotSpHandle = ego.getTxnId();
+
+        // No ZooKeeper here, the request only starts a new segment
+        log.requestTruncationSnapshot(true);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (CommandLogSegment.listSegmentFiles(m_dir).length < 2) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        ego = ego.makeNext();
+        log.log(makeMessage(ego.getTxnId(), 10, 10), ego.getTxnId(), null, listener, null);
+        listener.awaitDurable(11);
+
+        log.snapshotCompleted(SnapshotCompletionEvent.newInstanceForTest(m_dir.getPath(), SnapshotPathType.SNAP_CL,
+                "truncation", Long.MIN_VALUE, Collections.singletonMap(0, snapshotSpHandle), true, 0, 0));
+        assertEquals(1, CommandLogSegment.listSegmentFiles(m_dir).length);
+        log.shutdown();
+        m_log = null;
+
+        final List<CommandLogSegmentReader.Entry> entries = readAll();
+        assertEquals(1, entries.size());
+        assertEquals(ego.getTxnId(), entries.get(0).m_spHandle);
+    }
+}
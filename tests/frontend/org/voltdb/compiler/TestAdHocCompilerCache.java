@@ -0,0 +1,147 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.common.Constants;
+import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
+
+public class TestAdHocCompilerCache {
+
+    private static byte[] hash(int seed) {
+        byte hash[] = new byte[20];
+        hash[0] = (byte) seed;
+        return hash;
+    }
+
+    private static AdHocPlannedStatement plan(String sql, byte[] catalogHash) {
+        CorePlan core = new CorePlan(("{\"plan\":\"" + sql + "\"}").getBytes(Constants.UTF8ENCODING), null,
+                hash(sql.hashCode()), null, false, true, new VoltType[0], catalogHash);
+        return new AdHocPlannedStatement(sql.getBytes(Constants.UTF8ENCODING), core,
+                ParameterSet.emptyParameterSet(), null);
+    }
+
+    private static void put(AdHocCompilerCache cache, String sql, byte[] catalogHash) {
+        cache.put(sql, "token:" + sql, plan(sql, catalogHash), null, false, false);
+    }
+
+    @Test
+    public void testBothLevels() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(100, 100);
+        put(cache, "select * from t", hash(1));
+        assertNotNull(cache.getWithSQL("select * from t"));
+        List<BoundPlan> variants = cache.getWithParsedToken("token:select * from t");
+        assertEquals(1, variants.size());
+        assertSame(variants.get(0).m_core, cache.getWithSQL("select * from t").core);
+
+        // planning the same statement again doesn't add another variant
+        put(cache, "select * from t", hash(1));
+        assertEquals(1, cache.getWithParsedToken("token:select * from t").size());
+        assertEquals(1, cache.getLiteralCacheSize());
+        assertEquals(1, cache.getCoreCacheSize());
+        assertNull(cache.getWithSQL("select * from u"));
+    }
+
+    @Test
+    public void testEvictionsAreCounted() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(8, 8);
+        for (int ii = 0; ii < 100; ii++) {
+            put(cache, "select " + ii + " from t", hash(1));
+        }
+        assertTrue(cache.getLiteralCacheSize() <= 8);
+        assertTrue(cache.getCoreCacheSize() <= 8);
+        assertEquals(100 - cache.getLiteralCacheSize(), cache.getLiteralEvictions());
+        assertEquals(100 - cache.getCoreCacheSize(), cache.getCoreEvictions());
+    }
+
+    @Test
+    public void testCarryOverRebasesPlans() {
+        AdHocCompilerCache previous = new AdHocCompilerCache(100, 100);
+        put(previous, "select * from t", hash(1));
+        put(previous, "select * from u", hash(1));
+
+        AdHocCompilerCache cache = new AdHocCompilerCache(100, 100);
+        cache.carryOver(previous, hash(2));
+        assertEquals(2, cache.getLiteralCacheSize());
+        assertEquals(2, cache.getCoreCacheSize());
+
+        AdHocPlannedStatement plan = cache.getWithSQL("select * from t");
+        assertTrue(plan.core.wasPlannedAgainstHash(hash(2)));
+        assertFalse(plan.core.wasPlannedAgainstHash(hash(1)));
+        assertTrue(previous.getWithSQL("select * from t").core.wasPlannedAgainstHash(hash(1)));
+        // the two levels still share the rebased core
+        assertSame(plan.core, cache.getWithParsedToken("token:select * from t").get(0).m_core);
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        final AdHocCompilerCache cache = new AdHocCompilerCache(1000, 1000);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        Thread threads[] = new Thread[8];
+        for (int ii = 0; ii < threads.length; ii++) {
+            threads[ii] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int jj = 0; jj < 200; jj++) {
+                            String sql = "select " + jj + " from t";
+                            put(cache, sql, hash(1));
+                            if (cache.getWithSQL(sql) == null && cache.getLiteralEvictions() == 0) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            threads[ii].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(200, cache.getCoreCacheSize());
+        for (int jj = 0; jj < 200; jj++) {
+            assertEquals(1, cache.getWithParsedToken("token:select " + jj + " from t").size());
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -42,10 +43,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.voltdb.FlakyTestRule;
 import org.voltdb.FlakyTestRule.Flaky;
+import org.voltdb.ParameterSet;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.export.AdvertisedDataSource;
+import org.voltdb.export.ExportDataSource;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.TimestampType;
@@ -378,4 +381,132 @@ public class TestExportDecoderBase
         }
     }
 
+    @Test
+    public void testRowCursor() throws IOException, ExportDecoderBase.RestartBlockException {
+        // Same user columns as vtable, but with the operation as a TINYINT where the export stream puts it
+        VoltTable table = new VoltTable(
+                new VoltTable.ColumnInfo("VOLT_TRANSACTION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_TIMESTAMP", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_SEQUENCE_NUMBER", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_PARTITION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_SITE_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_OPERATION", VoltType.TINYINT),
+                new VoltTable.ColumnInfo("tinyint", VoltType.TINYINT),
+                new VoltTable.ColumnInfo("smallint", VoltType.SMALLINT),
+                new VoltTable.ColumnInfo("integer", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("bigint", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("float", VoltType.FLOAT),
+                new VoltTable.ColumnInfo("timestamp", VoltType.TIMESTAMP),
+                new VoltTable.ColumnInfo("string", VoltType.STRING),
+                new VoltTable.ColumnInfo("decimal", VoltType.DECIMAL),
+                new VoltTable.ColumnInfo("geog_point", VoltType.GEOGRAPHY_POINT),
+                new VoltTable.ColumnInfo("geog", VoltType.GEOGRAPHY));
+        final byte insert = (byte) ExportRow.ROW_OPERATION.INSERT.ordinal();
+        final byte delete = (byte) ExportRow.ROW_OPERATION.DELETE.ordinal();
+        long l = System.currentTimeMillis();
+        table.addRow(l, l, 10L, 0, l, insert, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
+        table.addRow(l + 1, l, 11L, 0, l, delete, (byte) 1, null, 3, 4, 5.5, 6, null, new BigDecimal(88), GEOG_POINT, GEOG);
+        table.addRow(l + 2, l, 12L, 0, l, insert, (byte) 1, (short) 2, 3, 4, 5.5, 6, "zz", new BigDecimal(88), GEOG_POINT, GEOG);
+        byte[] blockBytes = ExportEncoder.encodeTable(table, "mytable", 7, 1L);
+        ByteBuffer bb = ByteBuffer.wrap(blockBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        int schemaSize = bb.getInt();
+        ExportRow schemaRow = ExportRow.decodeBufferSchema(bb, schemaSize, 1, 0);
+        final int blockStart = bb.position();
+
+        // The cursor sees the same rows as decodeRow, reusing its value array
+        ExportRowCursor cursor = new ExportRowCursor();
+        cursor.reset(schemaRow, 0, bb, 11L);
+        ByteBuffer expected = bb.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cursor.advance());
+            expected.getInt(); // row size
+            ExportRow row = ExportRow.decodeRow(schemaRow, 0, expected);
+            assertEquals(Arrays.toString(row.values), Arrays.toString(cursor.values()));
+            assertEquals(row.partitionValue, cursor.partitionValue());
+            assertEquals(row.getOperation(), cursor.getOperation());
+            assertEquals(i == 1 ? ExportRow.ROW_OPERATION.DELETE : ExportRow.ROW_OPERATION.INSERT,
+                    cursor.getOperation());
+        }
+        assertFalse(cursor.advance());
+        assertEquals(3, cursor.rowCount());
+        assertEquals(null, cursor.getDecodeError());
+        assertEquals(l + 1, cursor.getCommittedSpHandle());
+        assertEquals("zz", cursor.row().values[12]);
+
+        // The default processRows hands every row to processRow as a standalone copy
+        final List<ExportRow> delivered = new ArrayList<>();
+        StubExportDecoder decoder = new StubExportDecoder(new AdvertisedDataSource(0, "mytable")) {
+            @Override
+            public boolean processRow(ExportRow r) {
+                delivered.add(r);
+                return true;
+            }
+        };
+        bb.position(blockStart);
+        cursor.reset(schemaRow, 0, bb, ExportDataSource.NULL_COMMITTED_SEQNO);
+        decoder.processRows(cursor);
+        assertEquals(3, delivered.size());
+        assertEquals(10L, delivered.get(0).values[2]);
+        // A null partition column falls back to the partition id
+        assertEquals(null, delivered.get(1).values[7]);
+        assertEquals(0, delivered.get(1).partitionValue);
+        assertEquals(12L, delivered.get(2).values[2]);
+        assertEquals(0L, cursor.getCommittedSpHandle());
+
+        // A row that does not match the schema ends the block with an error
+        ExportRow shortSchema = new ExportRow("mytable", schemaRow.names.subList(0, 15), schemaRow.types.subList(0, 15),
+                schemaRow.lengths.subList(0, 15), new Object[] {}, null, -1, 0, 0);
+        bb.position(blockStart);
+        cursor.reset(shortSchema, 0, bb, ExportDataSource.NULL_COMMITTED_SEQNO);
+        assertFalse(cursor.advance());
+        assertEquals(0, cursor.rowCount());
+        assertTrue(cursor.getDecodeError() != null);
+    }
+
+    @Test
+    public void testRawRowCursor() throws IOException {
+        long l = System.currentTimeMillis();
+        vtable.clearRowData();
+        vtable.addRow(l, l, 10L, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
+        vtable.addRow(l + 1, l, 11L, 0, l, l, (byte) 1, null, 3, null, 5.5, 6, null, null, null, null);
+        vtable.addRow(l + 2, l, 12L, 0, l, l, null, (short) 2, 3, 4, 5.5, 6, "zz", new BigDecimal("-1.5"), GEOG_POINT, GEOG);
+        byte[] blockBytes = ExportEncoder.encodeTable(vtable, "mytable", 7, 1L);
+        ByteBuffer bb = ByteBuffer.wrap(blockBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        int schemaSize = bb.getInt();
+        ExportRow schemaRow = ExportRow.decodeBufferSchema(bb, schemaSize, 1, 0);
+
+        // Rows are walked without decoding, values are decoded on demand
+        ExportRowCursor cursor = new ExportRowCursor();
+        cursor.reset(schemaRow, 0, bb, 12L);
+        ExportRowParameterEncoder encoder = new ExportRowParameterEncoder();
+        ByteBuffer expected = bb.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 3; i++) {
+            final int rowStart = expected.position();
+            assertTrue(cursor.advanceRaw());
+            assertEquals(rowStart, cursor.rawRowOffset());
+            final int rowLength = expected.getInt();
+            assertEquals(rowLength + 4, cursor.rawRowLength());
+            assertEquals(rowStart + 4 + rowLength, cursor.rawRowEnd());
+            ExportRow row = ExportRow.decodeRow(schemaRow, 0, expected);
+            expected.position(rowStart + 4 + rowLength);
+            for (int c = 0; c < row.values.length; c++) {
+                assertEquals(row.values[c] == null, cursor.isNull(c));
+            }
+
+            // The transcoded parameters match the decoded values
+            for (int firstField : new int[] { 0, ExportDecoderBase.INTERNAL_FIELD_COUNT }) {
+                Object[] params = ParameterSet.fromByteBuffer(encoder.encode(cursor, firstField)).toArray();
+                assertEquals(Arrays.deepToString(Arrays.copyOfRange(row.values, firstField, row.values.length)),
+                        Arrays.deepToString(params));
+            }
+            assertEquals(Arrays.toString(row.values), Arrays.toString(cursor.values()));
+        }
+        assertFalse(cursor.advanceRaw());
+        assertEquals(3, cursor.rowCount());
+        assertEquals(null, cursor.getDecodeError());
+        assertEquals(l + 2, cursor.getCommittedSpHandle());
+        vtable.clearRowData();
+    }
 }
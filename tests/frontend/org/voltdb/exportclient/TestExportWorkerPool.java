@@ -0,0 +1,130 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
+
+public class TestExportWorkerPool {
+
+    private static ExportWorkerPool.Stats statsFor(String source) {
+        for (ExportWorkerPool.Stats stats : ExportWorkerPool.getStats()) {
+            if (stats.m_source.equals(source)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testTasksRunInOrderOneAtATime() throws Exception {
+        final int streams = ExportWorkerPool.WORKER_THREADS * 2;
+        final int tasks = 500;
+        final List<ListeningExecutorService> executors = new ArrayList<>();
+        final List<List<Integer>> results = new ArrayList<>();
+        final AtomicInteger running[] = new AtomicInteger[streams];
+        final AtomicInteger overlaps = new AtomicInteger();
+        for (int s = 0; s < streams; s++) {
+            executors.add(ExportWorkerPool.newSerialExecutor("ordered", s));
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+            running[s] = new AtomicInteger();
+        }
+        for (int i = 0; i < tasks; i++) {
+            for (int s = 0; s < streams; s++) {
+                final int stream = s;
+                final int seq = i;
+                executors.get(s).execute(() -> {
+                    if (running[stream].incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    results.get(stream).add(seq);
+                    running[stream].decrementAndGet();
+                });
+            }
+        }
+        for (ListeningExecutorService executor : executors) {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        assertEquals(0, overlaps.get());
+        for (List<Integer> result : results) {
+            assertEquals(tasks, result.size());
+            for (int i = 0; i < tasks; i++) {
+                assertEquals(i, (int) result.get(i));
+            }
+        }
+        assertEquals(null, statsFor("ordered"));
+    }
+
+    @Test
+    public void testLagAndShutdownNow() throws Exception {
+        final ListeningExecutorService executor = ExportWorkerPool.newSerialExecutor("lagging", 3);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        final AtomicInteger ran = new AtomicInteger();
+        executor.execute(ran::incrementAndGet);
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        Thread.sleep(20);
+
+        ExportWorkerPool.Stats stats = statsFor("lagging");
+        assertEquals(3, stats.m_partitionId);
+        assertEquals(1, stats.m_pending);
+        assertTrue(stats.m_lagNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        // The queued task is handed back and the running one is interrupted
+        assertEquals(1, executor.shutdownNow().size());
+        assertTrue(interrupted.await(30, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(0, ran.get());
+        assertTrue(executor.isTerminated());
+        try {
+            executor.execute(ran::incrementAndGet);
+            fail("Expected the executor to reject work after shutdown");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
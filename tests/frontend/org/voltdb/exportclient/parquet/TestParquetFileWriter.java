@@ -0,0 +1,545 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient.parquet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.TimestampType;
+import org.xerial.snappy.Snappy;
+
+public class TestParquetFileWriter {
+
+    private static final List<String> NAMES = Arrays.asList(
+            "META", "TINY", "SMALL", "INT", "BIG", "DBL", "TS", "STR", "UNIQUE_STR", "BIN", "DEC", "POINT");
+    private static final List<VoltType> TYPES = Arrays.asList(
+            VoltType.BIGINT, VoltType.TINYINT, VoltType.SMALLINT, VoltType.INTEGER, VoltType.BIGINT,
+            VoltType.FLOAT, VoltType.TIMESTAMP, VoltType.STRING, VoltType.STRING, VoltType.VARBINARY,
+            VoltType.DECIMAL, VoltType.GEOGRAPHY_POINT);
+
+    private File m_file;
+
+    @Before
+    public void setUp() throws IOException {
+        m_file = File.createTempFile("TestParquetFileWriter", ".parquet");
+    }
+
+    @After
+    public void tearDown() {
+        m_file.delete();
+        ParquetFileWriter.indexFile(m_file).delete();
+    }
+
+    private static Object[] row(int i) {
+        if (i % 7 == 3) {
+            Object[] nulls = new Object[NAMES.size()];
+            nulls[0] = (long) i;
+            return nulls;
+        }
+        return new Object[] {
+                (long) i,
+                (byte) (i % 100 - 50),
+                (short) (i * 3 - 1000),
+                i * 1000,
+                i * 1000000007L - 5,
+                i / 3.0,
+                new TimestampType(1500000000000000L + i),
+                "category-" + (i % 5) + "-é",
+                "unique-value-" + i,
+                new byte[] { (byte) i, (byte) (i >> 8), 7 },
+                new BigDecimal("-12345.678901234567").multiply(BigDecimal.valueOf(i - 20)),
+                new GeographyPointValue(i % 90, -(i % 45)) };
+    }
+
+    private static Object expected(int col, Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (TYPES.get(col)) {
+        case TINYINT:
+        case SMALLINT:
+            return ((Number) value).intValue();
+        case TIMESTAMP:
+            return ((TimestampType) value).getTime();
+        case DECIMAL:
+            return ((BigDecimal) value).setScale(12);
+        case GEOGRAPHY_POINT:
+            return ((GeographyPointValue) value).toWKT();
+        default:
+            return value;
+        }
+    }
+
+    private void verifyRows(ParquetFile file, int firstColumn, int rowCount) {
+        assertEquals(rowCount, file.rowCount);
+        for (int c = firstColumn; c < NAMES.size(); c++) {
+            List<Object> column = file.columns.get(NAMES.get(c));
+            assertEquals(rowCount, column.size());
+            for (int r = 0; r < rowCount; r++) {
+                Object expected = expected(c, row(r)[c]);
+                if (expected instanceof byte[]) {
+                    assertArrayEquals((byte[]) expected, (byte[]) column.get(r));
+                } else {
+                    assertEquals(NAMES.get(c) + " row " + r, expected, column.get(r));
+                }
+            }
+        }
+        assertEquals(NAMES.size() - firstColumn, file.columns.size());
+    }
+
+    private void writeAndVerify(ParquetFileWriter.Codec codec, int firstColumn) throws IOException {
+        final int[] groupSizes = { 100, 1, 2000 };
+        int next = 0;
+        try (ParquetFileWriter writer = new ParquetFileWriter(m_file, NAMES, TYPES, firstColumn, codec)) {
+            for (int group = 0; group < groupSizes.length; group++) {
+                for (int i = 0; i < groupSizes[group]; i++) {
+                    writer.append(row(next++));
+                }
+                writer.writeRowGroup();
+                assertEquals(0, writer.getBufferedRowCount());
+                assertEquals(group + 1, writer.getRowGroupCount());
+                assertEquals(next, writer.getRowCount());
+                // The footer is only written on close
+                assertEquals(m_file.length(), writer.getLength());
+            }
+            // Rows discarded after a failed block are never written
+            writer.append(row(next));
+            writer.discardBuffered();
+        }
+        assertFalse(ParquetFileWriter.indexFile(m_file).exists());
+        ParquetFile file = readFile(m_file);
+        assertEquals(groupSizes.length, file.rowGroups);
+        verifyRows(file, firstColumn, next);
+    }
+
+    @Test
+    public void testUncompressed() throws IOException {
+        writeAndVerify(ParquetFileWriter.Codec.UNCOMPRESSED, 0);
+    }
+
+    @Test
+    public void testSnappySkippingColumns() throws IOException {
+        writeAndVerify(ParquetFileWriter.Codec.SNAPPY, 1);
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        writeAndVerify(ParquetFileWriter.Codec.GZIP, 0);
+    }
+
+    @Test
+    public void testBufferedRowsWrittenOnClose() throws IOException {
+        try (ParquetFileWriter writer = new ParquetFileWriter(m_file, NAMES, TYPES, 0,
+                ParquetFileWriter.Codec.SNAPPY)) {
+            for (int i = 0; i < 10; i++) {
+                writer.append(row(i));
+            }
+            assertEquals(0, writer.getRowGroupCount());
+        }
+        ParquetFile file = readFile(m_file);
+        assertEquals(1, file.rowGroups);
+        verifyRows(file, 0, 10);
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        new ParquetFileWriter(m_file, NAMES, TYPES, 0, ParquetFileWriter.Codec.UNCOMPRESSED).close();
+        ParquetFile file = readFile(m_file);
+        assertEquals(0, file.rowGroups);
+        assertEquals(0, file.rowCount);
+    }
+
+    @Test
+    public void testRecover() throws IOException {
+        final File crashed = new File(m_file.getPath() + ".crashed");
+        final File crashedIndex = ParquetFileWriter.indexFile(crashed);
+        try (ParquetFileWriter writer = new ParquetFileWriter(m_file, NAMES, TYPES, 1,
+                ParquetFileWriter.Codec.SNAPPY)) {
+            for (int i = 0; i < 100; i++) {
+                writer.append(row(i));
+            }
+            writer.writeRowGroup();
+            writer.append(row(100));
+            writer.writeRowGroup();
+            // Rows buffered when the server stops were never acknowledged
+            writer.append(row(101));
+            Files.copy(m_file.toPath(), crashed.toPath());
+            Files.copy(ParquetFileWriter.indexFile(m_file).toPath(), crashedIndex.toPath());
+        }
+        assertFalse(ParquetFileWriter.indexFile(m_file).exists());
+        try {
+            // A row group whose write did not complete
+            Files.write(crashed.toPath(), new byte[1000], StandardOpenOption.APPEND);
+            Files.write(crashedIndex.toPath(), new byte[] { 100, 0, 0, 0, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+            assertTrue(ParquetFileWriter.recover(crashed));
+            assertFalse(crashedIndex.exists());
+            ParquetFile file = readFile(crashed);
+            assertEquals(2, file.rowGroups);
+            verifyRows(file, 1, 101);
+
+            // A closed file is left as is
+            final long length = crashed.length();
+            assertTrue(ParquetFileWriter.recover(crashed));
+            assertEquals(length, crashed.length());
+        } finally {
+            crashed.delete();
+            crashedIndex.delete();
+        }
+    }
+
+    @Test
+    public void testRecoverWithoutRows() throws IOException {
+        final File crashed = new File(m_file.getPath() + ".crashed");
+        final File crashedIndex = ParquetFileWriter.indexFile(crashed);
+        try (ParquetFileWriter writer = new ParquetFileWriter(m_file, NAMES, TYPES, 0,
+                ParquetFileWriter.Codec.UNCOMPRESSED)) {
+            writer.append(row(0));
+            Files.copy(m_file.toPath(), crashed.toPath());
+            Files.copy(ParquetFileWriter.indexFile(m_file).toPath(), crashedIndex.toPath());
+        }
+        assertFalse(ParquetFileWriter.recover(crashed));
+        assertFalse(crashed.exists());
+        assertFalse(crashedIndex.exists());
+    }
+
+    @Test
+    public void testDictionaryFallback() throws IOException {
+        try (ParquetFileWriter writer = new ParquetFileWriter(m_file, NAMES, TYPES, 0,
+                ParquetFileWriter.Codec.UNCOMPRESSED)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.append(row(i));
+            }
+            writer.writeRowGroup();
+        }
+        ParquetFile file = readFile(m_file);
+        // Repeated strings use a dictionary, distinct ones stay PLAIN
+        assertEquals(Arrays.asList(2, 3), file.encodings.get("STR"));
+        assertEquals(Arrays.asList(0, 3), file.encodings.get("UNIQUE_STR"));
+        assertEquals(Arrays.asList(0, 3), file.encodings.get("INT"));
+    }
+
+    @Test
+    public void testHybridEncoding() {
+        int[] values = new int[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < 20 ? 5 : (i < 30 ? i % 3 : 6);
+        }
+        for (int count : new int[] { 0, 1, 7, 19, 20, 21, 33, 100 }) {
+            EncodingBuffer out = new EncodingBuffer(4);
+            out.writeHybrid(values, count, 3);
+            int[] decoded = decodeHybrid(ByteBuffer.wrap(out.toByteArray()), 3, count);
+            assertArrayEquals(Arrays.copyOf(values, count), decoded);
+        }
+    }
+
+    /*
+     * Minimal reader, independent of the writer, for the subset of the format the writer produces
+     */
+    private static class ParquetFile {
+        int rowGroups;
+        long rowCount;
+        final Map<String, List<Object>> columns = new HashMap<>();
+        final Map<String, List<Object>> encodings = new HashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ParquetFile readFile(File path) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        final int length = bytes.limit();
+        assertEquals("PAR1", new String(bytes.array(), 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(bytes.array(), length - 4, 4, StandardCharsets.US_ASCII));
+        final int footerLength = bytes.getInt(length - 8);
+        bytes.position(length - 8 - footerLength);
+        final Map<Integer, Object> metadata = readStruct(bytes);
+        assertEquals(length - 8, bytes.position());
+        assertEquals(1, metadata.get(1));
+
+        ParquetFile file = new ParquetFile();
+        final List<Object> schema = (List<Object>) metadata.get(2);
+        final Map<String, Map<Integer, Object>> elements = new HashMap<>();
+        assertEquals(schema.size() - 1, ((Map<Integer, Object>) schema.get(0)).get(5));
+        for (Object element : schema.subList(1, schema.size())) {
+            Map<Integer, Object> e = (Map<Integer, Object>) element;
+            assertEquals(1, e.get(3));
+            String name = new String((byte[]) e.get(4), StandardCharsets.UTF_8);
+            elements.put(name, e);
+            file.columns.put(name, new ArrayList<>());
+        }
+        file.rowCount = (Long) metadata.get(3);
+        final List<Object> rowGroups = (List<Object>) metadata.get(4);
+        file.rowGroups = rowGroups.size();
+        long rows = 0;
+        for (Object rg : rowGroups) {
+            final Map<Integer, Object> rowGroup = (Map<Integer, Object>) rg;
+            final long numRows = (Long) rowGroup.get(3);
+            rows += numRows;
+            for (Object cc : (List<Object>) rowGroup.get(1)) {
+                final Map<Integer, Object> meta = (Map<Integer, Object>) ((Map<Integer, Object>) cc).get(3);
+                final String name = new String((byte[]) ((List<Object>) meta.get(3)).get(0), StandardCharsets.UTF_8);
+                final Map<Integer, Object> element = elements.get(name);
+                assertEquals(element.get(1), meta.get(1));
+                assertEquals(numRows, (long) (Long) meta.get(5));
+                file.encodings.put(name, (List<Object>) meta.get(2));
+                readColumnChunk(bytes, meta, element, (int) numRows, file.columns.get(name));
+            }
+        }
+        assertEquals(file.rowCount, rows);
+        return file;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readColumnChunk(ByteBuffer file, Map<Integer, Object> meta, Map<Integer, Object> element,
+            int numRows, List<Object> out) throws IOException {
+        final int codec = (Integer) meta.get(4);
+        final long start = meta.containsKey(11) ? (Long) meta.get(11) : (Long) meta.get(9);
+        file.position((int) start);
+        List<Object> dictionary = null;
+        while (file.position() < start + (Long) meta.get(7)) {
+            final Map<Integer, Object> header = readStruct(file);
+            final int uncompressedSize = (Integer) header.get(2);
+            final byte[] compressed = new byte[(Integer) header.get(3)];
+            file.get(compressed);
+            final ByteBuffer page = ByteBuffer.wrap(decompress(codec, compressed)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(uncompressedSize, page.limit());
+            if ((Integer) header.get(1) == 2) {
+                final Map<Integer, Object> dict = (Map<Integer, Object>) header.get(7);
+                dictionary = readPlain(page, element, (Integer) dict.get(1));
+                continue;
+            }
+            assertEquals(0, header.get(1));
+            final Map<Integer, Object> data = (Map<Integer, Object>) header.get(5);
+            assertEquals(numRows, data.get(1));
+            final int levelsLength = page.getInt();
+            final int[] levels = decodeHybrid(
+                    ByteBuffer.wrap(page.array(), page.position(), levelsLength), 1, numRows);
+            page.position(page.position() + levelsLength);
+            int nonNull = 0;
+            for (int level : levels) {
+                nonNull += level;
+            }
+            List<Object> values;
+            if ((Integer) data.get(2) == 2) {
+                final int bitWidth = page.get();
+                final int[] indices = decodeHybrid(page.slice(), bitWidth, nonNull);
+                values = new ArrayList<>();
+                for (int index : indices) {
+                    values.add(dictionary.get(index));
+                }
+            } else {
+                assertEquals(0, data.get(2));
+                values = readPlain(page, element, nonNull);
+                assertTrue(!page.hasRemaining());
+            }
+            int v = 0;
+            for (int level : levels) {
+                out.add(level == 0 ? null : values.get(v++));
+            }
+        }
+    }
+
+    private static byte[] decompress(int codec, byte[] data) throws IOException {
+        switch (codec) {
+        case 0:
+            return data;
+        case 1:
+            return Snappy.uncompress(data);
+        case 2:
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    out.write(buf, 0, n);
+                }
+                return out.toByteArray();
+            }
+        default:
+            throw new IOException("Unexpected codec " + codec);
+        }
+    }
+
+    private static List<Object> readPlain(ByteBuffer page, Map<Integer, Object> element, int count) {
+        final int type = (Integer) element.get(1);
+        final Object converted = element.get(6);
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (type) {
+            case 1:
+                values.add(page.getInt());
+                break;
+            case 2:
+                values.add(page.getLong());
+                break;
+            case 5:
+                values.add(page.getDouble());
+                break;
+            case 6: {
+                byte[] b = new byte[page.getInt()];
+                page.get(b);
+                values.add(converted == null ? b : new String(b, StandardCharsets.UTF_8));
+                break;
+            }
+            case 7: {
+                byte[] b = new byte[(Integer) element.get(2)];
+                page.get(b);
+                assertEquals(5, converted);
+                values.add(new BigDecimal(new BigInteger(b), (Integer) element.get(7)));
+                break;
+            }
+            default:
+                throw new AssertionError("Unexpected type " + type);
+            }
+        }
+        return values;
+    }
+
+    private static int[] decodeHybrid(ByteBuffer in, int bitWidth, int count) {
+        int[] values = new int[count];
+        int n = 0;
+        while (n < count) {
+            final long header = readUnsignedVarInt(in);
+            if ((header & 1) == 0) {
+                final int run = (int) (header >>> 1);
+                int value = 0;
+                for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+                    value |= (in.get() & 0xFF) << (b * 8);
+                }
+                for (int i = 0; i < run; i++) {
+                    values[n++] = value;
+                }
+            } else {
+                final int groups = (int) (header >>> 1);
+                long acc = 0;
+                int bits = 0;
+                for (int i = 0; i < groups * 8; i++) {
+                    while (bits < bitWidth) {
+                        acc |= (long) (in.get() & 0xFF) << bits;
+                        bits += 8;
+                    }
+                    final int value = (int) (acc & ((1L << bitWidth) - 1));
+                    acc >>>= bitWidth;
+                    bits -= bitWidth;
+                    if (n < count) {
+                        values[n++] = value;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static long readUnsignedVarInt(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        final long v = readUnsignedVarInt(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static Map<Integer, Object> readStruct(ByteBuffer in) {
+        Map<Integer, Object> fields = new HashMap<>();
+        int lastId = 0;
+        while (true) {
+            final int header = in.get() & 0xFF;
+            if (header == 0) {
+                return fields;
+            }
+            final int type = header & 0x0F;
+            final int delta = header >>> 4;
+            final int id = delta == 0 ? (int) readZigZag(in) : lastId + delta;
+            lastId = id;
+            fields.put(id, readValue(in, type));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, int type) {
+        switch (type) {
+        case 1:
+            return true;
+        case 2:
+            return false;
+        case 5:
+            return (int) readZigZag(in);
+        case 6:
+            return readZigZag(in);
+        case 8: {
+            byte[] b = new byte[(int) readUnsignedVarInt(in)];
+            in.get(b);
+            return b;
+        }
+        case 9: {
+            final int header = in.get() & 0xFF;
+            int size = header >>> 4;
+            if (size == 15) {
+                size = (int) readUnsignedVarInt(in);
+            }
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue(in, header & 0x0F));
+            }
+            return list;
+        }
+        case 12:
+            return readStruct(in);
+        default:
+            throw new AssertionError("Unexpected thrift type " + type);
+        }
+    }
+}
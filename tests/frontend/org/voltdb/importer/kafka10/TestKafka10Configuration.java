@@ -166,4 +166,19 @@ public class TestKafka10Configuration {
             Assert.assertTrue(e.getMessage().contains("contains a character other than ASCII alphanumerics"));
         }
     }
+
+    @Test
+    public void testBatch() throws Exception {
+
+        Properties p = new Properties();
+        p.setProperty("topics", "mytopic");
+        p.setProperty("procedure", "myproc");
+        p.setProperty("brokers", "localhost:9092");
+
+        // Messages are invoked one at a time unless asked otherwise
+        Assert.assertFalse(new KafkaStreamImporterConfig(p).isBatch());
+
+        p.setProperty("batch", "true");
+        Assert.assertTrue(new KafkaStreamImporterConfig(p).isBatch());
+    }
 }
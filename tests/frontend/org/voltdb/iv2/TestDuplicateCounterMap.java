@@ -0,0 +1,82 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.voltdb.iv2.SpScheduler.DuplicateCounterKey;
+
+import junit.framework.TestCase;
+
+public class TestDuplicateCounterMap extends TestCase {
+
+    @Test
+    public void testPairKeys() {
+        DuplicateCounterMap map = new DuplicateCounterMap();
+        DuplicateCounter a = mock(DuplicateCounter.class);
+        DuplicateCounter b = mock(DuplicateCounter.class);
+        assertNull(map.put(10, 20, a));
+        assertNull(map.put(20, 10, b));
+        assertSame(a, map.get(10, 20));
+        assertSame(b, map.get(20, 10));
+        assertNull(map.get(10, 10));
+        assertSame(a, map.put(10, 20, b));
+        assertSame(b, map.remove(10, 20));
+        assertNull(map.get(10, 20));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testSortedKeysAndStaleVersions() {
+        DuplicateCounterMap map = new DuplicateCounterMap();
+        // enough entries to force a few resizes
+        for (long txnId = 500; txnId > 0; txnId--) {
+            for (long spHandle = 3; spHandle > 0; spHandle--) {
+                map.put(txnId, spHandle, mock(DuplicateCounter.class));
+            }
+        }
+        List<DuplicateCounterKey> keys = map.sortedKeys();
+        assertEquals(1500, keys.size());
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+        }
+
+        map.removeStaleVersions(7, 3);
+        assertNull(map.get(7, 1));
+        assertNull(map.get(7, 2));
+        assertNotNull(map.get(7, 3));
+        assertNotNull(map.get(6, 1));
+
+        map.removeTxn(8);
+        assertNull(map.get(8, 3));
+        assertEquals(1500 - 5, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertTrue(map.sortedKeys().isEmpty());
+    }
+}
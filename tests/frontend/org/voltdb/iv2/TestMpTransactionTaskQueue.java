@@ -150,4 +150,32 @@ public class TestMpTransactionTaskQueue extends TestCase
         verify(m_MPpool).doWork(eq(readtxnid), any(TransactionTask.class));
         verify(m_MPpool).doWork(eq(readtxnid2), any(TransactionTask.class));
     }
+
+    // A full pool is asked to grow before reads are parked
+    @Test
+    public void testParkedReadsGrowPool()
+    {
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        when(m_MPpool.canAcceptWork()).thenReturn(false);
+
+        // The pool refuses to grow, the read is parked
+        txnId = txnId.makeNext();
+        long parkedtxnid = txnId.getTxnId();
+        m_dut.offer(makeTransactionTask(parkedtxnid, true));
+        verify(m_MPpool).tryGrow(anyLong());
+        verify(m_MPpool, never()).doWork(eq(parkedtxnid), any(TransactionTask.class));
+        verify(m_MPpool, times(1)).parked();
+        assertEquals(1, m_dut.size());
+
+        // The pool grows on the next offer and takes both reads
+        when(m_MPpool.tryGrow(anyLong())).thenReturn(true);
+        txnId = txnId.makeNext();
+        long nexttxnid = txnId.getTxnId();
+        m_dut.offer(makeTransactionTask(nexttxnid, true));
+        verify(m_MPpool).doWork(eq(parkedtxnid), any(TransactionTask.class));
+        verify(m_MPpool).doWork(eq(nexttxnid), any(TransactionTask.class));
+        verify(m_MPpool, times(2)).recordQueueWait(anyLong());
+        verify(m_MPpool, times(1)).parked();
+        assertEquals(0, m_dut.size());
+    }
 }
@@ -0,0 +1,237 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.voltdb.StarvationTracker;
+import org.voltdb.iv2.SiteTasker.SiteTaskerRunnable;
+
+import junit.framework.TestCase;
+
+public class TestSiteTaskerQueue extends TestCase
+{
+    private static class NumberedTask extends SiteTaskerRunnable {
+        final int m_producer;
+        final int m_seq;
+        NumberedTask(int producer, int seq) {
+            m_producer = producer;
+            m_seq = seq;
+        }
+        @Override
+        void run() {
+        }
+    }
+
+    private static SiteTaskerQueue getSiteTaskerQueue(boolean useMpscQueue) {
+        SiteTaskerQueue queue = new SiteTaskerQueue(0, useMpscQueue);
+        queue.setStarvationTracker(new StarvationTracker(0));
+        queue.setupQueueDepthTracker(0);
+        return queue;
+    }
+
+    private static void checkFifo(SiteTaskerQueue queue) throws InterruptedException {
+        final int count = SiteTaskerQueue.DRAIN_BATCH_SIZE * 3 + 5;
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer(new NumberedTask(0, i)));
+        }
+        assertEquals(count, queue.size());
+        assertEquals(0, ((NumberedTask) queue.peek()).m_seq);
+        for (int i = 0; i < count; i++) {
+            // Tasks offered while a batch is being handed out land behind it.
+            if (i == 1) {
+                assertTrue(queue.offer(new NumberedTask(0, count)));
+            }
+            assertEquals(i, ((NumberedTask) queue.take()).m_seq);
+        }
+        assertEquals(count, ((NumberedTask) queue.poll()).m_seq);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testFifoBlocking() throws InterruptedException {
+        checkFifo(getSiteTaskerQueue(false));
+    }
+
+    @Test
+    public void testFifoMpsc() throws InterruptedException {
+        checkFifo(getSiteTaskerQueue(true));
+    }
+
+    private static void checkClear(final SiteTaskerQueue queue) throws InterruptedException {
+        final int count = SiteTaskerQueue.DRAIN_BATCH_SIZE + 4;
+        for (int i = 0; i < count; i++) {
+            queue.offer(new NumberedTask(0, i));
+        }
+        queue.take();
+        // Another thread clears, then offers more tasks before the site thread gets to the queue
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                queue.clear();
+                queue.offer(new NumberedTask(0, count));
+                queue.offer(new NumberedTask(0, count + 1));
+            }
+        };
+        other.start();
+        other.join();
+        // Only the tasks offered before the clear are dropped, from the batch and from the queue
+        assertEquals(count, ((NumberedTask) queue.take()).m_seq);
+        assertEquals(count + 1, ((NumberedTask) queue.poll()).m_seq);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+
+        // A clear with nothing pending does not hold up the next task
+        queue.clear();
+        queue.offer(new NumberedTask(0, 0));
+        assertEquals(0, ((NumberedTask) queue.take()).m_seq);
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testClearBlocking() throws InterruptedException {
+        checkClear(getSiteTaskerQueue(false));
+    }
+
+    @Test
+    public void testClearMpsc() throws InterruptedException {
+        checkClear(getSiteTaskerQueue(true));
+    }
+
+    private static void checkPendingBatchIsVisible(final SiteTaskerQueue queue) throws Exception {
+        for (int i = 0; i < 4; i++) {
+            queue.offer(new NumberedTask(0, i));
+        }
+        queue.take();
+        // The tasks left the shared queue together, the batch is published as drained
+        final Object[] seen = new Object[2];
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                seen[0] = queue.peekFromAnyThread();
+                seen[1] = queue.size();
+            }
+        };
+        other.start();
+        other.join();
+        assertEquals(0, ((NumberedTask) seen[0]).m_seq);
+        assertEquals(4, seen[1]);
+        queue.take();
+        queue.take();
+        assertEquals(0, ((NumberedTask) queue.peekFromAnyThread()).m_seq);
+        // Until its last task is handed out
+        queue.take();
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPendingBatchIsVisibleBlocking() throws Exception {
+        checkPendingBatchIsVisible(getSiteTaskerQueue(false));
+    }
+
+    @Test
+    public void testPendingBatchIsVisibleMpsc() throws Exception {
+        checkPendingBatchIsVisible(getSiteTaskerQueue(true));
+    }
+
+    private static void checkProducers(final SiteTaskerQueue queue) throws Exception {
+        final int producers = 4;
+        final int perProducer = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.offer(new NumberedTask(producer, i));
+                        if (i % 1000 == 0) {
+                            // give the consumer a chance to park
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+
+        // Each producer's tasks must come out in the order it offered them.
+        int[] next = new int[producers];
+        for (int i = 0; i < producers * perProducer; i++) {
+            NumberedTask task = (NumberedTask) queue.take();
+            assertEquals(next[task.m_producer], task.m_seq);
+            next[task.m_producer]++;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducersBlocking() throws Exception {
+        checkProducers(getSiteTaskerQueue(false));
+    }
+
+    @Test
+    public void testMultipleProducersMpsc() throws Exception {
+        checkProducers(getSiteTaskerQueue(true));
+    }
+
+    @Test
+    public void testParkedConsumerIsWoken() throws Exception {
+        final SiteTaskerQueue queue = getSiteTaskerQueue(true);
+        final NumberedTask[] taken = new NumberedTask[1];
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    taken[0] = (NumberedTask) queue.take();
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        consumer.start();
+        // let the consumer exhaust its spin and park
+        Thread.sleep(50);
+        queue.offer(new NumberedTask(0, 42));
+        consumer.join(10000);
+        assertFalse(consumer.isAlive());
+        assertEquals(42, taken[0].m_seq);
+    }
+}
@@ -65,6 +65,20 @@ public class TestVoltMessageSerialization extends TestCase {
         assertEquals(buf1.remaining(), buf2.remaining());
         assertTrue(buf1.compareTo(buf2) == 0);
 
+        // A message deserialized from a pooled network buffer must not depend on it once it is recycled
+        ByteBuffer pooled = ByteBuffer.allocateDirect(buf1.remaining());
+        pooled.put(buf1.duplicate());
+        pooled.flip();
+        VoltMessage msg3 = vdbmf.createMessageFromPooledBuffer(pooled, -1);
+        pooled.clear();
+        while (pooled.hasRemaining()) {
+            pooled.put((byte) 0x5a);
+        }
+        ByteBuffer buf3 = ByteBuffer.allocate(msg3.getSerializedSize());
+        msg3.flattenToBuffer(buf3);
+        buf3.flip();
+        assertTrue(buf1.compareTo(buf3) == 0);
+
         return msg2;
     }
 
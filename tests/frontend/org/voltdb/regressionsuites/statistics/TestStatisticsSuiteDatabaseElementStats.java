@@ -312,7 +312,7 @@ public class TestStatisticsSuiteDatabaseElementStats extends StatisticsTestSuite
         // Validate the schema of PROCEDUREDETAIL
         results = client.callProcedure("@Statistics", "proceduredetail", 0).getResults();
         assertEquals(1, results.length);
-        expectedSchema = new ColumnInfo[20];
+        expectedSchema = new ColumnInfo[23];
         expectedSchema[0] = new ColumnInfo("TIMESTAMP", VoltType.BIGINT);
         expectedSchema[1] = new ColumnInfo("HOST_ID", VoltType.INTEGER);
         expectedSchema[2] = new ColumnInfo("HOSTNAME", VoltType.STRING);
@@ -333,6 +333,9 @@ public class TestStatisticsSuiteDatabaseElementStats extends StatisticsTestSuite
         expectedSchema[17] = new ColumnInfo("AVG_PARAMETER_SET_SIZE", VoltType.INTEGER);
         expectedSchema[18] = new ColumnInfo("ABORTS", VoltType.BIGINT);
         expectedSchema[19] = new ColumnInfo("FAILURES", VoltType.BIGINT);
+        expectedSchema[20] = new ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[21] = new ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[22] = new ColumnInfo("P999_EXECUTION_TIME", VoltType.BIGINT);
         expectedTable = new VoltTable(expectedSchema);
         validateSchema(results[0], expectedTable);
 
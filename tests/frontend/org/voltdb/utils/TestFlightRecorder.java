@@ -0,0 +1,115 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.voltdb.utils.FlightRecorder.Stage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TestFlightRecorder {
+
+    @Test
+    public void testRingWrapsAround() {
+        final FlightRecorder.Ring ring = new FlightRecorder.Ring(Thread.currentThread(), 4);
+        for (int i = 0; i < 10; i++) {
+            ring.put(Stage.QUEUE, 5, i, i * 10, i, i);
+        }
+
+        // The slot the writer would fill next is never trusted, so one less
+        // than the capacity survives.
+        final List<FlightRecorder.Event> events = ring.snapshot(Long.MIN_VALUE);
+        assertEquals(3, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(Stage.QUEUE, events.get(i).m_stage);
+            assertEquals(5, events.get(i).m_connectionId);
+            assertEquals(7 + i, events.get(i).m_key);
+            assertEquals((7 + i) * 10, events.get(i).m_arg);
+        }
+
+        // Events that started before the window are left out
+        assertEquals(1, ring.snapshot(9).size());
+    }
+
+    @Test
+    public void testChromeTrace() throws Exception {
+        final long ciHandle = 0x7e57ab1e0001L;
+        final long txnId = 0x7e57ab1e0002L;
+        final long start = System.nanoTime();
+        final Thread writer = new Thread(() -> {
+            FlightRecorder.recordTxn(Stage.RECEIVE, 1, ciHandle, 1, start);
+            FlightRecorder.recordTxn(Stage.QUEUE, 1, ciHandle, txnId);
+            FlightRecorder.record(Stage.EE, txnId, 2, start);
+            FlightRecorder.recordTxn(Stage.RESPOND, 1, ciHandle, 1);
+            // The same handle issued on another connection is another transaction
+            FlightRecorder.recordTxn(Stage.RECEIVE, 2, ciHandle, 1, start);
+        }, "FlightRecorderWriter");
+        writer.start();
+        writer.join();
+
+        final StringWriter out = new StringWriter();
+        assertTrue(FlightRecorder.writeChromeTrace(out, start) >= 4);
+
+        @SuppressWarnings("unchecked")
+        final List<Map<String, Object>> events = new ObjectMapper().readValue(out.toString(), List.class);
+        final List<String> phases = new ArrayList<>();
+        final Set<Object> receiveIds = new HashSet<>();
+        boolean sawThreadName = false;
+        for (Map<String, Object> event : events) {
+            if ("M".equals(event.get("ph"))) {
+                @SuppressWarnings("unchecked")
+                final Map<String, Object> args = (Map<String, Object>) event.get("args");
+                sawThreadName |= "FlightRecorderWriter".equals(args.get("name"));
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> args = (Map<String, Object>) event.get("args");
+            final Object key = args.containsKey("ciHandle") ? args.get("ciHandle") : args.get("txnId");
+            if (((Number) key).longValue() == ciHandle || ((Number) key).longValue() == txnId) {
+                phases.add(event.get("name") + ":" + event.get("ph"));
+                if ("RECEIVE:b".equals(event.get("name") + ":" + event.get("ph"))) {
+                    receiveIds.add(event.get("id"));
+                }
+            }
+        }
+
+        assertTrue(sawThreadName);
+        assertTrue(phases.toString(), phases.contains("RECEIVE:b"));
+        assertTrue(phases.toString(), phases.contains("QUEUE:n"));
+        assertTrue(phases.toString(), phases.contains("EE:X"));
+        assertTrue(phases.toString(), phases.contains("RESPOND:e"));
+        assertEquals(2, receiveIds.size());
+        assertTrue(receiveIds.contains("1:" + Long.toHexString(ciHandle)));
+    }
+}
@@ -0,0 +1,146 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.utils.BinaryDeque.OutputContainerFactory;
+
+/**
+ * Reads of finished segments through a read only mapping, enabled with PBD_MMAP_READS
+ */
+public class TestPBDMappedReads {
+    private static final VoltLogger LOG = new VoltLogger("EXPORT");
+    private static final String CURSOR_ID = "mapped";
+    private static final int ENTRY_COUNT = 16;
+    private static final OutputContainerFactory NO_COPY_FACTORY = new OutputContainerFactory() {
+        @Override
+        public BBContainer getContainer(int minimumSize) {
+            fail("Uncompressed entries should not be copied");
+            return null;
+        }
+    };
+
+    private File m_file;
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("PBD_MMAP_READS", "true");
+        TestPersistentBinaryDeque.setupTestDir();
+        m_file = new File(TestPersistentBinaryDeque.TEST_DIR, "mapped.pbd");
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("PBD_MMAP_READS");
+        TestPersistentBinaryDeque.tearDownTestDir();
+    }
+
+    private static ByteBuffer entry(int i) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(4096 + i);
+        while (buf.remaining() >= 4) {
+            buf.putInt(i);
+        }
+        buf.clear();
+        return buf;
+    }
+
+    private PBDRegularSegment<Void> writeSegment(boolean compress) throws IOException {
+        PBDRegularSegment<Void> segment = new PBDRegularSegment<>(1, m_file, LOG, null);
+        segment.openNewSegment(compress);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertTrue(segment.offer(DBBPool.wrapBB(entry(i)), PBDSegment.INVALID_ID, PBDSegment.INVALID_ID,
+                    PBDSegment.INVALID_TIMESTAMP) > 0);
+        }
+        segment.finalize(false);
+        return segment;
+    }
+
+    @Test
+    public void testUncompressedEntriesAreSlices() throws Exception {
+        PBDRegularSegment<Void> segment = writeSegment(false);
+        PBDSegmentReader<Void> reader = segment.openForRead(CURSOR_ID);
+        List<BBContainer> polled = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            BBContainer cont = reader.poll(NO_COPY_FACTORY);
+            assertTrue(cont.b().isDirect());
+            assertTrue(cont.b().isReadOnly());
+            assertEquals(entry(i), cont.b());
+            polled.add(cont);
+        }
+        assertNull(reader.poll(NO_COPY_FACTORY));
+        assertFalse(reader.allReadAndDiscarded());
+
+        // The slices stay readable after the segment is deleted until they are discarded
+        segment.closeAndDelete();
+        assertFalse(m_file.exists());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(entry(i), polled.get(i).b());
+            polled.get(i).discard();
+        }
+    }
+
+    @Test
+    public void testCompressedEntries() throws Exception {
+        PBDRegularSegment<Void> segment = writeSegment(true);
+        PBDSegmentReader<Void> reader = segment.openForRead(CURSOR_ID);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            BBContainer cont = reader.poll(DBBPool::allocateDirect);
+            assertEquals(entry(i), cont.b());
+            cont.discard();
+        }
+        assertTrue(reader.allReadAndDiscarded());
+        reader.close();
+        segment.closeAndDelete();
+    }
+
+    @Test
+    public void testActiveSegmentIsNotMapped() throws Exception {
+        PBDRegularSegment<Void> segment = new PBDRegularSegment<>(1, m_file, LOG, null);
+        segment.openNewSegment(false);
+        segment.offer(DBBPool.wrapBB(entry(0)), PBDSegment.INVALID_ID, PBDSegment.INVALID_ID,
+                PBDSegment.INVALID_TIMESTAMP);
+        PBDSegmentReader<Void> reader = segment.openForRead(CURSOR_ID);
+        BBContainer cont = reader.poll(DBBPool::allocateDirect);
+        assertFalse(cont.b().isReadOnly());
+        assertEquals(entry(0), cont.b());
+        cont.discard();
+        segment.closeAndDelete();
+    }
+}
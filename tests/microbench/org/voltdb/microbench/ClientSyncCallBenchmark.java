@@ -0,0 +1,167 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientConfig;
+import org.voltdb.client.ClientFactory;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+/**
+ * Client throughput against a {@link MockClusterNode}: one thread pipelining async
+ * calls with callbacks, versus many caller threads each making synchronous calls.
+ * Caller threads are virtual threads when the JVM supports them (JDK 21+) and
+ * platform threads otherwise, so the same benchmark shows what thread-per-request
+ * callers cost on either.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientSyncCallBenchmark {
+
+    static final int CALLS_PER_OP = 4096;
+
+    static Client connect(MockClusterNode server, boolean parkSyncCalls) throws Exception {
+        ClientConfig config = new ClientConfig();
+        config.setClientAffinity(false);
+        config.setMaxOutstandingTxns(CALLS_PER_OP * 2);
+        config.setParkSynchronousCalls(parkSyncCalls);
+        Client client = ClientFactory.createClient(config);
+        client.createConnection("localhost", server.getPort());
+        return client;
+    }
+
+    static ThreadFactory callerThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return Thread::new;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AsyncState {
+        MockClusterNode m_server;
+        Client m_client;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            m_server = new MockClusterNode();
+            m_client = connect(m_server, false);
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws Exception {
+            m_client.close();
+            m_server.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SyncState {
+        @Param({ "16", "256", "4096" })
+        int callers;
+
+        @Param({ "false", "true" })
+        boolean parkSyncCalls;
+
+        MockClusterNode m_server;
+        Client m_client;
+        ThreadFactory m_threads;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            m_server = new MockClusterNode();
+            m_client = connect(m_server, parkSyncCalls);
+            m_threads = callerThreadFactory();
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws Exception {
+            m_client.close();
+            m_server.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS_PER_OP)
+    public void asyncCallbacks(AsyncState state) throws Exception {
+        final CountDownLatch done = new CountDownLatch(CALLS_PER_OP);
+        final ProcedureCallback callback = new ProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponse response) {
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < CALLS_PER_OP; i++) {
+            state.m_client.callProcedure(callback, "Noop");
+        }
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS_PER_OP)
+    public void syncCallsPerThread(SyncState state) throws Exception {
+        final Client client = state.m_client;
+        final int callsPerCaller = CALLS_PER_OP / state.callers;
+        Thread[] callers = new Thread[state.callers];
+        for (int i = 0; i < callers.length; i++) {
+            callers[i] = state.m_threads.newThread(() -> {
+                try {
+                    for (int j = 0; j < callsPerCaller; j++) {
+                        client.callProcedure("Noop");
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            callers[i].start();
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.microbench;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.CommandLog.CompletionChecks;
+import org.voltdb.CommandLog.DurabilityListener;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.commandlog.GroupCommitCommandLog;
+import org.voltdb.iv2.SpScheduler.DurableUniqueIdListener;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.utils.VoltFile;
+
+/**
+ * Commit latency and throughput of {@link GroupCommitCommandLog}. Every benchmark thread acts as
+ * a site of its own partition, logs one transaction and waits until it is durable, so throughput
+ * shows how well concurrent sites share syncs and the sample times show the commit latency for
+ * each fsync interval.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CommandLogBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LogState {
+        @Param({"1", "2", "10"})
+        int fsyncIntervalMs;
+
+        @Param({"true", "false"})
+        boolean synchronous;
+
+        final AtomicInteger m_partitions = new AtomicInteger();
+        File m_dir;
+        GroupCommitCommandLog m_log;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            m_dir = File.createTempFile("clbench", null);
+            m_dir.delete();
+            m_dir.mkdir();
+            m_log = new GroupCommitCommandLog(synchronous, fsyncIntervalMs, Integer.MAX_VALUE, m_dir.getPath(),
+                    m_dir.getPath());
+            m_log.init(1024, Long.MIN_VALUE, null, new HashMap<Integer, Long>());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            m_log.shutdown();
+            VoltFile.recursivelyDelete(m_dir);
+        }
+    }
+
+    /**
+     * One site: its own partition and a listener that wakes the site when its tasks are durable
+     */
+    @State(Scope.Thread)
+    public static class SiteState implements DurabilityListener {
+        int m_partitionId;
+        TxnEgo m_ego;
+        long m_logged = 0;
+        long m_durable = 0;
+        int m_sinceLastList = 0;
+
+        @Setup(Level.Trial)
+        public void setUp(LogState log) {
+            m_partitionId = log.m_partitions.getAndIncrement();
+            m_ego = TxnEgo.makeZero(m_partitionId);
+        }
+
+        Iv2InitiateTaskMessage nextMessage() {
+            m_ego = m_ego.makeNext();
+            StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+            invocation.setProcName("Insert");
+            invocation.setParams(m_logged, "value", 3.3);
+            Iv2InitiateTaskMessage msg = new Iv2InitiateTaskMessage(1, 2, Long.MIN_VALUE, m_ego.getTxnId(),
+                    m_logged, false, true, false, invocation, 4, 5, false);
+            msg.setSpHandle(m_ego.getTxnId());
+            return msg;
+        }
+
+        synchronized void awaitDurable(long count) throws InterruptedException {
+            while (m_durable < count) {
+                wait();
+            }
+        }
+
+        @Override
+        public void configureUniqueIdListener(DurableUniqueIdListener listener, boolean install) {
+        }
+
+        @Override
+        public void createFirstCompletionCheck(boolean isSyncLogging, boolean commandLoggingEnabled) {
+        }
+
+        @Override
+        public boolean completionCheckInitialized() {
+            return true;
+        }
+
+        @Override
+        public void addTransaction(TransactionTask pendingTask) {
+            m_sinceLastList++;
+        }
+
+        @Override
+        public void initializeLastDurableUniqueId(long uniqueId) {
+        }
+
+        @Override
+        public int getNumberOfTasks() {
+            return m_sinceLastList;
+        }
+
+        @Override
+        public CompletionChecks startNewTaskList(int nextMaxRowCnt) {
+            final int count = m_sinceLastList;
+            m_sinceLastList = 0;
+            return new CompletionChecks() {
+                @Override
+                public CompletionChecks startNewCheckList(int startSize) {
+                    return null;
+                }
+
+                @Override
+                public void addTask(TransactionTask task) {
+                }
+
+                @Override
+                public void setLastDurableUniqueId(long uniqueId) {
+                }
+
+                @Override
+                public boolean isChanged() {
+                    return count > 0;
+                }
+
+                @Override
+                public int getTaskListSize() {
+                    return count;
+                }
+
+                @Override
+                public void processChecks() {
+                }
+            };
+        }
+
+        @Override
+        public synchronized void processDurabilityChecks(CompletionChecks completionChecks) {
+            m_durable += completionChecks.getTaskListSize();
+            notifyAll();
+        }
+    }
+
+    @Benchmark
+    public long commit(LogState log, SiteState site) throws Exception {
+        final Iv2InitiateTaskMessage msg = site.nextMessage();
+        log.m_log.log(msg, msg.getSpHandle(), null, site, null);
+        site.awaitDurable(++site.m_logged);
+        return site.m_logged;
+    }
+}
@@ -0,0 +1,115 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.utils.CompressionService;
+
+/**
+ * Snappy paths of {@link CompressionService} used by snapshots, PBD segments and
+ * large table transfers. Input is half random and half repeated so that the
+ * compressor has something to do without being trivially incompressible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionServiceBenchmark {
+
+    @Param({"4096", "2097152"})
+    public int size;
+
+    private BBContainer m_input;
+    private BBContainer m_output;
+    private BBContainer m_decompressed;
+    private ByteBuffer m_compressed;
+    private byte[] m_bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        m_bytes = new byte[size];
+        Random r = new Random(0);
+        r.nextBytes(m_bytes);
+        for (int i = size / 2; i < size; i++) {
+            m_bytes[i] = (byte) (i % 16);
+        }
+        m_input = DBBPool.allocateDirect(size);
+        m_input.b().put(m_bytes);
+        m_input.b().flip();
+        m_output = DBBPool.allocateDirect(CompressionService.maxCompressedLength(size));
+        m_decompressed = DBBPool.allocateDirect(size);
+
+        m_compressed = ByteBuffer.allocateDirect(CompressionService.maxCompressedLength(size));
+        CompressionService.compressBuffer(m_input.b().duplicate(), m_compressed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        m_input.discard();
+        m_output.discard();
+        m_decompressed.discard();
+    }
+
+    @Benchmark
+    public int compressDirect() throws IOException {
+        m_output.b().clear();
+        return CompressionService.compressBuffer(m_input.b().duplicate(), m_output.b());
+    }
+
+    @Benchmark
+    public byte[] compressToArray() throws IOException {
+        return CompressionService.compressBuffer(m_input.b().duplicate());
+    }
+
+    @Benchmark
+    public byte[] compressBytes() throws IOException {
+        return CompressionService.compressBytes(m_bytes);
+    }
+
+    @Benchmark
+    public int decompressDirect() throws IOException {
+        m_decompressed.b().clear();
+        return CompressionService.decompressBuffer(m_compressed.duplicate(), m_decompressed.b());
+    }
+}
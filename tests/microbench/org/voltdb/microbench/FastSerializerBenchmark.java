@@ -0,0 +1,117 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.FastSerializer;
+
+/**
+ * Primitive and string throughput of {@link FastSerializer} and {@link FastDeserializer},
+ * including the cost of growing the backing buffer from its initial allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastSerializerBenchmark {
+
+    private static final int VALUES = 256;
+    private static final String STRING_VALUE = "the quick brown fox jumps over the lazy dog";
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private FastSerializer m_reused;
+    private ByteBuffer m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        m_reused = new FastSerializer(true, direct);
+        FastSerializer fs = new FastSerializer();
+        writeValues(fs);
+        m_serialized = fs.getBuffer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        m_reused.discard();
+    }
+
+    private static void writeValues(FastSerializer fs) throws IOException {
+        for (int i = 0; i < VALUES; i++) {
+            fs.writeLong(i);
+            fs.writeInt(i);
+            fs.writeShort(i);
+            fs.writeByte(i);
+            fs.writeDouble(i);
+            fs.writeString(STRING_VALUE);
+        }
+    }
+
+    @Benchmark
+    public int serializeReused() throws IOException {
+        m_reused.clear();
+        writeValues(m_reused);
+        return m_reused.size();
+    }
+
+    @Benchmark
+    public byte[] serializeFresh() throws IOException {
+        FastSerializer fs = new FastSerializer();
+        writeValues(fs);
+        return fs.getBytes();
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole bh) throws IOException {
+        FastDeserializer fds = new FastDeserializer(m_serialized.duplicate());
+        for (int i = 0; i < VALUES; i++) {
+            bh.consume(fds.readLong());
+            bh.consume(fds.readInt());
+            bh.consume(fds.readShort());
+            bh.consume(fds.readByte());
+            bh.consume(fds.readDouble());
+            bh.consume(fds.readString());
+        }
+    }
+}
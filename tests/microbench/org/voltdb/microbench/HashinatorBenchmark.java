@@ -0,0 +1,86 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ElasticHashinator;
+import org.voltdb.VoltType;
+
+/**
+ * Partition lookup through {@link ElasticHashinator}, done for every single
+ * partition procedure invocation on both the client (affinity) and the server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashinatorBenchmark {
+
+    @Param({"8", "64"})
+    public int partitions;
+
+    private ElasticHashinator m_hashinator;
+    private long m_key;
+    private String m_stringKey;
+    private byte[] m_bytesKey;
+
+    @Setup
+    public void setup() {
+        m_hashinator = new ElasticHashinator(
+                ElasticHashinator.getConfigureBytes(partitions, ElasticHashinator.DEFAULT_TOTAL_TOKENS),
+                false);
+        m_key = 5555551212L;
+        m_stringKey = "customer-5555551212";
+        m_bytesKey = m_stringKey.getBytes();
+    }
+
+    @Benchmark
+    public int longKey() {
+        return m_hashinator.getHashedPartitionForParameter(VoltType.BIGINT, m_key++);
+    }
+
+    @Benchmark
+    public int stringKey() {
+        return m_hashinator.getHashedPartitionForParameter(VoltType.STRING, m_stringKey);
+    }
+
+    @Benchmark
+    public int bytesKey() {
+        return m_hashinator.getHashedPartitionForParameter(VoltType.VARBINARY, m_bytesKey);
+    }
+}
@@ -0,0 +1,201 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.network.Connection;
+import org.voltcore.network.QueueMonitor;
+import org.voltcore.network.VoltNetworkPool;
+import org.voltcore.network.VoltProtocolHandler;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.VoltTable;
+import org.voltdb.client.ClientAuthScheme;
+
+/**
+ * In-process stand-in for a cluster node, used to measure client overhead without a
+ * server: it accepts client logins and answers every invocation immediately with an
+ * empty SUCCESS response. Modeled on the mock server in TestDistributer.
+ */
+public class MockClusterNode extends Thread {
+    private static final VoltLogger LOG = new VoltLogger("HOST");
+
+    private final ServerSocketChannel m_socket;
+    private final VoltNetworkPool m_network;
+    private final List<SocketChannel> m_channels = new ArrayList<>();
+    private volatile boolean m_shutdown = false;
+
+    public MockClusterNode() throws IOException {
+        super("MockClusterNode acceptor");
+        setDaemon(true);
+        m_network = new VoltNetworkPool();
+        m_network.start();
+        m_socket = ServerSocketChannel.open();
+        m_socket.socket().bind(new InetSocketAddress("localhost", 0));
+        start();
+    }
+
+    public int getPort() {
+        return m_socket.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!m_shutdown) {
+                SocketChannel client = m_socket.accept();
+                login(client);
+                client.configureBlocking(false);
+                synchronized (m_channels) {
+                    m_channels.add(client);
+                }
+                m_network.registerChannel(client, new ResponseHandler(), null, null);
+            }
+        } catch (IOException e) {
+            if (!m_shutdown) {
+                LOG.error("MockClusterNode stopped accepting connections", e);
+            }
+        }
+    }
+
+    private static void readFully(SocketChannel client, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (client.read(buf) < 0) {
+                throw new IOException("Connection closed during login");
+            }
+        }
+        buf.flip();
+    }
+
+    private static void login(SocketChannel client) throws IOException {
+        client.configureBlocking(true);
+        // length, version and scheme
+        readFully(client, ByteBuffer.allocate(4));
+        readFully(client, ByteBuffer.allocate(1));
+        ByteBuffer schemeBuffer = ByteBuffer.allocate(1);
+        readFully(client, schemeBuffer);
+        ClientAuthScheme scheme = ClientAuthScheme.get(schemeBuffer.get());
+        // service, username and password digest
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(client, length);
+        readFully(client, ByteBuffer.allocate(length.getInt()));
+        length.clear();
+        readFully(client, length);
+        readFully(client, ByteBuffer.allocate(length.getInt()));
+        readFully(client, ByteBuffer.allocate(ClientAuthScheme.getDigestLength(scheme)));
+
+        ByteBuffer response = ByteBuffer.allocate(34);
+        response.putInt(30);
+        response.put((byte) 0); // version
+        response.put((byte) 0); // success
+        response.putInt(0);     // hostId
+        response.putLong(0);    // connectionId
+        response.putLong(0);    // instanceId timestamp
+        response.putInt(0);     // instanceId leader address
+        response.putInt(0);     // build string length
+        response.flip();
+        while (response.hasRemaining()) {
+            client.write(response);
+        }
+    }
+
+    public void shutdown() throws InterruptedException {
+        m_shutdown = true;
+        try {
+            m_socket.close();
+        } catch (IOException ignored) {
+        }
+        join();
+        m_network.shutdown();
+        synchronized (m_channels) {
+            for (SocketChannel sc : m_channels) {
+                try {
+                    sc.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static class ResponseHandler extends VoltProtocolHandler {
+        private static final VoltTable[] NO_RESULTS = new VoltTable[0];
+
+        @Override
+        public int getMaxRead() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void handleMessage(ByteBuffer message, Connection c) throws IOException {
+            StoredProcedureInvocation spi = new StoredProcedureInvocation();
+            spi.initFromBuffer(message);
+            ClientResponseImpl response =
+                    new ClientResponseImpl(ClientResponseImpl.SUCCESS, NO_RESULTS, null, spi.getClientHandle());
+            ByteBuffer buf = ByteBuffer.allocate(4 + response.getSerializedSize());
+            buf.putInt(buf.capacity() - 4);
+            response.flattenToBuffer(buf);
+            buf.flip();
+            c.writeStream().enqueue(buf);
+        }
+
+        @Override
+        public void starting(Connection c) {
+        }
+
+        @Override
+        public void started(Connection c) {
+        }
+
+        @Override
+        public void stopping(Connection c) {
+        }
+
+        @Override
+        public void stopped(Connection c) {
+        }
+
+        @Override
+        public Runnable offBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public Runnable onBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public QueueMonitor writestreamMonitor() {
+            return null;
+        }
+    }
+}
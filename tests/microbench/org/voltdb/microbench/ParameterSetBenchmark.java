@@ -0,0 +1,107 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ParameterSet;
+import org.voltdb.types.TimestampType;
+
+/**
+ * Serialization cost of the parameter sets carried by every procedure invocation.
+ * The "scalar" shape mirrors a typical key/value SP call, "mixed" adds strings,
+ * decimals and arrays the way bulk-ish procedures tend to use them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterSetBenchmark {
+
+    @Param({"scalar", "mixed"})
+    public String shape;
+
+    private ParameterSet m_params;
+    private ByteBuffer m_out;
+    private ByteBuffer m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        if ("scalar".equals(shape)) {
+            m_params = ParameterSet.fromArrayNoCopy(1234567L, 42, (short) 7, (byte) 1, 3.14159);
+        }
+        else {
+            m_params = ParameterSet.fromArrayNoCopy(
+                    1234567L,
+                    "some moderately sized string value",
+                    new BigDecimal("12345.678901234567"),
+                    new TimestampType(System.currentTimeMillis() * 1000),
+                    new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 },
+                    new long[] { 1, 2, 3, 4, 5, 6, 7, 8 },
+                    new String[] { "alpha", "beta", "gamma" });
+        }
+        m_out = ByteBuffer.allocate(m_params.getSerializedSize());
+        m_serialized = ByteBuffer.allocate(m_params.getSerializedSize());
+        m_params.flattenToBuffer(m_serialized);
+        m_serialized.flip();
+    }
+
+    @Benchmark
+    public ByteBuffer flattenToBuffer() throws IOException {
+        m_out.clear();
+        m_params.flattenToBuffer(m_out);
+        return m_out;
+    }
+
+    @Benchmark
+    public ParameterSet fromByteBuffer() throws IOException {
+        return ParameterSet.fromByteBuffer(m_serialized.duplicate());
+    }
+
+    @Benchmark
+    public ParameterSet roundTrip() throws IOException {
+        // fresh set each time so the cached serialized size is not reused
+        ParameterSet params = ParameterSet.fromArrayNoCopy(m_params.toArray());
+        m_out.clear();
+        params.flattenToBuffer(m_out);
+        m_out.flip();
+        return ParameterSet.fromByteBuffer(m_out);
+    }
+}
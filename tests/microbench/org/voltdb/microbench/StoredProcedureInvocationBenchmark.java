@@ -0,0 +1,105 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ParameterSet;
+import org.voltdb.StoredProcedureInvocation;
+
+/**
+ * Wire encoding of {@link StoredProcedureInvocation}: the client encodes one per call
+ * and the server decodes one per call before any routing happens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoredProcedureInvocationBenchmark {
+
+    private StoredProcedureInvocation m_invocation;
+    private ByteBuffer m_out;
+    private ByteBuffer m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        m_invocation = newInvocation();
+        m_out = ByteBuffer.allocate(m_invocation.getSerializedSize());
+        m_serialized = ByteBuffer.allocate(m_invocation.getSerializedSize());
+        m_invocation.flattenToBuffer(m_serialized);
+        m_serialized.flip();
+    }
+
+    private static StoredProcedureInvocation newInvocation() {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("Vote");
+        invocation.setClientHandle(42);
+        invocation.setParams(5555551212L, 4, 20000L);
+        return invocation;
+    }
+
+    @Benchmark
+    public ByteBuffer encode() throws IOException {
+        // a new invocation per call, as ClientImpl does
+        StoredProcedureInvocation invocation = newInvocation();
+        ByteBuffer buf = ByteBuffer.allocate(invocation.getSerializedSize());
+        invocation.flattenToBuffer(buf);
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeReusedBuffer() throws IOException {
+        m_out.clear();
+        m_invocation.flattenToBuffer(m_out);
+        return m_out;
+    }
+
+    @Benchmark
+    public StoredProcedureInvocation decode() throws IOException {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.initFromBuffer(m_serialized.duplicate());
+        return invocation;
+    }
+
+    @Benchmark
+    public ParameterSet decodeWithParams() throws IOException {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.initFromBuffer(m_serialized.duplicate());
+        return invocation.getParams();
+    }
+}
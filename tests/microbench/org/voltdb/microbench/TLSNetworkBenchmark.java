@@ -0,0 +1,280 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.KeyStore;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltcore.network.CipherExecutor;
+import org.voltcore.network.Connection;
+import org.voltcore.network.PicoNetwork;
+import org.voltcore.network.QueueMonitor;
+import org.voltcore.network.TLSPicoNetwork;
+import org.voltcore.network.VoltNetworkPool;
+import org.voltcore.network.VoltProtocolHandler;
+import org.voltcore.utils.ssl.SSLBufferDecrypter;
+import org.voltcore.utils.ssl.SSLBufferEncrypter;
+import org.voltdb.client.TLSHandshaker;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+/**
+ * Message throughput over one loopback connection with and without TLS, through
+ * {@link TLSPicoNetwork} (intra-cluster) and {@link org.voltcore.network.TLSVoltPort}
+ * (client). The far end is a plain blocking socket, so {@code outbound} measures the
+ * connection's encrypt and write path and {@code inbound} its read and decrypt path.
+ * With TLS on the far end does its own wrap or unwrap, which is counted too.
+ * The certificate comes from the keystore the TLS regression tests use, run it from
+ * the source root or point {@code -Dtls.keystore} at it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TLSNetworkBenchmark {
+
+    static final int MESSAGES_PER_OP = 1024;
+
+    @Param({ "pico", "port" })
+    public String transport;
+
+    @Param({ "false", "true" })
+    public boolean tls;
+
+    @Param({ "64", "1024", "16384" })
+    public int messageSize;
+
+    private final Semaphore m_received = new Semaphore(0);
+    private final Semaphore m_peerReceived = new Semaphore(0);
+
+    private ServerSocketChannel m_acceptor;
+    private SocketChannel m_peer;
+    private PicoNetwork m_pico;
+    private VoltNetworkPool m_pool;
+    private Connection m_connection;
+    private SSLEngine m_peerEngine;
+    private ExecutorService m_peerReader;
+    private ByteBuffer m_message;
+    private ByteBuffer m_inboundBatch;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        m_acceptor = ServerSocketChannel.open();
+        m_acceptor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        m_peer = SocketChannel.open(m_acceptor.getLocalAddress());
+        m_peer.socket().setTcpNoDelay(true);
+        SocketChannel local = m_acceptor.accept();
+        local.socket().setTcpNoDelay(true);
+
+        SSLEngine localEngine = null;
+        if (tls) {
+            KeyStore ks = KeyStore.getInstance("JKS");
+            try (InputStream in = new FileInputStream(System.getProperty("tls.keystore", "tests/frontend/org/voltdb/keystore"))) {
+                ks.load(in, "password".toCharArray());
+            }
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(ks, "password".toCharArray());
+            SslContext server = SslContextBuilder.forServer(kmf).build();
+            SslContext client = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+
+            localEngine = server.newEngine(ByteBufAllocator.DEFAULT);
+            m_peerEngine = client.newEngine(ByteBufAllocator.DEFAULT);
+            ExecutorService es = Executors.newSingleThreadExecutor();
+            try {
+                final TLSHandshaker peerShake = new TLSHandshaker(m_peer, m_peerEngine);
+                Future<Boolean> peerDone = es.submit(peerShake::handshake);
+                if (!new TLSHandshaker(local, localEngine).handshake() || !peerDone.get()) {
+                    throw new IOException("TLS handshake failed");
+                }
+            } finally {
+                es.shutdown();
+            }
+            CipherExecutor.SERVER.startup();
+        }
+        local.configureBlocking(false);
+
+        CountingHandler handler = new CountingHandler();
+        if ("pico".equals(transport)) {
+            m_pico = tls ? new TLSPicoNetwork(local, localEngine, CipherExecutor.SERVER) : new PicoNetwork(local);
+            m_pico.start(handler, new HashSet<Long>());
+        } else {
+            m_pool = new VoltNetworkPool();
+            m_pool.start();
+            m_connection = m_pool.registerChannel(local, handler, tls ? CipherExecutor.SERVER : null, localEngine);
+        }
+
+        m_message = ByteBuffer.allocate(4 + messageSize);
+        m_message.putInt(messageSize).position(0);
+        m_inboundBatch = ByteBuffer.allocate(MESSAGES_PER_OP * m_message.capacity());
+        for (int i = 0; i < MESSAGES_PER_OP; i++) {
+            m_inboundBatch.put(m_message.duplicate());
+        }
+        m_inboundBatch.flip();
+
+        m_peerReader = Executors.newSingleThreadExecutor();
+        m_peerReader.execute(tls ? this::readEncrypted : this::readPlain);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        if (m_pico != null) {
+            m_pico.shutdownAsync();
+        }
+        if (m_pool != null) {
+            m_pool.shutdown();
+        }
+        m_peer.close();
+        m_acceptor.close();
+        m_peerReader.shutdownNow();
+        if (tls) {
+            CipherExecutor.SERVER.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_OP)
+    public void outbound() throws InterruptedException {
+        for (int i = 0; i < MESSAGES_PER_OP; i++) {
+            if (m_pico != null) {
+                m_pico.enqueue(m_message.duplicate());
+            } else {
+                m_connection.writeStream().enqueue(m_message.duplicate());
+            }
+        }
+        m_peerReceived.acquire(m_inboundBatch.capacity());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_OP)
+    public void inbound() throws IOException, InterruptedException {
+        ByteBuffer batch = m_inboundBatch.duplicate();
+        if (tls) {
+            ByteBuf encrypted = new SSLBufferEncrypter(m_peerEngine).tlswrap(batch, PooledByteBufAllocator.DEFAULT);
+            try {
+                while (encrypted.isReadable()) {
+                    encrypted.readBytes(m_peer, encrypted.readableBytes());
+                }
+            } finally {
+                encrypted.release();
+            }
+        } else {
+            while (batch.hasRemaining()) {
+                m_peer.write(batch);
+            }
+        }
+        m_received.acquire(MESSAGES_PER_OP);
+    }
+
+    private void readPlain() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+        try {
+            int read;
+            while ((read = m_peer.read(buf)) >= 0) {
+                m_peerReceived.release(read);
+                buf.clear();
+            }
+        } catch (IOException closed) {
+        }
+    }
+
+    private void readEncrypted() {
+        SSLBufferDecrypter decrypter = new SSLBufferDecrypter(m_peerEngine);
+        ByteBuf frame = Unpooled.directBuffer(m_peerEngine.getSession().getPacketBufferSize());
+        try {
+            while (decrypter.readTLSFrame(m_peer, frame.clear())) {
+                ByteBuf clear = decrypter.tlsunwrap(frame.nioBuffer(), PooledByteBufAllocator.DEFAULT);
+                m_peerReceived.release(clear.readableBytes());
+                clear.release();
+            }
+        } catch (IOException closed) {
+        } finally {
+            frame.release();
+        }
+    }
+
+    private class CountingHandler extends VoltProtocolHandler {
+        @Override
+        public int getMaxRead() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void handleMessage(ByteBuffer message, Connection c) {
+            m_received.release();
+        }
+
+        @Override
+        public Runnable onBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public Runnable offBackPressure() {
+            return () -> {};
+        }
+
+        @Override
+        public QueueMonitor writestreamMonitor() {
+            return null;
+        }
+    }
+}
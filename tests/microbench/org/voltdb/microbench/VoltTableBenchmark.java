@@ -0,0 +1,126 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2020 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.voltdb.PrivateVoltTableFactory;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
+import org.voltdb.VoltType;
+
+/**
+ * Row building, row access and wire serialization of {@link VoltTable}, the
+ * container for every procedure result on the client and server side.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoltTableBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private static final VoltTable.ColumnInfo[] SCHEMA = new VoltTable.ColumnInfo[] {
+        new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+        new VoltTable.ColumnInfo("COUNT", VoltType.INTEGER),
+        new VoltTable.ColumnInfo("VALUE", VoltType.FLOAT),
+        new VoltTable.ColumnInfo("NAME", VoltType.STRING)
+    };
+
+    private VoltTable m_table;
+    private ByteBuffer m_out;
+    private ByteBuffer m_serialized;
+
+    @Setup
+    public void setup() {
+        m_table = buildTable(rows);
+        m_out = ByteBuffer.allocate(m_table.getSerializedSize());
+        m_serialized = ByteBuffer.allocate(m_table.getSerializedSize());
+        m_table.flattenToBuffer(m_serialized);
+        m_serialized.flip();
+        // skip the length prefix, tables are read from position 0 of their backing buffer
+        m_serialized.position(4);
+        m_serialized = m_serialized.slice();
+    }
+
+    private static VoltTable buildTable(int rowCount) {
+        VoltTable table = new VoltTable(SCHEMA);
+        for (int i = 0; i < rowCount; i++) {
+            table.addRow((long) i, i % 1000, i * 0.5, "name-" + (i % 64));
+        }
+        return table;
+    }
+
+    @Benchmark
+    public VoltTable addRow() {
+        return buildTable(rows);
+    }
+
+    @Benchmark
+    public void fetchRow(Blackhole bh) {
+        for (int i = 0; i < rows; i++) {
+            VoltTableRow row = m_table.fetchRow(i);
+            bh.consume(row.getLong(0));
+            bh.consume(row.getString(3));
+        }
+    }
+
+    @Benchmark
+    public void advanceRow(Blackhole bh) {
+        m_table.resetRowPosition();
+        while (m_table.advanceRow()) {
+            bh.consume(m_table.getLong(0));
+            bh.consume(m_table.getDouble(2));
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer flattenToBuffer() {
+        m_out.clear();
+        m_table.flattenToBuffer(m_out);
+        return m_out;
+    }
+
+    @Benchmark
+    public VoltTable fromBuffer() {
+        return PrivateVoltTableFactory.createVoltTableFromBuffer(m_serialized.duplicate(), true);
+    }
+}